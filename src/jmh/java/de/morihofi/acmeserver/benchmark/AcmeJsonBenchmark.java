@@ -0,0 +1,121 @@
+package de.morihofi.acmeserver.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.Identifier;
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.order.objects.ACMEOrderResponse;
+import de.morihofi.acmeserver.certificate.objects.ACMERequestBody;
+import de.morihofi.acmeserver.tools.json.GsonProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming type adapters of the ACME objects with reflection based Gson serialization. The reflection baseline uses copies of
+ * the objects without {@code @JsonAdapter} annotation. Run with the GC profiler to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AcmeJsonBenchmark {
+
+    private static final String REQUEST_BODY = "{\"protected\":\"eyJhbGciOiJFUzI1NiIsImtpZCI6Imh0dHBzOi8vZXhhbXBsZS5jb20vYWNtZS9hY2N0LzEiLCJub25jZSI6Im9GdlZ1ZiIsInVybCI6Imh0dHBzOi8vZXhhbXBsZS5jb20vYWNtZS9uZXctb3JkZXIifQ\","
+            + "\"payload\":\"eyJpZGVudGlmaWVycyI6W3sidHlwZSI6ImRucyIsInZhbHVlIjoid3d3LmV4YW1wbGUuY29tIn1dfQ\","
+            + "\"signature\":\"H6ZXtGjTZyUnPeKn5ePrbdVOBZgNFTzqRZfD9FL6fu_9Of3AcT-uQLRZcjddj40fnlzKMrQ3ZW2Ru-FsQcvrQA\"}";
+
+    private final Gson gson = GsonProvider.getGson();
+
+    private ACMEOrderResponse orderResponse;
+    private ReflectiveOrderResponse reflectiveOrderResponse;
+
+    @Setup
+    public void setup() {
+        List<Identifier> identifiers = List.of(new Identifier("dns", "www.example.com"), new Identifier("dns", "example.com"));
+        List<String> authorizations = List.of("https://acme.example.com/acme/default/acme/authz/a1", "https://acme.example.com/acme/default/acme/authz/a2");
+
+        orderResponse = new ACMEOrderResponse();
+        orderResponse.setStatus("pending");
+        orderResponse.setExpires("2024-10-01T00:00:00Z");
+        orderResponse.setFinalize("https://acme.example.com/acme/default/acme/order/o1/finalize");
+        orderResponse.setIdentifiers(identifiers);
+        orderResponse.setAuthorizations(authorizations);
+
+        reflectiveOrderResponse = new ReflectiveOrderResponse();
+        reflectiveOrderResponse.status = orderResponse.getStatus();
+        reflectiveOrderResponse.expires = orderResponse.getExpires();
+        reflectiveOrderResponse.finalize = orderResponse.getFinalize();
+        reflectiveOrderResponse.identifiers = identifiers.stream().map(identifier -> {
+            ReflectiveIdentifier reflectiveIdentifier = new ReflectiveIdentifier();
+            reflectiveIdentifier.type = identifier.getType();
+            reflectiveIdentifier.value = identifier.getValue();
+            return reflectiveIdentifier;
+        }).toList();
+        reflectiveOrderResponse.authorizations = authorizations;
+    }
+
+    @Benchmark
+    public String writeOrderResponseAdapter() {
+        return gson.toJson(orderResponse);
+    }
+
+    @Benchmark
+    public String writeOrderResponseReflection() {
+        return gson.toJson(reflectiveOrderResponse);
+    }
+
+    @Benchmark
+    public ACMERequestBody readRequestBodyAdapter() {
+        return gson.fromJson(REQUEST_BODY, ACMERequestBody.class);
+    }
+
+    @Benchmark
+    public ReflectiveRequestBody readRequestBodyReflection() {
+        return gson.fromJson(REQUEST_BODY, ReflectiveRequestBody.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AcmeJsonBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    public static class ReflectiveIdentifier {
+        private String type;
+        private String value;
+    }
+
+    public static class ReflectiveOrderResponse {
+        private String status;
+        private String expires;
+        private String issued;
+        private String finalize;
+        private String certificate;
+        private List<ReflectiveIdentifier> identifiers;
+        private List<String> authorizations;
+    }
+
+    public static class ReflectiveRequestBody {
+        @SerializedName("protected")
+        private String protectedHeader;
+        private String payload;
+        private String signature;
+    }
+}
@@ -0,0 +1,206 @@
+package de.morihofi.acmeserver.benchmark;
+
+import de.morihofi.acmeserver.config.certificateAlgorithms.AlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.EcdsaAlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.RSAAlgorithmParams;
+import de.morihofi.acmeserver.tools.certificate.CertMisc;
+import de.morihofi.acmeserver.tools.certificate.generator.KeyPairGenerator;
+import de.morihofi.acmeserver.tools.network.JettySslHelper;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures TLS handshakes against the API server context with an RSA-4096 and an ECDSA P-256 certificate, with and without session
+ * resumption, for TLS 1.3 and TLS 1.2. Client and server run in memory on {@link SSLEngine}s using Bouncy Castle JSSE, like the API connector, so the numbers only
+ * contain the cryptographic and protocol work of the handshake.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TlsHandshakeBenchmark {
+
+    private static final String HOST = "acme.example.com";
+
+    @Param({"rsa4096", "ecdsaP256"})
+    public String keyType;
+
+    @Param({"TLSv1.3", "TLSv1.2"})
+    public String protocol;
+
+    @Param({"false", "true"})
+    public boolean resumption;
+
+    private SSLContext serverContext;
+    private SSLContext clientContext;
+
+    @Setup
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        Security.addProvider(new BouncyCastleJsseProvider());
+
+        AlgorithmParams algorithm;
+        if ("rsa4096".equals(keyType)) {
+            algorithm = new RSAAlgorithmParams(4096);
+        } else {
+            algorithm = new EcdsaAlgorithmParams("secp256r1");
+        }
+        KeyPair keyPair = KeyPairGenerator.generateKeyPair(algorithm, BouncyCastleProvider.PROVIDER_NAME);
+        X509Certificate certificate = createSelfSignedCertificate(keyPair);
+
+        // Same path as the API connector, which loads the certificate from the keystore
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("server", keyPair.getPrivate(), "".toCharArray(), new X509Certificate[]{certificate});
+        serverContext = JettySslHelper.createSSLContext(keyStore, "server", "");
+        serverContext.getServerSessionContext().setSessionCacheSize(resumption ? 20480 : 1);
+
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("server", certificate);
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        clientContext = SSLContext.getInstance("TLS", BouncyCastleJsseProvider.PROVIDER_NAME);
+        clientContext.init(null, trustManagerFactory.getTrustManagers(), null);
+
+        // Fill the session caches once, so the measured handshakes of the resumption case are all abbreviated
+        handshake();
+    }
+
+    @Benchmark
+    public SSLEngine handshake() throws SSLException {
+        // Without a peer host and port the client engine never offers a cached session
+        SSLEngine client = resumption ? clientContext.createSSLEngine(HOST, 443) : clientContext.createSSLEngine();
+        client.setUseClientMode(true);
+        client.setEnabledProtocols(new String[]{protocol});
+        SSLEngine server = serverContext.createSSLEngine();
+        server.setUseClientMode(false);
+        runHandshake(client, server);
+        return client;
+    }
+
+    /**
+     * Drives the handshake of two engines connected by in-memory buffers until both are finished.
+     */
+    private static void runHandshake(SSLEngine client, SSLEngine server) throws SSLException {
+        int packetSize = Math.max(client.getSession().getPacketBufferSize(), server.getSession().getPacketBufferSize());
+        int applicationSize = Math.max(client.getSession().getApplicationBufferSize(), server.getSession().getApplicationBufferSize());
+        ByteBuffer clientToServer = ByteBuffer.allocate(packetSize);
+        ByteBuffer serverToClient = ByteBuffer.allocate(packetSize);
+        ByteBuffer clientApplication = ByteBuffer.allocate(applicationSize);
+        ByteBuffer serverApplication = ByteBuffer.allocate(applicationSize);
+        ByteBuffer empty = ByteBuffer.allocate(0);
+
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int round = 0; round < 100; round++) {
+            boolean progress = step(client, empty, clientToServer, serverToClient, clientApplication);
+            progress |= step(server, empty, serverToClient, clientToServer, serverApplication);
+            if (isFinished(client) && isFinished(server)) {
+                return;
+            }
+            if (!progress) {
+                throw new SSLException("Handshake stalled in state " + client.getHandshakeStatus() + "/" + server.getHandshakeStatus());
+            }
+        }
+        throw new SSLException("Handshake did not finish");
+    }
+
+    /**
+     * Performs the pending wrap, unwrap or task of one engine.
+     *
+     * @return {@code true} if the engine produced or consumed data.
+     */
+    private static boolean step(SSLEngine engine, ByteBuffer empty, ByteBuffer outgoing, ByteBuffer incoming, ByteBuffer application)
+            throws SSLException {
+        boolean progress = false;
+        while (true) {
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK -> {
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    progress = true;
+                }
+                case NEED_WRAP -> {
+                    SSLEngineResult result = engine.wrap(empty, outgoing);
+                    if (result.bytesProduced() == 0) {
+                        return progress;
+                    }
+                    progress = true;
+                }
+                case NEED_UNWRAP, NEED_UNWRAP_AGAIN -> {
+                    incoming.flip();
+                    SSLEngineResult result = engine.unwrap(incoming, application);
+                    incoming.compact();
+                    application.clear();
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW || result.bytesConsumed() == 0
+                            && result.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                        return progress;
+                    }
+                    progress = true;
+                }
+                default -> {
+                    return progress;
+                }
+            }
+        }
+    }
+
+    private static boolean isFinished(SSLEngine engine) {
+        SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+        return status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING || status == SSLEngineResult.HandshakeStatus.FINISHED;
+    }
+
+    private static X509Certificate createSelfSignedCertificate(KeyPair keyPair) throws Exception {
+        X500Name name = new X500Name("CN=" + HOST);
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(1));
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE, notBefore, notAfter, name,
+                keyPair.getPublic());
+        JcaContentSignerBuilder signerBuilder = new JcaContentSignerBuilder(CertMisc.getSignatureAlgorithmBasedOnKeyType(keyPair.getPrivate()));
+        return new JcaX509CertificateConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .getCertificate(builder.build(signerBuilder.build(keyPair.getPrivate())));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TlsHandshakeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package de.morihofi.acmeserver.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import io.javalin.Javalin;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a burst of concurrent requests takes when every request blocks on a slow challenge target, as HTTP-01 validation
+ * does, with Jetty's bounded platform thread pool and with virtual thread request handling. Virtual threads require Java 21 or newer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    private static final int SLOW_TARGET_DELAY_MILLIS = 500;
+    private static final int MAX_PLATFORM_THREADS = 16;
+    private static final int CONCURRENT_REQUESTS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private HttpServer slowTarget;
+    private Javalin app;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        slowTarget = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        slowTarget.setExecutor(Executors.newCachedThreadPool());
+        slowTarget.createContext("/.well-known/acme-challenge/token", exchange -> {
+            try {
+                Thread.sleep(SLOW_TARGET_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "token.thumbprint".getBytes(StandardCharsets.US_ASCII);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        slowTarget.start();
+
+        QueuedThreadPool threadPool = new QueuedThreadPool(MAX_PLATFORM_THREADS, 4, 60_000);
+        if ("virtual".equals(threads)) {
+            threadPool.setVirtualThreadsExecutor(VirtualThreads.getDefaultVirtualThreadsExecutor());
+        }
+
+        HttpClient backendClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest backendRequest = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + slowTarget.getAddress().getPort()
+                + "/.well-known/acme-challenge/token")).build();
+        app = Javalin.create(config -> config.jetty.threadPool = threadPool)
+                .post("/challenge", ctx -> {
+                    // Blocking validation call, like HTTPChallenge does
+                    ctx.result(backendClient.send(backendRequest, HttpResponse.BodyHandlers.ofString()).body());
+                })
+                .start(0);
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + app.port() + "/challenge"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        app.stop();
+        slowTarget.stop(0);
+    }
+
+    @Benchmark
+    public int concurrentRequests() throws Exception {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int succeeded = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.get().statusCode() == 200) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VirtualThreadsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
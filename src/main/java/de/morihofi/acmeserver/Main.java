@@ -18,6 +18,8 @@ package de.morihofi.acmeserver;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import de.morihofi.acmeserver.certificate.acme.challenges.ChallengeValidator;
+import de.morihofi.acmeserver.certificate.acme.challenges.MultiPerspectiveValidator;
 import de.morihofi.acmeserver.certificate.acme.security.NonceManager;
 import de.morihofi.acmeserver.config.Config;
 import de.morihofi.acmeserver.config.DatabaseConfig;
@@ -29,6 +31,7 @@ import de.morihofi.acmeserver.config.keyStoreHelpers.KeyStoreParams;
 import de.morihofi.acmeserver.config.keyStoreHelpers.PKCS11KeyStoreParams;
 import de.morihofi.acmeserver.config.keyStoreHelpers.PKCS12KeyStoreParams;
 import de.morihofi.acmeserver.database.HibernateUtil;
+import de.morihofi.acmeserver.database.migration.SchemaMigrator;
 import de.morihofi.acmeserver.postsetup.PostSetup;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.certificate.cryptoops.CryptoStoreManager;
@@ -200,6 +203,9 @@ public class Main {
             if (cliArgument.getParameterName().equals("migrate-pem-to-keystore")) {
                 selectedMode = MODE.KEYSTORE_MIGRATION_PEM2KS;
             }
+            if (cliArgument.getParameterName().equals("migrate-database")) {
+                selectedMode = MODE.DATABASE_MIGRATION;
+            }
             if (cliArgument.getParameterName().equals("postsetup")) {
                 selectedMode = MODE.POSTSETUP;
             }
@@ -214,10 +220,27 @@ public class Main {
                 serverOptions.add(SERVER_OPTION.USE_ASYNC_CERTIFICATE_ISSUING);
                 LOG.info("Enabled async certificate issuing");
             }
+            if (cliArgument.getParameterName().equals("option-use-virtual-threads")) {
+                serverOptions.add(SERVER_OPTION.USE_VIRTUAL_THREADS);
+                LOG.info("Enabled virtual threads for request handling");
+            }
+            if (cliArgument.getParameterName().equals("option-watch-configuration")) {
+                serverOptions.add(SERVER_OPTION.WATCH_CONFIGURATION);
+                LOG.info("Enabled reloading the provisioner configuration on changes");
+            }
         }
 
 
         Config config = loadServerConfiguration();
+
+        if (selectedMode == MODE.DATABASE_MIGRATION) {
+            // Runs before the server instance is created, as Hibernate validates the schema on initialization
+            LOG.info("Starting in database migration mode");
+            int applied = new SchemaMigrator(HibernateUtil.getJdbcDatabaseConfig(config)).migrate();
+            LOG.info("Database migration finished, {} migrations applied", applied);
+            return;
+        }
+
         serverInstance = getServerInstance(config, debug, CONFIG_PATH);
 
         switch (selectedMode) {
@@ -236,6 +259,7 @@ public class Main {
                 LOG.info("Starting in KeyStore migration Mode (PEM to KeyStore)");
                 KSMigrationTool.run(args, serverInstance.getCryptoStoreManager(), serverInstance.getAppConfig(), FILES_DIR);
             }
+            case DATABASE_MIGRATION -> throw new IllegalStateException("Database migration mode is handled before server startup");
         }
     }
 
@@ -259,15 +283,18 @@ public class Main {
         LOG.info("Initializing core components ...");
 
         HibernateUtil hibernateUtil = new HibernateUtil(config, debug);
+        NetworkClient networkClient = new NetworkClient(config.getNetwork());
 
         return new ServerInstance(
                 config,
                 configPath,
                 debug,
                 initializeCryptoStoreManagerCoreComponents(config),
-                new NetworkClient(config.getNetwork()),
+                networkClient,
                 hibernateUtil,
-                new NonceManager(hibernateUtil, debug)
+                new NonceManager(hibernateUtil, debug),
+                new ChallengeValidator(config.getNetwork().getChallengeValidation(),
+                        MultiPerspectiveValidator.fromConfig(networkClient, config.getNetwork()))
         );
     }
 
@@ -433,7 +460,11 @@ public class Main {
         /**
          * PEM to Keystore migrator
          **/
-        KEYSTORE_MIGRATION_PEM2KS
+        KEYSTORE_MIGRATION_PEM2KS,
+        /**
+         * Applies pending database schema migrations and exits
+         **/
+        DATABASE_MIGRATION
     }
 
     /**
@@ -443,6 +474,14 @@ public class Main {
         /**
          * Enables the async certificate issuing, that is currently a buggy in certbot.
          */
-        USE_ASYNC_CERTIFICATE_ISSUING
+        USE_ASYNC_CERTIFICATE_ISSUING,
+        /**
+         * Handles requests on virtual threads instead of Jetty's bounded platform thread pool. Requires Java 21 or newer.
+         */
+        USE_VIRTUAL_THREADS,
+        /**
+         * Reloads the provisioner configuration without restart when the configuration file changes.
+         */
+        WATCH_CONFIGURATION
     }
 }
@@ -17,16 +17,25 @@
 package de.morihofi.acmeserver;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import de.morihofi.acmeserver.api.API;
+import de.morihofi.acmeserver.certificate.acme.ratelimit.RateLimitBucketEvictor;
+import de.morihofi.acmeserver.certificate.acme.ratelimit.RateLimitStore;
 import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
+import de.morihofi.acmeserver.certificate.provisioners.ProvisionerCounterReconciler;
 import de.morihofi.acmeserver.certificate.provisioners.ProvisionerManager;
 import de.morihofi.acmeserver.certificate.queue.CertificateIssuer;
 import de.morihofi.acmeserver.certificate.revokeDistribution.CRLScheduler;
+import de.morihofi.acmeserver.config.Config;
 import de.morihofi.acmeserver.config.ProvisionerConfig;
-import de.morihofi.acmeserver.config.certificateAlgorithms.EcdsaAlgorithmParams;
-import de.morihofi.acmeserver.config.certificateAlgorithms.RSAAlgorithmParams;
+import de.morihofi.acmeserver.config.helper.ProvisionerConfigChanges;
+import de.morihofi.acmeserver.database.UnitOfWork;
+import de.morihofi.acmeserver.database.objects.ACMEAccount;
+import de.morihofi.acmeserver.database.retention.RetentionScheduler;
 import de.morihofi.acmeserver.exception.ACMEException;
 import de.morihofi.acmeserver.exception.exceptions.ACMEMalformedException;
+import de.morihofi.acmeserver.exception.exceptions.ACMERateLimitedException;
+import de.morihofi.acmeserver.exception.exceptions.ACMEServerInternalException;
 import de.morihofi.acmeserver.tools.JavalinSecurityHelper;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.certificate.cryptoops.CryptoStoreManager;
@@ -35,22 +44,30 @@ import de.morihofi.acmeserver.tools.certificate.generator.KeyPairGenerator;
 import de.morihofi.acmeserver.tools.certificate.helper.CaInitHelper;
 import de.morihofi.acmeserver.tools.certificate.renew.IntermediateCaRenew;
 import de.morihofi.acmeserver.tools.certificate.renew.watcher.CertificateRenewManager;
+import de.morihofi.acmeserver.tools.concurrent.VirtualThreads;
+import de.morihofi.acmeserver.tools.json.GsonProvider;
 import de.morihofi.acmeserver.tools.network.logging.HTTPAccessLogger;
+import de.morihofi.acmeserver.tools.path.FileChangeWatcher;
 import de.morihofi.acmeserver.tools.regex.ConfigCheck;
 import io.javalin.Javalin;
+import io.javalin.http.Context;
 import io.javalin.http.HandlerType;
 import io.javalin.http.staticfiles.Location;
 import io.javalin.json.JavalinGson;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.management.ManagementFactory;
 import java.security.KeyPair;
+import java.security.KeyStoreException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Web Server for the Website, API and ACME Service
@@ -84,6 +101,11 @@ public class WebServer {
      */
     private Javalin app = null;
 
+    /**
+     * Watches the configuration file when {@link Main.SERVER_OPTION#WATCH_CONFIGURATION} is set, {@code null} otherwise.
+     */
+    private FileChangeWatcher configurationWatcher = null;
+
     /**
      * Constructor for WebServer.
      *
@@ -107,13 +129,21 @@ public class WebServer {
 
         LOG.info("Initializing database");
         serverInstance.getHibernateUtil().initDatabase();
+        int backfilledThumbprints = ACMEAccount.backfillJwkThumbprints(serverInstance);
+        if (backfilledThumbprints > 0) {
+            LOG.info("Stored JWK thumbprints of {} existing ACME accounts", backfilledThumbprints);
+        }
 
         LOG.info("Starting ACME API WebServer");
         app = Javalin.create(config -> {
             // Static Files
             config.staticFiles.add("/webstatic", Location.CLASSPATH);
             // Object Mapper
-            config.jsonMapper(new JavalinGson());
+            config.jsonMapper(new JavalinGson(GsonProvider.getGson(), false));
+            // Thread pool
+            if (Main.getServerOptions().contains(Main.SERVER_OPTION.USE_VIRTUAL_THREADS)) {
+                config.jetty.threadPool = createVirtualThreadPool();
+            }
         });
 
         JavalinSecurityHelper.initSecureApi(app, serverInstance, certificateRenewManager);
@@ -132,6 +162,8 @@ public class WebServer {
                 throw new ACMEMalformedException("Invalid Content-Type header on POST. Content-Type must be \"application/jose+json\"");
             }
         });
+        // One database session and transaction per ACME request, shared by all entity helpers invoked while handling it
+        app.before("/acme/*", ctx -> UnitOfWork.begin(serverInstance.getHibernateUtil().getSessionFactory()));
         app.options("/*", ctx -> {
             ctx.status(204); // No Content
             ctx.header("Access-Control-Allow-Origin", "*");
@@ -140,30 +172,39 @@ public class WebServer {
             ctx.header("Access-Control-Max-Age", "3600");
         });
 
+        app.after("/acme/*", ctx -> {
+            // Protocol errors are regular responses (e.g. the nonce stays redeemed), only server errors discard the request's work
+            boolean saved = UnitOfWork.end(ctx.statusCode() < 500);
+            if (!saved && ctx.statusCode() < 400) {
+                // The response claims success, but the work of the request was rolled back
+                respondWithAcmeException(new ACMEServerInternalException("Unable to save the changes of this request"), ctx);
+            }
+        });
+
         app.after("/*", ctx -> {
             // This handler is just for access logging
             httpAccessLogger.log(ctx);
         });
 
-        app.exception(ACMEException.class, (exception, ctx) -> {
-            Gson gson = new Gson();
-
-            ctx.status(exception.getHttpStatusCode());
-            ctx.header("Content-Type", "application/problem+json");
-            ctx.result(gson.toJson(exception.getErrorResponse()));
-            LOG.error("ACME Exception thrown {} : {} ({})", exception.getClass().getSimpleName(), exception.getErrorResponse().getDetail(),
-                    exception.getErrorResponse().getType());
-        });
+        app.exception(ACMEException.class, WebServer::respondWithAcmeException);
 
         // Global routes
-        API.init(app, serverInstance);
+        API.init(app, serverInstance, httpAccessLogger);
 
+        // Provisioner routes, resolving the provisioner by name on each request
+        ProvisionerManager.registerRoutes(app);
         for (Provisioner provisioner : getProvisioners(serverInstance.getAppConfig().getProvisioner(), serverInstance.getCryptoStoreManager())) {
-            ProvisionerManager.registerProvisioner(app, provisioner, serverInstance);
+            ProvisionerManager.registerProvisioner(provisioner, serverInstance);
         }
 
         LOG.info("Starting the CRL generation Scheduler");
         CRLScheduler.startScheduler();
+        LOG.info("Starting the retention Scheduler");
+        RetentionScheduler.startScheduler();
+        LOG.info("Starting the statistic counter reconciler");
+        ProvisionerCounterReconciler.startScheduler(serverInstance);
+        LOG.info("Starting the rate limit bucket evictor");
+        RateLimitBucketEvictor.startScheduler();
         LOG.info("Starting the certificate renew watcher");
         certificateRenewManager.startScheduler();
 
@@ -176,6 +217,164 @@ public class WebServer {
         LOG.info("\u2705 Configure Routes completed. Ready for incoming requests");
         Main.startupTime = (System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()) / 1000L; // in seconds
         LOG.info("Startup took {} seconds", Main.startupTime);
+
+        if (Main.getServerOptions().contains(Main.SERVER_OPTION.WATCH_CONFIGURATION)) {
+            LOG.info("Watching {} for changes", serverInstance.getAppConfigPath());
+            configurationWatcher = new FileChangeWatcher(serverInstance.getAppConfigPath(), () -> {
+                try {
+                    reloadConfiguration();
+                } catch (Exception e) {
+                    LOG.error("Reloading the configuration failed, keeping the current configuration", e);
+                }
+            });
+            configurationWatcher.start();
+        }
+    }
+
+    /**
+     * Reloads the provisioner configuration without restarting the server. The configuration file is read again and compared with the
+     * running configuration by provisioner name:
+     * <ul>
+     *     <li>New provisioners are created (including their intermediate certificate if needed) and registered.</li>
+     *     <li>Changed provisioners are replaced by a new instance.</li>
+     *     <li>Removed provisioners are unregistered, their routes answer with 404 afterwards.</li>
+     * </ul>
+     * CRL generation, retention and the certificate renew watcher are updated accordingly. The provisioners are swapped atomically, requests
+     * in flight finish with the provisioner they started with. All new provisioners are created before anything is swapped, so an invalid
+     * configuration leaves the running configuration and the keystore untouched. Generated intermediate certificates are only saved to the
+     * keystore file once the provisioners have been swapped.
+     * <p>
+     * Changes outside the provisioner configuration (ports, database, keystore, ...) are only logged, they require a restart.
+     *
+     * @throws Exception If the configuration cannot be read or a provisioner cannot be created.
+     */
+    public synchronized void reloadConfiguration() throws Exception {
+        LOG.info("Reloading configuration");
+        Config currentConfig = serverInstance.getAppConfig();
+        Config newConfig = Main.loadServerConfiguration();
+        Gson gson = GsonProvider.getGson();
+
+        JsonObject currentServerConfig = gson.toJsonTree(currentConfig).getAsJsonObject();
+        JsonObject newServerConfig = gson.toJsonTree(newConfig).getAsJsonObject();
+        currentServerConfig.remove("provisioner");
+        newServerConfig.remove("provisioner");
+        if (!currentServerConfig.equals(newServerConfig)) {
+            LOG.warn("The configuration outside the provisioners has changed, these changes are applied on the next restart");
+        }
+
+        ProvisionerConfigChanges changes = ProvisionerConfigChanges.between(currentConfig.getProvisioner(), newConfig.getProvisioner());
+        if (changes.isEmpty()) {
+            LOG.info("Provisioner configuration is unchanged");
+            return;
+        }
+
+        // Create all new and changed provisioners first, so a failure doesn't leave a half applied configuration
+        CryptoStoreManager cryptoStoreManager = serverInstance.getCryptoStoreManager();
+        List<PreparedProvisioner> addedProvisioners = new ArrayList<>();
+        List<PreparedProvisioner> changedProvisioners = new ArrayList<>();
+        for (ProvisionerConfig provisionerConfig : changes.added()) {
+            addedProvisioners.add(prepareProvisioner(provisionerConfig, cryptoStoreManager, null));
+        }
+        for (ProvisionerConfig provisionerConfig : changes.changed()) {
+            // The replacement continues the in-memory rate limits, so a reload does not reset them
+            Provisioner currentProvisioner = ProvisionerManager.getProvisionerForName(provisionerConfig.getName());
+            changedProvisioners.add(prepareProvisioner(provisionerConfig, cryptoStoreManager,
+                    currentProvisioner != null ? currentProvisioner.getRateLimiter().getStore() : null));
+        }
+
+        // The new intermediates must be in the keystore before their provisioners serve requests, but are only saved after the swap
+        List<PreparedProvisioner> preparedProvisioners = new ArrayList<>(changedProvisioners);
+        preparedProvisioners.addAll(addedProvisioners);
+        List<String> storedAliases = new ArrayList<>();
+        try {
+            for (PreparedProvisioner preparedProvisioner : preparedProvisioners) {
+                if (storeIntermediate(preparedProvisioner, cryptoStoreManager)) {
+                    storedAliases.add(preparedProvisioner.intermediateKeyAlias());
+                }
+            }
+        } catch (Exception e) {
+            for (String alias : storedAliases) {
+                cryptoStoreManager.getKeyStore().deleteEntry(alias);
+            }
+            throw e;
+        }
+
+        for (String provisionerName : changes.removed()) {
+            ProvisionerManager.unregisterProvisioner(provisionerName);
+            certificateRenewManager.unregisterCertificateRenewWatcher(
+                    CryptoStoreManager.getKeyStoreAliasForProvisionerIntermediate(provisionerName));
+        }
+        for (PreparedProvisioner preparedProvisioner : changedProvisioners) {
+            ProvisionerManager.replaceProvisioner(preparedProvisioner.provisioner(), serverInstance);
+            certificateRenewManager.unregisterCertificateRenewWatcher(preparedProvisioner.intermediateKeyAlias());
+            registerCertificateRenewWatcher(preparedProvisioner.provisioner());
+        }
+        for (PreparedProvisioner preparedProvisioner : addedProvisioners) {
+            ProvisionerManager.registerProvisioner(preparedProvisioner.provisioner(), serverInstance);
+            registerCertificateRenewWatcher(preparedProvisioner.provisioner());
+        }
+        currentConfig.setProvisioner(newConfig.getProvisioner());
+
+        if (!storedAliases.isEmpty()) {
+            LOG.info("Saving KeyStore");
+            try {
+                cryptoStoreManager.saveKeystore();
+            } catch (Exception e) {
+                // The provisioners already use the new intermediates, they are saved with the next successful save of the keystore
+                LOG.error("Saving the intermediate certificates {} to the keystore failed, they are lost on restart unless the keystore "
+                        + "is saved again", storedAliases, e);
+            }
+        }
+        LOG.info("Configuration reloaded: {} provisioners added, {} changed, {} removed", changes.added().size(),
+                changes.changed().size(), changes.removed().size());
+    }
+
+    /**
+     * Answers a request with the problem document of an ACME exception.
+     *
+     * @param exception The exception to respond with.
+     * @param ctx       The context of the request.
+     */
+    private static void respondWithAcmeException(ACMEException exception, Context ctx) {
+        ctx.status(exception.getHttpStatusCode());
+        ctx.header("Content-Type", "application/problem+json");
+        if (exception instanceof ACMERateLimitedException rateLimitedException && rateLimitedException.getRetryAfterSeconds() > 0) {
+            ctx.header("Retry-After", String.valueOf(rateLimitedException.getRetryAfterSeconds()));
+        }
+        ctx.result(GsonProvider.getGson().toJson(exception.getErrorResponse()));
+        LOG.error("ACME Exception thrown {} : {} ({})", exception.getClass().getSimpleName(), exception.getErrorResponse().getDetail(),
+                exception.getErrorResponse().getType());
+    }
+
+    /**
+     * Creates the Jetty thread pool for handling requests on virtual threads. Jetty keeps its selectors and acceptors on the platform
+     * threads of the pool and dispatches the (blocking) request handling, e.g. database access and challenge validation, to virtual
+     * threads. Falls back to the default platform thread pool if virtual threads are not supported by the running JVM.
+     *
+     * @return The thread pool, or {@code null} to use Javalin's default thread pool.
+     */
+    static ThreadPool createVirtualThreadPool() {
+        if (!VirtualThreads.isSupported()) {
+            LOG.warn("Virtual threads require Java 21 or newer, running on Java {}. Using platform threads for request handling",
+                    Runtime.version().feature());
+            return null;
+        }
+
+        LOG.info("Handling requests on virtual threads");
+        return createVirtualThreadPool(VirtualThreads.newVirtualThreadPerTaskExecutor("acme-request-"));
+    }
+
+    /**
+     * Creates the Jetty thread pool that dispatches the request handling to the given virtual thread executor.
+     *
+     * @param virtualThreadsExecutor Executor running each task on a new virtual thread.
+     * @return The thread pool.
+     */
+    static QueuedThreadPool createVirtualThreadPool(Executor virtualThreadsExecutor) {
+        QueuedThreadPool threadPool = new QueuedThreadPool(250, 8, 60_000);
+        threadPool.setName("JettyServerThreadPool");
+        threadPool.setVirtualThreadsExecutor(virtualThreadsExecutor);
+        return threadPool;
     }
 
     /**
@@ -192,154 +391,127 @@ public class WebServer {
         List<Provisioner> provisioners = new ArrayList<>();
 
         for (ProvisionerConfig config : provisionerConfigList) {
-            String provisionerName = config.getName();
-
-            if (!ConfigCheck.isValidProvisionerName(provisionerName)) {
-                throw new IllegalArgumentException("Invalid provisioner name in config. Can only contain a-z, numbers, \"-\" and \"_\"");
-            }
-            final String IntermediateKeyAlias = CryptoStoreManager.getKeyStoreAliasForProvisionerIntermediate(provisionerName);
-
-            KeyPair intermediateKeyPair = null;
-            X509Certificate intermediateCertificate;
-            final Provisioner provisioner = new Provisioner(
-                    provisionerName,
-                    config.getMeta(),
-                    config.getIssuedCertificateExpiration(),
-                    config.getDomainNameRestriction(),
-                    config.isWildcardAllowed(),
-                    cryptoStoreManager,
-                    config,
-                    config.isIpAllowed(),
-                    serverInstance
-            );
-
-            // Check if root ca does exist
-            assert cryptoStoreManager.getKeyStore().containsAlias(CryptoStoreManager.KEYSTORE_ALIAS_ROOTCA);
-
-            if (!cryptoStoreManager.getKeyStore().containsAlias(IntermediateKeyAlias)) {
-
-                // *****************************************
-                // Create Intermediate Certificate
-
-                if (config.getIntermediate().getAlgorithm() instanceof RSAAlgorithmParams rsaParams) {
-                    LOG.info("Using RSA algorithm");
-                    LOG.info("Generating RSA {} bit Key Pair for Intermediate CA", rsaParams.getKeySize());
-                    intermediateKeyPair = KeyPairGenerator.generateRSAKeyPair(rsaParams.getKeySize(),
-                            cryptoStoreManager.getKeyStore().getProvider().getName());
-                }
-                if (config.getIntermediate().getAlgorithm() instanceof EcdsaAlgorithmParams ecdsaAlgorithmParams) {
-                    LOG.info("Using ECDSA algorithm (Elliptic curves)");
-
-                    LOG.info("Generating ECDSA Key Pair using curve {} for Intermediate CA", ecdsaAlgorithmParams.getCurveName());
-                    intermediateKeyPair = KeyPairGenerator.generateEcdsaKeyPair(ecdsaAlgorithmParams.getCurveName(),
-                            cryptoStoreManager.getKeyStore().getProvider().getName());
-                }
-                if (intermediateKeyPair == null) {
-                    throw new IllegalArgumentException("Unknown algorithm " + config.getIntermediate().getAlgorithm()
-                            + " used for intermediate certificate in provisioner " + provisionerName);
-                }
-
-                LOG.info("Generating Intermediate CA");
-                intermediateCertificate =
-                        CertificateAuthorityGenerator.createIntermediateCaCertificate(cryptoStoreManager, intermediateKeyPair,
-                                config.getIntermediate().getMetadata(), config.getIntermediate().getExpiration(),
-                                provisioner.getFullCrlUrl(), provisioner.getFullOcspUrl());
-                LOG.info("Storing generated Intermedia CA");
-                X509Certificate[] chain = new X509Certificate[]{intermediateCertificate,
-                        (X509Certificate) cryptoStoreManager.getKeyStore().getCertificate(CryptoStoreManager.KEYSTORE_ALIAS_ROOTCA)};
-                cryptoStoreManager.getKeyStore().setKeyEntry(
-                        IntermediateKeyAlias,
-                        intermediateKeyPair.getPrivate(),
-                        "".toCharArray(),
-                        chain
-                );
+            PreparedProvisioner preparedProvisioner = prepareProvisioner(config, cryptoStoreManager, null);
+            if (storeIntermediate(preparedProvisioner, cryptoStoreManager)) {
                 LOG.info("Saving KeyStore");
                 cryptoStoreManager.saveKeystore();
             }
-            // Initialize the CertificateRenewWatcher for this provisioner
-            certificateRenewManager.registerNewCertificateRenewWatcher(IntermediateKeyAlias, provisioner,
-                    (givenProvisioner, x509Certificate, keyPair) -> {
-                        return IntermediateCaRenew.renewIntermediateCertificate(keyPair, givenProvisioner,
-                                givenProvisioner.getCryptoStoreManager(), IntermediateKeyAlias);
-                    });
-
-            provisioners.add(provisioner);
+            registerCertificateRenewWatcher(preparedProvisioner.provisioner());
+            provisioners.add(preparedProvisioner.provisioner());
         }
         return provisioners;
     }
 
-    /*    *//**
-     * see {@link #reloadConfiguration(Runnable)}
-     *//*
-    public static void reloadConfiguration() throws Exception {
-        reloadConfiguration(null);
-    }*/
-
     /**
-     * Reloads the application's configuration, effectively restarting the service. This method is designed to shut down all components of
-     * the application gracefully and then restart them with the updated configuration. This process is essential for applying configuration
-     * changes without stopping the application process entirely. Optionally, a custom runnable can be executed after all components are
-     * shut down but before the application restarts.
-     *
-     * <p>Steps performed during the reload process include:</p>
-     * <ul>
-     *     <li>Logging the start of the configuration reload process.</li>
-     *     <li>Initiating the shutdown sequence for all components, including the web server, CRL generators,
-     *     certificate watchers, and optionally the certificate issuer if asynchronous certificate issuing is
-     *     enabled.</li>
-     *     <li>Shutting down the database connection pool and other database-related resources.</li>
-     *     <li>Executing an optional {@link Runnable} provided as a parameter, which can be used for custom
-     *     cleanup or preparation tasks before the application restarts.</li>
-     *     <li>Restarting the application by calling the {@code main} method with the previously used runtime
-     *     arguments, thereby reloading the configuration and reinitializing all components.</li>
-     * </ul>
+     * A created provisioner whose intermediate certificate may not be stored in the keystore yet.
      *
-     * <p>This method aims to minimize service disruption during the reload process and ensures that all
-     * components are reinitialized cleanly with the new configuration settings.</p>
-     *
-     * @param runWhenEverythingIsShutDown an optional {@link Runnable} to be executed after shutdown but before the application is
-     *                                    restarted. This can be used for tasks that should run in a clean state, such as cleanup
-     *                                    operations.
-     * @throws Exception if any error occurs during the shutdown or restart process.
+     * @param provisioner          The provisioner.
+     * @param intermediateKeyAlias Keystore alias of the intermediate certificate.
+     * @param intermediateKeyPair  Generated key pair of the intermediate certificate, {@code null} if it already exists in the keystore.
+     * @param intermediateChain    Generated certificate chain of the intermediate certificate, {@code null} if it already exists.
      */
-/*
-
-    public static void reloadConfiguration(Runnable runWhenEverythingIsShutDown) throws Exception {
-        LOG.info("Reloading configuration was triggered. Service will be disrupted for a moment, please wait ...");
-        LOG.info("Initiating shutdown of components ...");
-
-        LOG.info("Shutting down WebServer");
-        app.stop();
-        app = null;
-
-        LOG.info("Shutting down CRL scheduler");
-        CRLScheduler.shutdown();
-
-        LOG.info("Shutting down Certificate watchers");
+    private record PreparedProvisioner(Provisioner provisioner, String intermediateKeyAlias, KeyPair intermediateKeyPair,
+                                       X509Certificate[] intermediateChain) {
+    }
 
-        LOG.info("Gracefully shutdown certificate watchers");
-        certificateRenewManager.shutdown();
+    /**
+     * Creates a provisioner from its configuration and generates its intermediate certificate if it does not exist yet. A generated
+     * intermediate certificate is not stored, see {@link #storeIntermediate(PreparedProvisioner, CryptoStoreManager)}.
+     *
+     * @param config             The provisioner configuration.
+     * @param cryptoStoreManager Instance of {@link CryptoStoreManager} for accessing KeyStores
+     * @param rateLimitStore     Rate limit store of the provisioner being replaced, {@code null} for a new provisioner.
+     * @return The created provisioner.
+     * @throws IllegalArgumentException If the configuration is invalid or the configured intermediate algorithm doesn't match the existing
+     *                                  intermediate certificate.
+     * @throws Exception                If the intermediate certificate cannot be generated.
+     */
+    private PreparedProvisioner prepareProvisioner(ProvisionerConfig config, CryptoStoreManager cryptoStoreManager,
+                                                   RateLimitStore rateLimitStore) throws Exception {
+        String provisionerName = config.getName();
 
-        if (Main.getServerOptions().contains(Main.SERVER_OPTION.USE_ASYNC_CERTIFICATE_ISSUING)) {
-            LOG.info("Shutting down Certificate Issuer");
-            CertificateIssuer.shutdown();
+        if (!ConfigCheck.isValidProvisionerName(provisionerName)) {
+            throw new IllegalArgumentException("Invalid provisioner name in config. Can only contain a-z, numbers, \"-\" and \"_\"");
+        }
+        final String IntermediateKeyAlias = CryptoStoreManager.getKeyStoreAliasForProvisionerIntermediate(provisionerName);
+
+        final Provisioner provisioner = new Provisioner(
+                provisionerName,
+                config.getMeta(),
+                config.getIssuedCertificateExpiration(),
+                config.getDomainNameRestriction(),
+                config.isWildcardAllowed(),
+                cryptoStoreManager,
+                config,
+                config.isIpAllowed(),
+                serverInstance,
+                rateLimitStore
+        );
+
+        // Check if root ca does exist
+        assert cryptoStoreManager.getKeyStore().containsAlias(CryptoStoreManager.KEYSTORE_ALIAS_ROOTCA);
+
+        if (cryptoStoreManager.getKeyStore().containsAlias(IntermediateKeyAlias)) {
+            X509Certificate existingCertificate = (X509Certificate) cryptoStoreManager.getKeyStore().getCertificate(IntermediateKeyAlias);
+            if (!KeyPairGenerator.matchesAlgorithm(existingCertificate.getPublicKey(), config.getIntermediate().getAlgorithm())) {
+                throw new IllegalArgumentException("The configured intermediate algorithm of provisioner " + provisionerName
+                        + " doesn't match the existing intermediate certificate (" + existingCertificate.getPublicKey().getAlgorithm()
+                        + "). The algorithm of an existing intermediate certificate cannot be changed, restore the previous algorithm "
+                        + "or remove " + IntermediateKeyAlias + " from the keystore");
+            }
+            return new PreparedProvisioner(provisioner, IntermediateKeyAlias, null, null);
         }
 
-        LOG.info("Shutting down Database");
-        HibernateUtil.shutdown();
-
-        // At this point the VM should shut down itself with exit code 0,
-        // so that all threads are exited at this point. If you develop and/or reload configuration,
-        // consider checking this by temporarily comment out following code after this comment
+        // *****************************************
+        // Create Intermediate Certificate
+        LOG.info("Generating Key Pair for Intermediate CA of provisioner {}", provisionerName);
+        KeyPair intermediateKeyPair = KeyPairGenerator.generateKeyPair(config.getIntermediate().getAlgorithm(),
+                cryptoStoreManager.getKeyStore().getProvider().getName());
+
+        LOG.info("Generating Intermediate CA");
+        X509Certificate intermediateCertificate =
+                CertificateAuthorityGenerator.createIntermediateCaCertificate(cryptoStoreManager, intermediateKeyPair,
+                        config.getIntermediate().getMetadata(), config.getIntermediate().getExpiration(),
+                        provisioner.getFullCrlUrl(), provisioner.getFullOcspUrl());
+        X509Certificate[] chain = new X509Certificate[]{intermediateCertificate,
+                (X509Certificate) cryptoStoreManager.getKeyStore().getCertificate(CryptoStoreManager.KEYSTORE_ALIAS_ROOTCA)};
+        return new PreparedProvisioner(provisioner, IntermediateKeyAlias, intermediateKeyPair, chain);
+    }
 
-        if (runWhenEverythingIsShutDown != null) {
-            // Run things you normally wouldn't do, cause due to running thread this can end
-            // in an unpredictable behaviour
-            runWhenEverythingIsShutDown.run();
+    /**
+     * Stores the generated intermediate certificate of a provisioner in the keystore, without saving the keystore file.
+     *
+     * @param preparedProvisioner The prepared provisioner.
+     * @param cryptoStoreManager  Instance of {@link CryptoStoreManager} for accessing KeyStores
+     * @return {@code true} if an intermediate certificate was stored, {@code false} if the provisioner uses an existing one.
+     * @throws KeyStoreException If the intermediate certificate cannot be stored.
+     */
+    private static boolean storeIntermediate(PreparedProvisioner preparedProvisioner, CryptoStoreManager cryptoStoreManager)
+            throws KeyStoreException {
+        if (preparedProvisioner.intermediateKeyPair() == null) {
+            return false;
         }
+        LOG.info("Storing generated Intermedia CA");
+        cryptoStoreManager.getKeyStore().setKeyEntry(
+                preparedProvisioner.intermediateKeyAlias(),
+                preparedProvisioner.intermediateKeyPair().getPrivate(),
+                "".toCharArray(),
+                preparedProvisioner.intermediateChain()
+        );
+        return true;
+    }
 
-        // Reload config and turn everything back on by relaunching the main()
-        Main.restartMain();
+    /**
+     * Initializes the CertificateRenewWatcher for the intermediate certificate of a provisioner.
+     *
+     * @param provisioner The provisioner whose intermediate certificate is watched.
+     */
+    private void registerCertificateRenewWatcher(Provisioner provisioner) {
+        final String IntermediateKeyAlias = CryptoStoreManager.getKeyStoreAliasForProvisionerIntermediate(provisioner.getProvisionerName());
+        certificateRenewManager.registerNewCertificateRenewWatcher(IntermediateKeyAlias, provisioner,
+                (givenProvisioner, x509Certificate, keyPair) -> {
+                    return IntermediateCaRenew.renewIntermediateCertificate(keyPair, givenProvisioner,
+                            givenProvisioner.getCryptoStoreManager(), IntermediateKeyAlias);
+                });
     }
-*/
 }
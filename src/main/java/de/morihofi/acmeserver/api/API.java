@@ -10,6 +10,8 @@
 
 package de.morihofi.acmeserver.api;
 
+import de.morihofi.acmeserver.api.accessLog.AccessLogStatisticHandler;
+import de.morihofi.acmeserver.api.challengeValidation.ChallengeValidationStatisticHandler;
 import de.morihofi.acmeserver.api.download.DownloadCaCabHandler;
 import de.morihofi.acmeserver.api.download.DownloadCaDerHandler;
 import de.morihofi.acmeserver.api.download.DownloadCaPemHandler;
@@ -21,6 +23,7 @@ import de.morihofi.acmeserver.api.provisioner.statistics.ProvisionerStatisticHan
 import de.morihofi.acmeserver.api.serverInfo.ApiServerInfoEndpoint;
 import de.morihofi.acmeserver.api.troubleshooting.DnsResolverHandler;
 import de.morihofi.acmeserver.tools.ServerInstance;
+import de.morihofi.acmeserver.tools.network.logging.HTTPAccessLogger;
 import io.javalin.Javalin;
 
 /**
@@ -33,8 +36,9 @@ public class API {
      *
      * @param app           The Javalin app instance to configure.
      * @param serverInstance The server instance providing necessary server configurations and services.
+     * @param httpAccessLogger The HTTP access logger, for its statistics.
      */
-    public static void init(Javalin app, ServerInstance serverInstance) {
+    public static void init(Javalin app, ServerInstance serverInstance, HTTPAccessLogger httpAccessLogger) {
         // CA Downloads
         app.get("/ca.crt", new DownloadCaPemHandler(serverInstance));
         app.get("/ca.pem", new DownloadCaPemHandler(serverInstance));
@@ -50,6 +54,8 @@ public class API {
         // Statistics
         app.get("/api/stats/provisioner/all", new ProvisionerStatisticHandler(serverInstance));
         app.get("/api/stats/provisioner/global", new ProvisionerGlobalStatisticHandler(serverInstance));
+        app.get("/api/stats/access-log", new AccessLogStatisticHandler(httpAccessLogger));
+        app.get("/api/stats/challenge-validation", new ChallengeValidationStatisticHandler(serverInstance));
         // Troubleshooting
         app.post("/api/troubleshooting/dns-resolver", new DnsResolverHandler(serverInstance));
 
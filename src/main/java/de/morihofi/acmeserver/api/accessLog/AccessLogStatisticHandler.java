@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.api.accessLog;
+
+import de.morihofi.acmeserver.api.accessLog.responses.AccessLogStatisticResponse;
+import de.morihofi.acmeserver.tools.network.logging.HTTPAccessLogger;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Handler for retrieving the statistics of the HTTP access log.
+ *
+ * <p>The statistics contain the queue depth, the number of dropped and written entries and the writer lag, to monitor whether the
+ * access log keeps up with the request rate.</p>
+ */
+public class AccessLogStatisticHandler implements Handler {
+
+    /**
+     * The access logger to report on.
+     */
+    private final HTTPAccessLogger httpAccessLogger;
+
+    /**
+     * Constructs a new AccessLogStatisticHandler for the given access logger.
+     *
+     * @param httpAccessLogger The access logger to report on.
+     */
+    public AccessLogStatisticHandler(HTTPAccessLogger httpAccessLogger) {
+        this.httpAccessLogger = httpAccessLogger;
+    }
+
+    /**
+     * Handles the request to retrieve the access log statistics.
+     *
+     * @param context The Javalin context for the current request.
+     * @throws Exception If an error occurs while processing the request.
+     */
+    @Override
+    public void handle(@NotNull Context context) throws Exception {
+        AccessLogStatisticResponse response = new AccessLogStatisticResponse();
+        response.setEnabled(httpAccessLogger.isEnabled());
+        response.setOverflowPolicy(httpAccessLogger.getOverflowPolicy().name());
+        response.setQueueDepth(httpAccessLogger.getQueueDepth());
+        response.setQueueCapacity(httpAccessLogger.getQueueCapacity());
+        response.setDroppedEntries(httpAccessLogger.getDroppedEntries());
+        response.setWrittenEntries(httpAccessLogger.getWrittenEntries());
+        response.setWriterLagMillis(httpAccessLogger.getWriterLagMillis());
+
+        context.json(response);
+    }
+}
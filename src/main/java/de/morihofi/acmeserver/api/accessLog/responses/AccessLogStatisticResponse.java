@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.api.accessLog.responses;
+
+/**
+ * Response object containing the statistics of the HTTP access log.
+ */
+public class AccessLogStatisticResponse {
+    /**
+     * Whether access logging is enabled.
+     */
+    private boolean enabled;
+    /**
+     * The policy applied when the queue is full.
+     */
+    private String overflowPolicy;
+    /**
+     * The number of entries waiting to be written.
+     */
+    private int queueDepth;
+    /**
+     * The maximum number of entries waiting to be written.
+     */
+    private int queueCapacity;
+    /**
+     * The number of entries dropped because the queue was full.
+     */
+    private long droppedEntries;
+    /**
+     * The number of entries written to the log file.
+     */
+    private long writtenEntries;
+    /**
+     * The time in milliseconds the oldest queued entry has been waiting to be written.
+     */
+    private long writerLagMillis;
+
+    /**
+     * Checks whether access logging is enabled.
+     *
+     * @return whether access logging is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether access logging is enabled.
+     *
+     * @param enabled whether access logging is enabled.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the policy applied when the queue is full.
+     *
+     * @return the policy applied when the queue is full.
+     */
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets the policy applied when the queue is full.
+     *
+     * @param overflowPolicy the policy applied when the queue is full.
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Gets the number of entries waiting to be written.
+     *
+     * @return the number of entries waiting to be written.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Sets the number of entries waiting to be written.
+     *
+     * @param queueDepth the number of entries waiting to be written.
+     */
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Gets the maximum number of entries waiting to be written.
+     *
+     * @return the maximum number of entries waiting to be written.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Sets the maximum number of entries waiting to be written.
+     *
+     * @param queueCapacity the maximum number of entries waiting to be written.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Gets the number of entries dropped because the queue was full.
+     *
+     * @return the number of entries dropped because the queue was full.
+     */
+    public long getDroppedEntries() {
+        return droppedEntries;
+    }
+
+    /**
+     * Sets the number of entries dropped because the queue was full.
+     *
+     * @param droppedEntries the number of entries dropped because the queue was full.
+     */
+    public void setDroppedEntries(long droppedEntries) {
+        this.droppedEntries = droppedEntries;
+    }
+
+    /**
+     * Gets the number of entries written to the log file.
+     *
+     * @return the number of entries written to the log file.
+     */
+    public long getWrittenEntries() {
+        return writtenEntries;
+    }
+
+    /**
+     * Sets the number of entries written to the log file.
+     *
+     * @param writtenEntries the number of entries written to the log file.
+     */
+    public void setWrittenEntries(long writtenEntries) {
+        this.writtenEntries = writtenEntries;
+    }
+
+    /**
+     * Gets the time in milliseconds the oldest queued entry has been waiting to be written.
+     *
+     * @return the time in milliseconds the oldest queued entry has been waiting to be written.
+     */
+    public long getWriterLagMillis() {
+        return writerLagMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds the oldest queued entry has been waiting to be written.
+     *
+     * @param writerLagMillis the time in milliseconds the oldest queued entry has been waiting to be written.
+     */
+    public void setWriterLagMillis(long writerLagMillis) {
+        this.writerLagMillis = writerLagMillis;
+    }
+}
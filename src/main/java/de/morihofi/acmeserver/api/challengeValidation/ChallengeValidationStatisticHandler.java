@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.api.challengeValidation;
+
+import de.morihofi.acmeserver.api.challengeValidation.responses.ChallengeValidationStatisticResponse;
+import de.morihofi.acmeserver.certificate.acme.challenges.HttpValidationStatistics;
+import de.morihofi.acmeserver.tools.ServerInstance;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Handler for retrieving the statistics of the challenge validation.
+ *
+ * <p>The statistics contain the number of passed HTTP-01 validation requests and the number of failed requests by reason, to tell
+ * misconfigured clients apart from network problems of the server.</p>
+ */
+public class ChallengeValidationStatisticHandler implements Handler {
+
+    /**
+     * The server instance to report on.
+     */
+    private final ServerInstance serverInstance;
+
+    /**
+     * Constructs a new ChallengeValidationStatisticHandler for the given server instance.
+     *
+     * @param serverInstance The server instance to report on.
+     */
+    public ChallengeValidationStatisticHandler(ServerInstance serverInstance) {
+        this.serverInstance = serverInstance;
+    }
+
+    /**
+     * Handles the request to retrieve the challenge validation statistics.
+     *
+     * @param context The Javalin context for the current request.
+     * @throws Exception If an error occurs while processing the request.
+     */
+    @Override
+    public void handle(@NotNull Context context) throws Exception {
+        HttpValidationStatistics httpStatistics = serverInstance.getChallengeValidator().getHttpStatistics();
+
+        Map<String, Long> httpFailures = new LinkedHashMap<>();
+        for (Map.Entry<HttpValidationStatistics.FailureReason, Long> entry : httpStatistics.getFailures().entrySet()) {
+            httpFailures.put(entry.getKey().name(), entry.getValue());
+        }
+
+        ChallengeValidationStatisticResponse response = new ChallengeValidationStatisticResponse();
+        response.setHttpPassed(httpStatistics.getPassed());
+        response.setHttpFailures(httpFailures);
+
+        context.json(response);
+    }
+}
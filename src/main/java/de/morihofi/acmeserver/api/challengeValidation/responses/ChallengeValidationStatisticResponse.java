@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.api.challengeValidation.responses;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Map;
+
+/**
+ * Response object containing the statistics of the challenge validation.
+ */
+@SuppressFBWarnings({"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
+public class ChallengeValidationStatisticResponse {
+    /**
+     * The number of passed HTTP-01 validation requests.
+     */
+    private long httpPassed;
+    /**
+     * The number of failed HTTP-01 validation requests by failure reason.
+     */
+    private Map<String, Long> httpFailures;
+
+    /**
+     * Gets the number of passed HTTP-01 validation requests.
+     *
+     * @return the number of passed requests.
+     */
+    public long getHttpPassed() {
+        return httpPassed;
+    }
+
+    /**
+     * Sets the number of passed HTTP-01 validation requests.
+     *
+     * @param httpPassed the number of passed requests.
+     */
+    public void setHttpPassed(long httpPassed) {
+        this.httpPassed = httpPassed;
+    }
+
+    /**
+     * Gets the number of failed HTTP-01 validation requests by failure reason.
+     *
+     * @return the number of failed requests by reason.
+     */
+    public Map<String, Long> getHttpFailures() {
+        return httpFailures;
+    }
+
+    /**
+     * Sets the number of failed HTTP-01 validation requests by failure reason.
+     *
+     * @param httpFailures the number of failed requests by reason.
+     */
+    public void setHttpFailures(Map<String, Long> httpFailures) {
+        this.httpFailures = httpFailures;
+    }
+}
@@ -63,7 +63,7 @@ public class ProvisionerListHandler implements Handler {
         for (Provisioner provisioner : ProvisionerManager.getProvisioners()) {
             ProvisionerListEntryResponse provisionerEntry = new ProvisionerListEntryResponse();
             provisionerEntry.setName(provisioner.getProvisionerName());
-            provisionerEntry.setDirectoryUrl(provisioner.getAcmeApiURL() + "/directory");
+            provisionerEntry.setDirectoryUrl(provisioner.getDirectoryURL());
 
             provisionerResponse.add(provisionerEntry);
         }
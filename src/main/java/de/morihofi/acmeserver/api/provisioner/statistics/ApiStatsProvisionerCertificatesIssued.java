@@ -18,11 +18,14 @@ package de.morihofi.acmeserver.api.provisioner.statistics;
 
 import de.morihofi.acmeserver.certificate.provisioners.ProvisionerStatistics;
 import de.morihofi.acmeserver.tools.ServerInstance;
+import io.javalin.http.BadRequestResponse;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
 import org.hibernate.Session;
 import org.jetbrains.annotations.NotNull;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 /**
  * Handles the API endpoint for retrieving the number of certificates issued per day by a specific provisioner.
@@ -47,7 +50,8 @@ public class ApiStatsProvisionerCertificatesIssued implements Handler {
      * Handles the request to retrieve certificates issued statistics.
      * <p>
      * This method retrieves the number of certificates issued per day for a specific provisioner, provided as a query parameter.
-     * The response is returned in JSON format.
+     * The optional {@code from} and {@code to} query parameters (ISO-8601 dates, inclusive) restrict the returned days. The response is
+     * returned in JSON format.
      *
      * @param context The context of the request.
      */
@@ -56,9 +60,31 @@ public class ApiStatsProvisionerCertificatesIssued implements Handler {
         context.contentType("application/json");
 
         String provisionerName = context.queryParam("provisioner");
+        LocalDate from = parseDateQueryParam(context, "from");
+        LocalDate to = parseDateQueryParam(context, "to");
 
-        try (Session session = serverInstance.getHibernateUtil().getSessionFactory().openSession()) {
-            context.json(ProvisionerStatistics.getCertificatesIssuedPerDay(session, provisionerName));
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            context.json(ProvisionerStatistics.getCertificatesIssuedPerDay(session, provisionerName, from, to));
+        }
+    }
+
+    /**
+     * Parses an optional ISO-8601 date query parameter.
+     *
+     * @param context The context of the request.
+     * @param name    Name of the query parameter.
+     * @return The parsed date, or {@code null} if the parameter is not set.
+     * @throws BadRequestResponse if the parameter is not a valid date.
+     */
+    private static LocalDate parseDateQueryParam(Context context, String name) {
+        String value = context.queryParam(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestResponse("Query parameter \"" + name + "\" must be a date in the format yyyy-MM-dd");
         }
     }
 }
@@ -18,6 +18,7 @@ package de.morihofi.acmeserver.api.provisioner.statistics;
 import de.morihofi.acmeserver.api.provisioner.statistics.responses.ProvisionerStatisticResponse;
 import de.morihofi.acmeserver.certificate.provisioners.ProvisionerStatistics;
 import de.morihofi.acmeserver.database.HibernateUtil;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
@@ -58,12 +59,22 @@ public class ProvisionerGlobalStatisticHandler implements Handler {
         ProvisionerStatisticResponse globalStats = new ProvisionerStatisticResponse();
         globalStats.setName(null);
 
-        try (Session session = serverInstance.getHibernateUtil().getSessionFactory().openSession()) {
-            globalStats.setAcmeAccounts(ProvisionerStatistics.countGlobalActiveACMEAccounts(session));
-            globalStats.setCertificatesIssued(ProvisionerStatistics.countGlobalIssuedCertificates(session));
-            globalStats.setCertificatesRevoked(ProvisionerStatistics.countGlobalRevokedCertificates(session));
-            globalStats.setCertificatesIssueWaiting(ProvisionerStatistics.countGlobalCertificatesWaiting(session));
+        long acmeAccounts = 0;
+        long certificatesIssued = 0;
+        long certificatesRevoked = 0;
+        long certificatesIssueWaiting = 0;
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            for (ProvisionerCounter provisionerCounter : ProvisionerStatistics.getCounters(session).values()) {
+                acmeAccounts += provisionerCounter.get(ProvisionerCounter.Counter.ACTIVE_ACME_ACCOUNTS);
+                certificatesIssued += provisionerCounter.get(ProvisionerCounter.Counter.CERTIFICATES_ISSUED);
+                certificatesRevoked += provisionerCounter.get(ProvisionerCounter.Counter.CERTIFICATES_REVOKED);
+                certificatesIssueWaiting += provisionerCounter.get(ProvisionerCounter.Counter.CERTIFICATES_WAITING);
+            }
         }
+        globalStats.setAcmeAccounts(acmeAccounts);
+        globalStats.setCertificatesIssued(certificatesIssued);
+        globalStats.setCertificatesRevoked(certificatesRevoked);
+        globalStats.setCertificatesIssueWaiting(certificatesIssueWaiting);
 
         context.json(globalStats);
     }
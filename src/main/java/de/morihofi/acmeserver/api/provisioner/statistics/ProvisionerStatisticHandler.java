@@ -14,6 +14,7 @@ import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
 import de.morihofi.acmeserver.certificate.provisioners.ProvisionerManager;
 import de.morihofi.acmeserver.certificate.provisioners.ProvisionerStatistics;
 import de.morihofi.acmeserver.database.HibernateUtil;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.certificate.cryptoops.CryptoStoreManager;
 import io.javalin.http.Context;
@@ -23,6 +24,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Handler for retrieving statistics of all available provisioners.
@@ -57,20 +59,23 @@ public class ProvisionerStatisticHandler implements Handler {
     public void handle(@NotNull Context context) throws Exception {
         List<ProvisionerStatisticResponse> statisticItemsOfProvisioner = new ArrayList<>();
 
-        try (Session session = serverInstance.getHibernateUtil().getSessionFactory().openSession()) {
-            for (Provisioner provisioner : ProvisionerManager.getProvisioners()) {
-                String provisionerName = provisioner.getProvisionerName();
+        Map<String, ProvisionerCounter> counters;
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            counters = ProvisionerStatistics.getCounters(session);
+        }
+
+        for (Provisioner provisioner : ProvisionerManager.getProvisioners()) {
+            String provisionerName = provisioner.getProvisionerName();
+            ProvisionerCounter provisionerCounter = counters.getOrDefault(provisionerName, new ProvisionerCounter(provisionerName));
 
-                ProvisionerStatisticResponse item = new ProvisionerStatisticResponse();
-                item.setName(provisionerName);
-                item.setAcmeAccounts(ProvisionerStatistics.countACMEAccountsByProvisioner(session, provisionerName));
-                item.setCertificatesIssued(ProvisionerStatistics.countIssuedCertificatesByProvisioner(session, provisionerName));
-                item.setCertificatesRevoked(ProvisionerStatistics.countRevokedCertificatesByProvisioner(session, provisionerName));
-                item.setCertificatesIssueWaiting(
-                        ProvisionerStatistics.countCertificatesWaitingForIssueByProvisioner(session, provisionerName));
+            ProvisionerStatisticResponse item = new ProvisionerStatisticResponse();
+            item.setName(provisionerName);
+            item.setAcmeAccounts(provisionerCounter.get(ProvisionerCounter.Counter.ACME_ACCOUNTS));
+            item.setCertificatesIssued(provisionerCounter.get(ProvisionerCounter.Counter.CERTIFICATES_ISSUED));
+            item.setCertificatesRevoked(provisionerCounter.get(ProvisionerCounter.Counter.CERTIFICATES_REVOKED));
+            item.setCertificatesIssueWaiting(provisionerCounter.get(ProvisionerCounter.Counter.CERTIFICATES_WAITING));
 
-                statisticItemsOfProvisioner.add(item);
-            }
+            statisticItemsOfProvisioner.add(item);
         }
 
         context.json(statisticItemsOfProvisioner);
@@ -23,6 +23,7 @@ import de.morihofi.acmeserver.certificate.objects.ACMERequestBody;
 import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
 import de.morihofi.acmeserver.database.objects.ACMEAccount;
 import de.morihofi.acmeserver.tools.ServerInstance;
+import de.morihofi.acmeserver.tools.json.GsonProvider;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
@@ -59,7 +60,7 @@ public abstract class AbstractAcmeEndpoint implements Handler {
      */
     public AbstractAcmeEndpoint(Provisioner provisioner, ServerInstance serverInstance) {
         this.provisioner = provisioner;
-        this.gson = new Gson();
+        this.gson = GsonProvider.getGson();
         this.serverInstance = serverInstance;
     }
 
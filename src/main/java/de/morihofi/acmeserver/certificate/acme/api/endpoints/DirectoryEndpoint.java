@@ -16,17 +16,23 @@
 
 package de.morihofi.acmeserver.certificate.acme.api.endpoints;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
+import de.morihofi.acmeserver.tools.json.GsonProvider;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
+import io.javalin.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 
 public class DirectoryEndpoint implements Handler {
     /**
@@ -35,6 +41,21 @@ public class DirectoryEndpoint implements Handler {
     private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
     private final Provisioner provisioner;
 
+    /**
+     * Serialized directory, rebuilt when the revision of the provisioner changes.
+     */
+    private volatile CachedDirectory cachedDirectory;
+
+    /**
+     * Serialized directory of a provisioner revision.
+     *
+     * @param revision Revision of the provisioner the directory was built from.
+     * @param body     JSON body of the directory.
+     * @param etag     Quoted entity tag of the body.
+     */
+    private record CachedDirectory(long revision, byte[] body, String etag) {
+    }
+
     @SuppressFBWarnings("EI_EXPOSE_REP2")
     public DirectoryEndpoint(Provisioner provisioner) {
         this.provisioner = provisioner;
@@ -47,13 +68,42 @@ public class DirectoryEndpoint implements Handler {
      */
     @Override
     public void handle(@NotNull Context ctx) {
+        CachedDirectory directory = getCachedDirectory();
+
+        ctx.header("ETag", directory.etag());
+        if (matchesEtag(ctx.header("If-None-Match"), directory.etag())) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
 
         // Response is JSON
         ctx.header("Content-Type", "application/json");
+        ctx.result(directory.body());
+    }
 
-        // Create the Gson instance
-        Gson gson = new Gson();
+    /**
+     * Returns the serialized directory, building it if the provisioner has changed since it was last built.
+     *
+     * @return The cached directory.
+     */
+    private CachedDirectory getCachedDirectory() {
+        CachedDirectory directory = cachedDirectory;
+        long revision = provisioner.getRevision();
+        if (directory == null || directory.revision() != revision) {
+            byte[] body = buildDirectory().getBytes(StandardCharsets.UTF_8);
+            directory = new CachedDirectory(revision, body, computeEtag(body));
+            cachedDirectory = directory;
+            LOG.debug("Built ACME directory of provisioner {} (revision {})", provisioner.getProvisionerName(), revision);
+        }
+        return directory;
+    }
 
+    /**
+     * Builds the JSON of the ACME directory.
+     *
+     * @return The directory as JSON string.
+     */
+    private String buildDirectory() {
         // Create the meta object
         JsonObject metaObject = new JsonObject();
         {
@@ -72,15 +122,55 @@ public class DirectoryEndpoint implements Handler {
         // Create the main JSON object
         JsonObject responseJSON = new JsonObject();
         responseJSON.add("meta", metaObject);
-        responseJSON.addProperty("newAccount", provisioner.getAcmeApiURL() + "/acme/new-acct");
-        responseJSON.addProperty("newNonce", provisioner.getAcmeApiURL() + "/acme/new-nonce");
-        responseJSON.addProperty("newOrder", provisioner.getAcmeApiURL() + "/acme/new-order");
-        responseJSON.addProperty("revokeCert", provisioner.getAcmeApiURL() + "/acme/revoke-cert");
-        responseJSON.addProperty("keyChange", provisioner.getAcmeApiURL() + "/acme/key-change");
+        responseJSON.addProperty("newAccount", provisioner.getNewAccountURL());
+        responseJSON.addProperty("newNonce", provisioner.getNewNonceURL());
+        responseJSON.addProperty("newOrder", provisioner.getNewOrderURL());
+        responseJSON.addProperty("revokeCert", provisioner.getRevokeCertURL());
+        responseJSON.addProperty("keyChange", provisioner.getKeyChangeURL());
 
         // Convert the JsonObject to a String
-        String jsonResponse = gson.toJson(responseJSON);
+        return GsonProvider.getGson().toJson(responseJSON);
+    }
+
+    /**
+     * Computes a strong entity tag from the first bytes of the SHA-256 hash of the body.
+     *
+     * @param body The response body.
+     * @return The quoted entity tag.
+     */
+    private static String computeEtag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 
-        ctx.result(jsonResponse);
+    /**
+     * Checks whether an {@code If-None-Match} header matches the given entity tag, using weak comparison as required for
+     * {@code If-None-Match}.
+     *
+     * @param ifNoneMatch The header value, may be null.
+     * @param etag        The quoted entity tag of the current representation.
+     * @return true if the client already has the current representation.
+     */
+    static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -24,10 +24,12 @@ import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.NewOrderReq
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.NewOrderResponse;
 import de.morihofi.acmeserver.certificate.acme.security.SignatureCheck;
 import de.morihofi.acmeserver.certificate.objects.ACMERequestBody;
+import de.morihofi.acmeserver.config.AuthorizationConfig;
 import de.morihofi.acmeserver.database.AcmeStatus;
 import de.morihofi.acmeserver.database.objects.ACMEAccount;
 import de.morihofi.acmeserver.database.objects.ACMEOrder;
 import de.morihofi.acmeserver.database.objects.ACMEOrderIdentifier;
+import de.morihofi.acmeserver.database.objects.ACMEOrderIdentifierChallenge;
 import de.morihofi.acmeserver.exception.exceptions.ACMEAccountNotFoundException;
 import de.morihofi.acmeserver.exception.exceptions.ACMEInvalidContactException;
 import de.morihofi.acmeserver.exception.exceptions.ACMERejectedIdentifierException;
@@ -45,10 +47,13 @@ import org.hibernate.Transaction;
 import java.lang.invoke.MethodHandles;
 import java.security.KeyStoreException;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -99,6 +104,9 @@ public class NewOrderEndpoint extends AbstractAcmeEndpoint {
         // Convert payload into object
         NewOrderRequestPayload newOrderRequestPayload = gson.fromJson(acmeRequestBody.getDecodedPayload(), NewOrderRequestPayload.class);
 
+        // Check rate limits
+        provisioner.getRateLimiter().checkNewOrder(accountId, ctx.ip(), newOrderRequestPayload.getIdentifiers());
+
         ArrayList<ACMEOrderIdentifier> acmeOrderIdentifiers = new ArrayList<>();
 
         for (Identifier identifier : newOrderRequestPayload.getIdentifiers()) {
@@ -124,6 +132,11 @@ public class NewOrderEndpoint extends AbstractAcmeEndpoint {
         // Unique certificate id per order
         String certificateId = Crypto.generateRandomId();
 
+        // Valid authorizations of this account, keyed by the identifier of the new order that reuses them
+        Map<ACMEOrderIdentifier, ACMEOrderIdentifier> reusedAuthorizations = new HashMap<>();
+        AuthorizationConfig authorizationConfig = provisioner.getAuthorizationConfig();
+        Timestamp reusableValidatedAfter = Timestamp.from(Instant.now().minus(authorizationConfig.getValidLifetimeHours(), ChronoUnit.HOURS));
+
         for (ACMEOrderIdentifier identifier : acmeOrderIdentifiers) {
             // Unique value for each domain
             String authorizationId = Crypto.generateRandomId();
@@ -164,6 +177,16 @@ public class NewOrderEndpoint extends AbstractAcmeEndpoint {
             }
 
             identifier.setAuthorizationId(authorizationId);
+            identifier.setAccountId(accountId);
+            identifier.setAuthorizationStatus(AcmeStatus.PENDING);
+
+            if (authorizationConfig.getReuseEnabled()) {
+                ACMEOrderIdentifier reusable = ACMEOrderIdentifier.findReusableAuthorization(accountId, identifier.getType(),
+                        identifier.getDataValue(), reusableValidatedAfter, getServerInstance());
+                if (reusable != null) {
+                    reusedAuthorizations.put(identifier, reusable);
+                }
+            }
 
             Identifier identifierObj = new Identifier();
             identifierObj.setType(identifier.getType());
@@ -172,12 +195,12 @@ public class NewOrderEndpoint extends AbstractAcmeEndpoint {
 
             acmeOrderIdentifiersWithAuthorizationData.add(identifier);
 
-            respAuthorizations.add(provisioner.getAcmeApiURL() + "/acme/authz/" + authorizationId);
+            respAuthorizations.add(provisioner.getAuthzURL(authorizationId));
         }
 
         ACMEOrder order;
 
-        try (Session session = Objects.requireNonNull(getServerInstance().getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = getServerInstance().getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
 
             Date startDate = new Date(); // Starts now
@@ -200,7 +223,36 @@ public class NewOrderEndpoint extends AbstractAcmeEndpoint {
             for (ACMEOrderIdentifier identifier : acmeOrderIdentifiersWithAuthorizationData) {
                 identifier.setIdentifierId(Crypto.generateRandomId());
                 identifier.setOrder(order);
-                session.persist(identifier);
+
+                ACMEOrderIdentifier reusable = reusedAuthorizations.get(identifier);
+                if (reusable != null) {
+                    // Authorizations belong to a single order, so the validation state is carried over instead of validating again
+                    identifier.setAuthorizationStatus(AcmeStatus.VALID);
+                    identifier.setAuthorizationValidated(reusable.getAuthorizationValidated());
+                    identifier.setHasChallengesGenerated(true);
+                    session.persist(identifier);
+
+                    for (ACMEOrderIdentifierChallenge validChallenge : reusable.getChallenges()) {
+                        if (validChallenge.getStatus() != AcmeStatus.VALID) {
+                            continue;
+                        }
+                        ACMEOrderIdentifierChallenge challenge = new ACMEOrderIdentifierChallenge(validChallenge.getChallengeType(), identifier);
+                        challenge.setAuthorizationToken(validChallenge.getAuthorizationToken());
+                        challenge.setVerifiedTime(validChallenge.getVerifiedTime());
+                        challenge.setStatus(AcmeStatus.VALID);
+                        session.persist(challenge);
+                    }
+
+                    LOG.info("Reusing authorization {} of account {} for identifier {} of type {} in order {}",
+                            reusable.getAuthorizationId(),
+                            accountId,
+                            identifier.getDataValue(),
+                            identifier.getType(),
+                            orderId
+                    );
+                } else {
+                    session.persist(identifier);
+                }
 
                 LOG.info("Added identifier {} of type {} to order {}",
                         identifier.getDataValue(),
@@ -212,26 +264,25 @@ public class NewOrderEndpoint extends AbstractAcmeEndpoint {
             transaction.commit();
         }
 
-        // Send E-Mail if order was created
-        try {
-            SendMail.sendMail(account.getEmails().get(0), "New ACME order created", "Hey there, <br> a new ACME order (" + orderId + ") for <i>" + acmeOrderIdentifiers.get(0).getDataValue() + "</i> was created.", getServerInstance());
-        } catch (Exception ex) {
-            LOG.error("Unable to send email", ex);
-        }
+        // Send E-Mail if order was created, SMTP must not delay the response
+        SendMail.sendMailAsync(account.getEmails().get(0), "New ACME order created", "Hey there, <br> a new ACME order (" + orderId + ") for <i>" + acmeOrderIdentifiers.get(0).getDataValue() + "</i> was created.", getServerInstance());
 
         NewOrderResponse response = new NewOrderResponse();
-        response.setStatus(AcmeStatus.PENDING.getRfcName());
+        // An order whose authorizations were all reused can be finalized right away
+        response.setStatus(reusedAuthorizations.size() == acmeOrderIdentifiersWithAuthorizationData.size()
+                ? AcmeStatus.READY.getRfcName()
+                : AcmeStatus.PENDING.getRfcName());
         response.setExpires(DateTools.formatDateForACME(order.getExpires()));
         response.setNotBefore(DateTools.formatDateForACME(order.getNotBefore()));
         response.setNotAfter(DateTools.formatDateForACME(order.getNotAfter()));
         response.setIdentifiers(respIdentifiers);
         response.setAuthorizations(respAuthorizations);
-        response.setFinalize(provisioner.getAcmeApiURL() + "/acme/order/" + orderId + "/finalize");
+        response.setFinalize(provisioner.getOrderURL(orderId) + "/finalize");
 
         ctx.status(201);
         ctx.header("Replay-Nonce", Crypto.createNonce(getServerInstance()));
         ctx.header("Content-Type", "application/json");
-        ctx.header("Location", provisioner.getAcmeApiURL() + "/acme/order/" + orderId);
+        ctx.header("Location", provisioner.getOrderURL(orderId));
 
         ctx.json(response);
     }
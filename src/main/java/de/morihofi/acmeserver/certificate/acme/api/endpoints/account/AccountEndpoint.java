@@ -24,6 +24,7 @@ import de.morihofi.acmeserver.certificate.objects.ACMERequestBody;
 import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
 import de.morihofi.acmeserver.database.AcmeStatus;
 import de.morihofi.acmeserver.database.objects.ACMEAccount;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
 import de.morihofi.acmeserver.exception.exceptions.ACMEAccountNotFoundException;
 import de.morihofi.acmeserver.exception.exceptions.ACMEInvalidContactException;
 import de.morihofi.acmeserver.tools.ServerInstance;
@@ -36,7 +37,6 @@ import org.hibernate.Transaction;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Account Endpoint
@@ -86,7 +86,7 @@ public class AccountEndpoint extends AbstractAcmeEndpoint {
             throw new ACMEAccountNotFoundException("Account with ID " + accountId + " not found!");
         }
 
-        try (Session session = Objects.requireNonNull(getServerInstance().getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = getServerInstance().getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
 
             // Update Account Settings, e.g., Email change
@@ -113,9 +113,10 @@ public class AccountEndpoint extends AbstractAcmeEndpoint {
 
             String status = acmeAccountRequestPayload.getStatus();
             if (status != null) {
-                if (status.equals(AcmeStatus.DEACTIVATED.getRfcName())) {
+                if (status.equals(AcmeStatus.DEACTIVATED.getRfcName()) && !account.isDeactivated()) {
                     account.setDeactivated(true);
                     session.merge(account);
+                    ProvisionerCounter.add(session, account.getProvisioner(), ProvisionerCounter.Counter.ACTIVE_ACME_ACCOUNTS, -1);
                     LOG.info("ACME account {} has been deactivated", account.getAccountId());
                 }
             }
@@ -22,18 +22,24 @@ import com.google.gson.JsonParser;
 import de.morihofi.acmeserver.certificate.acme.api.abstractclass.AbstractAcmeEndpoint;
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.account.objects.ACMEAccountRequestPayload;
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.account.objects.AccountResponse;
+import de.morihofi.acmeserver.certificate.acme.security.SignatureCheck;
 import de.morihofi.acmeserver.certificate.objects.ACMERequestBody;
 import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
 import de.morihofi.acmeserver.database.AcmeStatus;
+import de.morihofi.acmeserver.database.NativeSql;
 import de.morihofi.acmeserver.database.objects.ACMEAccount;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
+import de.morihofi.acmeserver.exception.exceptions.ACMEAccountNotFoundException;
 import de.morihofi.acmeserver.exception.exceptions.ACMEInvalidContactException;
 import de.morihofi.acmeserver.exception.exceptions.ACMEMalformedException;
 import de.morihofi.acmeserver.exception.exceptions.ACMEServerInternalException;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.certificate.PemUtil;
+import de.morihofi.acmeserver.tools.crypto.AcmeTokenCryptography;
 import de.morihofi.acmeserver.tools.crypto.Crypto;
 import de.morihofi.acmeserver.tools.regex.EmailValidation;
 import io.javalin.http.Context;
+import jakarta.persistence.LockModeType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
@@ -44,7 +50,6 @@ import org.jose4j.lang.JoseException;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -84,6 +89,38 @@ public class NewAccountEndpoint extends AbstractAcmeEndpoint {
         // Deserialize payload and protected objects
         ACMEAccountRequestPayload payload = gson.fromJson(acmeRequestBody.getDecodedPayload(), ACMEAccountRequestPayload.class);
 
+        // Parse the JSON string to a JsonElement or directly to JsonObject
+        JsonObject decodedProtectedJsonObject = JsonParser.parseString(acmeRequestBody.getDecodedProtected()).getAsJsonObject();
+
+        // Extract the "jwk" JsonObject as a string
+        String jwkString = decodedProtectedJsonObject.getAsJsonObject("jwk").toString();
+
+        PublicJsonWebKey publicJsonWebKey;
+        try {
+            publicJsonWebKey = (PublicJsonWebKey) JsonWebKey.Factory.newJwk(jwkString);
+        } catch (JoseException e) {
+            LOG.error("Error parsing JWK", e);
+            throw new ACMEServerInternalException("Error parsing JWK: " + e.getMessage());
+        }
+
+        // An account is identified by its key (RFC 8555, section 7.3.1), so a known key returns the existing account
+        String jwkThumbprint = AcmeTokenCryptography.encodedThumbprint(publicJsonWebKey.getPublicKey());
+        ACMEAccount existingAccount = ACMEAccount.getAccountByJwkThumbprint(jwkThumbprint, provisioner.getProvisionerName(),
+                getServerInstance());
+        if (existingAccount != null) {
+            // Proves possession of the key before disclosing the account
+            SignatureCheck.checkSignature(ctx, existingAccount, gson, getServerInstance());
+            LOG.info("Returning existing ACME account {} for the requested key", existingAccount.getAccountId());
+            respondWithAccount(ctx, provisioner, existingAccount.getAccountId(), existingAccount.getEmails(), 200);
+            return;
+        }
+        if (payload.getOnlyReturnExisting()) {
+            throw new ACMEAccountNotFoundException("No account exists for the provided key");
+        }
+
+        // Check rate limits
+        provisioner.getRateLimiter().checkNewAccount(ctx.ip());
+
         // Check terms of service agreement
         if (!payload.getTermsOfServiceAgreed()) {
             throw new ACMEMalformedException("Terms of Service not accepted. Unable to create account");
@@ -104,49 +141,68 @@ public class NewAccountEndpoint extends AbstractAcmeEndpoint {
         // Create new account in database
         String accountId = UUID.randomUUID().toString();
 
-        // Parse the JSON string to a JsonElement or directly to JsonObject
-        JsonObject decodedProtectedJsonObject = JsonParser.parseString(acmeRequestBody.getDecodedProtected()).getAsJsonObject();
-
-        // Extract the "jwk" JsonObject as a string
-        String jwkString = decodedProtectedJsonObject.getAsJsonObject("jwk").toString();
-
-        PublicJsonWebKey publicJsonWebKey;
-        try {
-            publicJsonWebKey = (PublicJsonWebKey) JsonWebKey.Factory.newJwk(jwkString);
-        } catch (JoseException e) {
-            LOG.error("Error parsing JWK", e);
-            throw new ACMEServerInternalException("Error parsing JWK: " + e.getMessage());
-        }
-
         String publicKeyPEM = PemUtil.convertToPem(publicJsonWebKey.getPublicKey());
 
-        try (Session session = Objects.requireNonNull(getServerInstance().getHibernateUtil().getSessionFactory()).openSession()) {
+        // A concurrent request with the same key may create the account first, the unique key then leaves the existing account as is
+        ACMEAccount account;
+        boolean created;
+        try (Session session = getServerInstance().getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
-            ACMEAccount account = new ACMEAccount();
-            account.setAccountId(accountId);
-            account.setPublicKeyPEM(publicKeyPEM);
-            account.setEmails(emails);
-            account.setDeactivated(false);
-            account.setProvisioner(provisioner.getProvisionerName());
-            session.persist(account);
+            created = NativeSql.insertIfAbsent(session, "ACMEAccount", List.of("provisioner", "jwkThumbprint"),
+                    List.of("accountId", "publicKeyPEM", "jwkThumbprint", "deactivated", "provisioner"),
+                    List.of(accountId, publicKeyPEM, jwkThumbprint, false, provisioner.getProvisionerName()));
+            // A locking read sees the account of a concurrent request even in a repeatable read transaction
+            account = session.createQuery("SELECT a FROM ACMEAccount a WHERE a.jwkThumbprint = :jwkThumbprint "
+                            + "AND a.provisioner = :provisioner", ACMEAccount.class)
+                    .setParameter("jwkThumbprint", jwkThumbprint)
+                    .setParameter("provisioner", provisioner.getProvisionerName())
+                    .setLockMode(LockModeType.PESSIMISTIC_READ)
+                    .getSingleResult();
+            if (created) {
+                if (emails != null) {
+                    account.getEmails().addAll(emails);
+                }
+                ProvisionerCounter.add(session, provisioner.getProvisionerName(), ProvisionerCounter.Counter.ACME_ACCOUNTS, 1);
+                ProvisionerCounter.add(session, provisioner.getProvisionerName(), ProvisionerCounter.Counter.ACTIVE_ACME_ACCOUNTS, 1);
+            }
             transaction.commit();
-            LOG.info("New ACME account created with account id {}", accountId);
         } catch (Exception e) {
             LOG.error("Unable to create new ACME account", e);
             throw new ACMEServerInternalException(e.getMessage());
         }
 
+        if (!created) {
+            SignatureCheck.checkSignature(ctx, account, gson, getServerInstance());
+            LOG.info("ACME account {} was created concurrently for the requested key, returning it", account.getAccountId());
+            respondWithAccount(ctx, provisioner, account.getAccountId(), account.getEmails(), 200);
+            return;
+        }
+        LOG.info("New ACME account created with account id {}", accountId);
+
+        respondWithAccount(ctx, provisioner, accountId, emails, 201); // Created
+    }
+
+    /**
+     * Writes the account object of a new or an existing account as response.
+     *
+     * @param ctx         The context of the request.
+     * @param provisioner The provisioner managing this request.
+     * @param accountId   The ID of the account.
+     * @param emails      The contacts of the account.
+     * @param status      The HTTP status, 201 for a new account and 200 for an existing one.
+     */
+    private void respondWithAccount(Context ctx, Provisioner provisioner, String accountId, List<String> emails, int status) {
         // Construct response
         String nonce = Crypto.createNonce(getServerInstance());
         ctx.header("Content-Type", "application/json");
-        ctx.header("Location", provisioner.getAcmeApiURL() + "/acme/acct/" + accountId);
+        ctx.header("Location", provisioner.getAccountURL(accountId));
         ctx.header("Replay-Nonce", nonce);
-        ctx.status(201); // Created
+        ctx.status(status);
 
         AccountResponse response = new AccountResponse();
         response.setStatus(AcmeStatus.VALID.getRfcName());
         response.setContact(emails);
-        response.setOrders(provisioner.getAcmeApiURL() + "/acme/acct/" + accountId + "/orders");
+        response.setOrders(provisioner.getAccountURL(accountId) + "/orders");
 
         ctx.json(response);
     }
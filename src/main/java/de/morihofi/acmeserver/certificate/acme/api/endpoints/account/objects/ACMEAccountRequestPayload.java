@@ -44,6 +44,11 @@ public class ACMEAccountRequestPayload {
      */
     private String status;
 
+    /**
+     * Indicates that the client only wants to look up the existing account of its key, without creating a new one.
+     */
+    private boolean onlyReturnExisting;
+
     /**
      * Retrieves the list of email contacts associated with the ACME account. Each email in the list is prefixed with 'mailto:'.
      *
@@ -97,4 +102,22 @@ public class ACMEAccountRequestPayload {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    /**
+     * Checks if the client only wants to look up the existing account of its key.
+     *
+     * @return {@code true} if no new account may be created, otherwise {@code false}.
+     */
+    public boolean getOnlyReturnExisting() {
+        return onlyReturnExisting;
+    }
+
+    /**
+     * Sets whether the client only wants to look up the existing account of its key.
+     *
+     * @param onlyReturnExisting {@code true} if no new account may be created, otherwise {@code false}.
+     */
+    public void setOnlyReturnExisting(boolean onlyReturnExisting) {
+        this.onlyReturnExisting = onlyReturnExisting;
+    }
 }
@@ -33,10 +33,10 @@ import org.hibernate.Session;
 import org.hibernate.Transaction;
 
 import java.lang.invoke.MethodHandles;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Endpoint for handling authorization ownership challenges in the ACME protocol.
@@ -122,7 +122,7 @@ public class AuthzOwnershipEndpoint extends AbstractAcmeEndpoint {
             }
 
             // Save in database
-            try (Session session = Objects.requireNonNull(getServerInstance().getHibernateUtil().getSessionFactory()).openSession()) {
+            try (Session session = getServerInstance().getHibernateUtil().openSession()) {
                 Transaction transaction = session.beginTransaction();
 
                 for (ACMEOrderIdentifierChallenge challenge : acmeChallenges) {
@@ -152,13 +152,28 @@ public class AuthzOwnershipEndpoint extends AbstractAcmeEndpoint {
 
         AuthzResponse response = new AuthzResponse();
         response.setStatus(identifier.getChallengeStatus().getRfcName());
-        response.setExpires(DateTools.formatDateForACME(new Date()));
+        response.setExpires(DateTools.formatDateForACME(getExpires(identifier, provisioner)));
         response.setIdentifier(idObj);
         response.setChallenges(challengeResponses);
 
         ctx.json(response);
     }
 
+    /**
+     * Gets the expiry of an authorization. Valid authorizations expire after the lifetime configured in the provisioner.
+     *
+     * @param identifier  The identifier holding the authorization.
+     * @param provisioner The provisioner instance.
+     * @return The expiry date of the authorization.
+     */
+    static Date getExpires(ACMEOrderIdentifier identifier, Provisioner provisioner) {
+        if (identifier.getAuthorizationValidated() == null) {
+            return new Date();
+        }
+        return Date.from(identifier.getAuthorizationValidated().toInstant()
+                .plus(provisioner.getAuthorizationConfig().getValidLifetimeHours(), ChronoUnit.HOURS));
+    }
+
     /**
      * Creates a challenge response object of the specified type for the given ACME identifier challenge.
      *
@@ -170,7 +185,7 @@ public class AuthzOwnershipEndpoint extends AbstractAcmeEndpoint {
         ChallengeResponse challengeResponse = new ChallengeResponse();
         challengeResponse.setType(type.getName());
         challengeResponse.setUrl(
-                getProvisioner().getAcmeApiURL() + "/acme/chall/" + identifierChallenge.getChallengeId() + "/" + type.getName());
+                getProvisioner().getChallengeURL(identifierChallenge.getChallengeId(), type.getName()));
         challengeResponse.setToken(identifierChallenge.getAuthorizationToken());
         if (identifierChallenge.getStatus() == AcmeStatus.VALID) {
             challengeResponse.setStatus(AcmeStatus.VALID.getRfcName());
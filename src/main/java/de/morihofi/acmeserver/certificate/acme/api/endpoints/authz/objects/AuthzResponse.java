@@ -10,10 +10,17 @@
 
 package de.morihofi.acmeserver.certificate.acme.api.endpoints.authz.objects;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.authz.AuthzOwnershipEndpoint;
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.Identifier;
+import de.morihofi.acmeserver.tools.json.JsonStreamTools;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -21,6 +28,7 @@ import java.util.List;
  * authorization response, such as its status, expiration time, associated identifier, and a list of challenges for validation.
  */
 @SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
+@JsonAdapter(AuthzResponse.GsonAdapter.class)
 public class AuthzResponse {
     /**
      * Status of the authorization.
@@ -121,4 +129,51 @@ public class AuthzResponse {
     public void setChallenges(List<ChallengeResponse> challenges) {
         this.challenges = challenges;
     }
+
+    /**
+     * Streaming Gson adapter for {@link AuthzResponse}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<AuthzResponse> {
+        /**
+         * Shared instance, the adapter is stateless.
+         */
+        public static final GsonAdapter INSTANCE = new GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, AuthzResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("status").value(response.status);
+            out.name("expires").value(response.expires);
+            out.name("identifier");
+            Identifier.GsonAdapter.INSTANCE.write(out, response.identifier);
+            out.name("challenges");
+            JsonStreamTools.writeList(out, response.challenges, ChallengeResponse.GsonAdapter.INSTANCE);
+            out.endObject();
+        }
+
+        @Override
+        public AuthzResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            AuthzResponse response = new AuthzResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "status" -> response.status = JsonStreamTools.nextNullableString(in);
+                    case "expires" -> response.expires = JsonStreamTools.nextNullableString(in);
+                    case "identifier" -> response.identifier = Identifier.GsonAdapter.INSTANCE.read(in);
+                    case "challenges" -> response.challenges = JsonStreamTools.readList(in, ChallengeResponse.GsonAdapter.INSTANCE);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
 }
@@ -16,10 +16,20 @@
 
 package de.morihofi.acmeserver.certificate.acme.api.endpoints.authz.objects;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import de.morihofi.acmeserver.tools.json.JsonStreamTools;
+
+import java.io.IOException;
+
 /**
  * Represents a challenge in the context of certificate issuance and validation. This class encapsulates details of a challenge, such as its
  * type, URL, token, status, and validation information.
  */
+@JsonAdapter(ChallengeResponse.GsonAdapter.class)
 public class ChallengeResponse {
     /**
      * The type of the challenge, indicating the method of validation (e.g., DNS or HTTP).
@@ -136,4 +146,51 @@ public class ChallengeResponse {
     public void setValidated(String validated) {
         this.validated = validated;
     }
+
+    /**
+     * Streaming Gson adapter for {@link ChallengeResponse}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<ChallengeResponse> {
+        /**
+         * Shared instance, the adapter is stateless.
+         */
+        public static final GsonAdapter INSTANCE = new GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChallengeResponse challenge) throws IOException {
+            if (challenge == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type").value(challenge.type);
+            out.name("url").value(challenge.url);
+            out.name("token").value(challenge.token);
+            out.name("status").value(challenge.status);
+            out.name("validated").value(challenge.validated);
+            out.endObject();
+        }
+
+        @Override
+        public ChallengeResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ChallengeResponse challenge = new ChallengeResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> challenge.type = JsonStreamTools.nextNullableString(in);
+                    case "url" -> challenge.url = JsonStreamTools.nextNullableString(in);
+                    case "token" -> challenge.token = JsonStreamTools.nextNullableString(in);
+                    case "status" -> challenge.status = JsonStreamTools.nextNullableString(in);
+                    case "validated" -> challenge.validated = JsonStreamTools.nextNullableString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return challenge;
+        }
+    }
 }
@@ -20,14 +20,20 @@ import com.google.gson.Gson;
 import de.morihofi.acmeserver.certificate.acme.api.abstractclass.AbstractAcmeEndpoint;
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.challenge.objects.ACMEChallengeResponse;
 import de.morihofi.acmeserver.certificate.acme.challenges.ChallengeResult;
+import de.morihofi.acmeserver.certificate.acme.challenges.ChallengeValidator;
 import de.morihofi.acmeserver.certificate.acme.challenges.DNSChallenge;
 import de.morihofi.acmeserver.certificate.acme.challenges.HTTPChallenge;
+import de.morihofi.acmeserver.certificate.acme.challenges.HttpValidationStatistics;
+import de.morihofi.acmeserver.certificate.acme.challenges.MultiPerspectiveValidator;
 import de.morihofi.acmeserver.certificate.objects.ACMERequestBody;
 import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
 import de.morihofi.acmeserver.database.AcmeStatus;
+import de.morihofi.acmeserver.database.UnitOfWork;
+import de.morihofi.acmeserver.database.objects.ACMEAccount;
 import de.morihofi.acmeserver.database.objects.ACMEOrderIdentifierChallenge;
 import de.morihofi.acmeserver.exception.exceptions.ACMEConnectionErrorException;
 import de.morihofi.acmeserver.exception.exceptions.ACMEMalformedException;
+import de.morihofi.acmeserver.exception.exceptions.ACMERateLimitedException;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.crypto.Crypto;
 import de.morihofi.acmeserver.tools.dateAndTime.DateTools;
@@ -37,9 +43,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * A handler endpoint for processing challenge callbacks.
+ * A handler endpoint for processing challenge callbacks. The validation runs in the background on the {@link ChallengeValidator}, the
+ * endpoint answers with the challenge in {@code processing} state right away and the client polls the authorization for the result.
  */
 public class ChallengeCallbackEndpoint extends AbstractAcmeEndpoint {
 
@@ -48,6 +59,11 @@ public class ChallengeCallbackEndpoint extends AbstractAcmeEndpoint {
      */
     private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Seconds after which a client may retry when the validation queue is full.
+     */
+    private static final long RETRY_AFTER_VALIDATION_QUEUE_FULL_SECONDS = 5;
+
     /**
      * Constructs a NewNonce handler with the specified ACME provisioner and server instance.
      *
@@ -74,6 +90,9 @@ public class ChallengeCallbackEndpoint extends AbstractAcmeEndpoint {
         // Check signature and nonce
         performSignatureAndNonceCheck(ctx, identifierChallenge.getIdentifier().getOrder().getAccount(), acmeRequestBody);
 
+        // Check rate limits
+        provisioner.getRateLimiter().checkAccountRequest(identifierChallenge.getIdentifier().getOrder().getAccount().getAccountId(), ctx.ip());
+
         boolean isWildcardDomain = false;
         String nonWildcardDomain = identifierChallenge.getIdentifier().getDataValue();
         if (nonWildcardDomain.startsWith("*.")) {
@@ -85,54 +104,103 @@ public class ChallengeCallbackEndpoint extends AbstractAcmeEndpoint {
             throw new ACMEMalformedException("DNS-01 method is only valid for non wildcard domains");
         }
 
-        ChallengeResult result = switch (challengeType) {
-            case "http-01" -> HTTPChallenge.check(
-                    identifierChallenge.getAuthorizationToken(),
-                    identifierChallenge.getIdentifier().getDataValue(),
-                    identifierChallenge.getIdentifier().getOrder().getAccount(),
-                    getServerInstance()
-            );
-            case "dns-01" -> DNSChallenge.check(
-                    identifierChallenge.getAuthorizationToken(),
-                    nonWildcardDomain,
-                    identifierChallenge.getIdentifier().getOrder().getAccount(),
-                    getServerInstance()
-            );
-            default -> {
-                LOG.error("Unsupported challenge type: {}", challengeType);
-                throw new ACMEConnectionErrorException("Unsupported challenge type: " + challengeType);
+        ChallengeValidator challengeValidator = getServerInstance().getChallengeValidator();
+        AcmeStatus status = identifierChallenge.getStatus();
+        if (status == AcmeStatus.PENDING || status == AcmeStatus.PROCESSING) {
+            Callable<ChallengeResult> validation = createValidation(identifierChallenge, challengeType, nonWildcardDomain);
+
+            if (!challengeValidator.hasCapacity()) {
+                throw new ACMERateLimitedException("Too many challenge validations in progress, please retry later",
+                        RETRY_AFTER_VALIDATION_QUEUE_FULL_SECONDS);
             }
-        };
 
-        LOG.info("Validating ownership of host {}", nonWildcardDomain);
-        if (result.isSuccessful()) {
-            // Mark challenge as passed
-            ACMEOrderIdentifierChallenge.passChallenge(challengeId, getServerInstance());
-        } else {
-            LOG.error("Throwing API error: Host verification failed with method {}", challengeType);
-            throw new ACMEConnectionErrorException(result.getErrorReason());
-            // TODO: Fail challenge in database
-            // Database.failChallenge(challengeId);
+            // Only the request claiming the challenge validates it, on any node. A challenge stuck in processing (e.g. after a restart)
+            // is claimed again once its validation must have finished.
+            Instant staleProcessingBefore = Instant.now().minus(challengeValidator.getMaxCompletionTime());
+            if (ACMEOrderIdentifierChallenge.claimChallenge(challengeId, staleProcessingBefore, getServerInstance())) {
+                // Start validating once processing is committed, so the result can't be overwritten by this request
+                UnitOfWork.afterCommit(() -> startValidation(challengeValidator, challengeId, validation));
+            }
+            status = AcmeStatus.PROCESSING;
         }
 
-        // Reload identifier, e.g., host has validated
-        identifierChallenge = ACMEOrderIdentifierChallenge.getACMEIdentifierChallenge(challengeId, getServerInstance());
-
         // Creating response object
         ACMEChallengeResponse response = new ACMEChallengeResponse();
         response.setType(challengeType);
-        if (identifierChallenge.getStatus() == AcmeStatus.VALID) {
-            response.setStatus(AcmeStatus.VALID.getRfcName());
+        response.setStatus(status.getRfcName());
+        if (status == AcmeStatus.VALID) {
             response.setVerified(DateTools.formatDateForACME(identifierChallenge.getVerifiedTime()));
-        } else {
-            response.setStatus(AcmeStatus.PENDING.getRfcName());
         }
-        response.setUrl(provisioner.getAcmeApiURL() + "/acme/chall/" + challengeId + "/" + challengeType);
+        response.setUrl(provisioner.getChallengeURL(challengeId, challengeType));
         response.setToken(identifierChallenge.getAuthorizationToken());
 
         // "Up"-Link header is required for certbot
-        ctx.header("Link", HttpHeaderUtil.buildLinkHeaderValue(provisioner.getAcmeApiURL() + "/acme/authz/" + identifierChallenge.getIdentifier().getAuthorizationId(), "up"));
+        ctx.header("Link", HttpHeaderUtil.buildLinkHeaderValue(provisioner.getAuthzURL(identifierChallenge.getIdentifier().getAuthorizationId()), "up"));
 
         ctx.json(response);
     }
+
+    /**
+     * Creates the validation of a challenge. All values are resolved here, on the request thread, because the validation runs after the
+     * database session of the request has been closed.
+     *
+     * @param identifierChallenge The challenge to validate.
+     * @param challengeType       The challenge type, {@code http-01} or {@code dns-01}.
+     * @param nonWildcardDomain   The validated domain without wildcard label.
+     * @return The validation.
+     * @throws ACMEConnectionErrorException If the challenge type is not supported.
+     */
+    private Callable<ChallengeResult> createValidation(ACMEOrderIdentifierChallenge identifierChallenge, String challengeType,
+            String nonWildcardDomain) throws ACMEConnectionErrorException {
+        String authorizationToken = identifierChallenge.getAuthorizationToken();
+        String identifierValue = identifierChallenge.getIdentifier().getDataValue();
+        ACMEAccount account = identifierChallenge.getIdentifier().getOrder().getAccount();
+        ServerInstance serverInstance = getServerInstance();
+        Duration httpTimeout = serverInstance.getChallengeValidator().getHttpTimeout();
+        HTTPChallenge.DualStackPolicy httpDualStackPolicy = serverInstance.getChallengeValidator().getHttpDualStackPolicy();
+        HttpValidationStatistics httpStatistics = serverInstance.getChallengeValidator().getHttpStatistics();
+        MultiPerspectiveValidator perspectives = serverInstance.getChallengeValidator().getPerspectives();
+
+        return switch (challengeType) {
+            case "http-01" -> () -> {
+                LOG.info("Validating ownership of host {} with method {}", identifierValue, challengeType);
+                return perspectives.validate(networkClient ->
+                        HTTPChallenge.check(authorizationToken, identifierValue, account, networkClient, httpTimeout, httpDualStackPolicy,
+                                httpStatistics));
+            };
+            case "dns-01" -> () -> {
+                LOG.info("Validating ownership of host {} with method {}", nonWildcardDomain, challengeType);
+                return perspectives.validate(networkClient ->
+                        DNSChallenge.check(authorizationToken, nonWildcardDomain, account, networkClient));
+            };
+            default -> {
+                LOG.error("Unsupported challenge type: {}", challengeType);
+                throw new ACMEConnectionErrorException("Unsupported challenge type: " + challengeType);
+            }
+        };
+    }
+
+    /**
+     * Queues the validation of a challenge and records its result. If the queue filled up in the meantime the challenge fails, because the
+     * client already received the processing state and won't trigger the challenge again.
+     *
+     * @param challengeValidator The validator running the validation.
+     * @param challengeId        The challenge ID.
+     * @param validation         The validation.
+     */
+    private void startValidation(ChallengeValidator challengeValidator, String challengeId, Callable<ChallengeResult> validation) {
+        ServerInstance serverInstance = getServerInstance();
+        try {
+            challengeValidator.submit(challengeId, validation, result -> {
+                if (result.isSuccessful()) {
+                    ACMEOrderIdentifierChallenge.passChallenge(challengeId, serverInstance);
+                } else {
+                    ACMEOrderIdentifierChallenge.failChallenge(challengeId, result.getErrorReason(), serverInstance);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.error("Challenge validation queue is full, failing challenge {}", challengeId);
+            ACMEOrderIdentifierChallenge.failChallenge(challengeId, "Challenge validation queue is full", serverInstance);
+        }
+    }
 }
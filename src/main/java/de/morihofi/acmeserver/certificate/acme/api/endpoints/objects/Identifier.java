@@ -16,11 +16,20 @@
 
 package de.morihofi.acmeserver.certificate.acme.api.endpoints.objects;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import de.morihofi.acmeserver.tools.json.JsonStreamTools;
+
+import java.io.IOException;
 import java.util.Locale;
 
 /**
  * ACME Identifier used in Requests from ACME Clients
  */
+@JsonAdapter(Identifier.GsonAdapter.class)
 public class Identifier {
 
     /**
@@ -146,4 +155,45 @@ public class Identifier {
         result = 31 * result + (value != null ? value.hashCode() : 0);
         return result;
     }
+
+    /**
+     * Streaming Gson adapter for {@link Identifier}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<Identifier> {
+        /**
+         * Shared instance, the adapter is stateless.
+         */
+        public static final GsonAdapter INSTANCE = new GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, Identifier identifier) throws IOException {
+            if (identifier == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type").value(identifier.type);
+            out.name("value").value(identifier.value);
+            out.endObject();
+        }
+
+        @Override
+        public Identifier read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Identifier identifier = new Identifier();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> identifier.type = JsonStreamTools.nextNullableString(in);
+                    case "value" -> identifier.value = JsonStreamTools.nextNullableString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return identifier;
+        }
+    }
 }
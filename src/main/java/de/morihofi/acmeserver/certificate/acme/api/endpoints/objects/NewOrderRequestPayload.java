@@ -15,9 +15,19 @@
  */
 
 package de.morihofi.acmeserver.certificate.acme.api.endpoints.objects;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.NewOrderEndpoint;
+import de.morihofi.acmeserver.tools.json.JsonStreamTools;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 
@@ -25,6 +35,7 @@ import java.util.List;
  * Request payload object for a new order, used in {@link NewOrderEndpoint}
  */
 @SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
+@JsonAdapter(NewOrderRequestPayload.GsonAdapterFactory.class)
 public class NewOrderRequestPayload {
 
     /**
@@ -79,4 +90,70 @@ public class NewOrderRequestPayload {
         this.notAfter = value;
     }
 
+    /**
+     * Creates the streaming Gson adapter of {@link NewOrderRequestPayload}, which needs the {@link Date} adapter of the Gson instance it
+     * is used with.
+     */
+    public static final class GsonAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != NewOrderRequestPayload.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new GsonAdapter(gson.getAdapter(Date.class));
+        }
+    }
+
+    /**
+     * Streaming Gson adapter for {@link NewOrderRequestPayload}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<NewOrderRequestPayload> {
+        /**
+         * Adapter of the Gson instance for dates.
+         */
+        private final TypeAdapter<Date> dateAdapter;
+
+        /**
+         * Creates the adapter.
+         *
+         * @param dateAdapter Adapter for dates.
+         */
+        public GsonAdapter(TypeAdapter<Date> dateAdapter) {
+            this.dateAdapter = dateAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, NewOrderRequestPayload payload) throws IOException {
+            if (payload == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("identifiers");
+            JsonStreamTools.writeList(out, payload.identifiers, Identifier.GsonAdapter.INSTANCE);
+            out.name("notAfter");
+            dateAdapter.write(out, payload.notAfter);
+            out.endObject();
+        }
+
+        @Override
+        public NewOrderRequestPayload read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            NewOrderRequestPayload payload = new NewOrderRequestPayload();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "identifiers" -> payload.identifiers = JsonStreamTools.readList(in, Identifier.GsonAdapter.INSTANCE);
+                    case "notAfter" -> payload.notAfter = dateAdapter.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return payload;
+        }
+    }
 }
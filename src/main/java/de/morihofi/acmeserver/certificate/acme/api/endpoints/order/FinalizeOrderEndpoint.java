@@ -30,6 +30,7 @@ import de.morihofi.acmeserver.database.AcmeStatus;
 import de.morihofi.acmeserver.database.objects.ACMEAccount;
 import de.morihofi.acmeserver.database.objects.ACMEOrder;
 import de.morihofi.acmeserver.database.objects.ACMEOrderIdentifier;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
 import de.morihofi.acmeserver.exception.exceptions.ACMEBadCsrException;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.base64.Base64Tools;
@@ -47,7 +48,6 @@ import org.hibernate.Transaction;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
-import java.util.Objects;
 
 public class FinalizeOrderEndpoint extends AbstractAcmeEndpoint {
 
@@ -78,6 +78,9 @@ public class FinalizeOrderEndpoint extends AbstractAcmeEndpoint {
         assert account != null;
         performSignatureAndNonceCheck(ctx, account, acmeRequestBody);
 
+        // Check rate limits
+        provisioner.getRateLimiter().checkAccountRequest(account.getAccountId(), ctx.ip());
+
         // After check parse payload
         FinalizeOrderRequestPayload reqBodyPayloadObj =
                 gson.fromJson(acmeRequestBody.getDecodedPayload(), FinalizeOrderRequestPayload.class);
@@ -96,7 +99,7 @@ public class FinalizeOrderEndpoint extends AbstractAcmeEndpoint {
 
         // One authorization per identifier
         List<String> authorizationsList = identifiers.stream()
-                .map(acmeOrderIdentifier -> provisioner.getAcmeApiURL() + "/acme/authz/" + acmeOrderIdentifier.getAuthorizationId())
+                .map(acmeOrderIdentifier -> provisioner.getAuthzURL(acmeOrderIdentifier.getAuthorizationId()))
                 .toList();
 
         try {
@@ -119,7 +122,7 @@ public class FinalizeOrderEndpoint extends AbstractAcmeEndpoint {
 
         if (order.getCertificatePem() == null && order.getCertificateCSR() == null) {
 
-            try (Session session = Objects.requireNonNull(getServerInstance().getHibernateUtil().getSessionFactory()).openSession()) {
+            try (Session session = getServerInstance().getHibernateUtil().openSession()) {
 
                 // Save CSR in Database (and mark it that it needs a certificate)
                 Transaction transaction = session.beginTransaction();
@@ -127,6 +130,7 @@ public class FinalizeOrderEndpoint extends AbstractAcmeEndpoint {
                 order.setCertificateCSR(csr);
                 order.setOrderState(AcmeOrderState.NEED_A_CERTIFICATE);
                 session.merge(order);
+                ProvisionerCounter.add(session, provisioner.getProvisionerName(), ProvisionerCounter.Counter.CERTIFICATES_WAITING, 1);
 
                 transaction.commit();
 
@@ -158,10 +162,10 @@ public class FinalizeOrderEndpoint extends AbstractAcmeEndpoint {
 
         ctx.header("Content-Type", "application/json");
         ctx.header("Replay-Nonce", Crypto.createNonce(getServerInstance()));
-        ctx.header("Location", provisioner.getAcmeApiURL() + "/acme/order/" + orderId);
+        ctx.header("Location", provisioner.getOrderURL(orderId));
 
-        response.setFinalize(provisioner.getAcmeApiURL() + "/acme/order/" + orderId + "/finalize");
-        response.setCertificate(provisioner.getAcmeApiURL() + "/acme/order/" + orderId + "/cert");
+        response.setFinalize(provisioner.getOrderURL(orderId) + "/finalize");
+        response.setCertificate(provisioner.getOrderURL(orderId) + "/cert");
         response.setIdentifiers(identifierList);
         response.setAuthorizations(authorizationsList);
 
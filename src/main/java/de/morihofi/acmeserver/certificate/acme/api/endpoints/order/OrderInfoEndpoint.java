@@ -86,17 +86,22 @@ public class OrderInfoEndpoint extends AbstractAcmeEndpoint {
         getServerInstance().getNonceManager().checkNonceFromDecodedProtected(acmeRequestBody.getDecodedProtected());
 
         boolean allVerified = true;
+        boolean anyFailed = false;
         List<Identifier> identifierList = new ArrayList<>();
         List<String> authorizationsList = new ArrayList<>();
         Date orderExpires = new Date();
 
         for (ACMEOrderIdentifier identifier : identifiers) {
-            if (identifier.getChallengeStatus() != AcmeStatus.VALID) {
+            AcmeStatus challengeStatus = identifier.getChallengeStatus();
+            if (challengeStatus != AcmeStatus.VALID) {
                 allVerified = false;
             }
+            if (challengeStatus == AcmeStatus.INVALID) {
+                anyFailed = true;
+            }
             identifierList.add(new Identifier(identifier.getType(), identifier.getDataValue()));
 
-            authorizationsList.add(provisioner.getAcmeApiURL() + "/acme/authz/" + identifier.getAuthorizationId());
+            authorizationsList.add(provisioner.getAuthzURL(identifier.getAuthorizationId()));
         }
 
         ACMEOrderResponse response = new ACMEOrderResponse();
@@ -108,6 +113,9 @@ public class OrderInfoEndpoint extends AbstractAcmeEndpoint {
             if (order.getCertificateCSR() != null) {
                 // Processing means, that the certificate is being issued or in issue queue
                 response.setStatus(AcmeStatus.PROCESSING.getRfcName());
+            } else if (anyFailed) {
+                // Invalid means, that an authorization failed and the order can't be fulfilled anymore
+                response.setStatus(AcmeStatus.INVALID.getRfcName());
             } else {
                 // Ready means, that all authorizations are done. It is "ready" to process an CSR
                 // Pending means, that some/all authorization are not verified at the moment
@@ -115,8 +123,8 @@ public class OrderInfoEndpoint extends AbstractAcmeEndpoint {
             }
         }
 
-        response.setFinalize(provisioner.getAcmeApiURL() + "/acme/order/" + orderId + "/finalize");
-        response.setCertificate(provisioner.getAcmeApiURL() + "/acme/order/" + orderId + "/cert");
+        response.setFinalize(provisioner.getOrderURL(orderId) + "/finalize");
+        response.setCertificate(provisioner.getOrderURL(orderId) + "/cert");
         response.setIdentifiers(identifierList);
         response.setAuthorizations(authorizationsList);
 
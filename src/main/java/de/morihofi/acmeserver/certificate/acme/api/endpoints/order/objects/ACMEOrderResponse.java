@@ -16,15 +16,23 @@
 
 package de.morihofi.acmeserver.certificate.acme.api.endpoints.order.objects;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.Identifier;
+import de.morihofi.acmeserver.tools.json.JsonStreamTools;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Represents a response from the ACME server for an order request.
  */
 @SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
+@JsonAdapter(ACMEOrderResponse.GsonAdapter.class)
 public class ACMEOrderResponse {
     /**
      * The status of the ACME order.
@@ -186,4 +194,57 @@ public class ACMEOrderResponse {
     public void setIssued(String issued) {
         this.issued = issued;
     }
+
+    /**
+     * Streaming Gson adapter for {@link ACMEOrderResponse}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<ACMEOrderResponse> {
+        /**
+         * Shared instance, the adapter is stateless.
+         */
+        public static final GsonAdapter INSTANCE = new GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ACMEOrderResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("status").value(response.status);
+            out.name("expires").value(response.expires);
+            out.name("issued").value(response.issued);
+            out.name("finalize").value(response.finalize);
+            out.name("certificate").value(response.certificate);
+            out.name("identifiers");
+            JsonStreamTools.writeList(out, response.identifiers, Identifier.GsonAdapter.INSTANCE);
+            out.name("authorizations");
+            JsonStreamTools.writeList(out, response.authorizations, JsonStreamTools.STRING_ADAPTER);
+            out.endObject();
+        }
+
+        @Override
+        public ACMEOrderResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ACMEOrderResponse response = new ACMEOrderResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "status" -> response.status = JsonStreamTools.nextNullableString(in);
+                    case "expires" -> response.expires = JsonStreamTools.nextNullableString(in);
+                    case "issued" -> response.issued = JsonStreamTools.nextNullableString(in);
+                    case "finalize" -> response.finalize = JsonStreamTools.nextNullableString(in);
+                    case "certificate" -> response.certificate = JsonStreamTools.nextNullableString(in);
+                    case "identifiers" -> response.identifiers = JsonStreamTools.readList(in, Identifier.GsonAdapter.INSTANCE);
+                    case "authorizations" -> response.authorizations = JsonStreamTools.readList(in, JsonStreamTools.STRING_ADAPTER);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.certificate.acme.challenges;
+
+import de.morihofi.acmeserver.config.network.ChallengeValidationConfig;
+import de.morihofi.acmeserver.tools.concurrent.DaemonThreads;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs challenge validations in the background, so that the challenge endpoint can answer with {@code processing} right away (RFC 8555,
+ * section 7.5.1) instead of holding a request thread until the validated host answers or the connection times out.
+ * <p>
+ * Validations run on a fixed number of threads with a bounded queue. Every validation has a deadline, starting when it begins to run: when
+ * it is exceeded, the challenge is completed as failed and the validation thread is interrupted. The completion callback is invoked exactly
+ * once per validation, either with the validation result, with a failure for an exception or with a failure for the timeout.
+ */
+public class ChallengeValidator implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Executor running the validations.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Scheduler enforcing the validation deadlines.
+     */
+    private final ScheduledExecutorService watchdog;
+
+    /**
+     * IDs of the challenges currently queued or being validated on this node, so a challenge is not validated twice at the same time.
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Time after which an unfinished validation fails.
+     */
+    private final Duration validationTimeout;
+
+    /**
+     * Timeout of a single HTTP-01 request.
+     */
+    private final Duration httpTimeout;
+
+    /**
+     * Policy for HTTP-01 validations of hosts having IPv4 and IPv6 addresses.
+     */
+    private final HTTPChallenge.DualStackPolicy httpDualStackPolicy;
+
+    /**
+     * Network perspectives every challenge is validated from.
+     */
+    private final MultiPerspectiveValidator perspectives;
+
+    /**
+     * Outcomes of HTTP-01 validation requests.
+     */
+    private final HttpValidationStatistics httpStatistics = new HttpValidationStatistics();
+
+    /**
+     * Creates a validator using the given settings.
+     *
+     * @param config       The challenge validation settings.
+     * @param perspectives The network perspectives challenges are validated from.
+     */
+    public ChallengeValidator(ChallengeValidationConfig config, MultiPerspectiveValidator perspectives) {
+        this.perspectives = perspectives;
+        this.validationTimeout = Duration.ofSeconds(config.getValidationTimeoutSeconds());
+        this.httpTimeout = Duration.ofSeconds(config.getHttpTimeoutSeconds());
+        // Fails on startup rather than on the first dual stack validation
+        this.httpDualStackPolicy = HTTPChallenge.DualStackPolicy.fromConfigValue(config.getHttpDualStackPolicy());
+        this.executor = new ThreadPoolExecutor(
+                config.getMaxConcurrentValidations(), config.getMaxConcurrentValidations(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getMaxQueuedValidations()),
+                DaemonThreads.newThreadFactory("challenge-validation-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                DaemonThreads.newThreadFactory("challenge-validation-watchdog-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.watchdog = scheduler;
+    }
+
+    /**
+     * Gets the timeout of a single HTTP-01 request.
+     *
+     * @return The timeout.
+     */
+    public Duration getHttpTimeout() {
+        return httpTimeout;
+    }
+
+    /**
+     * Gets the policy for HTTP-01 validations of hosts having IPv4 and IPv6 addresses.
+     *
+     * @return The dual stack policy.
+     */
+    public HTTPChallenge.DualStackPolicy getHttpDualStackPolicy() {
+        return httpDualStackPolicy;
+    }
+
+    /**
+     * Gets the statistics of HTTP-01 validation requests.
+     *
+     * @return The statistics.
+     */
+    public HttpValidationStatistics getHttpStatistics() {
+        return httpStatistics;
+    }
+
+    /**
+     * Gets the network perspectives challenges are validated from.
+     *
+     * @return The perspectives.
+     */
+    public MultiPerspectiveValidator getPerspectives() {
+        return perspectives;
+    }
+
+    /**
+     * Gets the longest time from queueing a validation until its completion: the validations queued ahead of it each take at most the
+     * validation timeout, spread over all validation threads, followed by its own validation. A challenge processing for longer than this
+     * has lost its validation.
+     *
+     * @return The maximum completion time.
+     */
+    public Duration getMaxCompletionTime() {
+        int queueRounds = (executor.getQueue().remainingCapacity() + executor.getQueue().size() + executor.getCorePoolSize() - 1)
+                / executor.getCorePoolSize();
+        return validationTimeout.multipliedBy(queueRounds + 1L);
+    }
+
+    /**
+     * Checks whether a further validation can be queued. This is a snapshot, a following {@link #submit} may still be rejected.
+     *
+     * @return {@code true} if the queue has space left.
+     */
+    public boolean hasCapacity() {
+        return executor.getQueue().remainingCapacity() > 0 || executor.getPoolSize() < executor.getCorePoolSize();
+    }
+
+    /**
+     * Queues the validation of a challenge. A challenge that is already being validated is not queued a second time.
+     *
+     * @param challengeId  The challenge ID.
+     * @param validation   The validation to run.
+     * @param onCompletion Invoked exactly once with the result of the validation, on a validation or watchdog thread.
+     * @return {@code true} if the validation was queued, {@code false} if the challenge was already being validated.
+     * @throws RejectedExecutionException If the validation queue is full.
+     */
+    public boolean submit(String challengeId, Callable<ChallengeResult> validation, Consumer<ChallengeResult> onCompletion) {
+        if (!inFlight.add(challengeId)) {
+            return false;
+        }
+
+        AtomicBoolean completed = new AtomicBoolean(false);
+        Consumer<ChallengeResult> complete = result -> {
+            if (completed.compareAndSet(false, true)) {
+                inFlight.remove(challengeId);
+                try {
+                    onCompletion.accept(result);
+                } catch (RuntimeException e) {
+                    LOG.error("Unable to complete validation of challenge {}", challengeId, e);
+                }
+            }
+        };
+
+        try {
+            executor.execute(() -> {
+                // The deadline starts with the validation, time spent in the queue is bounded by the queue size
+                Thread validationThread = Thread.currentThread();
+                AtomicBoolean running = new AtomicBoolean(true);
+                Object runningLock = new Object();
+                ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+                    LOG.warn("Validation of challenge {} did not finish within {} seconds", challengeId, validationTimeout.toSeconds());
+                    complete.accept(new ChallengeResult(false,
+                            "Validation did not finish within " + validationTimeout.toSeconds() + " seconds"));
+                    synchronized (runningLock) {
+                        if (running.get()) {
+                            validationThread.interrupt();
+                        }
+                    }
+                }, validationTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+                ChallengeResult result;
+                try {
+                    result = validation.call();
+                } catch (Exception e) {
+                    if (!completed.get()) {
+                        LOG.error("Validation of challenge {} failed", challengeId, e);
+                    }
+                    result = new ChallengeResult(false, "Validation failed, server logs show more information");
+                } finally {
+                    deadline.cancel(false);
+                    synchronized (runningLock) {
+                        running.set(false);
+                        // Don't leak an interrupt of the watchdog into the next validation on this thread
+                        Thread.interrupted();
+                    }
+                }
+                complete.accept(result);
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(challengeId);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting validations and interrupts running ones.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+        perspectives.close();
+    }
+}
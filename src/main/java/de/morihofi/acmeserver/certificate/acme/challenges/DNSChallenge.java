@@ -17,12 +17,13 @@
 package de.morihofi.acmeserver.certificate.acme.challenges;
 
 import de.morihofi.acmeserver.Main;
+import de.morihofi.acmeserver.config.network.DNSConfig;
 import de.morihofi.acmeserver.database.objects.ACMEAccount;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.base64.Base64Tools;
-import de.morihofi.acmeserver.tools.certificate.PemUtil;
 import de.morihofi.acmeserver.tools.crypto.AcmeTokenCryptography;
 import de.morihofi.acmeserver.tools.crypto.Hashing;
+import de.morihofi.acmeserver.tools.network.NetworkClient;
 import de.morihofi.acmeserver.tools.network.dns.DNSLookup;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -63,24 +64,40 @@ public class DNSChallenge {
      * @throws GeneralSecurityException If a security-related error occurs.
      */
     public static ChallengeResult check(String token, String domain, ACMEAccount acmeAccount, ServerInstance serverInstance) throws IOException, GeneralSecurityException {
+        return check(token, domain, acmeAccount, serverInstance.getNetworkClient());
+    }
+
+    /**
+     * Validates a DNS challenge like {@link #check(String, String, ACMEAccount, ServerInstance)}, querying the DNS resolvers configured
+     * for the given network client, e.g. the one of a validation perspective.
+     *
+     * @param token         The token value associated with the ACME challenge.
+     * @param domain        The domain for which the ACME challenge is being validated.
+     * @param acmeAccount   The ACME account containing the public key used to derive the expected token value.
+     * @param networkClient The network client whose DNS configuration is used.
+     * @return {@code true} if the DNS challenge validation succeeds, otherwise {@code false}.
+     * @throws IOException              If an I/O error occurs during DNS query.
+     * @throws GeneralSecurityException If a security-related error occurs.
+     */
+    public static ChallengeResult check(String token, String domain, ACMEAccount acmeAccount, NetworkClient networkClient) throws IOException, GeneralSecurityException {
         String lastError = "";
+        DNSConfig dnsConfig = networkClient.getNetworkConfig().getDnsConfig();
 
-        String dnsExpectedValue = getDigest(token, PemUtil.readPublicKeyFromPem(acmeAccount.getPublicKeyPEM()));
+        String dnsExpectedValue = getDigest(token, AcmeTokenCryptography.encodedThumbprint(acmeAccount));
         final String lookupDomain = "_acme-challenge." + domain;
         try {
             LOG.info("Looking up TXT value on domain {}", lookupDomain);
 
-            // Perform DNS lookup
+            // Perform DNS lookup, bypassing the DNS cache: the TXT record may have been created just now
             List<Record> dnsRecords;
-            if (serverInstance.getAppConfig().getNetwork().getDnsConfig().getDohEnabled()) {
+            if (dnsConfig.getDohEnabled()) {
                 // Using DoHClient for the DNS lookup
                 LOG.info("Using DNS over HTTPS Lookup");
-                dnsRecords = DNSLookup.performDoHLookup(lookupDomain + ".", Type.TXT, serverInstance.getNetworkClient().getDoHClient());
+                dnsRecords = DNSLookup.performDoHLookup(lookupDomain + ".", Type.TXT, networkClient.getDoHClient());
             } else {
                 // Using standard DNS lookup
                 LOG.info("Using DNS default Lookup");
-                dnsRecords = DNSLookup.performDnsServerLookup(lookupDomain + ".", Type.TXT, serverInstance.getAppConfig().getNetwork().getDnsConfig()
-                        .getDnsServers());
+                dnsRecords = DNSLookup.performDnsServerLookup(lookupDomain + ".", Type.TXT, dnsConfig.getDnsServers());
             }
 
             String txtValue;
@@ -114,7 +131,15 @@ public class DNSChallenge {
      * Returns the digest string to be set in the domain's {@code _acme-challenge} TXT record.
      */
     public static String getDigest(String token, PublicKey pk) {
-        return Base64Tools.base64UrlEncode(Hashing.sha256hash(AcmeTokenCryptography.keyAuthorizationFor(token, pk)));
+        return getDigest(token, AcmeTokenCryptography.encodedThumbprint(pk));
+    }
+
+    /**
+     * Returns the digest string to be set in the domain's {@code _acme-challenge} TXT record, using an already computed thumbprint of the
+     * account key.
+     */
+    public static String getDigest(String token, String encodedThumbprint) {
+        return Base64Tools.base64UrlEncode(Hashing.sha256hash(AcmeTokenCryptography.keyAuthorizationFor(token, encodedThumbprint)));
     }
 
     /**
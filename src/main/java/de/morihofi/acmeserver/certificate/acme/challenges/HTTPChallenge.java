@@ -17,26 +17,48 @@
 package de.morihofi.acmeserver.certificate.acme.challenges;
 
 import de.morihofi.acmeserver.Main;
+import de.morihofi.acmeserver.config.network.ChallengeValidationConfig;
 import de.morihofi.acmeserver.database.objects.ACMEAccount;
 import de.morihofi.acmeserver.tools.ServerInstance;
-import de.morihofi.acmeserver.tools.certificate.PemUtil;
+import de.morihofi.acmeserver.tools.concurrent.DaemonThreads;
 import de.morihofi.acmeserver.tools.crypto.AcmeTokenCryptography;
 import de.morihofi.acmeserver.tools.crypto.AcmeUtils;
+import de.morihofi.acmeserver.tools.network.NetworkClient;
 import de.morihofi.acmeserver.tools.regex.DomainAndIpValidation;
+import okhttp3.Call;
+import okhttp3.Dns;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.invoke.MethodHandles;
 import java.net.ConnectException;
 import java.net.HttpURLConnection;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
-import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class HTTPChallenge {
 
@@ -50,6 +72,151 @@ public class HTTPChallenge {
     public static final String USER_AGENT =
             "Mozilla/5.0 ACMEServer/" + Main.buildMetadataVersion + "+git" + Main.buildMetadataGitCommit + " Java/" + System.getProperty(
                     "java.version");
+    /**
+     * Delay before the IPv4 attempt of a dual stack validation starts while IPv6 is still pending, as recommended by RFC 8305.
+     */
+    static final long CONNECTION_ATTEMPT_DELAY_MILLIS = 250;
+    /**
+     * Prefix of HTTP-01 errors, left out when reporting the error of one address family.
+     */
+    private static final String FAILURE_PREFIX = "HTTP Challenge failed, ";
+    /**
+     * Executor running the attempts of dual stack validations.
+     */
+    private static final ExecutorService DUAL_STACK_EXECUTOR =
+            Executors.newCachedThreadPool(DaemonThreads.newThreadFactory("http-validation-"));
+
+    /**
+     * Policy combining the results of validating a host with IPv4 and IPv6 addresses over both address families.
+     */
+    public enum DualStackPolicy {
+        /**
+         * The host must pass the validation over IPv6 and over IPv4.
+         */
+        REQUIRE_BOTH,
+        /**
+         * The result over IPv6 decides, IPv4 is only used if the host is unreachable over IPv6. This is the default.
+         */
+        PREFER_IPV6,
+        /**
+         * The first address family passing the validation wins, the validation fails if it fails over both. This is the most permissive
+         * policy, a host answering wrong over IPv6 still passes over IPv4.
+         */
+        FIRST_SUCCESS;
+
+        /**
+         * Parses the dual stack policy from its configuration value.
+         *
+         * @param value The configuration value, e.g. {@code prefer-ipv6}.
+         * @return The dual stack policy.
+         * @throws IllegalArgumentException if the value is unknown.
+         */
+        public static DualStackPolicy fromConfigValue(String value) {
+            return switch (value) {
+                case "require-both" -> REQUIRE_BOTH;
+                case "prefer-ipv6" -> PREFER_IPV6;
+                case "first-success" -> FIRST_SUCCESS;
+                default -> throw new IllegalArgumentException(
+                        "Unknown HTTP-01 dual stack policy " + value + ", must be one of require-both, prefer-ipv6 or first-success");
+            };
+        }
+    }
+
+    /**
+     * Outcome of validating over one route.
+     *
+     * @param result        The result of the validation.
+     * @param failureReason The reason of the failure, {@code null} if it passed.
+     */
+    record Attempt(ChallengeResult result, HttpValidationStatistics.FailureReason failureReason) {
+
+        /**
+         * Returns whether the host could not be reached, as opposed to answering with a wrong response.
+         *
+         * @return {@code true} if the attempt failed to connect or timed out.
+         */
+        boolean isConnectionFailure() {
+            return failureReason == HttpValidationStatistics.FailureReason.CONNECTION_ERROR
+                    || failureReason == HttpValidationStatistics.FailureReason.TIMEOUT;
+        }
+    }
+
+    /**
+     * Attempt of a dual stack validation together with its address family.
+     *
+     * @param ipv6    {@code true} for the IPv6 attempt, {@code false} for IPv4.
+     * @param attempt The outcome.
+     */
+    private record FamilyAttempt(boolean ipv6, Attempt attempt) {
+    }
+
+    /**
+     * Resolver restricting another resolver to the addresses of one address family.
+     *
+     * @param delegate   The resolver to restrict.
+     * @param family     The address class to keep.
+     * @param familyName Name of the address family, for errors.
+     */
+    private record FamilyDns(Dns delegate, Class<? extends InetAddress> family, String familyName) implements Dns {
+
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            List<InetAddress> addresses = delegate.lookup(hostname).stream().filter(family::isInstance).toList();
+            if (addresses.isEmpty()) {
+                throw new UnknownHostException("No " + familyName + " address for " + hostname);
+            }
+            return addresses;
+        }
+    }
+
+    /**
+     * Holds the current call of an attempt, so that another thread can cancel it across redirects.
+     */
+    private static final class CancellableCall {
+
+        /**
+         * The running call, {@code null} before the first one.
+         */
+        private Call call;
+        /**
+         * Whether the attempt was cancelled.
+         */
+        private boolean cancelled;
+
+        /**
+         * Registers the next call of the attempt.
+         *
+         * @param next The call about to be executed.
+         * @return {@code false} if the attempt was already cancelled and the call must not be executed.
+         */
+        synchronized boolean start(Call next) {
+            if (cancelled) {
+                return false;
+            }
+            call = next;
+            return true;
+        }
+
+        /**
+         * Cancels the attempt and its running call.
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        /**
+         * Returns whether the attempt was cancelled.
+         *
+         * @return {@code true} if cancelled.
+         */
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
     private static String proxyHost = "";
     private static int proxyPort = 0;
     private static String proxyUser = "";
@@ -73,13 +240,81 @@ public class HTTPChallenge {
      */
     public static ChallengeResult check(String authToken, String host, ACMEAccount acmeAccount, ServerInstance serverInstance) throws IOException,
             NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException {
-        boolean passed = false;
-        String lastError = "";
+        return check(authToken, host, acmeAccount, serverInstance, null);
+    }
 
-        OkHttpClient httpClient = serverInstance.getNetworkClient().getOkHttpClient();
+    /**
+     * Validates an HTTP challenge like {@link #check(String, String, ACMEAccount, ServerInstance)}, limiting the whole request (DNS
+     * resolution, connecting, redirects and reading the body) to the given timeout.
+     *
+     * @param authToken      The expected authentication token value for the challenge.
+     * @param host           The target host for the HTTP GET request.
+     * @param acmeAccount    The ACME account used in the challenge.
+     * @param serverInstance Server instance
+     * @param timeout        Timeout of the request, {@code null} to use the timeouts of the HTTP client.
+     * @return {@code true} if the challenge validation is successful, otherwise {@code false}.
+     * @throws IOException              If an I/O error occurs during the HTTP request.
+     * @throws NoSuchAlgorithmException If a requested cryptographic algorithm is not available.
+     * @throws InvalidKeySpecException  If an invalid key specification is encountered.
+     * @throws NoSuchProviderException  If a requested security provider is not available.
+     */
+    public static ChallengeResult check(String authToken, String host, ACMEAccount acmeAccount, ServerInstance serverInstance,
+            Duration timeout) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException {
+        return check(authToken, host, acmeAccount, serverInstance.getNetworkClient(), timeout);
+    }
 
+    /**
+     * Validates an HTTP challenge like {@link #check(String, String, ACMEAccount, ServerInstance, Duration)}, sending the request through
+     * the given network client, e.g. the one of a validation perspective. Hosts having IPv4 and IPv6 addresses are validated with
+     * {@link DualStackPolicy#PREFER_IPV6}.
+     *
+     * @param authToken     The expected authentication token value for the challenge.
+     * @param host          The target host for the HTTP GET request.
+     * @param acmeAccount   The ACME account used in the challenge.
+     * @param networkClient The network client sending the request.
+     * @param timeout       Timeout of the request, {@code null} to use the timeouts of the HTTP client.
+     * @return {@code true} if the challenge validation is successful, otherwise {@code false}.
+     * @throws IOException              If an I/O error occurs during the HTTP request.
+     * @throws NoSuchAlgorithmException If a requested cryptographic algorithm is not available.
+     * @throws InvalidKeySpecException  If an invalid key specification is encountered.
+     * @throws NoSuchProviderException  If a requested security provider is not available.
+     */
+    public static ChallengeResult check(String authToken, String host, ACMEAccount acmeAccount, NetworkClient networkClient,
+            Duration timeout) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException {
+        return check(authToken, host, acmeAccount, networkClient, timeout, DualStackPolicy.PREFER_IPV6, null);
+    }
+
+    /**
+     * Validates an HTTP challenge using the validation client profile of the given network client. Redirects are followed up to the
+     * configured number of hops, but only to {@code http} and {@code https} URLs on ports 80 and 443. The response body is read up to the
+     * configured maximum size, larger responses fail the challenge.
+     * <p>
+     * If the host has both IPv4 and IPv6 addresses, both address families are validated concurrently (RFC 8305 style), combined according
+     * to the given {@link DualStackPolicy}. The error of a failed validation then reports the outcome of each address family.
+     *
+     * @param authToken       The expected authentication token value for the challenge.
+     * @param host            The target host for the HTTP GET request.
+     * @param acmeAccount     The ACME account used in the challenge.
+     * @param networkClient   The network client sending the request.
+     * @param timeout         Timeout of the whole validation including all redirects, {@code null} to use the configured HTTP-01 timeout.
+     * @param dualStackPolicy The policy for hosts having IPv4 and IPv6 addresses.
+     * @param statistics      Statistics the outcome is recorded in, may be {@code null}.
+     * @return {@code true} if the challenge validation is successful, otherwise {@code false}.
+     * @throws IOException              If an I/O error occurs during the HTTP request.
+     * @throws NoSuchAlgorithmException If a requested cryptographic algorithm is not available.
+     * @throws InvalidKeySpecException  If an invalid key specification is encountered.
+     * @throws NoSuchProviderException  If a requested security provider is not available.
+     */
+    public static ChallengeResult check(String authToken, String host, ACMEAccount acmeAccount, NetworkClient networkClient,
+            Duration timeout, DualStackPolicy dualStackPolicy, HttpValidationStatistics statistics) throws IOException,
+            NoSuchAlgorithmException, InvalidKeySpecException, NoSuchProviderException {
+        OkHttpClient httpClient = networkClient.getValidationHttpClient();
+        ChallengeValidationConfig validationConfig = networkClient.getNetworkConfig().getChallengeValidation();
+        long deadline = System.nanoTime() + (timeout != null ? timeout : Duration.ofSeconds(validationConfig.getHttpTimeoutSeconds())).toNanos();
 
-        PublicKey acmeAccountPublicKey = PemUtil.readPublicKeyFromPem(acmeAccount.getPublicKeyPEM());
+        String accountThumbprint = AcmeTokenCryptography.encodedThumbprint(acmeAccount);
+
+        boolean isIpAddress = DomainAndIpValidation.isIpAddress(host);
 
         // Host can be an IP Address, specifically an IPv6 Address. This type of IP Address needs these "[ ]" square brackets when you
         // use it in a URL
@@ -88,57 +323,343 @@ public class HTTPChallenge {
             host = "[" + host + "]"; // That's it
         }
 
+        HttpUrl url = HttpUrl.get("http://" + host + "/.well-known/acme-challenge/" + authToken);
+
+        if (!isIpAddress) {
+            List<InetAddress> addresses;
+            try {
+                addresses = httpClient.dns().lookup(host);
+            } catch (UnknownHostException e) {
+                LOG.error("HTTP Challenge failed for host {}, unable to resolve host", host, e);
+                return fail(statistics, HttpValidationStatistics.FailureReason.CONNECTION_ERROR,
+                        "HTTP Challenge failed, unable to resolve host " + host).result();
+            }
+            boolean hasIpv6 = addresses.stream().anyMatch(address -> address instanceof Inet6Address);
+            boolean hasIpv4 = addresses.stream().anyMatch(address -> address instanceof Inet4Address);
+            if (hasIpv6 && hasIpv4) {
+                return checkDualStack(dualStackPolicy, httpClient, url, host, authToken, accountThumbprint, validationConfig, deadline,
+                        statistics);
+            }
+        }
+
+        return fetch(httpClient, url, host, authToken, accountThumbprint, validationConfig, deadline, statistics, null).result();
+    }
+
+    /**
+     * Validates a host having IPv4 and IPv6 addresses over both address families concurrently. IPv6 starts first, IPv4 follows after
+     * {@value #CONNECTION_ATTEMPT_DELAY_MILLIS} ms or as soon as IPv6 finished without a decision. With {@link DualStackPolicy#REQUIRE_BOTH}
+     * both start right away. Attempts that are no longer needed once the result is decided are cancelled.
+     *
+     * @param policy            The policy combining the results of both address families.
+     * @param httpClient        The validation HTTP client.
+     * @param url               The challenge URL.
+     * @param host              The validated host, for logging.
+     * @param authToken         The token of the challenge.
+     * @param accountThumbprint The JWK thumbprint of the account.
+     * @param validationConfig  The challenge validation configuration.
+     * @param deadline          The {@link System#nanoTime()} at which the validation times out.
+     * @param statistics        Statistics the outcome is recorded in, may be {@code null}.
+     * @return The combined result.
+     * @throws IOException If the validation was interrupted.
+     */
+    static ChallengeResult checkDualStack(DualStackPolicy policy, OkHttpClient httpClient, HttpUrl url, String host,
+            String authToken, String accountThumbprint, ChallengeValidationConfig validationConfig, long deadline,
+            HttpValidationStatistics statistics) throws IOException {
+        LOG.info("Validating host {} over IPv6 and IPv4 with dual stack policy {}", host, policy);
+
+        CancellableCall ipv6Call = new CancellableCall();
+        CancellableCall ipv4Call = new CancellableCall();
+        OkHttpClient ipv6Client = httpClient.newBuilder().dns(new FamilyDns(httpClient.dns(), Inet6Address.class, "IPv6")).build();
+        OkHttpClient ipv4Client = httpClient.newBuilder().dns(new FamilyDns(httpClient.dns(), Inet4Address.class, "IPv4")).build();
+        Callable<FamilyAttempt> ipv6Task = () -> new FamilyAttempt(true,
+                fetch(ipv6Client, url, host, authToken, accountThumbprint, validationConfig, deadline, statistics, ipv6Call));
+        Callable<FamilyAttempt> ipv4Task = () -> new FamilyAttempt(false,
+                fetch(ipv4Client, url, host, authToken, accountThumbprint, validationConfig, deadline, statistics, ipv4Call));
+
+        CompletionService<FamilyAttempt> completionService = new ExecutorCompletionService<>(DUAL_STACK_EXECUTOR);
+        Attempt ipv6 = null;
+        Attempt ipv4 = null;
         try {
-            // Create an HTTP GET request to the challenge URL
-            Request request = new Request.Builder()
-                    .url("http://" + host + "/.well-known/acme-challenge/" + authToken)
-                    .header("User-Agent", USER_AGENT)
-                    .build();
-
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Performing GET request to \"{}\"", request.url());
+            completionService.submit(ipv6Task);
+            boolean ipv4Started = false;
+            if (policy == DualStackPolicy.REQUIRE_BOTH) {
+                completionService.submit(ipv4Task);
+                ipv4Started = true;
             }
 
-            // Execute the HTTP GET request and retrieve the response
-            try (Response response = httpClient.newCall(request).execute()) {
-                int responseCode = response.code();
+            while (true) {
+                Future<FamilyAttempt> completed = ipv4Started
+                        ? completionService.take()
+                        : completionService.poll(CONNECTION_ATTEMPT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                if (completed != null) {
+                    FamilyAttempt familyAttempt = completed.get();
+                    if (familyAttempt.ipv6()) {
+                        ipv6 = familyAttempt.attempt();
+                    } else {
+                        ipv4 = familyAttempt.attempt();
+                    }
+
+                    ChallengeResult result = combine(policy, ipv6, ipv4);
+                    if (result != null) {
+                        LOG.info("Dual stack validation of host {} finished, IPv6: {}; IPv4: {}", host, describe(ipv6), describe(ipv4));
+                        return result;
+                    }
+                }
+                if (!ipv4Started) {
+                    completionService.submit(ipv4Task);
+                    ipv4Started = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("HTTP Challenge validation of host " + host + " was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("HTTP Challenge validation of host " + host + " failed", e.getCause());
+        } finally {
+            ipv6Call.cancel();
+            ipv4Call.cancel();
+        }
+    }
+
+    /**
+     * Combines the results of validating over IPv6 and IPv4 according to a dual stack policy.
+     *
+     * @param policy The dual stack policy.
+     * @param ipv6   The result over IPv6, {@code null} while not finished.
+     * @param ipv4   The result over IPv4, {@code null} while not finished.
+     * @return The combined result, or {@code null} if it can't be decided yet.
+     */
+    static ChallengeResult combine(DualStackPolicy policy, Attempt ipv6, Attempt ipv4) {
+        boolean ipv6Passed = ipv6 != null && ipv6.result().isSuccessful();
+        boolean ipv4Passed = ipv4 != null && ipv4.result().isSuccessful();
+
+        switch (policy) {
+            case FIRST_SUCCESS -> {
+                if (ipv6Passed || ipv4Passed) {
+                    return new ChallengeResult(true, "");
+                }
+                if (ipv6 != null && ipv4 != null) {
+                    return dualStackFailure(ipv6, ipv4);
+                }
+            }
+            case PREFER_IPV6 -> {
+                if (ipv6Passed) {
+                    return new ChallengeResult(true, "");
+                }
+                // IPv4 only decides if the host is unreachable over IPv6, an answer over IPv6 is authoritative
+                if (ipv6 != null && !ipv6.isConnectionFailure()) {
+                    return dualStackFailure(ipv6, ipv4);
+                }
+                if (ipv6 != null && ipv4 != null) {
+                    return ipv4Passed ? new ChallengeResult(true, "") : dualStackFailure(ipv6, ipv4);
+                }
+            }
+            case REQUIRE_BOTH -> {
+                if ((ipv6 != null && !ipv6Passed) || (ipv4 != null && !ipv4Passed)) {
+                    return dualStackFailure(ipv6, ipv4);
+                }
+                if (ipv6Passed && ipv4Passed) {
+                    return new ChallengeResult(true, "");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a failed result reporting the outcome of both address families.
+     *
+     * @param ipv6 The result over IPv6, {@code null} if not finished.
+     * @param ipv4 The result over IPv4, {@code null} if not finished.
+     * @return The failed result.
+     */
+    private static ChallengeResult dualStackFailure(Attempt ipv6, Attempt ipv4) {
+        return new ChallengeResult(false, "HTTP Challenge failed, IPv6: " + describe(ipv6) + "; IPv4: " + describe(ipv4));
+    }
+
+    /**
+     * Describes the outcome of validating over one address family.
+     *
+     * @param attempt The result, {@code null} if not finished.
+     * @return The description.
+     */
+    private static String describe(Attempt attempt) {
+        if (attempt == null) {
+            return "not completed";
+        }
+        if (attempt.result().isSuccessful()) {
+            return "passed";
+        }
+        String error = attempt.result().getErrorReason();
+        return error.startsWith(FAILURE_PREFIX) ? error.substring(FAILURE_PREFIX.length()) : error;
+    }
+
+    /**
+     * Sends the validation request, following redirects according to the redirect policy, and checks the response.
+     *
+     * @param httpClient        The validation HTTP client.
+     * @param url               The challenge URL.
+     * @param host              The validated host, for logging.
+     * @param authToken         The token of the challenge.
+     * @param accountThumbprint The JWK thumbprint of the account.
+     * @param validationConfig  The challenge validation configuration.
+     * @param deadline          The {@link System#nanoTime()} at which the validation times out.
+     * @param statistics        Statistics the outcome is recorded in, may be {@code null}.
+     * @param cancellable       Allows cancelling the request from another thread, may be {@code null}.
+     * @return The result of the validation.
+     */
+    private static Attempt fetch(OkHttpClient httpClient, HttpUrl url, String host, String authToken, String accountThumbprint,
+            ChallengeValidationConfig validationConfig, long deadline, HttpValidationStatistics statistics, CancellableCall cancellable) {
+        try {
+            for (int redirects = 0; ; redirects++) {
+                // Create an HTTP GET request to the challenge URL
+                Request request = new Request.Builder()
+                        .url(url)
+                        .header("User-Agent", USER_AGENT)
+                        .build();
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Performing GET request to \"{}\"", request.url());
+                }
+
+                // All hops share the timeout of the validation
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return fail(statistics, HttpValidationStatistics.FailureReason.TIMEOUT, "HTTP Challenge failed, host did not answer in time");
+                }
+                Call call = httpClient.newCall(request);
+                call.timeout().timeout(remainingNanos, TimeUnit.NANOSECONDS);
+                if (cancellable != null && !cancellable.start(call)) {
+                    return new Attempt(new ChallengeResult(false, "HTTP Challenge cancelled"), HttpValidationStatistics.FailureReason.CONNECTION_ERROR);
+                }
+
+                // Execute the HTTP GET request and retrieve the response
+                try (Response response = call.execute()) {
+                    int responseCode = response.code();
+
+                    if (response.isRedirect()) {
+                        if (redirects >= validationConfig.getHttpMaxRedirects()) {
+                            LOG.error("HTTP Challenge failed for host {}, more than {} redirects", host, validationConfig.getHttpMaxRedirects());
+                            return fail(statistics, HttpValidationStatistics.FailureReason.TOO_MANY_REDIRECTS,
+                                    "HTTP Challenge failed, too many redirects");
+                        }
+                        String location = response.header("Location");
+                        HttpUrl redirectUrl = location != null ? response.request().url().resolve(location) : null;
+                        String rejection = checkRedirect(redirectUrl);
+                        if (rejection != null) {
+                            LOG.error("HTTP Challenge failed for host {}, rejected redirect to {}: {}", host, location, rejection);
+                            return fail(statistics, HttpValidationStatistics.FailureReason.REDIRECT_REJECTED,
+                                    "HTTP Challenge failed, " + rejection);
+                        }
+                        url = redirectUrl;
+                        continue;
+                    }
+
+                    if (responseCode != HttpURLConnection.HTTP_OK) {
+                        LOG.error("HTTP Challenge failed for host {}, got HTTP status code {}", host, responseCode);
+                        return fail(statistics, HttpValidationStatistics.FailureReason.BAD_STATUS,
+                                "HTTP Challenge failed, got HTTP status code " + responseCode);
+                    }
 
-                if (responseCode == HttpURLConnection.HTTP_OK) {
                     // Successful response, check the token in the response
                     LOG.debug("Got response, checking token in response.");
-                    assert response.body() != null;
-                    String acmeTokenFromHost = response.body().string();
-                    String expectedValue = getToken(authToken, acmeAccountPublicKey);
+                    String acmeTokenFromHost = readBody(response.body(), validationConfig.getHttpMaxResponseBytes());
+                    if (acmeTokenFromHost == null) {
+                        LOG.error("HTTP Challenge failed for host {}, response exceeds {} bytes", host, validationConfig.getHttpMaxResponseBytes());
+                        return fail(statistics, HttpValidationStatistics.FailureReason.BODY_TOO_LARGE,
+                                "HTTP Challenge failed, response exceeds " + validationConfig.getHttpMaxResponseBytes() + " bytes");
+                    }
+                    // Whitespace at the end of the body is ignored (RFC 8555, section 8.3)
+                    acmeTokenFromHost = acmeTokenFromHost.stripTrailing();
+                    String expectedValue = getToken(authToken, accountThumbprint);
 
                     if (expectedValue.equals(acmeTokenFromHost)) {
-                        passed = true;
                         LOG.info("HTTP Challenge has validated for host {}. Expected: {}; Got: {}", host, expectedValue, acmeTokenFromHost);
-                    } else {
-                        LOG.error("HTTP Challenge validation failed for host {}. Content doesn't match. Expected: {}; Got: {}", host,
-                                expectedValue, acmeTokenFromHost);
-                        lastError = "HTTP Challenge validation failed, cause content doesn't match";
+                        if (statistics != null) {
+                            statistics.recordPassed();
+                        }
+                        return new Attempt(new ChallengeResult(true, ""), null);
                     }
-                } else {
-                    LOG.error("HTTP Challenge failed for host {}, got HTTP status code {}", host, responseCode);
-                    lastError = "HTTP Challenge failed, got HTTP status code " + responseCode;
+                    LOG.error("HTTP Challenge validation failed for host {}. Content doesn't match. Expected: {}; Got: {}", host,
+                            expectedValue, acmeTokenFromHost);
+                    return fail(statistics, HttpValidationStatistics.FailureReason.CONTENT_MISMATCH,
+                            "HTTP Challenge validation failed, cause content doesn't match");
                 }
             }
+        } catch (InterruptedIOException e) {
+            // Cancelled attempts of a dual stack validation are not failures of the host
+            HttpValidationStatistics failureStatistics = cancellable != null && cancellable.isCancelled() ? null : statistics;
+            LOG.error("HTTP Challenge failed for host {}, host did not answer in time", host, e);
+            return fail(failureStatistics, HttpValidationStatistics.FailureReason.TIMEOUT, "HTTP Challenge failed, host did not answer in time");
         } catch (IOException e) {
+            HttpValidationStatistics failureStatistics = cancellable != null && cancellable.isCancelled() ? null : statistics;
             LOG.error("HTTP Challenge failed for host {}. Is it reachable?", host, e);
-            if (e instanceof ConnectException) {
-                lastError = e.getMessage();
-            }
+            return fail(failureStatistics, HttpValidationStatistics.FailureReason.CONNECTION_ERROR,
+                    e instanceof ConnectException ? e.getMessage() : "HTTP Challenge failed, unable to connect to host");
+        }
+    }
+
+    /**
+     * Checks a redirect target against the redirect policy: only {@code http} and {@code https} URLs on ports 80 and 443 are followed.
+     *
+     * @param redirectUrl The resolved redirect target, {@code null} if the location was missing or invalid.
+     * @return The reason the redirect is rejected, or {@code null} if it may be followed.
+     */
+    static String checkRedirect(HttpUrl redirectUrl) {
+        if (redirectUrl == null) {
+            return "redirect without a valid location";
+        }
+        // HttpUrl only accepts http and https, the port defaults to 80 or 443 if not given
+        if (redirectUrl.port() != 80 && redirectUrl.port() != 443) {
+            return "redirect to port " + redirectUrl.port() + " is not allowed";
+        }
+        return null;
+    }
+
+    /**
+     * Reads a response body as UTF-8 string, reading no more than the given number of bytes from the connection.
+     *
+     * @param body     The response body.
+     * @param maxBytes The maximum size of the body.
+     * @return The body, or {@code null} if it exceeds the maximum size.
+     * @throws IOException If reading the body fails.
+     */
+    static String readBody(ResponseBody body, int maxBytes) throws IOException {
+        if (body == null) {
+            return "";
+        }
+        BufferedSource source = body.source();
+        // Requesting one byte more than allowed tells an oversized body apart without buffering the rest of it
+        if (source.request(maxBytes + 1L)) {
+            return null;
         }
+        return source.getBuffer().readString(StandardCharsets.UTF_8);
+    }
 
-        return new ChallengeResult(passed, lastError);
+    /**
+     * Creates a failed result and records the failure.
+     *
+     * @param statistics The statistics to record the failure in, may be {@code null}.
+     * @param reason     The reason of the failure.
+     * @param error      The error reported to the client.
+     * @return The failed attempt.
+     */
+    private static Attempt fail(HttpValidationStatistics statistics, HttpValidationStatistics.FailureReason reason, String error) {
+        if (statistics != null) {
+            statistics.recordFailure(reason);
+        }
+        return new Attempt(new ChallengeResult(false, error), reason);
     }
 
-    private static String getToken(String authToken, PublicKey acmeAccountPublicKey) {
+    private static String getToken(String authToken, String accountThumbprint) {
 
         if (!AcmeUtils.isValidBase64Url(authToken)) {
             throw new IllegalArgumentException("Invalid auth token: " + authToken);
         }
-        return AcmeTokenCryptography.keyAuthorizationFor(authToken, acmeAccountPublicKey);
+        return AcmeTokenCryptography.keyAuthorizationFor(authToken, accountThumbprint);
     }
 
     private HTTPChallenge() {
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.certificate.acme.challenges;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the outcomes of HTTP-01 validation requests, with failures broken down by reason. Every validation perspective sends its own
+ * request, so a single challenge validation may be counted more than once.
+ */
+public class HttpValidationStatistics {
+
+    /**
+     * Reasons an HTTP-01 validation request fails for.
+     */
+    public enum FailureReason {
+        /**
+         * The host could not be resolved or connected to, or the connection broke.
+         */
+        CONNECTION_ERROR,
+        /**
+         * Connecting, reading or the whole request took too long.
+         */
+        TIMEOUT,
+        /**
+         * The host answered with a status other than 200 or a redirect.
+         */
+        BAD_STATUS,
+        /**
+         * The response body exceeded the maximum response size.
+         */
+        BODY_TOO_LARGE,
+        /**
+         * The response body was not the expected key authorization.
+         */
+        CONTENT_MISMATCH,
+        /**
+         * A redirect pointed to a disallowed scheme or port, or had no valid location.
+         */
+        REDIRECT_REJECTED,
+        /**
+         * The host redirected more often than allowed.
+         */
+        TOO_MANY_REDIRECTS
+    }
+
+    /**
+     * Number of passed validation requests.
+     */
+    private final LongAdder passed = new LongAdder();
+
+    /**
+     * Number of failed validation requests by reason.
+     */
+    private final Map<FailureReason, LongAdder> failures = new EnumMap<>(FailureReason.class);
+
+    /**
+     * Creates empty statistics.
+     */
+    public HttpValidationStatistics() {
+        for (FailureReason reason : FailureReason.values()) {
+            failures.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Records a passed validation request.
+     */
+    public void recordPassed() {
+        passed.increment();
+    }
+
+    /**
+     * Records a failed validation request.
+     *
+     * @param reason The reason the request failed for.
+     */
+    public void recordFailure(FailureReason reason) {
+        failures.get(reason).increment();
+    }
+
+    /**
+     * Gets the number of passed validation requests.
+     *
+     * @return The number of passed requests.
+     */
+    public long getPassed() {
+        return passed.sum();
+    }
+
+    /**
+     * Gets the number of validation requests that failed for a reason.
+     *
+     * @param reason The failure reason.
+     * @return The number of failed requests.
+     */
+    public long getFailures(FailureReason reason) {
+        return failures.get(reason).sum();
+    }
+
+    /**
+     * Gets the number of failed validation requests for every reason.
+     *
+     * @return The number of failed requests by reason, in the order of the reasons.
+     */
+    public Map<FailureReason, Long> getFailures() {
+        Map<FailureReason, Long> snapshot = new EnumMap<>(FailureReason.class);
+        for (Map.Entry<FailureReason, LongAdder> entry : failures.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+}
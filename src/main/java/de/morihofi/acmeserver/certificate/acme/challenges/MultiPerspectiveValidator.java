@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.certificate.acme.challenges;
+
+import de.morihofi.acmeserver.config.network.NetworkConfig;
+import de.morihofi.acmeserver.config.network.ValidationPerspectiveConfig;
+import de.morihofi.acmeserver.tools.concurrent.DaemonThreads;
+import de.morihofi.acmeserver.tools.network.NetworkClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Validates a challenge from several network perspectives at once. Every perspective is a {@link NetworkClient} with its own DNS
+ * resolvers, proxy or source address, so a single hijacked network path can't pass a challenge on its own.
+ * <p>
+ * The primary perspective, using the network configuration of the server, always has to pass. Of the additional perspectives at most the
+ * configured number may fail. All perspectives run concurrently and the result is returned as soon as it is decided, so a validation takes
+ * as long as the slowest perspective it needs instead of the sum of all of them. Perspectives still running at that point are cancelled.
+ */
+public class MultiPerspectiveValidator implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Name of the perspective using the network configuration of the server.
+     */
+    public static final String PRIMARY_PERSPECTIVE_NAME = "primary";
+
+    /**
+     * A check run from a single perspective.
+     */
+    @FunctionalInterface
+    public interface PerspectiveCheck {
+
+        /**
+         * Runs the check using the network client of a perspective.
+         *
+         * @param networkClient The network client of the perspective.
+         * @return The result of the check.
+         * @throws Exception If the check failed with an error.
+         */
+        ChallengeResult check(NetworkClient networkClient) throws Exception;
+    }
+
+    /**
+     * A named network perspective.
+     *
+     * @param name          Name of the perspective, used in logs and error details.
+     * @param networkClient Network client of the perspective.
+     */
+    public record Perspective(String name, NetworkClient networkClient) {
+    }
+
+    /**
+     * The perspective using the network configuration of the server.
+     */
+    private final Perspective primary;
+
+    /**
+     * The additional perspectives.
+     */
+    private final List<Perspective> additional;
+
+    /**
+     * Number of additional perspectives that may fail.
+     */
+    private final int allowedFailures;
+
+    /**
+     * Executor running the checks of the perspectives. Its threads mostly wait for the network, their number is bounded by the number of
+     * concurrent validations times the number of perspectives.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a validator for the given perspectives.
+     *
+     * @param primary         The perspective that always has to pass.
+     * @param additional      The additional perspectives.
+     * @param allowedFailures Number of additional perspectives that may fail.
+     */
+    public MultiPerspectiveValidator(Perspective primary, List<Perspective> additional, int allowedFailures) {
+        this.primary = primary;
+        this.additional = List.copyOf(additional);
+        this.allowedFailures = Math.max(0, Math.min(allowedFailures, additional.size()));
+        if (!additional.isEmpty() && this.allowedFailures == additional.size()) {
+            LOG.warn("All {} additional validation perspectives may fail, they don't affect the validation result", additional.size());
+        }
+        this.executor = Executors.newCachedThreadPool(DaemonThreads.newThreadFactory("challenge-perspective-"));
+    }
+
+    /**
+     * Creates a validator from the network configuration of the server, using the given network client as primary perspective.
+     *
+     * @param primaryClient The network client of the server.
+     * @param networkConfig The network configuration of the server.
+     * @return The validator.
+     * @throws IllegalArgumentException If the source address of a perspective is invalid.
+     */
+    public static MultiPerspectiveValidator fromConfig(NetworkClient primaryClient, NetworkConfig networkConfig) {
+        List<Perspective> additional = new ArrayList<>();
+        List<ValidationPerspectiveConfig> perspectiveConfigs = networkConfig.getChallengeValidation().getPerspectives();
+        for (int i = 0; i < perspectiveConfigs.size(); i++) {
+            ValidationPerspectiveConfig perspectiveConfig = perspectiveConfigs.get(i);
+            String name = perspectiveConfig.getName() == null || perspectiveConfig.getName().isBlank()
+                    ? "perspective-" + (i + 1) : perspectiveConfig.getName();
+
+            NetworkConfig perspectiveNetworkConfig = new NetworkConfig();
+            perspectiveNetworkConfig.setDnsConfig(perspectiveConfig.getDnsConfig() != null
+                    ? perspectiveConfig.getDnsConfig() : networkConfig.getDnsConfig());
+            perspectiveNetworkConfig.setProxy(perspectiveConfig.getProxy() != null
+                    ? perspectiveConfig.getProxy() : networkConfig.getProxy());
+            perspectiveNetworkConfig.setChallengeValidation(networkConfig.getChallengeValidation());
+
+            InetAddress sourceAddress = null;
+            String sourceAddressValue = perspectiveConfig.getSourceAddress();
+            if (sourceAddressValue != null && !sourceAddressValue.isBlank()) {
+                try {
+                    sourceAddress = InetAddress.getByName(sourceAddressValue);
+                } catch (UnknownHostException e) {
+                    throw new IllegalArgumentException("Invalid source address of validation perspective " + name + ": " + sourceAddressValue, e);
+                }
+            }
+
+            additional.add(new Perspective(name, new NetworkClient(perspectiveNetworkConfig, sourceAddress)));
+            LOG.info("Added challenge validation perspective {}", name);
+        }
+        return new MultiPerspectiveValidator(new Perspective(PRIMARY_PERSPECTIVE_NAME, primaryClient), additional,
+                networkConfig.getChallengeValidation().getAllowedPerspectiveFailures());
+    }
+
+    /**
+     * Runs a check from all perspectives and combines the results.
+     *
+     * @param check The check to run.
+     * @return A successful result if the primary perspective and enough additional perspectives passed, otherwise a failed result naming
+     * the failed perspectives.
+     * @throws InterruptedException If the calling thread was interrupted, running checks are cancelled.
+     */
+    public ChallengeResult validate(PerspectiveCheck check) throws InterruptedException {
+        if (additional.isEmpty()) {
+            return runCheck(primary, check);
+        }
+
+        CompletionService<ChallengeResult> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<ChallengeResult>, Perspective> running = new HashMap<>();
+        running.put(completionService.submit(() -> runCheck(primary, check)), primary);
+        for (Perspective perspective : additional) {
+            running.put(completionService.submit(() -> runCheck(perspective, check)), perspective);
+        }
+
+        int requiredPasses = additional.size() - allowedFailures;
+        int passed = 0;
+        boolean primaryPassed = false;
+        List<String> failures = new ArrayList<>();
+        try {
+            for (int i = 0; i < additional.size() + 1; i++) {
+                Future<ChallengeResult> future = completionService.take();
+                Perspective perspective = running.get(future);
+                ChallengeResult result = getResult(future);
+
+                if (perspective == primary) {
+                    if (!result.isSuccessful()) {
+                        return result;
+                    }
+                    primaryPassed = true;
+                } else if (result.isSuccessful()) {
+                    passed++;
+                } else {
+                    failures.add(perspective.name() + ": " + result.getErrorReason());
+                    if (failures.size() > allowedFailures) {
+                        LOG.warn("Challenge validation failed from {} of {} additional perspectives", failures.size(), additional.size());
+                        return new ChallengeResult(false, "Validation failed from " + failures.size() + " of " + additional.size()
+                                + " additional perspectives (" + String.join("; ", failures) + ")");
+                    }
+                }
+
+                if (primaryPassed && passed >= requiredPasses) {
+                    if (!failures.isEmpty()) {
+                        LOG.info("Challenge passed, failed perspectives within the allowed limit: {}", failures);
+                    }
+                    return new ChallengeResult(true, "");
+                }
+            }
+            // Not reachable, every outcome is decided once all perspectives completed
+            return new ChallengeResult(false, "Validation result could not be determined");
+        } finally {
+            for (Future<ChallengeResult> future : running.keySet()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Runs the check of a single perspective, turning an error into a failed result.
+     *
+     * @param perspective The perspective.
+     * @param check       The check to run.
+     * @return The result of the check.
+     */
+    private static ChallengeResult runCheck(Perspective perspective, PerspectiveCheck check) {
+        try {
+            ChallengeResult result = check.check(perspective.networkClient());
+            if (!result.isSuccessful()) {
+                LOG.info("Challenge validation from perspective {} failed: {}", perspective.name(), result.getErrorReason());
+            }
+            return result;
+        } catch (Exception e) {
+            LOG.error("Challenge validation from perspective {} failed", perspective.name(), e);
+            return new ChallengeResult(false, "Validation failed, server logs show more information");
+        }
+    }
+
+    /**
+     * Gets the result of a completed check.
+     *
+     * @param future The completed check.
+     * @return The result, a failed result if the check could not complete.
+     */
+    private static ChallengeResult getResult(Future<ChallengeResult> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return new ChallengeResult(false, "Validation failed, server logs show more information");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ChallengeResult(false, "Validation was interrupted");
+        }
+    }
+
+    /**
+     * Stops running checks.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
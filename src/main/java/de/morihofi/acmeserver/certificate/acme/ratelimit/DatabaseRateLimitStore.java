@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.certificate.acme.ratelimit;
+
+import de.morihofi.acmeserver.database.HibernateUtil;
+import de.morihofi.acmeserver.database.NativeSql;
+import jakarta.persistence.PersistenceException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+/**
+ * Keeps the rate limit buckets in the database, so the limits hold across all server nodes sharing the database. A token is taken with a
+ * single conditional update of the bucket row, in a short transaction of its own. It does not join the unit of work of the request, so
+ * no row lock is held while the request continues, e.g. while a certificate is issued.
+ * <p>
+ * If the database is unavailable, requests are admitted: rate limiting must not take down issuance on its own.
+ */
+public class DatabaseRateLimitStore implements RateLimitStore {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Attempts for a bucket whose row was created or evicted concurrently by another node
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Hibernate utility for database sessions
+     */
+    private final HibernateUtil hibernateUtil;
+
+    /**
+     * Constructs a store on the given database.
+     *
+     * @param hibernateUtil Hibernate utility for database sessions.
+     */
+    public DatabaseRateLimitStore(HibernateUtil hibernateUtil) {
+        this.hibernateUtil = hibernateUtil;
+    }
+
+    @Override
+    public long tryAcquire(String key, long intervalMillis, long periodMillis, long nowMillis) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Transaction transaction = null;
+            try (Session session = hibernateUtil.getSessionFactory().openSession()) {
+                transaction = session.beginTransaction();
+                Long excess = tryAcquire(session, key, intervalMillis, periodMillis, nowMillis);
+                transaction.commit();
+                if (excess != null) {
+                    return excess;
+                }
+            } catch (PersistenceException e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                LOG.warn("Unable to update rate limit bucket {}, admitting request", key, e);
+                return 0;
+            }
+        }
+        LOG.warn("Rate limit bucket {} changed concurrently {} times, admitting request", key, MAX_ATTEMPTS);
+        return 0;
+    }
+
+    /**
+     * Tries to take one token from a bucket within the given transaction.
+     *
+     * @param session        Session with an active transaction.
+     * @param key            Key of the bucket.
+     * @param intervalMillis Milliseconds after which one token is refilled.
+     * @param periodMillis   Length of the period.
+     * @param nowMillis      Current time in milliseconds since the epoch.
+     * @return 0 if the token was taken, the milliseconds until the next token is available, or {@code null} if the bucket was evicted
+     * concurrently and the attempt has to be repeated.
+     */
+    private static Long tryAcquire(Session session, String key, long intervalMillis, long periodMillis, long nowMillis) {
+        // The theoretical arrival time after admitting the request is at most one period ahead, see RateLimitStore
+        long latestTheoreticalArrival = nowMillis + periodMillis - intervalMillis;
+        if (takeToken(session, key, intervalMillis, nowMillis, latestTheoreticalArrival)) {
+            return 0L;
+        }
+
+        // No row, or the bucket is empty. The first request of a bucket creates its row.
+        if (NativeSql.insertIfAbsent(session, "rate_limit_buckets", List.of("bucketKey"), List.of("bucketKey", "theoreticalArrival"),
+                List.of(key, RateLimitStore.nextTheoreticalArrival(0, intervalMillis, nowMillis)))) {
+            return 0L;
+        }
+        // Another node may have created the row in the meantime
+        if (takeToken(session, key, intervalMillis, nowMillis, latestTheoreticalArrival)) {
+            return 0L;
+        }
+
+        Long theoreticalArrival = session.createSelectionQuery(
+                        "SELECT b.theoreticalArrival FROM RateLimitBucket b WHERE b.bucketKey = :key", Long.class)
+                .setParameter("key", key)
+                .uniqueResult();
+        if (theoreticalArrival == null) {
+            return null;
+        }
+        long excess = RateLimitStore.nextTheoreticalArrival(theoreticalArrival, intervalMillis, nowMillis) - nowMillis - periodMillis;
+        return excess > 0 ? excess : null;
+    }
+
+    /**
+     * Takes one token from an existing bucket with a conditional update, which only matches if the bucket is not empty.
+     *
+     * @param session                  Session with an active transaction.
+     * @param key                      Key of the bucket.
+     * @param intervalMillis           Milliseconds after which one token is refilled.
+     * @param nowMillis                Current time in milliseconds since the epoch.
+     * @param latestTheoreticalArrival Latest stored theoretical arrival time at which a request is still admitted.
+     * @return {@code true} if the token was taken, {@code false} if the bucket has no row or is empty.
+     */
+    private static boolean takeToken(Session session, String key, long intervalMillis, long nowMillis, long latestTheoreticalArrival) {
+        return session.createMutationQuery("UPDATE RateLimitBucket b SET b.theoreticalArrival = "
+                        + "CASE WHEN b.theoreticalArrival > :now THEN b.theoreticalArrival ELSE :now END + :interval "
+                        + "WHERE b.bucketKey = :key AND b.theoreticalArrival <= :latest")
+                .setParameter("now", nowMillis)
+                .setParameter("interval", intervalMillis)
+                .setParameter("key", key)
+                .setParameter("latest", latestTheoreticalArrival)
+                .executeUpdate() == 1;
+    }
+
+    @Override
+    public void evictFullBuckets(long nowMillis) {
+        Transaction transaction = null;
+        try (Session session = hibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int deleted = session.createMutationQuery("DELETE FROM RateLimitBucket b WHERE b.theoreticalArrival <= :now")
+                    .setParameter("now", nowMillis)
+                    .executeUpdate();
+            transaction.commit();
+            LOG.debug("Evicted {} full rate limit buckets", deleted);
+        } catch (PersistenceException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            LOG.warn("Unable to evict full rate limit buckets", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.certificate.acme.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the rate limit buckets in memory. Taking a token is lock-free: each bucket is a single {@link AtomicLong} holding its theoretical
+ * arrival time, updated by compare-and-set.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    /**
+     * Theoretical arrival time per bucket key
+     */
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, long intervalMillis, long periodMillis, long nowMillis) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong());
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            long next = RateLimitStore.nextTheoreticalArrival(theoreticalArrival, intervalMillis, nowMillis);
+            long excess = next - nowMillis - periodMillis;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public void evictFullBuckets(long nowMillis) {
+        // A concurrent acquire on a removed bucket is lost at most, which only favors the client
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() <= nowMillis);
+    }
+
+    /**
+     * Gets the number of buckets currently holding state.
+     *
+     * @return The number of buckets.
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
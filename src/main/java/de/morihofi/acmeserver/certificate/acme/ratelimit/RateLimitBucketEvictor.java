@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.certificate.acme.ratelimit;
+
+import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
+import de.morihofi.acmeserver.certificate.provisioners.ProvisionerManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically evicts the rate limit buckets of all registered provisioners that are full again, so that the stores only keep the state of
+ * recently limited subjects. Runs in the background, so that requests never wait for the eviction.
+ */
+public class RateLimitBucketEvictor {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Interval between two evictions.
+     */
+    private static final int EVICTION_MINUTES = 1;
+
+    /**
+     * Executor running the eviction.
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+
+    /**
+     * Starts the scheduler.
+     */
+    public static void startScheduler() {
+        LOG.info("Initialized Rate Limit Bucket Evictor");
+        scheduler.scheduleWithFixedDelay(RateLimitBucketEvictor::evict, EVICTION_MINUTES, EVICTION_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Evicts the full buckets of all registered provisioners.
+     */
+    public static void evict() {
+        for (Provisioner provisioner : ProvisionerManager.getProvisioners()) {
+            try {
+                provisioner.getRateLimiter().evictFullBuckets();
+            } catch (Exception e) {
+                LOG.error("Unable to evict full rate limit buckets of provisioner {}", provisioner.getProvisionerName(), e);
+            }
+        }
+    }
+
+    /**
+     * Shuts down the executor service.
+     */
+    public static void shutdown() {
+        LOG.info("Rate Limit Bucket Evictor is shutting down");
+        scheduler.shutdown();
+    }
+}
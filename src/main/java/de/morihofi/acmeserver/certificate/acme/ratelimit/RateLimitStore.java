@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.certificate.acme.ratelimit;
+
+/**
+ * Stores the state of the rate limit buckets.
+ * <p>
+ * Each bucket is a token bucket implemented with the generic cell rate algorithm: instead of a token count and a refill timestamp, only the
+ * theoretical arrival time (TAT) of the next request is stored. A request is admitted if the TAT after admitting it lies at most one
+ * period in the future, which is equivalent to a full bucket of {@code limit} tokens refilled continuously over the period. A bucket whose
+ * TAT lies in the past is full and needs no state at all.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Tries to take one token from a bucket.
+     *
+     * @param key            Key of the bucket.
+     * @param intervalMillis Milliseconds after which one token is refilled ({@code period / limit}).
+     * @param periodMillis   Length of the period, which is also the capacity of the bucket expressed as time.
+     * @param nowMillis      Current time in milliseconds since the epoch.
+     * @return 0 if the token was taken, otherwise the milliseconds until the next token is available.
+     */
+    long tryAcquire(String key, long intervalMillis, long periodMillis, long nowMillis);
+
+    /**
+     * Removes the state of buckets that are full again.
+     *
+     * @param nowMillis Current time in milliseconds since the epoch.
+     */
+    void evictFullBuckets(long nowMillis);
+
+    /**
+     * Computes the theoretical arrival time after admitting one more request.
+     *
+     * @param theoreticalArrival Stored theoretical arrival time, 0 if the bucket has no state.
+     * @param intervalMillis     Milliseconds after which one token is refilled.
+     * @param nowMillis          Current time in milliseconds since the epoch.
+     * @return The new theoretical arrival time. The request is admitted if it lies at most one period after {@code nowMillis}.
+     */
+    static long nextTheoreticalArrival(long theoreticalArrival, long intervalMillis, long nowMillis) {
+        return Math.max(theoreticalArrival, nowMillis) + intervalMillis;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.certificate.acme.ratelimit;
+
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.Identifier;
+import de.morihofi.acmeserver.config.RateLimitConfig;
+import de.morihofi.acmeserver.config.RateLimitRuleConfig;
+import de.morihofi.acmeserver.exception.exceptions.ACMERateLimitedException;
+import de.morihofi.acmeserver.tools.regex.DomainAndIpValidation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces the rate limits of a provisioner. Limits are keyed by account, by client IP prefix and by registered domain, and throw an
+ * {@link ACMERateLimitedException} carrying the delay after which the client may retry.
+ */
+public class RateLimiter {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Maximum length of a bucket key, longer subjects are hashed
+     */
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Second level labels under which country code top level domains register domains, e.g. {@code example.co.uk}
+     */
+    private static final Set<String> COUNTRY_SECOND_LEVEL_LABELS = Set.of("ac", "co", "com", "edu", "gov", "net", "org", "or", "ne", "go",
+            "gob", "mil", "nic", "ltd", "plc", "sch");
+
+    /**
+     * The limits enforced by this rate limiter.
+     */
+    private enum Limit {
+        /**
+         * New accounts per client IP prefix
+         */
+        NEW_ACCOUNTS_PER_IP("newAccountsPerIp", "new accounts from your IP address"),
+        /**
+         * New orders per account
+         */
+        NEW_ORDERS_PER_ACCOUNT("newOrdersPerAccount", "new orders of your account"),
+        /**
+         * New orders per registered domain
+         */
+        NEW_ORDERS_PER_REGISTERED_DOMAIN("newOrdersPerRegisteredDomain", "new orders for the registered domain"),
+        /**
+         * Finalize and challenge requests per account
+         */
+        REQUESTS_PER_ACCOUNT("requestsPerAccount", "requests of your account"),
+        /**
+         * Rate limited requests per client IP prefix
+         */
+        REQUESTS_PER_IP("requestsPerIp", "requests from your IP address");
+
+        /**
+         * Name of the limit, part of the bucket key
+         */
+        private final String key;
+
+        /**
+         * Description of the limited requests for the error message
+         */
+        private final String description;
+
+        /**
+         * Constructor for a limit.
+         *
+         * @param key         Name of the limit, part of the bucket key.
+         * @param description Description of the limited requests for the error message.
+         */
+        Limit(String key, String description) {
+            this.key = key;
+            this.description = description;
+        }
+    }
+
+    /**
+     * Name of the provisioner, part of the bucket keys
+     */
+    private final String provisionerName;
+
+    /**
+     * Rate limit configuration of the provisioner
+     */
+    private final RateLimitConfig config;
+
+    /**
+     * Store of the bucket states
+     */
+    private final RateLimitStore store;
+
+    /**
+     * Constructs a rate limiter for a provisioner.
+     *
+     * @param provisionerName Name of the provisioner.
+     * @param config          Rate limit configuration of the provisioner, null disables rate limiting.
+     * @param store           Store of the bucket states.
+     */
+    public RateLimiter(String provisionerName, RateLimitConfig config, RateLimitStore store) {
+        this.provisionerName = provisionerName;
+        this.config = config != null ? config : new RateLimitConfig();
+        this.store = store;
+    }
+
+    /**
+     * Gets the store of the bucket states, e.g. to hand the state of a non-persistent store to the rate limiter of a reloaded provisioner.
+     *
+     * @return The store.
+     */
+    public RateLimitStore getStore() {
+        return store;
+    }
+
+    /**
+     * Check if rate limiting is enabled.
+     *
+     * @return True if enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return config.getEnabled();
+    }
+
+    /**
+     * Checks the limits of a new account request.
+     *
+     * @param clientIp IP address of the client.
+     * @throws ACMERateLimitedException If a limit is exceeded.
+     */
+    public void checkNewAccount(String clientIp) {
+        if (!isEnabled()) {
+            return;
+        }
+        String ipPrefix = getIpPrefix(clientIp);
+        acquire(Limit.REQUESTS_PER_IP, config.getRequestsPerIp(), ipPrefix);
+        acquire(Limit.NEW_ACCOUNTS_PER_IP, config.getNewAccountsPerIp(), ipPrefix);
+    }
+
+    /**
+     * Checks the limits of a new order request. Must be called after the signature of the account was verified, so a client cannot use up
+     * the limits of another account.
+     *
+     * @param accountId   ID of the ordering account.
+     * @param clientIp    IP address of the client.
+     * @param identifiers Identifiers of the order, may be null.
+     * @throws ACMERateLimitedException If a limit is exceeded.
+     */
+    public void checkNewOrder(String accountId, String clientIp, Collection<Identifier> identifiers) {
+        if (!isEnabled()) {
+            return;
+        }
+        acquire(Limit.REQUESTS_PER_IP, config.getRequestsPerIp(), getIpPrefix(clientIp));
+        acquire(Limit.NEW_ORDERS_PER_ACCOUNT, config.getNewOrdersPerAccount(), accountId);
+
+        if (identifiers == null) {
+            return;
+        }
+        // Sorted, so that concurrent orders take the tokens of their domains in the same order
+        Set<String> registeredDomains = new TreeSet<>();
+        for (Identifier identifier : identifiers) {
+            if ("dns".equalsIgnoreCase(identifier.getType()) && identifier.getValue() != null) {
+                registeredDomains.add(getRegisteredDomain(identifier.getValue()));
+            }
+        }
+        for (String registeredDomain : registeredDomains) {
+            acquire(Limit.NEW_ORDERS_PER_REGISTERED_DOMAIN, config.getNewOrdersPerRegisteredDomain(), registeredDomain);
+        }
+    }
+
+    /**
+     * Checks the limits of a finalize or challenge request. Must be called after the signature of the account was verified.
+     *
+     * @param accountId ID of the requesting account.
+     * @param clientIp  IP address of the client.
+     * @throws ACMERateLimitedException If a limit is exceeded.
+     */
+    public void checkAccountRequest(String accountId, String clientIp) {
+        if (!isEnabled()) {
+            return;
+        }
+        acquire(Limit.REQUESTS_PER_IP, config.getRequestsPerIp(), getIpPrefix(clientIp));
+        acquire(Limit.REQUESTS_PER_ACCOUNT, config.getRequestsPerAccount(), accountId);
+    }
+
+    /**
+     * Takes one token from the bucket of a limit and subject.
+     *
+     * @param limit   The limit.
+     * @param rule    Configuration of the limit.
+     * @param subject Account, IP prefix or registered domain.
+     * @throws ACMERateLimitedException If the bucket is empty.
+     */
+    private void acquire(Limit limit, RateLimitRuleConfig rule, String subject) {
+        if (rule == null || !rule.isActive() || subject == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long periodMillis = TimeUnit.SECONDS.toMillis(rule.getPeriodSeconds());
+        long intervalMillis = Math.max(1, periodMillis / rule.getLimit());
+        long waitMillis = store.tryAcquire(getBucketKey(limit, subject), intervalMillis, periodMillis, now);
+        if (waitMillis > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+            LOG.info("Rate limit {} of provisioner {} exceeded for {}, retry after {} seconds", limit.key, provisionerName, subject,
+                    retryAfterSeconds);
+            throw new ACMERateLimitedException("Too many " + limit.description + " (" + rule.getLimit() + " per " + rule.getPeriodSeconds()
+                    + " seconds), retry after " + retryAfterSeconds + " seconds", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Evicts full buckets from the store. Called periodically by the {@link RateLimitBucketEvictor}, not while handling requests.
+     */
+    public void evictFullBuckets() {
+        store.evictFullBuckets(System.currentTimeMillis());
+    }
+
+    /**
+     * Builds the key of a bucket. Subjects that would exceed the maximum key length are replaced by their SHA-256 hash.
+     *
+     * @param limit   The limit.
+     * @param subject Account, IP prefix or registered domain.
+     * @return The bucket key.
+     */
+    private String getBucketKey(Limit limit, String subject) {
+        String prefix = provisionerName + ":" + limit.key + ":";
+        if (prefix.length() + subject.length() <= MAX_KEY_LENGTH) {
+            return prefix + subject;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(subject.getBytes(StandardCharsets.UTF_8));
+            return prefix + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets the prefix of a client IP address, which identifies the client for the per IP limits.
+     *
+     * @param clientIp IP address of the client.
+     * @return The network address and prefix length, e.g. {@code 2001:db8:0:0:0:0:0:0/64}, or the input if it is not an IP address.
+     */
+    String getIpPrefix(String clientIp) {
+        if (clientIp == null || !DomainAndIpValidation.isIpAddress(clientIp)) {
+            return clientIp;
+        }
+        try {
+            // Only literals pass the check above, so this does not query DNS
+            byte[] address = InetAddress.getByName(clientIp).getAddress();
+            int prefixLength = address.length == 4 ? config.getIpv4PrefixLength() : config.getIpv6PrefixLength();
+            prefixLength = Math.max(0, Math.min(prefixLength, address.length * 8));
+            for (int bit = prefixLength; bit < address.length * 8; bit++) {
+                address[bit / 8] &= (byte) ~(0x80 >>> (bit % 8));
+            }
+            return InetAddress.getByAddress(address).getHostAddress() + "/" + prefixLength;
+        } catch (UnknownHostException e) {
+            return clientIp;
+        }
+    }
+
+    /**
+     * Gets the registered domain of a DNS name, the domain a customer registers at a registrar. The top level domain and one label are
+     * taken, plus one more label for common second level registries of country code top level domains such as {@code co.uk}.
+     * <p>
+     * This approximates the public suffix list, which is not shipped with the server.
+     *
+     * @param domain The DNS name, may be a wildcard.
+     * @return The registered domain in lowercase.
+     */
+    static String getRegisteredDomain(String domain) {
+        String name = domain.toLowerCase(Locale.ROOT);
+        if (name.startsWith("*.")) {
+            name = name.substring(2);
+        }
+        if (name.endsWith(".")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        String[] labels = name.split("\\.");
+        if (labels.length <= 2) {
+            return name;
+        }
+        int n = labels.length;
+        boolean countrySecondLevel = labels[n - 1].length() == 2 && COUNTRY_SECOND_LEVEL_LABELS.contains(labels[n - 2]);
+        int count = countrySecondLevel ? 3 : 2;
+        return String.join(".", Arrays.copyOfRange(labels, n - count, n));
+    }
+}
@@ -28,7 +28,6 @@ import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -92,7 +91,7 @@ public class NonceManager {
             return false;
         }
 
-        try (Session session = Objects.requireNonNull(hibernateUtil.getSessionFactory()).openSession()) {
+        try (Session session = hibernateUtil.openSession()) {
             Transaction transaction = session.beginTransaction();
 
             // Check if the nonce exists in the database
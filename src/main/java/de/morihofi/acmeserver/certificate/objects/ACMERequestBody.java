@@ -16,13 +16,22 @@
 
 package de.morihofi.acmeserver.certificate.objects;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import de.morihofi.acmeserver.tools.base64.Base64Tools;
+import de.morihofi.acmeserver.tools.json.JsonStreamTools;
+
+import java.io.IOException;
 
 /**
  * Represents the body of an ACME (Automated Certificate Management Environment) request. This class encapsulates the components of an ACME
  * request, including the protected header, payload, and signature. Each component is stored in Base64-encoded format.
  */
+@JsonAdapter(ACMERequestBody.GsonAdapter.class)
 public class ACMERequestBody {
     /**
      * The protected header of the ACME request, encoded in Base64.
@@ -88,4 +97,47 @@ public class ACMERequestBody {
     public String getSignature() {
         return signature;
     }
+
+    /**
+     * Streaming Gson adapter for {@link ACMERequestBody}.
+     */
+    public static final class GsonAdapter extends TypeAdapter<ACMERequestBody> {
+        /**
+         * Shared instance, the adapter is stateless.
+         */
+        public static final GsonAdapter INSTANCE = new GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ACMERequestBody body) throws IOException {
+            if (body == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("protected").value(body.protectedHeader);
+            out.name("payload").value(body.payload);
+            out.name("signature").value(body.signature);
+            out.endObject();
+        }
+
+        @Override
+        public ACMERequestBody read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ACMERequestBody body = new ACMERequestBody();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "protected" -> body.protectedHeader = JsonStreamTools.nextNullableString(in);
+                    case "payload" -> body.payload = JsonStreamTools.nextNullableString(in);
+                    case "signature" -> body.signature = JsonStreamTools.nextNullableString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return body;
+        }
+    }
 }
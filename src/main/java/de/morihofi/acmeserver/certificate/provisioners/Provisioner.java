@@ -10,12 +10,18 @@
 
 package de.morihofi.acmeserver.certificate.provisioners;
 
+import de.morihofi.acmeserver.certificate.acme.ratelimit.DatabaseRateLimitStore;
+import de.morihofi.acmeserver.certificate.acme.ratelimit.InMemoryRateLimitStore;
+import de.morihofi.acmeserver.certificate.acme.ratelimit.RateLimitStore;
+import de.morihofi.acmeserver.certificate.acme.ratelimit.RateLimiter;
 import de.morihofi.acmeserver.certificate.revokeDistribution.CRLGenerator;
 import de.morihofi.acmeserver.certificate.revokeDistribution.CRLScheduler;
+import de.morihofi.acmeserver.config.AuthorizationConfig;
 import de.morihofi.acmeserver.config.CertificateExpiration;
 import de.morihofi.acmeserver.config.DomainNameRestrictionConfig;
 import de.morihofi.acmeserver.config.MetadataConfig;
 import de.morihofi.acmeserver.config.ProvisionerConfig;
+import de.morihofi.acmeserver.config.RateLimitConfig;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.certificate.cryptoops.CryptoStoreManager;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -81,6 +87,45 @@ public class Provisioner {
      */
     private ServerInstance serverInstance;
 
+    /**
+     * Rate limiter enforcing the rate limits of this provisioner.
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Precomputed URLs of this provisioner, replaced as a whole by {@link #refresh()}.
+     */
+    private volatile Urls urls;
+
+    /**
+     * Revision of the precomputed data, incremented by every {@link #refresh()}. Allows caches of responses derived from this provisioner
+     * (e.g. the ACME directory) to detect changes.
+     */
+    private volatile long revision;
+
+    /**
+     * URLs of this provisioner, derived from the server and provisioner configuration.
+     *
+     * @param server          Base URL of the server.
+     * @param acmeApi         Base URL of the provisioner's ACME API.
+     * @param directory       URL of the ACME directory.
+     * @param newAccount      URL of the new account resource.
+     * @param newNonce        URL of the new nonce resource.
+     * @param newOrder        URL of the new order resource.
+     * @param revokeCert      URL of the revoke certificate resource.
+     * @param keyChange       URL of the key change resource.
+     * @param accountPrefix   Prefix of account URLs, followed by the account id.
+     * @param orderPrefix     Prefix of order URLs, followed by the order id.
+     * @param authzPrefix     Prefix of authorization URLs, followed by the authorization id.
+     * @param challengePrefix Prefix of challenge URLs, followed by the challenge id.
+     * @param ocsp            URL of the OCSP responder.
+     * @param crl             URL of the CRL.
+     */
+    private record Urls(String server, String acmeApi, String directory, String newAccount, String newNonce, String newOrder,
+                        String revokeCert, String keyChange, String accountPrefix, String orderPrefix, String authzPrefix,
+                        String challengePrefix, String ocsp, String crl) {
+    }
+
     /**
      * Constructs a new Provisioner object. This constructor initializes the Provisioner with the specified settings and configurations. It
      * sets up various aspects like the provisioner's name, ACME metadata configuration, certificate expiration settings, domain name
@@ -100,6 +145,31 @@ public class Provisioner {
     public Provisioner(String provisionerName, MetadataConfig acmeMetadataConfig, CertificateExpiration generatedCertificateExpiration,
                        DomainNameRestrictionConfig domainNameRestriction, boolean wildcardAllowed, CryptoStoreManager cryptoStoreManager,
                        ProvisionerConfig config, boolean ipAllowed, ServerInstance serverInstance) {
+        this(provisionerName, acmeMetadataConfig, generatedCertificateExpiration, domainNameRestriction, wildcardAllowed,
+                cryptoStoreManager, config, ipAllowed, serverInstance, null);
+    }
+
+    /**
+     * Constructs a new Provisioner object like
+     * {@link #Provisioner(String, MetadataConfig, CertificateExpiration, DomainNameRestrictionConfig, boolean, CryptoStoreManager,
+     * ProvisionerConfig, boolean, ServerInstance)}, continuing the rate limits of a replaced provisioner with the same name.
+     *
+     * @param provisionerName                The name of the provisioner.
+     * @param acmeMetadataConfig             The ACME metadata configuration.
+     * @param generatedCertificateExpiration The settings for the expiration of generated certificates.
+     * @param domainNameRestriction          The configuration for domain name restrictions.
+     * @param wildcardAllowed                A boolean value indicating whether wildcards are allowed.
+     * @param cryptoStoreManager             The manager for cryptographic store operations.
+     * @param config                         The configuration of the provisioner.
+     * @param ipAllowed                      A boolean value indicating whether IP issuance is allowed.
+     * @param serverInstance                 The instance managing server-specific configurations and operations.
+     * @param previousRateLimitStore         The rate limit store of the replaced provisioner, used unless the rate limits are persistent.
+     *                                       {@code null} starts with empty buckets.
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public Provisioner(String provisionerName, MetadataConfig acmeMetadataConfig, CertificateExpiration generatedCertificateExpiration,
+                       DomainNameRestrictionConfig domainNameRestriction, boolean wildcardAllowed, CryptoStoreManager cryptoStoreManager,
+                       ProvisionerConfig config, boolean ipAllowed, ServerInstance serverInstance, RateLimitStore previousRateLimitStore) {
         this.provisionerName = provisionerName;
         this.acmeMetadataConfig = acmeMetadataConfig;
         this.generatedCertificateExpiration = generatedCertificateExpiration;
@@ -109,6 +179,79 @@ public class Provisioner {
         this.config = config;
         this.ipAllowed = ipAllowed;
         this.serverInstance = serverInstance;
+        this.rateLimiter = createRateLimiter(provisionerName, config != null ? config.getRateLimit() : null, serverInstance,
+                previousRateLimitStore);
+        refresh();
+    }
+
+    /**
+     * Creates the rate limiter of a provisioner, keeping its state in the database if configured.
+     *
+     * @param provisionerName Name of the provisioner.
+     * @param rateLimitConfig Rate limit configuration, may be null.
+     * @param serverInstance  The server instance.
+     * @param previousStore   The store of a replaced provisioner, may be null.
+     * @return The rate limiter.
+     */
+    private static RateLimiter createRateLimiter(String provisionerName, RateLimitConfig rateLimitConfig, ServerInstance serverInstance,
+                                                 RateLimitStore previousStore) {
+        RateLimitStore store;
+        if (rateLimitConfig != null && rateLimitConfig.getPersistent()) {
+            store = new DatabaseRateLimitStore(serverInstance.getHibernateUtil());
+        } else if (previousStore instanceof InMemoryRateLimitStore) {
+            // Reloading the configuration must not hand out a full quota again
+            store = previousStore;
+        } else {
+            store = new InMemoryRateLimitStore();
+        }
+        return new RateLimiter(provisionerName, rateLimitConfig, store);
+    }
+
+    /**
+     * Gets the rate limiter enforcing the rate limits of this provisioner.
+     *
+     * @return The rate limiter.
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Rebuilds the precomputed URLs from the current configuration. Must be called when the server configuration (DNS name, HTTPS port) or
+     * the provisioner configuration changes. Responses cached from this provisioner are rebuilt as the revision changes.
+     */
+    public synchronized void refresh() {
+        String serverUrl = "https://" + serverInstance.getAppConfig().getServer().getDnsName()
+                + (serverInstance.getAppConfig().getServer().getPorts().getHttps() != 443
+                ? ":" + serverInstance.getAppConfig().getServer().getPorts().getHttps() : "");
+        String acmeApiUrl = serverUrl + "/acme/" + provisionerName;
+
+        urls = new Urls(
+                serverUrl,
+                acmeApiUrl,
+                acmeApiUrl + "/directory",
+                acmeApiUrl + "/acme/new-acct",
+                acmeApiUrl + "/acme/new-nonce",
+                acmeApiUrl + "/acme/new-order",
+                acmeApiUrl + "/acme/revoke-cert",
+                acmeApiUrl + "/acme/key-change",
+                acmeApiUrl + "/acme/acct/",
+                acmeApiUrl + "/acme/order/",
+                acmeApiUrl + "/acme/authz/",
+                acmeApiUrl + "/acme/chall/",
+                serverUrl + getOcspPath(),
+                serverUrl + getCrlPath()
+        );
+        revision++;
+    }
+
+    /**
+     * Gets the revision of the precomputed data, which changes on every {@link #refresh()}.
+     *
+     * @return The revision.
+     */
+    public long getRevision() {
+        return revision;
     }
 
     /**
@@ -117,8 +260,102 @@ public class Provisioner {
      * @return Full url (including HTTPS prefix) and port to this server
      */
     public String getAcmeApiURL() {
-        return "https://" + serverInstance.getAppConfig().getServer().getDnsName() + (serverInstance.getAppConfig().getServer().getPorts().getHttps() != 443 ? ":"
-                + serverInstance.getAppConfig().getServer().getPorts().getHttps() : "") + "/acme/" + provisionerName;
+        return urls.acmeApi();
+    }
+
+    /**
+     * Gets the URL of the ACME directory of this provisioner.
+     *
+     * @return The directory URL.
+     */
+    public String getDirectoryURL() {
+        return urls.directory();
+    }
+
+    /**
+     * Gets the URL of the new account resource.
+     *
+     * @return The new account URL.
+     */
+    public String getNewAccountURL() {
+        return urls.newAccount();
+    }
+
+    /**
+     * Gets the URL of the new nonce resource.
+     *
+     * @return The new nonce URL.
+     */
+    public String getNewNonceURL() {
+        return urls.newNonce();
+    }
+
+    /**
+     * Gets the URL of the new order resource.
+     *
+     * @return The new order URL.
+     */
+    public String getNewOrderURL() {
+        return urls.newOrder();
+    }
+
+    /**
+     * Gets the URL of the revoke certificate resource.
+     *
+     * @return The revoke certificate URL.
+     */
+    public String getRevokeCertURL() {
+        return urls.revokeCert();
+    }
+
+    /**
+     * Gets the URL of the key change resource.
+     *
+     * @return The key change URL.
+     */
+    public String getKeyChangeURL() {
+        return urls.keyChange();
+    }
+
+    /**
+     * Gets the URL of an account.
+     *
+     * @param accountId The id of the account.
+     * @return The account URL.
+     */
+    public String getAccountURL(String accountId) {
+        return urls.accountPrefix() + accountId;
+    }
+
+    /**
+     * Gets the URL of an order. Sub-resources (e.g. {@code /finalize}) are appended to it.
+     *
+     * @param orderId The id of the order.
+     * @return The order URL.
+     */
+    public String getOrderURL(String orderId) {
+        return urls.orderPrefix() + orderId;
+    }
+
+    /**
+     * Gets the URL of an authorization.
+     *
+     * @param authorizationId The id of the authorization.
+     * @return The authorization URL.
+     */
+    public String getAuthzURL(String authorizationId) {
+        return urls.authzPrefix() + authorizationId;
+    }
+
+    /**
+     * Gets the URL of a challenge.
+     *
+     * @param challengeId   The id of the challenge.
+     * @param challengeType The type of the challenge, e.g. {@code http-01}.
+     * @return The challenge URL.
+     */
+    public String getChallengeURL(String challengeId, String challengeType) {
+        return urls.challengePrefix() + challengeId + "/" + challengeType;
     }
 
     /**
@@ -128,8 +365,7 @@ public class Provisioner {
      * @return a String representing the full HTTPS URL of the server
      */
     public String getServerURL() {
-        return "https://" + serverInstance.getAppConfig().getServer().getDnsName() + (serverInstance.getAppConfig().getServer().getPorts().getHttps() != 443 ? ":"
-                + serverInstance.getAppConfig().getServer().getPorts().getHttps() : "");
+        return urls.server();
     }
 
     /**
@@ -266,6 +502,7 @@ public class Provisioner {
     @SuppressFBWarnings("EI_EXPOSE_REP2")
     public void setAcmeMetadataConfig(MetadataConfig acmeMetadataConfig) {
         this.acmeMetadataConfig = acmeMetadataConfig;
+        refresh();
     }
 
     /**
@@ -275,7 +512,7 @@ public class Provisioner {
      * @return A {@code String} representing the full OCSP URL.
      */
     public String getFullOcspUrl() {
-        return getServerURL() + getOcspPath();
+        return urls.ocsp();
     }
 
     /**
@@ -285,7 +522,7 @@ public class Provisioner {
      * @return A {@code String} representing the full CRL URL.
      */
     public String getFullCrlUrl() {
-        return getServerURL() + getCrlPath();
+        return urls.crl();
     }
 
     /**
@@ -307,6 +544,15 @@ public class Provisioner {
         return config;
     }
 
+    /**
+     * Retrieves the authorization policy of the provisioner.
+     *
+     * @return The configured authorization policy, or the defaults if the provisioner has no configuration.
+     */
+    public AuthorizationConfig getAuthorizationConfig() {
+        return config != null && config.getAuthorization() != null ? config.getAuthorization() : new AuthorizationConfig();
+    }
+
     /**
      * Retrieves the CRLGenerator associated with the provisioner.
      *
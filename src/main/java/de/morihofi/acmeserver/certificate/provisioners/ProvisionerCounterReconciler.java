@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.certificate.provisioners;
+
+import de.morihofi.acmeserver.tools.ServerInstance;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically corrects the materialized statistic counters and the daily rollup of all registered provisioners against the source
+ * tables. The counters are maintained transactionally on every state transition, the reconcile only corrects drift, e.g. after manual
+ * database changes or from state transitions that happened before the counters were introduced.
+ */
+public class ProvisionerCounterReconciler {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Interval between two reconcile runs.
+     */
+    private static final int UPDATE_HOURS = 24;
+
+    /**
+     * Executor running the reconcile.
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+
+    /**
+     * Starts the scheduler. The first reconcile runs immediately, so that the counters exist right after startup.
+     *
+     * @param serverInstance The server instance for database connection.
+     */
+    public static void startScheduler(ServerInstance serverInstance) {
+        LOG.info("Initialized Provisioner Counter Reconciler");
+        scheduler.scheduleWithFixedDelay(() -> reconcile(serverInstance), 0, UPDATE_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * Rebuilds the counters and daily rollups of all registered provisioners, each provisioner within its own transaction.
+     *
+     * @param serverInstance The server instance for database connection.
+     */
+    public static void reconcile(ServerInstance serverInstance) {
+        for (Provisioner provisioner : ProvisionerManager.getProvisioners()) {
+            try (Session session = serverInstance.getHibernateUtil().openSession()) {
+                Transaction transaction = session.beginTransaction();
+                ProvisionerStatistics.reconcileCounters(session, provisioner.getProvisionerName());
+                ProvisionerStatistics.backfillDailyRollup(session, provisioner.getProvisionerName());
+                transaction.commit();
+                LOG.info("Reconciled statistic counters and daily rollup of provisioner {}", provisioner.getProvisionerName());
+            } catch (Exception e) {
+                LOG.error("Unable to reconcile statistic counters of provisioner {}", provisioner.getProvisionerName(), e);
+            }
+        }
+    }
+
+    /**
+     * Shuts down the executor service.
+     */
+    public static void shutdown() {
+        LOG.info("Provisioner Counter Reconciler is shutting down");
+        scheduler.shutdown();
+    }
+}
@@ -22,23 +22,33 @@ import de.morihofi.acmeserver.certificate.revokeDistribution.CRLEndpoint;
 import de.morihofi.acmeserver.certificate.revokeDistribution.CRLScheduler;
 import de.morihofi.acmeserver.certificate.revokeDistribution.OcspEndpointGet;
 import de.morihofi.acmeserver.certificate.revokeDistribution.OcspEndpointPost;
+import de.morihofi.acmeserver.database.retention.RetentionScheduler;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.http.HttpHeaderUtil;
 import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HandlerType;
+import io.javalin.http.NotFoundResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Optional;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BiFunction;
 
 /**
  * Manages the registration and retrieval of ACME provisioners.
  *
- * <p>This class handles the registration of provisioners, setting up their respective endpoints for ACME operations, CRL distribution,
- * and OCSP handling. It also provides methods to retrieve registered provisioners by name.</p>
+ * <p>The routes of all provisioners are registered once at the Javalin application with the provisioner name as path parameter. Each
+ * request looks up the handlers of its provisioner in an immutable name-to-provisioner map, which is replaced as a whole when provisioners
+ * are registered, replaced or unregistered. This allows adding, changing and removing provisioners at runtime: requests in flight keep
+ * using the handlers they have already looked up, new requests use the new ones.</p>
  */
 public class ProvisionerManager {
 
@@ -48,100 +58,234 @@ public class ProvisionerManager {
     private static final Logger log = LogManager.getLogger(MethodHandles.lookup().lookupClass());
 
     /**
-     * A set of registered provisioners.
+     * Name of the path parameter holding the provisioner name.
      */
-    private static final Set<Provisioner> provisioners = new HashSet<>();
+    private static final String PROVISIONER_PATH_PARAM = "provisioner";
 
     /**
-     * Constructs the API prefix for a given provisioner name.
-     *
-     * @param provisionerName The name of the provisioner.
-     * @return The API prefix for the provisioner.
+     * Lock for modifications of the registry, lookups don't lock.
      */
-    private static String getProvisionerApiPrefix(String provisionerName) {
-        return "/acme/" + provisionerName;
-    }
+    private static final Object REGISTRY_LOCK = new Object();
 
     /**
-     * Registers a provisioner with the specified Javalin application instance and server instance.
-     *
-     * <p>This method sets up the necessary endpoints for the provisioner and adds the provisioner to the CRL scheduler.</p>
-     *
-     * @param app            The Javalin application instance.
-     * @param provisioner    The provisioner to register.
-     * @param serverInstance The server instance.
-     * @throws IllegalArgumentException If the provisioner is already registered.
+     * Snapshot of the registered provisioners, replaced as a whole on every modification.
      */
-    public static void registerProvisioner(Javalin app, Provisioner provisioner, ServerInstance serverInstance) {
-        if (provisioners.contains(provisioner)) {
-            throw new IllegalArgumentException("Provisioner already registered");
-        }
-
-        // CRL generator
-        CRLScheduler.addProvisionerToScheduler(provisioner, serverInstance);
+    private static volatile Registry registry = new Registry(Map.of(), Set.of());
 
-        String prefix = getProvisionerApiPrefix(provisioner.getProvisionerName());
+    /**
+     * The ACME, CRL and OCSP routes of a provisioner.
+     */
+    private enum Route {
+        CRL(HandlerType.GET, "/acme/crl/{provisioner}.crl", (provisioner, serverInstance) -> new CRLEndpoint(provisioner)),
+        OCSP_POST(HandlerType.POST, "/acme/{provisioner}/ocsp", (provisioner, serverInstance) -> new OcspEndpointPost(provisioner)),
+        OCSP_GET(HandlerType.GET, "/acme/{provisioner}/ocsp/{ocspRequest}", (provisioner, serverInstance) -> new OcspEndpointGet(provisioner)),
+        DIRECTORY(HandlerType.GET, "/acme/{provisioner}/directory", (provisioner, serverInstance) -> new DirectoryEndpoint(provisioner)),
+        NEW_ACCOUNT(HandlerType.POST, "/acme/{provisioner}/acme/new-acct", NewAccountEndpoint::new),
+        // TODO: Key Change Endpoint (Account key rollover)
+        KEY_CHANGE_POST(HandlerType.POST, "/acme/{provisioner}/acme/key-change", (provisioner, serverInstance) -> new NotImplementedEndpoint()),
+        KEY_CHANGE_GET(HandlerType.GET, "/acme/{provisioner}/acme/key-change", (provisioner, serverInstance) -> new NotImplementedEndpoint()),
+        NEW_NONCE_HEAD(HandlerType.HEAD, "/acme/{provisioner}/acme/new-nonce", NewNonceEndpoint::new),
+        NEW_NONCE_GET(HandlerType.GET, "/acme/{provisioner}/acme/new-nonce", NewNonceEndpoint::new),
+        ACCOUNT(HandlerType.POST, "/acme/{provisioner}/acme/acct/{id}", AccountEndpoint::new),
+        NEW_ORDER(HandlerType.POST, "/acme/{provisioner}/acme/new-order", NewOrderEndpoint::new),
+        AUTHZ(HandlerType.POST, "/acme/{provisioner}/acme/authz/{authorizationId}", AuthzOwnershipEndpoint::new),
+        CHALLENGE(HandlerType.POST, "/acme/{provisioner}/acme/chall/{challengeId}/{challengeType}", ChallengeCallbackEndpoint::new),
+        FINALIZE(HandlerType.POST, "/acme/{provisioner}/acme/order/{orderId}/finalize", FinalizeOrderEndpoint::new),
+        ORDER_INFO(HandlerType.POST, "/acme/{provisioner}/acme/order/{orderId}", OrderInfoEndpoint::new),
+        ORDER_CERT(HandlerType.POST, "/acme/{provisioner}/acme/order/{orderId}/cert", OrderCertEndpoint::new),
+        REVOKE_CERT(HandlerType.POST, "/acme/{provisioner}/acme/revoke-cert", RevokeCertEndpoint::new);
+
+        /**
+         * HTTP method of the route
+         */
+        private final HandlerType method;
+
+        /**
+         * Path of the route, containing the provisioner name as path parameter
+         */
+        private final String path;
+
+        /**
+         * Creates the handler of the route for a provisioner
+         */
+        private final BiFunction<Provisioner, ServerInstance, Handler> handlerFactory;
+
+        /**
+         * Constructor for a route.
+         *
+         * @param method         HTTP method of the route.
+         * @param path           Path of the route, containing the provisioner name as path parameter.
+         * @param handlerFactory Creates the handler of the route for a provisioner.
+         */
+        Route(HandlerType method, String path, BiFunction<Provisioner, ServerInstance, Handler> handlerFactory) {
+            this.method = method;
+            this.path = path;
+            this.handlerFactory = handlerFactory;
+        }
+    }
 
-        // CRL distribution
-        app.get(provisioner.getCrlPath(), new CRLEndpoint(provisioner));
+    /**
+     * A registered provisioner with the handlers of its routes.
+     *
+     * @param provisioner The provisioner.
+     * @param handlers    The handlers of the provisioner's routes.
+     */
+    private record RegisteredProvisioner(Provisioner provisioner, Map<Route, Handler> handlers) {
+    }
 
-        // OCSP (Online Certificate Status Protocol) endpoints
-        app.post(provisioner.getOcspPath(), new OcspEndpointPost(provisioner));
-        app.get(provisioner.getOcspPath() + "/{ocspRequest}", new OcspEndpointGet(provisioner));
+    /**
+     * Immutable snapshot of the registered provisioners.
+     *
+     * @param byName       Registered provisioners by name.
+     * @param provisioners All registered provisioners.
+     */
+    private record Registry(Map<String, RegisteredProvisioner> byName, Set<Provisioner> provisioners) {
+    }
 
+    /**
+     * Registers the routes of all provisioners at the Javalin application. Must be called once before the application is started,
+     * provisioners can be registered before or after.
+     *
+     * @param app The Javalin application instance.
+     */
+    public static void registerRoutes(Javalin app) {
         // Global ACME headers, inspired from Let's Encrypts Boulder
-        app.before(prefix + "/*", context -> {
+        app.before("/acme/{provisioner}/*", context -> {
+            RegisteredProvisioner registeredProvisioner = registry.byName().get(context.pathParam(PROVISIONER_PATH_PARAM));
+            if (registeredProvisioner == null) {
+                return;
+            }
+
             // Disable caching for all ACME routes
             context.header("Cache-Control", "public, max-age=0, no-cache");
 
-            if(!context.path().equals(prefix + "/directory")){
-                context.header("Link", HttpHeaderUtil.buildLinkHeaderValue(provisioner.getAcmeApiURL() + "/directory", "index"));
+            if (!context.path().endsWith("/directory")) {
+                context.header("Link", HttpHeaderUtil.buildLinkHeaderValue(registeredProvisioner.provisioner().getDirectoryURL(), "index"));
             }
-
         });
 
+        for (Route route : Route.values()) {
+            app.addHttpHandler(route.method, route.path, context -> dispatch(context, route));
+        }
+    }
 
-        // ACME Directory
-        app.get(prefix + "/directory", new DirectoryEndpoint(provisioner));
-
-        // New account
-        app.post(prefix + "/acme/new-acct", new NewAccountEndpoint(provisioner, serverInstance));
-
-        // TODO: Key Change Endpoint (Account key rollover)
-        app.post(prefix + "/acme/key-change", new NotImplementedEndpoint());
-        app.get(prefix + "/acme/key-change", new NotImplementedEndpoint());
-
-        // New Nonce
-        app.head(prefix + "/acme/new-nonce", new NewNonceEndpoint(provisioner, serverInstance));
-        app.get(prefix + "/acme/new-nonce", new NewNonceEndpoint(provisioner, serverInstance));
-
-        // Account Update
-        app.post(prefix + "/acme/acct/{id}", new AccountEndpoint(provisioner, serverInstance));
+    /**
+     * Passes a request to the handler of the requested provisioner.
+     *
+     * @param context The request context.
+     * @param route   The route of the request.
+     * @throws Exception If the handler fails.
+     */
+    private static void dispatch(Context context, Route route) throws Exception {
+        RegisteredProvisioner registeredProvisioner = registry.byName().get(context.pathParam(PROVISIONER_PATH_PARAM));
+        if (registeredProvisioner == null) {
+            throw new NotFoundResponse("Provisioner not found");
+        }
+        registeredProvisioner.handlers().get(route).handle(context);
+    }
 
-        // Create new Order
-        app.post(prefix + "/acme/new-order", new NewOrderEndpoint(provisioner, serverInstance));
+    /**
+     * Registers a provisioner, so its routes are served, and adds it to the CRL and retention schedulers.
+     *
+     * @param provisioner    The provisioner to register.
+     * @param serverInstance The server instance.
+     * @throws IllegalArgumentException If a provisioner with the same name is already registered.
+     */
+    public static void registerProvisioner(Provisioner provisioner, ServerInstance serverInstance) {
+        synchronized (REGISTRY_LOCK) {
+            if (registry.byName().containsKey(provisioner.getProvisionerName())) {
+                throw new IllegalArgumentException("Provisioner already registered");
+            }
+            addToSchedulers(provisioner, serverInstance);
+            putProvisioner(provisioner, serverInstance);
+        }
+        log.info("Provisioner {} registered", provisioner.getProvisionerName());
+    }
 
-        // Challenge / Ownership verification
-        app.post(prefix + "/acme/authz/{authorizationId}", new AuthzOwnershipEndpoint(provisioner, serverInstance));
+    /**
+     * Replaces a registered provisioner with a new instance of the same name, e.g. after its configuration was changed. Requests in flight
+     * finish with the previous instance.
+     *
+     * @param provisioner    The new provisioner instance.
+     * @param serverInstance The server instance.
+     * @throws IllegalArgumentException If no provisioner with this name is registered.
+     */
+    public static void replaceProvisioner(Provisioner provisioner, ServerInstance serverInstance) {
+        synchronized (REGISTRY_LOCK) {
+            if (!registry.byName().containsKey(provisioner.getProvisionerName())) {
+                throw new IllegalArgumentException("Provisioner " + provisioner.getProvisionerName() + " is not registered");
+            }
+            addToSchedulers(provisioner, serverInstance);
+            putProvisioner(provisioner, serverInstance);
+        }
+        log.info("Provisioner {} replaced", provisioner.getProvisionerName());
+    }
 
-        // Challenge Callback
-        app.post(prefix + "/acme/chall/{challengeId}/{challengeType}", new ChallengeCallbackEndpoint(provisioner, serverInstance));
+    /**
+     * Unregisters a provisioner, its routes answer with 404 afterwards. Requests in flight finish normally.
+     *
+     * @param provisionerName The name of the provisioner.
+     * @return True if the provisioner was registered.
+     */
+    public static boolean unregisterProvisioner(String provisionerName) {
+        synchronized (REGISTRY_LOCK) {
+            if (!registry.byName().containsKey(provisionerName)) {
+                return false;
+            }
+            Map<String, RegisteredProvisioner> byName = new LinkedHashMap<>(registry.byName());
+            byName.remove(provisionerName);
+            registry = createRegistry(byName);
 
-        // Finalize endpoint
-        app.post(prefix + "/acme/order/{orderId}/finalize", new FinalizeOrderEndpoint(provisioner, serverInstance));
+            CRLScheduler.removeProvisionerFromScheduler(provisionerName);
+            RetentionScheduler.removeProvisionerFromScheduler(provisionerName);
+        }
+        log.info("Provisioner {} unregistered", provisionerName);
+        return true;
+    }
 
-        // Order info Endpoint
-        app.post(prefix + "/acme/order/{orderId}", new OrderInfoEndpoint(provisioner, serverInstance));
+    /**
+     * Adds a provisioner to the CRL and retention schedulers, replacing a previous instance of the same name.
+     *
+     * @param provisioner    The provisioner.
+     * @param serverInstance The server instance.
+     */
+    private static void addToSchedulers(Provisioner provisioner, ServerInstance serverInstance) {
+        // CRL generator
+        CRLScheduler.addProvisionerToScheduler(provisioner, serverInstance);
 
-        // Get Order Certificate
-        app.post(prefix + "/acme/order/{orderId}/cert", new OrderCertEndpoint(provisioner, serverInstance));
+        // Order retention
+        RetentionScheduler.addProvisionerToScheduler(provisioner, serverInstance);
+    }
 
-        // Revoke certificate
-        app.post(prefix + "/acme/revoke-cert", new RevokeCertEndpoint(provisioner, serverInstance));
+    /**
+     * Creates the handlers of a provisioner and publishes a new registry containing it. Must be called holding {@link #REGISTRY_LOCK}.
+     *
+     * @param provisioner    The provisioner.
+     * @param serverInstance The server instance.
+     */
+    private static void putProvisioner(Provisioner provisioner, ServerInstance serverInstance) {
+        Map<Route, Handler> handlers = new EnumMap<>(Route.class);
+        for (Route route : Route.values()) {
+            handlers.put(route, route.handlerFactory.apply(provisioner, serverInstance));
+        }
 
-        log.info("Provisioner {} registered", provisioner.getProvisionerName());
+        Map<String, RegisteredProvisioner> byName = new LinkedHashMap<>(registry.byName());
+        byName.put(provisioner.getProvisionerName(), new RegisteredProvisioner(provisioner, Collections.unmodifiableMap(handlers)));
+        registry = createRegistry(byName);
+    }
 
-        provisioners.add(provisioner);
+    /**
+     * Creates an immutable registry snapshot.
+     *
+     * @param byName Registered provisioners by name.
+     * @return The registry.
+     */
+    private static Registry createRegistry(Map<String, RegisteredProvisioner> byName) {
+        Set<Provisioner> provisioners = new LinkedHashSet<>();
+        for (RegisteredProvisioner registeredProvisioner : byName.values()) {
+            provisioners.add(registeredProvisioner.provisioner());
+        }
+        return new Registry(Collections.unmodifiableMap(byName), Collections.unmodifiableSet(provisioners));
     }
 
     /**
@@ -151,11 +295,8 @@ public class ProvisionerManager {
      * @return The provisioner with the specified name, or null if not found.
      */
     public static Provisioner getProvisionerForName(String provisionerName) {
-        Optional<Provisioner> provisionerOptional = provisioners.stream()
-                .filter(provisioner -> provisioner.getProvisionerName().equals(provisionerName))
-                .findFirst();
-
-        return provisionerOptional.orElse(null);
+        RegisteredProvisioner registeredProvisioner = registry.byName().get(provisionerName);
+        return registeredProvisioner != null ? registeredProvisioner.provisioner() : null;
     }
 
     /**
@@ -164,6 +305,6 @@ public class ProvisionerManager {
      * @return An unmodifiable set of provisioners.
      */
     public static Set<Provisioner> getProvisioners() {
-        return Collections.unmodifiableSet(provisioners);
+        return registry.provisioners();
     }
 }
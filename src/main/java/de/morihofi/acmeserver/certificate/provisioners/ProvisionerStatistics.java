@@ -10,14 +10,23 @@
 
 package de.morihofi.acmeserver.certificate.provisioners;
 
+import de.morihofi.acmeserver.database.objects.CertificateDailyRollup;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
 import de.morihofi.acmeserver.tools.safety.TypeSafetyHelper;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.Query;
+import org.hibernate.LockMode;
 import org.hibernate.Session;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class provides statistical data about certificates issued, revoked, and accounts related to provisioners.
@@ -25,32 +34,43 @@ import java.util.Map;
 public class ProvisionerStatistics {
 
     /**
-     * Retrieves a map of the number of certificates issued per day for a given provisioner.
+     * Retrieves a map of the number of certificates issued per day for a given provisioner. The values are read from the daily rollup, so
+     * only one row per day and provisioner has to be read.
      *
      * @param session         The Hibernate session to use for querying the database.
-     * @param provisionerName The name of the provisioner.
+     * @param provisionerName The name of the provisioner, or {@code null} to sum up all provisioners.
+     * @param from            First day to include, or {@code null} for no lower bound.
+     * @param to              Last day to include, or {@code null} for no upper bound.
      * @return A map where the keys are dates and the values are the number of certificates issued on those dates.
      */
-    public static Map<LocalDate, Long> getCertificatesIssuedPerDay(Session session, String provisionerName) {
+    public static Map<LocalDate, Long> getCertificatesIssuedPerDay(Session session, String provisionerName, LocalDate from, LocalDate to) {
         Map<LocalDate, Long> issuedCertificatesPerDay = new HashMap<>();
 
         Query query = session.createQuery(
-                "SELECT cast(o.created as date), COUNT(o) " +
-                        "FROM ACMEOrder o " +
-                        "WHERE o.certificatePem IS NOT NULL " +
-                        (provisionerName != null ? "AND o.account.provisioner = :provisionerName " : "") +
-                        "GROUP BY cast(o.created as date)",
+                "SELECT r.day, SUM(r.issued) " +
+                        "FROM CertificateDailyRollup r " +
+                        "WHERE r.issued > 0 " +
+                        (provisionerName != null ? "AND r.provisioner = :provisionerName " : "") +
+                        (from != null ? "AND r.day >= :from " : "") +
+                        (to != null ? "AND r.day <= :to " : "") +
+                        "GROUP BY r.day",
                 Object[].class
         );
 
         if (provisionerName != null) {
             query.setParameter("provisionerName", provisionerName);
         }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
 
         List<Object[]> results = TypeSafetyHelper.safeCastToClassOfType(query.getResultList(), Object[].class);
 
         for (Object[] result : results) {
-            LocalDate date = ((java.sql.Date) result[0]).toLocalDate();
+            LocalDate date = (LocalDate) result[0];
             Long count = (Long) result[1];
             issuedCertificatesPerDay.put(date, count);
         }
@@ -58,6 +78,67 @@ public class ProvisionerStatistics {
         return issuedCertificatesPerDay;
     }
 
+    /**
+     * Corrects the daily rollup of a provisioner against the order and archive tables. Used to backfill the rollup for data that existed
+     * before the rollup was introduced and to correct drift. Like {@link #reconcileCounters(Session, String)}, the existing rows are locked
+     * while counting and only the drift is added to them.
+     *
+     * @param session         The Hibernate session to use for querying the database. Must have an active transaction.
+     * @param provisionerName The name of the provisioner.
+     */
+    public static void backfillDailyRollup(Session session, String provisionerName) {
+        Map<LocalDate, long[]> stored = new HashMap<>();
+        for (CertificateDailyRollup row : session.createQuery("FROM CertificateDailyRollup r WHERE r.provisioner = :provisionerName",
+                        CertificateDailyRollup.class)
+                .setParameter("provisionerName", provisionerName)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList()) {
+            stored.put(row.getDay(), new long[]{row.getIssued(), row.getRevoked()});
+        }
+
+        Map<LocalDate, long[]> rollup = new HashMap<>();
+
+        String[] issuedQueries = {
+                "SELECT cast(o.created as date), COUNT(o) FROM ACMEOrder o WHERE o.certificatePem IS NOT NULL "
+                        + "AND o.account.provisioner = :provisionerName GROUP BY cast(o.created as date)",
+                "SELECT cast(a.created as date), COUNT(a) FROM ACMEOrderArchive a WHERE a.provisioner = :provisionerName "
+                        + "GROUP BY cast(a.created as date)"
+        };
+        String[] revokedQueries = {
+                "SELECT cast(o.revokeTimestamp as date), COUNT(o) FROM ACMEOrder o WHERE o.revokeTimestamp IS NOT NULL "
+                        + "AND o.revokeStatusCode IS NOT NULL AND o.account.provisioner = :provisionerName "
+                        + "GROUP BY cast(o.revokeTimestamp as date)",
+                "SELECT cast(a.revokeTimestamp as date), COUNT(a) FROM ACMEOrderArchive a WHERE a.revokeTimestamp IS NOT NULL "
+                        + "AND a.revokeStatusCode IS NOT NULL AND a.provisioner = :provisionerName GROUP BY cast(a.revokeTimestamp as date)"
+        };
+        for (int column = 0; column < 2; column++) {
+            for (String hql : column == 0 ? issuedQueries : revokedQueries) {
+                List<Object[]> results = session.createQuery(hql, Object[].class)
+                        .setParameter("provisionerName", provisionerName)
+                        .getResultList();
+                for (Object[] result : results) {
+                    if (result[0] == null) {
+                        continue;
+                    }
+                    LocalDate date = ((java.sql.Date) result[0]).toLocalDate();
+                    rollup.computeIfAbsent(date, day -> new long[2])[column] += (Long) result[1];
+                }
+            }
+        }
+
+        Set<LocalDate> days = new HashSet<>(rollup.keySet());
+        days.addAll(stored.keySet());
+        for (LocalDate day : days) {
+            long[] counted = rollup.getOrDefault(day, new long[2]);
+            long[] current = stored.getOrDefault(day, new long[2]);
+            long issuedDrift = counted[0] - current[0];
+            long revokedDrift = counted[1] - current[1];
+            if (issuedDrift != 0 || revokedDrift != 0) {
+                CertificateDailyRollup.add(session, provisionerName, day, issuedDrift, revokedDrift);
+            }
+        }
+    }
+
     /**
      * Counts the number of ACME accounts associated with a given provisioner.
      *
@@ -74,7 +155,22 @@ public class ProvisionerStatistics {
     }
 
     /**
-     * Counts the number of issued certificates for a given provisioner.
+     * Counts the number of active (not deactivated) ACME accounts associated with a given provisioner.
+     *
+     * @param session         The Hibernate session to use for querying the database.
+     * @param provisionerName The name of the provisioner.
+     * @return The number of active ACME accounts for the specified provisioner.
+     */
+    public static long countActiveACMEAccountsByProvisioner(Session session, String provisionerName) {
+        Long count = session.createQuery(
+                        "SELECT COUNT(a) FROM ACMEAccount a WHERE a.provisioner = :provisionerName AND a.deactivated = false", Long.class)
+                .setParameter("provisionerName", provisionerName)
+                .getSingleResult();
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Counts the number of issued certificates for a given provisioner, including archived ones.
      *
      * @param session         The Hibernate session to use for querying the database.
      * @param provisionerName The name of the provisioner.
@@ -86,11 +182,15 @@ public class ProvisionerStatistics {
                         Long.class)
                 .setParameter("provisionerName", provisionerName)
                 .getSingleResult();
-        return count != null ? count : 0;
+        Long archived = session.createQuery(
+                        "SELECT COUNT(a) FROM ACMEOrderArchive a WHERE a.provisioner = :provisionerName", Long.class)
+                .setParameter("provisionerName", provisionerName)
+                .getSingleResult();
+        return (count != null ? count : 0) + (archived != null ? archived : 0);
     }
 
     /**
-     * Counts the number of revoked certificates for a given provisioner.
+     * Counts the number of revoked certificates for a given provisioner, including archived ones.
      *
      * @param session         The Hibernate session to use for querying the database.
      * @param provisionerName The name of the provisioner.
@@ -103,7 +203,12 @@ public class ProvisionerStatistics {
                         Long.class)
                 .setParameter("provisionerName", provisionerName)
                 .getSingleResult();
-        return count != null ? count : 0;
+        Long archived = session.createQuery(
+                        "SELECT COUNT(a) FROM ACMEOrderArchive a WHERE a.provisioner = :provisionerName"
+                                + " AND a.revokeStatusCode IS NOT NULL AND a.revokeTimestamp IS NOT NULL", Long.class)
+                .setParameter("provisionerName", provisionerName)
+                .getSingleResult();
+        return (count != null ? count : 0) + (archived != null ? archived : 0);
     }
 
     /**
@@ -124,58 +229,49 @@ public class ProvisionerStatistics {
     }
 
     /**
-     * Counts the total number of issued certificates across all provisioners.
+     * Corrects the drift of the materialized counters of a provisioner against the order, archive and account tables. The drift is added
+     * to the counters instead of overwriting them, and the counter row is locked while counting: concurrent state transitions wait for the
+     * reconcile and are counted either in the source tables or by their own increment, but never lost or counted twice.
      *
-     * @param session The Hibernate session to use for querying the database.
-     * @return The total number of issued certificates.
+     * @param session         The Hibernate session to use for querying the database. Must have an active transaction.
+     * @param provisionerName The name of the provisioner.
      */
-    public static long countGlobalIssuedCertificates(Session session) {
-        Long count = session.createQuery(
-                        "SELECT COUNT(o) FROM ACMEOrder o WHERE o.certificatePem IS NOT NULL", Long.class)
-                .getSingleResult();
-        return count != null ? count : 0;
-    }
+    public static void reconcileCounters(Session session, String provisionerName) {
+        ProvisionerCounter.createIfAbsent(session, provisionerName);
+        ProvisionerCounter provisionerCounter = session.get(ProvisionerCounter.class, provisionerName, LockMode.PESSIMISTIC_WRITE);
 
-    /**
-     * Counts the total number of revoked certificates across all provisioners.
-     *
-     * @param session The Hibernate session to use for querying the database.
-     * @return The total number of revoked certificates.
-     */
-    public static long countGlobalRevokedCertificates(Session session) {
-        Long count = session.createQuery(
-                        "SELECT COUNT(o) FROM ACMEOrder o WHERE o.certificatePem IS NOT NULL AND o.revokeStatusCode IS NOT NULL AND o"
-                                + ".revokeTimestamp IS NOT NULL",
-                        Long.class)
-                .getSingleResult();
-        return count != null ? count : 0;
-    }
+        Map<ProvisionerCounter.Counter, Long> counted = new EnumMap<>(ProvisionerCounter.Counter.class);
+        counted.put(ProvisionerCounter.Counter.ACME_ACCOUNTS, countACMEAccountsByProvisioner(session, provisionerName));
+        counted.put(ProvisionerCounter.Counter.ACTIVE_ACME_ACCOUNTS, countActiveACMEAccountsByProvisioner(session, provisionerName));
+        counted.put(ProvisionerCounter.Counter.CERTIFICATES_ISSUED, countIssuedCertificatesByProvisioner(session, provisionerName));
+        counted.put(ProvisionerCounter.Counter.CERTIFICATES_REVOKED, countRevokedCertificatesByProvisioner(session, provisionerName));
+        counted.put(ProvisionerCounter.Counter.CERTIFICATES_WAITING, countCertificatesWaitingForIssueByProvisioner(session, provisionerName));
 
-    /**
-     * Counts the total number of active ACME accounts across all provisioners.
-     *
-     * @param session The Hibernate session to use for querying the database.
-     * @return The total number of active ACME accounts.
-     */
-    public static long countGlobalActiveACMEAccounts(Session session) {
-        Long count = session.createQuery(
-                        "SELECT COUNT(a) FROM ACMEAccount a WHERE a.deactivated = false", Long.class)
-                .getSingleResult();
-        return count != null ? count : 0;
+        for (Map.Entry<ProvisionerCounter.Counter, Long> entry : counted.entrySet()) {
+            long drift = entry.getValue() - provisionerCounter.get(entry.getKey());
+            if (drift != 0) {
+                ProvisionerCounter.add(session, provisionerName, entry.getKey(), drift);
+            }
+        }
+        // Updated by query, so that the loaded (now stale) entity does not write its counters back
+        session.createMutationQuery("UPDATE ProvisionerCounter c SET c.reconciled = :reconciled WHERE c.provisioner = :provisionerName")
+                .setParameter("reconciled", Timestamp.from(Instant.now()))
+                .setParameter("provisionerName", provisionerName)
+                .executeUpdate();
     }
 
     /**
-     * Counts the total number of certificates waiting to be issued across all provisioners.
+     * Retrieves the materialized counters of all provisioners.
      *
      * @param session The Hibernate session to use for querying the database.
-     * @return The total number of certificates waiting to be issued.
+     * @return A map where the keys are provisioner names and the values are their counters.
      */
-    public static long countGlobalCertificatesWaiting(Session session) {
-        Long count = session.createQuery(
-                        "SELECT COUNT(o) FROM ACMEOrder o WHERE o.certificatePem IS NULL AND"
-                                + " o.certificateCSR IS NOT NULL",
-                        Long.class)
-                .getSingleResult();
-        return count != null ? count : 0;
+    public static Map<String, ProvisionerCounter> getCounters(Session session) {
+        Map<String, ProvisionerCounter> counters = new HashMap<>();
+        for (ProvisionerCounter provisionerCounter : session.createQuery("FROM ProvisionerCounter", ProvisionerCounter.class)
+                .getResultList()) {
+            counters.put(provisionerCounter.getProvisioner(), provisionerCounter);
+        }
+        return counters;
     }
 }
@@ -22,6 +22,8 @@ import de.morihofi.acmeserver.certificate.provisioners.ProvisionerManager;
 import de.morihofi.acmeserver.database.AcmeOrderState;
 import de.morihofi.acmeserver.database.HibernateUtil;
 import de.morihofi.acmeserver.database.objects.ACMEOrder;
+import de.morihofi.acmeserver.database.objects.CertificateDailyRollup;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
 import de.morihofi.acmeserver.tools.ServerInstance;
 import de.morihofi.acmeserver.tools.base64.Base64Tools;
 import de.morihofi.acmeserver.tools.certificate.PemUtil;
@@ -46,8 +48,8 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 
 public class CertificateIssuer {
@@ -133,6 +135,11 @@ public class CertificateIssuer {
         order.setOrderState(AcmeOrderState.IDLE); // Set it back to idle
         session.merge(order);
 
+        ProvisionerCounter.add(session, provisioner.getProvisionerName(), ProvisionerCounter.Counter.CERTIFICATES_WAITING, -1);
+        ProvisionerCounter.add(session, provisioner.getProvisionerName(), ProvisionerCounter.Counter.CERTIFICATES_ISSUED, 1);
+        LocalDate orderDay = order.getCreated() != null ? order.getCreated().toLocalDateTime().toLocalDate() : LocalDate.now();
+        CertificateDailyRollup.add(session, provisioner.getProvisionerName(), orderDay, 1, 0);
+
         transaction.commit();
 
         LOG.info("Stored certificate successful");
@@ -152,7 +159,7 @@ public class CertificateIssuer {
 
                 if (!waitingOrders.isEmpty()) {
 
-                    try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+                    try (Session session = serverInstance.getHibernateUtil().openSession()) {
 
                         // CryptoStoreManager csm = CryptoStoreManager;
 
@@ -40,23 +40,34 @@ public class CRLScheduler {
     private static final Map<String, CRLGenerator> crlMap = Collections.synchronizedMap(new HashMap<>());
     private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
+    /**
+     * Whether the scheduler has been started. Provisioners added afterwards get their first CRL generated right away.
+     */
+    private static volatile boolean started = false;
+
     public static CRLGenerator getCrlGeneratorForProvisioner(String provisionerName) {
-        if (!crlMap.containsKey(provisionerName)) {
+        CRLGenerator crlGenerator = crlMap.get(provisionerName);
+        if (crlGenerator == null) {
             throw new IllegalArgumentException(provisionerName + " has not an registered CRL generator");
         }
-        return crlMap.get(provisionerName);
+        return crlGenerator;
     }
 
     public static void startScheduler() {
         LOG.info("Initialized CRL Generation Scheduler");
         // Start the scheduled task to update the CRL every 5 minutes
         scheduler.scheduleAtFixedRate(CRLScheduler::schedule, 0, UPDATE_MINUTES, TimeUnit.MINUTES);
+        started = true;
     }
 
     private static void schedule() {
         LOG.info("CRL Generation Scheduler is running");
 
-        for (CRLGenerator crlGenerator : crlMap.values()) {
+        CRLGenerator[] crlGenerators;
+        synchronized (crlMap) {
+            crlGenerators = crlMap.values().toArray(new CRLGenerator[0]);
+        }
+        for (CRLGenerator crlGenerator : crlGenerators) {
             LOG.info("Generating CRL for {} provisioner", crlGenerator.getProvisioner().getProvisionerName());
 
             crlGenerator.updateCachedCRL(UPDATE_MINUTES);
@@ -67,7 +78,23 @@ public class CRLScheduler {
 
     public static void addProvisionerToScheduler(Provisioner provisioner, ServerInstance serverInstance) {
         LOG.info("{} provisioner has been added for CRL generation scheduling", provisioner.getProvisionerName());
-        crlMap.put(provisioner.getProvisionerName(), new CRLGenerator(provisioner, serverInstance));
+        CRLGenerator crlGenerator = new CRLGenerator(provisioner, serverInstance);
+        crlMap.put(provisioner.getProvisionerName(), crlGenerator);
+        if (started) {
+            // Added by a configuration reload, don't wait for the next scheduled run
+            scheduler.execute(() -> crlGenerator.updateCachedCRL(UPDATE_MINUTES));
+        }
+    }
+
+    /**
+     * Removes a provisioner from the CRL generation scheduling.
+     *
+     * @param provisionerName The name of the provisioner to remove.
+     */
+    public static void removeProvisionerFromScheduler(String provisionerName) {
+        if (crlMap.remove(provisionerName) != null) {
+            LOG.info("{} provisioner has been removed from CRL generation scheduling", provisionerName);
+        }
     }
 
     /**
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.config;
+
+import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+
+import java.io.Serializable;
+
+/**
+ * Represents the configuration of the HTTP access log. The log is written to the logging directory configured in {@link ServerConfig},
+ * one file per day, which is rotated when it exceeds the configured size. Entries wait in a bounded queue, the overflow policy decides
+ * what happens when the writer cannot keep up.
+ */
+public class AccessLogConfig implements Serializable {
+
+    /**
+     * Interval in milliseconds in which buffered log entries are written to the log file.
+     */
+    @ConfigurationField(name = "Flush interval (milliseconds)")
+    private long flushIntervalMillis = 1000;
+
+    /**
+     * Size of the write buffer in kilobytes. Buffered log entries are written when the buffer is full.
+     */
+    @ConfigurationField(name = "Write buffer size (kilobytes)")
+    private int bufferSizeKb = 64;
+
+    /**
+     * Maximum size of a log file in megabytes before it is rotated, 0 to disable size-based rotation.
+     */
+    @ConfigurationField(name = "Maximum log file size before rotation (megabytes, 0 to disable)")
+    private long maxFileSizeMb = 100;
+
+    /**
+     * Indicates whether rotated log files are compressed using gzip.
+     */
+    @ConfigurationField(name = "Compress rotated log files (gzip)")
+    private boolean compressRotatedFiles = true;
+
+    /**
+     * Maximum number of entries waiting to be written. When the queue is full, the overflow policy applies.
+     */
+    @ConfigurationField(name = "Queue capacity (entries)")
+    private int queueCapacity = 65536;
+
+    /**
+     * Policy when the queue is full: {@code drop-oldest}, {@code drop-newest} or {@code block} (wait up to the block timeout, then drop the
+     * new entry).
+     */
+    @ConfigurationField(name = "Overflow policy (drop-oldest, drop-newest or block)")
+    private String overflowPolicy = "drop-oldest";
+
+    /**
+     * Maximum time in milliseconds a request waits for space in the queue with the {@code block} overflow policy.
+     */
+    @ConfigurationField(name = "Block timeout (milliseconds)")
+    private long blockTimeoutMillis = 100;
+
+    /**
+     * Gets the interval in which buffered log entries are written to the log file.
+     *
+     * @return The flush interval in milliseconds.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Sets the interval in which buffered log entries are written to the log file.
+     *
+     * @param flushIntervalMillis The flush interval in milliseconds.
+     */
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Gets the size of the write buffer.
+     *
+     * @return The buffer size in kilobytes.
+     */
+    public int getBufferSizeKb() {
+        return bufferSizeKb;
+    }
+
+    /**
+     * Sets the size of the write buffer.
+     *
+     * @param bufferSizeKb The buffer size in kilobytes.
+     */
+    public void setBufferSizeKb(int bufferSizeKb) {
+        this.bufferSizeKb = bufferSizeKb;
+    }
+
+    /**
+     * Gets the maximum size of a log file before it is rotated.
+     *
+     * @return The maximum size in megabytes, 0 if size-based rotation is disabled.
+     */
+    public long getMaxFileSizeMb() {
+        return maxFileSizeMb;
+    }
+
+    /**
+     * Sets the maximum size of a log file before it is rotated.
+     *
+     * @param maxFileSizeMb The maximum size in megabytes, 0 to disable size-based rotation.
+     */
+    public void setMaxFileSizeMb(long maxFileSizeMb) {
+        this.maxFileSizeMb = maxFileSizeMb;
+    }
+
+    /**
+     * Checks if rotated log files are compressed.
+     *
+     * @return {@code true} if rotated log files are compressed using gzip, {@code false} otherwise.
+     */
+    public boolean isCompressRotatedFiles() {
+        return compressRotatedFiles;
+    }
+
+    /**
+     * Sets whether rotated log files are compressed.
+     *
+     * @param compressRotatedFiles {@code true} to compress rotated log files using gzip, {@code false} otherwise.
+     */
+    public void setCompressRotatedFiles(boolean compressRotatedFiles) {
+        this.compressRotatedFiles = compressRotatedFiles;
+    }
+
+    /**
+     * Gets the maximum number of entries waiting to be written.
+     *
+     * @return The queue capacity.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Sets the maximum number of entries waiting to be written.
+     *
+     * @param queueCapacity The queue capacity.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Gets the policy applied when the queue is full.
+     *
+     * @return The overflow policy, one of {@code drop-oldest}, {@code drop-newest} or {@code block}.
+     */
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets the policy applied when the queue is full.
+     *
+     * @param overflowPolicy The overflow policy, one of {@code drop-oldest}, {@code drop-newest} or {@code block}.
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Gets the maximum time a request waits for space in the queue with the {@code block} overflow policy.
+     *
+     * @return The block timeout in milliseconds.
+     */
+    public long getBlockTimeoutMillis() {
+        return blockTimeoutMillis;
+    }
+
+    /**
+     * Sets the maximum time a request waits for space in the queue with the {@code block} overflow policy.
+     *
+     * @param blockTimeoutMillis The block timeout in milliseconds.
+     */
+    public void setBlockTimeoutMillis(long blockTimeoutMillis) {
+        this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.config;
+
+import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+
+import java.io.Serializable;
+
+/**
+ * Represents the authorization policy of a provisioner. It controls how long a validated authorization stays valid and whether new orders
+ * of the same account reuse it instead of validating the identifier again.
+ */
+public class AuthorizationConfig implements Serializable {
+    /**
+     * Flag indicating whether new orders reuse valid, unexpired authorizations of the same account.
+     */
+    @ConfigurationField(name = "Reuse valid authorizations")
+    private boolean reuseEnabled = true;
+
+    /**
+     * Hours an authorization stays valid after its challenge was validated.
+     */
+    @ConfigurationField(name = "Valid authorization lifetime (hours)")
+    private int validLifetimeHours = 720;
+
+    /**
+     * Check if valid authorizations are reused by new orders.
+     *
+     * @return True if enabled, false otherwise.
+     */
+    public boolean getReuseEnabled() {
+        return reuseEnabled;
+    }
+
+    /**
+     * Set whether valid authorizations are reused by new orders.
+     *
+     * @param reuseEnabled The enabled status to set.
+     */
+    public void setReuseEnabled(boolean reuseEnabled) {
+        this.reuseEnabled = reuseEnabled;
+    }
+
+    /**
+     * Get the hours an authorization stays valid after its challenge was validated.
+     *
+     * @return The lifetime in hours.
+     */
+    public int getValidLifetimeHours() {
+        return validLifetimeHours;
+    }
+
+    /**
+     * Set the hours an authorization stays valid after its challenge was validated.
+     *
+     * @param validLifetimeHours The lifetime in hours to set.
+     */
+    public void setValidLifetimeHours(int validLifetimeHours) {
+        this.validLifetimeHours = validLifetimeHours;
+    }
+}
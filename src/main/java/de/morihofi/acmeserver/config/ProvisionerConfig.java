@@ -69,6 +69,24 @@ public class ProvisionerConfig implements Serializable {
     @ConfigurationField(name = "Allow issuing for IP Addresses")
     private boolean ipAllowed = false;
 
+    /**
+     * The retention policy for orders and certificates of this provisioner.
+     */
+    @ConfigurationField(name = "Retention policy")
+    private RetentionConfig retention = new RetentionConfig();
+
+    /**
+     * The rate limits of this provisioner.
+     */
+    @ConfigurationField(name = "Rate limits")
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+
+    /**
+     * The authorization policy of this provisioner.
+     */
+    @ConfigurationField(name = "Authorizations")
+    private AuthorizationConfig authorization = new AuthorizationConfig();
+
     /**
      * Get the name of the provisioner.
      *
@@ -195,4 +213,58 @@ public class ProvisionerConfig implements Serializable {
     public void setIpAllowed(boolean ipAllowed) {
         this.ipAllowed = ipAllowed;
     }
+
+    /**
+     * Get the retention policy for orders and certificates of this provisioner.
+     *
+     * @return The retention policy.
+     */
+    public RetentionConfig getRetention() {
+        return retention;
+    }
+
+    /**
+     * Set the retention policy for orders and certificates of this provisioner.
+     *
+     * @param retention The retention policy to set.
+     */
+    public void setRetention(RetentionConfig retention) {
+        this.retention = retention;
+    }
+
+    /**
+     * Get the rate limits of this provisioner.
+     *
+     * @return The rate limits.
+     */
+    public RateLimitConfig getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Set the rate limits of this provisioner.
+     *
+     * @param rateLimit The rate limits to set.
+     */
+    public void setRateLimit(RateLimitConfig rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * Get the authorization policy of this provisioner.
+     *
+     * @return The authorization policy.
+     */
+    public AuthorizationConfig getAuthorization() {
+        return authorization;
+    }
+
+    /**
+     * Set the authorization policy of this provisioner.
+     *
+     * @param authorization The authorization policy to set.
+     */
+    public void setAuthorization(AuthorizationConfig authorization) {
+        this.authorization = authorization;
+    }
 }
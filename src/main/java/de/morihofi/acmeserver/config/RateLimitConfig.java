@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.config;
+
+import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+
+import java.io.Serializable;
+
+/**
+ * Represents the rate limits of a provisioner. Clients exceeding a limit get a {@code rateLimited} error with a {@code Retry-After}
+ * header.
+ */
+public class RateLimitConfig implements Serializable {
+    /**
+     * Flag indicating whether rate limiting is applied for this provisioner.
+     */
+    @ConfigurationField(name = "Enable rate limiting", required = true)
+    private boolean enabled = false;
+
+    /**
+     * Keep the rate limit state in the database, so the limits hold across multiple server nodes sharing the database.
+     */
+    @ConfigurationField(name = "Store state in database")
+    private boolean persistent = false;
+
+    /**
+     * New accounts per client IP prefix.
+     */
+    @ConfigurationField(name = "New accounts per IP")
+    private RateLimitRuleConfig newAccountsPerIp = new RateLimitRuleConfig(10, 3 * 60 * 60);
+
+    /**
+     * New orders per account.
+     */
+    @ConfigurationField(name = "New orders per account")
+    private RateLimitRuleConfig newOrdersPerAccount = new RateLimitRuleConfig(300, 3 * 60 * 60);
+
+    /**
+     * New orders per registered domain (e.g. {@code example.com} for {@code www.example.com}).
+     */
+    @ConfigurationField(name = "New orders per registered domain")
+    private RateLimitRuleConfig newOrdersPerRegisteredDomain = new RateLimitRuleConfig(50, 7 * 24 * 60 * 60);
+
+    /**
+     * Finalize and challenge requests per account.
+     */
+    @ConfigurationField(name = "Requests per account")
+    private RateLimitRuleConfig requestsPerAccount = new RateLimitRuleConfig(600, 60 * 60);
+
+    /**
+     * Rate limited ACME requests (new account, new order, finalize, challenge) per client IP prefix.
+     */
+    @ConfigurationField(name = "Requests per IP")
+    private RateLimitRuleConfig requestsPerIp = new RateLimitRuleConfig(300, 60);
+
+    /**
+     * Prefix length that groups IPv4 clients.
+     */
+    @ConfigurationField(name = "IPv4 prefix length")
+    private int ipv4PrefixLength = 32;
+
+    /**
+     * Prefix length that groups IPv6 clients, a single client usually controls a whole /64.
+     */
+    @ConfigurationField(name = "IPv6 prefix length")
+    private int ipv6PrefixLength = 64;
+
+    /**
+     * Check if rate limiting is enabled.
+     *
+     * @return True if enabled, false otherwise.
+     */
+    public boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the enabled status of rate limiting.
+     *
+     * @param enabled The enabled status to set.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Check if the rate limit state is kept in the database.
+     *
+     * @return True if the state is stored in the database, false if it is kept in memory.
+     */
+    public boolean getPersistent() {
+        return persistent;
+    }
+
+    /**
+     * Set whether the rate limit state is kept in the database.
+     *
+     * @param persistent True to store the state in the database.
+     */
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    /**
+     * Get the limit of new accounts per client IP prefix.
+     *
+     * @return The limit.
+     */
+    public RateLimitRuleConfig getNewAccountsPerIp() {
+        return newAccountsPerIp;
+    }
+
+    /**
+     * Set the limit of new accounts per client IP prefix.
+     *
+     * @param newAccountsPerIp The limit to set.
+     */
+    public void setNewAccountsPerIp(RateLimitRuleConfig newAccountsPerIp) {
+        this.newAccountsPerIp = newAccountsPerIp;
+    }
+
+    /**
+     * Get the limit of new orders per account.
+     *
+     * @return The limit.
+     */
+    public RateLimitRuleConfig getNewOrdersPerAccount() {
+        return newOrdersPerAccount;
+    }
+
+    /**
+     * Set the limit of new orders per account.
+     *
+     * @param newOrdersPerAccount The limit to set.
+     */
+    public void setNewOrdersPerAccount(RateLimitRuleConfig newOrdersPerAccount) {
+        this.newOrdersPerAccount = newOrdersPerAccount;
+    }
+
+    /**
+     * Get the limit of new orders per registered domain.
+     *
+     * @return The limit.
+     */
+    public RateLimitRuleConfig getNewOrdersPerRegisteredDomain() {
+        return newOrdersPerRegisteredDomain;
+    }
+
+    /**
+     * Set the limit of new orders per registered domain.
+     *
+     * @param newOrdersPerRegisteredDomain The limit to set.
+     */
+    public void setNewOrdersPerRegisteredDomain(RateLimitRuleConfig newOrdersPerRegisteredDomain) {
+        this.newOrdersPerRegisteredDomain = newOrdersPerRegisteredDomain;
+    }
+
+    /**
+     * Get the limit of finalize and challenge requests per account.
+     *
+     * @return The limit.
+     */
+    public RateLimitRuleConfig getRequestsPerAccount() {
+        return requestsPerAccount;
+    }
+
+    /**
+     * Set the limit of finalize and challenge requests per account.
+     *
+     * @param requestsPerAccount The limit to set.
+     */
+    public void setRequestsPerAccount(RateLimitRuleConfig requestsPerAccount) {
+        this.requestsPerAccount = requestsPerAccount;
+    }
+
+    /**
+     * Get the limit of rate limited requests per client IP prefix.
+     *
+     * @return The limit.
+     */
+    public RateLimitRuleConfig getRequestsPerIp() {
+        return requestsPerIp;
+    }
+
+    /**
+     * Set the limit of rate limited requests per client IP prefix.
+     *
+     * @param requestsPerIp The limit to set.
+     */
+    public void setRequestsPerIp(RateLimitRuleConfig requestsPerIp) {
+        this.requestsPerIp = requestsPerIp;
+    }
+
+    /**
+     * Get the prefix length that groups IPv4 clients.
+     *
+     * @return The prefix length.
+     */
+    public int getIpv4PrefixLength() {
+        return ipv4PrefixLength;
+    }
+
+    /**
+     * Set the prefix length that groups IPv4 clients.
+     *
+     * @param ipv4PrefixLength The prefix length to set.
+     */
+    public void setIpv4PrefixLength(int ipv4PrefixLength) {
+        this.ipv4PrefixLength = ipv4PrefixLength;
+    }
+
+    /**
+     * Get the prefix length that groups IPv6 clients.
+     *
+     * @return The prefix length.
+     */
+    public int getIpv6PrefixLength() {
+        return ipv6PrefixLength;
+    }
+
+    /**
+     * Set the prefix length that groups IPv6 clients.
+     *
+     * @param ipv6PrefixLength The prefix length to set.
+     */
+    public void setIpv6PrefixLength(int ipv6PrefixLength) {
+        this.ipv6PrefixLength = ipv6PrefixLength;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.config;
+
+import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+
+import java.io.Serializable;
+
+/**
+ * A single rate limit: at most {@code limit} requests within {@code periodSeconds}. Requests are refilled continuously, so a client that
+ * used up its limit can send the next request after {@code periodSeconds / limit}.
+ */
+public class RateLimitRuleConfig implements Serializable {
+    /**
+     * Maximum number of requests within the period, 0 disables this limit.
+     */
+    @ConfigurationField(name = "Limit")
+    private int limit;
+
+    /**
+     * Length of the period in seconds.
+     */
+    @ConfigurationField(name = "Period (seconds)")
+    private int periodSeconds;
+
+    /**
+     * Creates a rate limit.
+     *
+     * @param limit         Maximum number of requests within the period, 0 disables this limit.
+     * @param periodSeconds Length of the period in seconds.
+     */
+    public RateLimitRuleConfig(int limit, int periodSeconds) {
+        this.limit = limit;
+        this.periodSeconds = periodSeconds;
+    }
+
+    /**
+     * Default constructor, the limit is disabled.
+     */
+    public RateLimitRuleConfig() {
+    }
+
+    /**
+     * Get the maximum number of requests within the period.
+     *
+     * @return The limit, 0 if disabled.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Set the maximum number of requests within the period.
+     *
+     * @param limit The limit to set, 0 disables this limit.
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Get the length of the period.
+     *
+     * @return The period in seconds.
+     */
+    public int getPeriodSeconds() {
+        return periodSeconds;
+    }
+
+    /**
+     * Set the length of the period.
+     *
+     * @param periodSeconds The period in seconds to set.
+     */
+    public void setPeriodSeconds(int periodSeconds) {
+        this.periodSeconds = periodSeconds;
+    }
+
+    /**
+     * Check whether this limit is active.
+     *
+     * @return True if both limit and period are positive.
+     */
+    public boolean isActive() {
+        return limit > 0 && periodSeconds > 0;
+    }
+}
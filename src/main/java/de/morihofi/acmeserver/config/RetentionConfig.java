@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.config;
+
+import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+
+import java.io.Serializable;
+
+/**
+ * Represents the retention policy of a provisioner. It controls when abandoned orders are purged and when issued certificates are moved
+ * from the primary order table into the archive.
+ */
+public class RetentionConfig implements Serializable {
+    /**
+     * Flag indicating whether the retention policy is applied for this provisioner.
+     */
+    @ConfigurationField(name = "Enable retention", required = true)
+    private boolean enabled = false;
+
+    /**
+     * Hours after expiry after which orders that never got a certificate are deleted.
+     */
+    @ConfigurationField(name = "Delete abandoned orders after expiry (hours)")
+    private int pendingOrderGracePeriodHours = 24;
+
+    /**
+     * Days after the certificates notAfter date after which the certificate is moved into the archive.
+     */
+    @ConfigurationField(name = "Archive certificates after expiry (days)")
+    private int certificateArchiveGracePeriodDays = 30;
+
+    /**
+     * Maximum number of orders that are purged or archived within one database transaction.
+     */
+    @ConfigurationField(name = "Batch size")
+    private int batchSize = 500;
+
+    /**
+     * Check if the retention policy is enabled.
+     *
+     * @return True if enabled, false otherwise.
+     */
+    public boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the enabled status of the retention policy.
+     *
+     * @param enabled The enabled status to set.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the hours after expiry after which abandoned orders are deleted.
+     *
+     * @return The grace period in hours.
+     */
+    public int getPendingOrderGracePeriodHours() {
+        return pendingOrderGracePeriodHours;
+    }
+
+    /**
+     * Set the hours after expiry after which abandoned orders are deleted.
+     *
+     * @param pendingOrderGracePeriodHours The grace period in hours to set.
+     */
+    public void setPendingOrderGracePeriodHours(int pendingOrderGracePeriodHours) {
+        this.pendingOrderGracePeriodHours = pendingOrderGracePeriodHours;
+    }
+
+    /**
+     * Get the days after certificate expiry after which the certificate is archived.
+     *
+     * @return The grace period in days.
+     */
+    public int getCertificateArchiveGracePeriodDays() {
+        return certificateArchiveGracePeriodDays;
+    }
+
+    /**
+     * Set the days after certificate expiry after which the certificate is archived.
+     *
+     * @param certificateArchiveGracePeriodDays The grace period in days to set.
+     */
+    public void setCertificateArchiveGracePeriodDays(int certificateArchiveGracePeriodDays) {
+        this.certificateArchiveGracePeriodDays = certificateArchiveGracePeriodDays;
+    }
+
+    /**
+     * Get the maximum number of orders processed within one transaction.
+     *
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the maximum number of orders processed within one transaction.
+     *
+     * @param batchSize The batch size to set.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -51,6 +51,12 @@ public class ServerConfig implements Serializable {
     @ConfigurationField(name = "HTTP Logging directory path")
     private String loggingDirectory = null;
 
+    /**
+     * The HTTP access log settings.
+     */
+    @ConfigurationField(name = "HTTP Access Log settings")
+    private AccessLogConfig accessLog = new AccessLogConfig();
+
     /**
      * The Mozilla SSL configuration settings.
      */
@@ -135,6 +141,24 @@ public class ServerConfig implements Serializable {
         this.loggingDirectory = loggingDirectory;
     }
 
+    /**
+     * Get the HTTP access log settings.
+     *
+     * @return The HTTP access log settings.
+     */
+    public AccessLogConfig getAccessLog() {
+        return accessLog;
+    }
+
+    /**
+     * Set the HTTP access log settings.
+     *
+     * @param accessLog The HTTP access log settings to set.
+     */
+    public void setAccessLog(AccessLogConfig accessLog) {
+        this.accessLog = accessLog;
+    }
+
     /**
      * Get the Mozilla SSL configuration settings.
      *
@@ -16,14 +16,19 @@
 
 package de.morihofi.acmeserver.config;
 
+import de.morihofi.acmeserver.config.certificateAlgorithms.AlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.EcdsaAlgorithmParams;
 import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
  * Configuration class for SSL server settings.
  *
- * <p>This class encapsulates the SSL server configuration settings such as allowing legacy resumption. The configuration is typically
- * loaded from an external source and managed using the provided getter and setter methods.</p>
+ * <p>This class encapsulates the SSL server configuration settings such as allowing legacy resumption and the HTTP/2 settings of the
+ * API connectors. The configuration is typically loaded from an external source and managed using the provided getter and setter
+ * methods.</p>
  */
+@SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
 public class SslServerConfig {
 
     /**
@@ -33,6 +38,56 @@ public class SslServerConfig {
     @ConfigurationField(name = "Allow Legacy Resumption")
     private boolean allowLegacyResumption = false;
 
+    /**
+     * Indicates whether HTTP/2 is offered on the HTTPS port. The protocol is negotiated using ALPN, clients without HTTP/2 support keep
+     * using HTTP/1.1.
+     */
+    @ConfigurationField(name = "Enable HTTP/2 (ALPN negotiated)")
+    private boolean http2Enabled = true;
+
+    /**
+     * Indicates whether HTTP/2 without TLS (h2c, prior knowledge or upgrade) is accepted on the plain HTTP port.
+     */
+    @ConfigurationField(name = "Enable HTTP/2 cleartext (h2c) on the HTTP port")
+    private boolean h2cEnabled = false;
+
+    /**
+     * Maximum number of concurrent HTTP/2 streams per connection.
+     */
+    @ConfigurationField(name = "HTTP/2 max concurrent streams per connection")
+    private int http2MaxConcurrentStreams = 128;
+
+    /**
+     * Initial HTTP/2 flow-control receive window of a stream, in bytes.
+     */
+    @ConfigurationField(name = "HTTP/2 initial stream receive window (bytes)")
+    private int http2InitialStreamRecvWindow = 512 * 1024;
+
+    /**
+     * Initial HTTP/2 flow-control receive window of a connection, in bytes.
+     */
+    @ConfigurationField(name = "HTTP/2 initial session receive window (bytes)")
+    private int http2InitialSessionRecvWindow = 1024 * 1024;
+
+    /**
+     * Key algorithm of the certificate of the HTTPS API. ECDSA P-256 keeps startup and full handshakes cheap compared to large RSA keys.
+     * The certificate is regenerated on startup when the stored key does not match this setting.
+     */
+    @ConfigurationField(name = "API certificate key algorithm")
+    private AlgorithmParams apiCertificateAlgorithm = new EcdsaAlgorithmParams("secp256r1");
+
+    /**
+     * Maximum number of TLS sessions kept for resumption, 0 means unlimited.
+     */
+    @ConfigurationField(name = "TLS session cache size (0 = unlimited)")
+    private int sessionCacheSize = 20480;
+
+    /**
+     * Lifetime of a cached TLS session in seconds. Returning clients within this time resume the session with an abbreviated handshake.
+     */
+    @ConfigurationField(name = "TLS session timeout (seconds)")
+    private int sessionTimeoutSeconds = 3600;
+
     /**
      * Checks if legacy resumption is allowed.
      *
@@ -50,4 +105,148 @@ public class SslServerConfig {
     public void setAllowLegacyResumption(boolean allowLegacyResumption) {
         this.allowLegacyResumption = allowLegacyResumption;
     }
+
+    /**
+     * Checks if HTTP/2 is offered on the HTTPS port.
+     *
+     * @return {@code true} if HTTP/2 is enabled; {@code false} otherwise.
+     */
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    /**
+     * Sets whether HTTP/2 is offered on the HTTPS port.
+     *
+     * @param http2Enabled {@code true} to enable HTTP/2; {@code false} to use HTTP/1.1 only.
+     */
+    public void setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+    }
+
+    /**
+     * Checks if HTTP/2 cleartext (h2c) is accepted on the plain HTTP port.
+     *
+     * @return {@code true} if h2c is enabled; {@code false} otherwise.
+     */
+    public boolean isH2cEnabled() {
+        return h2cEnabled;
+    }
+
+    /**
+     * Sets whether HTTP/2 cleartext (h2c) is accepted on the plain HTTP port.
+     *
+     * @param h2cEnabled {@code true} to enable h2c; {@code false} to use HTTP/1.1 only.
+     */
+    public void setH2cEnabled(boolean h2cEnabled) {
+        this.h2cEnabled = h2cEnabled;
+    }
+
+    /**
+     * Gets the maximum number of concurrent HTTP/2 streams per connection.
+     *
+     * @return The maximum number of concurrent streams.
+     */
+    public int getHttp2MaxConcurrentStreams() {
+        return http2MaxConcurrentStreams;
+    }
+
+    /**
+     * Sets the maximum number of concurrent HTTP/2 streams per connection.
+     *
+     * @param http2MaxConcurrentStreams The maximum number of concurrent streams.
+     */
+    public void setHttp2MaxConcurrentStreams(int http2MaxConcurrentStreams) {
+        this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+    }
+
+    /**
+     * Gets the initial HTTP/2 flow-control receive window of a stream.
+     *
+     * @return The window size in bytes.
+     */
+    public int getHttp2InitialStreamRecvWindow() {
+        return http2InitialStreamRecvWindow;
+    }
+
+    /**
+     * Sets the initial HTTP/2 flow-control receive window of a stream.
+     *
+     * @param http2InitialStreamRecvWindow The window size in bytes.
+     */
+    public void setHttp2InitialStreamRecvWindow(int http2InitialStreamRecvWindow) {
+        this.http2InitialStreamRecvWindow = http2InitialStreamRecvWindow;
+    }
+
+    /**
+     * Gets the initial HTTP/2 flow-control receive window of a connection.
+     *
+     * @return The window size in bytes.
+     */
+    public int getHttp2InitialSessionRecvWindow() {
+        return http2InitialSessionRecvWindow;
+    }
+
+    /**
+     * Sets the initial HTTP/2 flow-control receive window of a connection.
+     *
+     * @param http2InitialSessionRecvWindow The window size in bytes.
+     */
+    public void setHttp2InitialSessionRecvWindow(int http2InitialSessionRecvWindow) {
+        this.http2InitialSessionRecvWindow = http2InitialSessionRecvWindow;
+    }
+
+    /**
+     * Gets the key algorithm of the HTTPS API certificate.
+     *
+     * @return The algorithm parameters.
+     */
+    public AlgorithmParams getApiCertificateAlgorithm() {
+        return apiCertificateAlgorithm;
+    }
+
+    /**
+     * Sets the key algorithm of the HTTPS API certificate.
+     *
+     * @param apiCertificateAlgorithm The algorithm parameters.
+     */
+    public void setApiCertificateAlgorithm(AlgorithmParams apiCertificateAlgorithm) {
+        this.apiCertificateAlgorithm = apiCertificateAlgorithm;
+    }
+
+    /**
+     * Gets the maximum number of TLS sessions kept for resumption.
+     *
+     * @return The cache size, 0 means unlimited.
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of TLS sessions kept for resumption.
+     *
+     * @param sessionCacheSize The cache size, 0 means unlimited.
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    /**
+     * Gets the lifetime of a cached TLS session.
+     *
+     * @return The lifetime in seconds.
+     */
+    public int getSessionTimeoutSeconds() {
+        return sessionTimeoutSeconds;
+    }
+
+    /**
+     * Sets the lifetime of a cached TLS session.
+     *
+     * @param sessionTimeoutSeconds The lifetime in seconds.
+     */
+    public void setSessionTimeoutSeconds(int sessionTimeoutSeconds) {
+        this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+    }
 }
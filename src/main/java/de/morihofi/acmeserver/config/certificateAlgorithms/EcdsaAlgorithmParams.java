@@ -28,6 +28,22 @@ public class EcdsaAlgorithmParams extends AlgorithmParams {
     @ConfigurationField(name = "Curve Name", required = true)
     private String curveName;
 
+    /**
+     * Creates empty ECDSA parameters, used when deserializing the configuration.
+     */
+    public EcdsaAlgorithmParams() {
+    }
+
+    /**
+     * Creates ECDSA parameters for the given elliptic curve.
+     *
+     * @param curveName The name of the elliptic curve, e.g. {@code secp256r1}.
+     */
+    public EcdsaAlgorithmParams(String curveName) {
+        setType("ecdsa");
+        this.curveName = curveName;
+    }
+
     /**
      * Retrieves the name of the elliptic curve used in the ECDSA algorithm. The curve name is a string that identifies the specific
      * elliptic curve being used, such as 'secp256k1' or 'secp384r1'.
@@ -24,6 +24,10 @@ import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
 public class JDBCUrlDatabaseConfig extends DatabaseConfig {
     @ConfigurationField(name = "JDBC URL", required = true)
     private String jdbcUrl;
+    @ConfigurationField(name = "Apply pending schema migrations on startup")
+    private boolean migrateOnStartup = true;
+    @ConfigurationField(name = "Hibernate schema management (validate, update or none)")
+    private String schemaManagement = "validate";
 
     public String getJdbcUrl() {
         return jdbcUrl;
@@ -32,4 +36,20 @@ public class JDBCUrlDatabaseConfig extends DatabaseConfig {
     public void setJdbcUrl(String jdbcUrl) {
         this.jdbcUrl = jdbcUrl;
     }
+
+    public boolean isMigrateOnStartup() {
+        return migrateOnStartup;
+    }
+
+    public void setMigrateOnStartup(boolean migrateOnStartup) {
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    public String getSchemaManagement() {
+        return schemaManagement;
+    }
+
+    public void setSchemaManagement(String schemaManagement) {
+        this.schemaManagement = schemaManagement;
+    }
 }
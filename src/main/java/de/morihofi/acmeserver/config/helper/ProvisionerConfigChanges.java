@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.config.helper;
+
+import com.google.gson.Gson;
+import de.morihofi.acmeserver.config.ProvisionerConfig;
+import de.morihofi.acmeserver.tools.json.GsonProvider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Differences between two provisioner configurations, compared by provisioner name. A provisioner counts as changed if any of its
+ * settings differ.
+ *
+ * @param added   Provisioners only present in the new configuration.
+ * @param changed Provisioners present in both configurations with different settings, as configured in the new configuration.
+ * @param removed Names of the provisioners only present in the current configuration.
+ */
+public record ProvisionerConfigChanges(List<ProvisionerConfig> added, List<ProvisionerConfig> changed, List<String> removed) {
+
+    /**
+     * Compares the current with a new provisioner configuration.
+     *
+     * @param currentProvisioners The running provisioner configuration.
+     * @param newProvisioners     The new provisioner configuration.
+     * @return The differences between both configurations.
+     * @throws IllegalArgumentException If a provisioner name is used more than once in the new configuration.
+     */
+    public static ProvisionerConfigChanges between(List<ProvisionerConfig> currentProvisioners, List<ProvisionerConfig> newProvisioners) {
+        Gson gson = GsonProvider.getGson();
+        Map<String, ProvisionerConfig> currentByName = new LinkedHashMap<>();
+        for (ProvisionerConfig provisionerConfig : currentProvisioners) {
+            currentByName.put(provisionerConfig.getName(), provisionerConfig);
+        }
+
+        List<ProvisionerConfig> added = new ArrayList<>();
+        List<ProvisionerConfig> changed = new ArrayList<>();
+        Set<String> newNames = new LinkedHashSet<>();
+        for (ProvisionerConfig provisionerConfig : newProvisioners) {
+            if (!newNames.add(provisionerConfig.getName())) {
+                throw new IllegalArgumentException("Provisioner " + provisionerConfig.getName() + " is configured more than once");
+            }
+            ProvisionerConfig currentProvisionerConfig = currentByName.get(provisionerConfig.getName());
+            if (currentProvisionerConfig == null) {
+                added.add(provisionerConfig);
+            } else if (!gson.toJson(currentProvisionerConfig).equals(gson.toJson(provisionerConfig))) {
+                changed.add(provisionerConfig);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String provisionerName : currentByName.keySet()) {
+            if (!newNames.contains(provisionerName)) {
+                removed.add(provisionerName);
+            }
+        }
+        return new ProvisionerConfigChanges(List.copyOf(added), List.copyOf(changed), List.copyOf(removed));
+    }
+
+    /**
+     * Checks whether the provisioner configuration is unchanged.
+     *
+     * @return {@code true} if no provisioner was added, changed or removed.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+}
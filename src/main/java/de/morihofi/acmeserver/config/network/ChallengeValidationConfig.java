@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.config.network;
+
+import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the challenge validation. Challenges are validated in the background on a bounded pool of validation threads, so slow
+ * or unreachable targets never block request handling.
+ */
+@SuppressFBWarnings({"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
+public class ChallengeValidationConfig implements Serializable {
+
+    /**
+     * Maximum number of challenges validated at the same time.
+     */
+    @ConfigurationField(name = "Maximum concurrent validations")
+    private int maxConcurrentValidations = 16;
+
+    /**
+     * Maximum number of challenges waiting for a free validation thread. Further challenge requests are answered with a rate limit error.
+     */
+    @ConfigurationField(name = "Maximum queued validations")
+    private int maxQueuedValidations = 256;
+
+    /**
+     * Timeout of a single HTTP-01 request to the validated host, in seconds. Covers connecting, redirects and reading the response.
+     */
+    @ConfigurationField(name = "HTTP-01 request timeout (seconds)")
+    private int httpTimeoutSeconds = 10;
+
+    /**
+     * Timeout for connecting to the validated host in HTTP-01 requests, in seconds.
+     */
+    @ConfigurationField(name = "HTTP-01 connect timeout (seconds)")
+    private int httpConnectTimeoutSeconds = 5;
+
+    /**
+     * Timeout between two reads from the validated host in HTTP-01 requests, in seconds.
+     */
+    @ConfigurationField(name = "HTTP-01 read timeout (seconds)")
+    private int httpReadTimeoutSeconds = 5;
+
+    /**
+     * Maximum size of an HTTP-01 response body in bytes. Larger responses fail the challenge without being read completely.
+     */
+    @ConfigurationField(name = "HTTP-01 maximum response size (bytes)")
+    private int httpMaxResponseBytes = 1024;
+
+    /**
+     * Maximum number of redirects followed in an HTTP-01 request.
+     */
+    @ConfigurationField(name = "HTTP-01 maximum redirects")
+    private int httpMaxRedirects = 10;
+
+    /**
+     * Policy for hosts having IPv4 and IPv6 addresses, one of {@code prefer-ipv6} (default), {@code require-both} or the permissive
+     * {@code first-success}.
+     */
+    @ConfigurationField(name = "HTTP-01 dual stack policy")
+    private String httpDualStackPolicy = "prefer-ipv6";
+
+    /**
+     * Time after which a validation that has not finished yet marks the challenge invalid, in seconds.
+     */
+    @ConfigurationField(name = "Validation timeout (seconds)")
+    private int validationTimeoutSeconds = 60;
+
+    /**
+     * Additional network perspectives every challenge is validated from, concurrently with the network configuration of the server.
+     */
+    @ConfigurationField(name = "Additional validation perspectives")
+    private List<ValidationPerspectiveConfig> perspectives = new ArrayList<>();
+
+    /**
+     * Number of additional perspectives that may fail while the challenge still passes. The network configuration of the server always
+     * has to pass.
+     */
+    @ConfigurationField(name = "Allowed perspective failures")
+    private int allowedPerspectiveFailures = 0;
+
+    /**
+     * Gets the maximum number of challenges validated at the same time.
+     *
+     * @return The maximum number of concurrent validations.
+     */
+    public int getMaxConcurrentValidations() {
+        return maxConcurrentValidations;
+    }
+
+    /**
+     * Sets the maximum number of challenges validated at the same time.
+     *
+     * @param maxConcurrentValidations The maximum number of concurrent validations.
+     */
+    public void setMaxConcurrentValidations(int maxConcurrentValidations) {
+        this.maxConcurrentValidations = maxConcurrentValidations;
+    }
+
+    /**
+     * Gets the maximum number of challenges waiting for a free validation thread.
+     *
+     * @return The maximum number of queued validations.
+     */
+    public int getMaxQueuedValidations() {
+        return maxQueuedValidations;
+    }
+
+    /**
+     * Sets the maximum number of challenges waiting for a free validation thread.
+     *
+     * @param maxQueuedValidations The maximum number of queued validations.
+     */
+    public void setMaxQueuedValidations(int maxQueuedValidations) {
+        this.maxQueuedValidations = maxQueuedValidations;
+    }
+
+    /**
+     * Gets the timeout of a single HTTP-01 request.
+     *
+     * @return The timeout in seconds.
+     */
+    public int getHttpTimeoutSeconds() {
+        return httpTimeoutSeconds;
+    }
+
+    /**
+     * Sets the timeout of a single HTTP-01 request.
+     *
+     * @param httpTimeoutSeconds The timeout in seconds.
+     */
+    public void setHttpTimeoutSeconds(int httpTimeoutSeconds) {
+        this.httpTimeoutSeconds = httpTimeoutSeconds;
+    }
+
+    /**
+     * Gets the timeout for connecting to the validated host in HTTP-01 requests.
+     *
+     * @return The timeout in seconds.
+     */
+    public int getHttpConnectTimeoutSeconds() {
+        return httpConnectTimeoutSeconds;
+    }
+
+    /**
+     * Sets the timeout for connecting to the validated host in HTTP-01 requests.
+     *
+     * @param httpConnectTimeoutSeconds The timeout in seconds.
+     */
+    public void setHttpConnectTimeoutSeconds(int httpConnectTimeoutSeconds) {
+        this.httpConnectTimeoutSeconds = httpConnectTimeoutSeconds;
+    }
+
+    /**
+     * Gets the timeout between two reads from the validated host in HTTP-01 requests.
+     *
+     * @return The timeout in seconds.
+     */
+    public int getHttpReadTimeoutSeconds() {
+        return httpReadTimeoutSeconds;
+    }
+
+    /**
+     * Sets the timeout between two reads from the validated host in HTTP-01 requests.
+     *
+     * @param httpReadTimeoutSeconds The timeout in seconds.
+     */
+    public void setHttpReadTimeoutSeconds(int httpReadTimeoutSeconds) {
+        this.httpReadTimeoutSeconds = httpReadTimeoutSeconds;
+    }
+
+    /**
+     * Gets the maximum size of an HTTP-01 response body.
+     *
+     * @return The maximum size in bytes.
+     */
+    public int getHttpMaxResponseBytes() {
+        return httpMaxResponseBytes;
+    }
+
+    /**
+     * Sets the maximum size of an HTTP-01 response body.
+     *
+     * @param httpMaxResponseBytes The maximum size in bytes.
+     */
+    public void setHttpMaxResponseBytes(int httpMaxResponseBytes) {
+        this.httpMaxResponseBytes = httpMaxResponseBytes;
+    }
+
+    /**
+     * Gets the maximum number of redirects followed in an HTTP-01 request.
+     *
+     * @return The maximum number of redirects.
+     */
+    public int getHttpMaxRedirects() {
+        return httpMaxRedirects;
+    }
+
+    /**
+     * Sets the maximum number of redirects followed in an HTTP-01 request.
+     *
+     * @param httpMaxRedirects The maximum number of redirects.
+     */
+    public void setHttpMaxRedirects(int httpMaxRedirects) {
+        this.httpMaxRedirects = httpMaxRedirects;
+    }
+
+    /**
+     * Gets the policy for HTTP-01 validation of hosts having IPv4 and IPv6 addresses.
+     *
+     * @return The dual stack policy, e.g. {@code prefer-ipv6}.
+     */
+    public String getHttpDualStackPolicy() {
+        return httpDualStackPolicy;
+    }
+
+    /**
+     * Sets the policy for HTTP-01 validation of hosts having IPv4 and IPv6 addresses.
+     *
+     * @param httpDualStackPolicy The dual stack policy, one of {@code prefer-ipv6}, {@code require-both} or {@code first-success}.
+     */
+    public void setHttpDualStackPolicy(String httpDualStackPolicy) {
+        this.httpDualStackPolicy = httpDualStackPolicy;
+    }
+
+    /**
+     * Gets the time after which an unfinished validation marks the challenge invalid.
+     *
+     * @return The timeout in seconds.
+     */
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    /**
+     * Sets the time after which an unfinished validation marks the challenge invalid.
+     *
+     * @param validationTimeoutSeconds The timeout in seconds.
+     */
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Gets the additional network perspectives challenges are validated from.
+     *
+     * @return The additional perspectives.
+     */
+    public List<ValidationPerspectiveConfig> getPerspectives() {
+        return perspectives;
+    }
+
+    /**
+     * Sets the additional network perspectives challenges are validated from.
+     *
+     * @param perspectives The additional perspectives.
+     */
+    public void setPerspectives(List<ValidationPerspectiveConfig> perspectives) {
+        this.perspectives = perspectives;
+    }
+
+    /**
+     * Gets the number of additional perspectives that may fail while the challenge still passes.
+     *
+     * @return The number of allowed failures.
+     */
+    public int getAllowedPerspectiveFailures() {
+        return allowedPerspectiveFailures;
+    }
+
+    /**
+     * Sets the number of additional perspectives that may fail while the challenge still passes.
+     *
+     * @param allowedPerspectiveFailures The number of allowed failures.
+     */
+    public void setAllowedPerspectiveFailures(int allowedPerspectiveFailures) {
+        this.allowedPerspectiveFailures = allowedPerspectiveFailures;
+    }
+}
@@ -25,6 +25,21 @@ public class DNSConfig {
     @ConfigurationField(name = "DNS over HTTP Endpoint")
     private String dohEndpoint = "https://cloudflare-dns.com/dns-query";
 
+    @ConfigurationField(name = "Cache DNS answers")
+    private Boolean cacheEnabled = true;
+
+    @ConfigurationField(name = "Minimum cache time of DNS answers (seconds)")
+    private Integer cacheMinTtlSeconds = 0;
+
+    @ConfigurationField(name = "Maximum cache time of DNS answers (seconds)")
+    private Integer cacheMaxTtlSeconds = 300;
+
+    @ConfigurationField(name = "Maximum cache time of negative DNS answers (seconds)")
+    private Integer cacheNegativeTtlSeconds = 30;
+
+    @ConfigurationField(name = "Maximum number of cached DNS answers")
+    private Integer cacheMaxEntries = 10000;
+
     public List<String> getDnsServers() {
         return dnsServers;
     }
@@ -48,4 +63,44 @@ public class DNSConfig {
     public void setDohEndpoint(String dohEndpoint) {
         this.dohEndpoint = dohEndpoint;
     }
+
+    public Boolean getCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(Boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public Integer getCacheMinTtlSeconds() {
+        return cacheMinTtlSeconds;
+    }
+
+    public void setCacheMinTtlSeconds(Integer cacheMinTtlSeconds) {
+        this.cacheMinTtlSeconds = cacheMinTtlSeconds;
+    }
+
+    public Integer getCacheMaxTtlSeconds() {
+        return cacheMaxTtlSeconds;
+    }
+
+    public void setCacheMaxTtlSeconds(Integer cacheMaxTtlSeconds) {
+        this.cacheMaxTtlSeconds = cacheMaxTtlSeconds;
+    }
+
+    public Integer getCacheNegativeTtlSeconds() {
+        return cacheNegativeTtlSeconds;
+    }
+
+    public void setCacheNegativeTtlSeconds(Integer cacheNegativeTtlSeconds) {
+        this.cacheNegativeTtlSeconds = cacheNegativeTtlSeconds;
+    }
+
+    public Integer getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(Integer cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
 }
@@ -36,6 +36,12 @@ public class NetworkConfig implements Serializable {
     @ConfigurationField(name = "Proxy")
     private ProxyConfig proxy = new ProxyConfig();
 
+    /**
+     * Challenge validation settings of the server.
+     */
+    @ConfigurationField(name = "Challenge validation")
+    private ChallengeValidationConfig challengeValidation = new ChallengeValidationConfig();
+
     /**
      * Gets the DNS configuration for the server.
      *
@@ -71,4 +77,22 @@ public class NetworkConfig implements Serializable {
     public void setProxy(ProxyConfig proxy) {
         this.proxy = proxy;
     }
+
+    /**
+     * Gets the challenge validation settings of the server.
+     *
+     * @return The current challenge validation settings.
+     */
+    public ChallengeValidationConfig getChallengeValidation() {
+        return challengeValidation;
+    }
+
+    /**
+     * Sets the challenge validation settings of the server.
+     *
+     * @param challengeValidation The new challenge validation settings to set.
+     */
+    public void setChallengeValidation(ChallengeValidationConfig challengeValidation) {
+        this.challengeValidation = challengeValidation;
+    }
 }
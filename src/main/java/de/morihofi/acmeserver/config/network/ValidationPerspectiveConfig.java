@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.config.network;
+
+import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.Serializable;
+
+/**
+ * Configuration of an additional network perspective challenges are validated from. A perspective uses its own DNS resolvers, proxy or
+ * source address; settings that are not set are taken from the network configuration of the server.
+ */
+@SuppressFBWarnings({"EI_EXPOSE_REP", "EI_EXPOSE_REP2", "SE_BAD_FIELD"})
+public class ValidationPerspectiveConfig implements Serializable {
+
+    /**
+     * Name of the perspective, used in logs and error details.
+     */
+    @ConfigurationField(name = "Name")
+    private String name = "";
+
+    /**
+     * Local address outgoing HTTP connections of this perspective are bound to, empty to let the operating system choose.
+     */
+    @ConfigurationField(name = "Source address")
+    private String sourceAddress = "";
+
+    /**
+     * DNS configuration of this perspective, {@code null} to use the DNS configuration of the server.
+     */
+    @ConfigurationField(name = "DNS")
+    private DNSConfig dnsConfig;
+
+    /**
+     * Proxy configuration of this perspective, {@code null} to use the proxy configuration of the server.
+     */
+    @ConfigurationField(name = "Proxy")
+    private ProxyConfig proxy;
+
+    /**
+     * Gets the name of the perspective.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the perspective.
+     *
+     * @param name The name.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the local address outgoing HTTP connections are bound to.
+     *
+     * @return The source address, empty if not set.
+     */
+    public String getSourceAddress() {
+        return sourceAddress;
+    }
+
+    /**
+     * Sets the local address outgoing HTTP connections are bound to.
+     *
+     * @param sourceAddress The source address, empty to let the operating system choose.
+     */
+    public void setSourceAddress(String sourceAddress) {
+        this.sourceAddress = sourceAddress;
+    }
+
+    /**
+     * Gets the DNS configuration of this perspective.
+     *
+     * @return The DNS configuration, {@code null} if the DNS configuration of the server is used.
+     */
+    public DNSConfig getDnsConfig() {
+        return dnsConfig;
+    }
+
+    /**
+     * Sets the DNS configuration of this perspective.
+     *
+     * @param dnsConfig The DNS configuration, {@code null} to use the DNS configuration of the server.
+     */
+    public void setDnsConfig(DNSConfig dnsConfig) {
+        this.dnsConfig = dnsConfig;
+    }
+
+    /**
+     * Gets the proxy configuration of this perspective.
+     *
+     * @return The proxy configuration, {@code null} if the proxy configuration of the server is used.
+     */
+    public ProxyConfig getProxy() {
+        return proxy;
+    }
+
+    /**
+     * Sets the proxy configuration of this perspective.
+     *
+     * @param proxy The proxy configuration, {@code null} to use the proxy configuration of the server.
+     */
+    public void setProxy(ProxyConfig proxy) {
+        this.proxy = proxy;
+    }
+}
@@ -6,10 +6,6 @@ import de.morihofi.acmeserver.Main;
 import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationClassExtends;
 import de.morihofi.acmeserver.configPreprocessor.annotation.ConfigurationField;
 import de.morihofi.acmeserver.tools.ServerInstance;
-import org.reflections.Reflections;
-import org.reflections.scanners.Scanners;
-import org.reflections.util.ClasspathHelper;
-import org.reflections.util.ConfigurationBuilder;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -18,7 +14,6 @@ import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class ConfigPreprocessor {
 
@@ -35,23 +30,20 @@ public class ConfigPreprocessor {
 
     private static Map<String, Object> processConfigClass(Class<?> configClass) {
         Map<String, Object> jsonMap = new HashMap<>();
-        Reflections reflections = new Reflections(new ConfigurationBuilder()
-                .setUrls(ClasspathHelper.forPackage(configClass.getPackage().getName()))
-                .setScanners(Scanners.FieldsAnnotated, Scanners.SubTypes));
 
         // Process fields from the entire class hierarchy
-        processFields(configClass, jsonMap, reflections);
+        processFields(configClass, jsonMap);
 
         return jsonMap;
     }
 
-    private static void processFields(Class<?> configClass, Map<String, Object> jsonMap, Reflections reflections) {
+    private static void processFields(Class<?> configClass, Map<String, Object> jsonMap) {
         if (configClass == null || configClass == Object.class) {
             return;
         }
 
         // Recursively process superclass fields first
-        processFields(configClass.getSuperclass(), jsonMap, reflections);
+        processFields(configClass.getSuperclass(), jsonMap);
 
         for (Field field : configClass.getDeclaredFields()) {
             if (field.isAnnotationPresent(ConfigurationField.class)) {
@@ -76,8 +68,7 @@ public class ConfigPreprocessor {
                     fieldInfo.put("isList", false);
 
                     if (Modifier.isAbstract(fieldType.getModifiers())) {
-                        Set<Class<?>> subTypes = reflections.getSubTypesOf((Class<Object>) fieldType);
-                        fieldInfo.put("subTypes", getSubTypesInfo(subTypes));
+                        fieldInfo.put("subTypes", getSubTypesInfo(ConfigurationSubTypes.getSubTypesOf(fieldType)));
                     } else if (isComplexType(fieldType)) {
                         fieldInfo.put("fields", processConfigClass(fieldType));
                     }
@@ -115,7 +106,7 @@ public class ConfigPreprocessor {
         return !fieldType.isPrimitive() && !fieldType.getName().startsWith("java.lang");
     }
 
-    private static Map<String, Object> getSubTypesInfo(Set<Class<?>> subTypes) {
+    private static Map<String, Object> getSubTypesInfo(List<Class<?>> subTypes) {
         Map<String, Object> subTypesInfo = new HashMap<>();
         for (Class<?> subType : subTypes) {
             if (!Modifier.isAbstract(subType.getModifiers())) {
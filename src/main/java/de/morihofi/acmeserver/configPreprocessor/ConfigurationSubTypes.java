@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.configPreprocessor;
+
+import de.morihofi.acmeserver.config.DatabaseConfig;
+import de.morihofi.acmeserver.config.certificateAlgorithms.AlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.EcdsaAlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.RSAAlgorithmParams;
+import de.morihofi.acmeserver.config.databaseConfig.JDBCUrlDatabaseConfig;
+import de.morihofi.acmeserver.config.databaseConfig.OldDatabaseConfig;
+import de.morihofi.acmeserver.config.keyStoreHelpers.KeyStoreParams;
+import de.morihofi.acmeserver.config.keyStoreHelpers.PKCS11KeyStoreParams;
+import de.morihofi.acmeserver.config.keyStoreHelpers.PKCS12KeyStoreParams;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Explicit registry of the implementations of abstract configuration classes. The configuration layout is generated from this registry
+ * instead of scanning the classpath for subtypes. It mirrors the polymorphic deserializers in {@code de.morihofi.acmeserver.config.helper},
+ * a new implementation has to be added in both places.
+ */
+public final class ConfigurationSubTypes {
+
+    /**
+     * Implementations by abstract configuration class.
+     */
+    private static final Map<Class<?>, List<Class<?>>> SUB_TYPES = Map.of(
+            AlgorithmParams.class, List.of(RSAAlgorithmParams.class, EcdsaAlgorithmParams.class),
+            KeyStoreParams.class, List.of(PKCS11KeyStoreParams.class, PKCS12KeyStoreParams.class),
+            DatabaseConfig.class, List.of(JDBCUrlDatabaseConfig.class, OldDatabaseConfig.class)
+    );
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private ConfigurationSubTypes() {
+    }
+
+    /**
+     * Gets the registered implementations of an abstract configuration class.
+     *
+     * @param abstractClass The abstract configuration class.
+     * @return The implementations, or an empty list if none are registered.
+     */
+    public static List<Class<?>> getSubTypesOf(Class<?> abstractClass) {
+        return SUB_TYPES.getOrDefault(abstractClass, List.of());
+    }
+}
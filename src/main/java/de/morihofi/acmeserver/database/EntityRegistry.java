@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database;
+
+import de.morihofi.acmeserver.database.objects.ACMEAccount;
+import de.morihofi.acmeserver.database.objects.ACMEOrder;
+import de.morihofi.acmeserver.database.objects.ACMEOrderArchive;
+import de.morihofi.acmeserver.database.objects.ACMEOrderIdentifier;
+import de.morihofi.acmeserver.database.objects.ACMEOrderIdentifierChallenge;
+import de.morihofi.acmeserver.database.objects.CertificateDailyRollup;
+import de.morihofi.acmeserver.database.objects.HttpNonces;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
+import de.morihofi.acmeserver.database.objects.RateLimitBucket;
+import de.morihofi.acmeserver.database.objects.UserSession;
+import de.morihofi.acmeserver.database.objects.Users;
+
+import java.util.List;
+
+/**
+ * Explicit registry of all Hibernate entity classes. Registering the entities here instead of scanning the classpath for
+ * {@link jakarta.persistence.Entity} keeps the database initialization independent of the jar size, which noticeably shortens the startup.
+ * <p>
+ * New entities MUST be added to this list, {@code EntityRegistryTest} fails otherwise.
+ */
+public final class EntityRegistry {
+
+    /**
+     * All entity classes known to Hibernate.
+     */
+    private static final List<Class<?>> ENTITY_CLASSES = List.of(
+            ACMEAccount.class,
+            ACMEOrder.class,
+            ACMEOrderArchive.class,
+            ACMEOrderIdentifier.class,
+            ACMEOrderIdentifierChallenge.class,
+            CertificateDailyRollup.class,
+            HttpNonces.class,
+            ProvisionerCounter.class,
+            RateLimitBucket.class,
+            UserSession.class,
+            Users.class
+    );
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private EntityRegistry() {
+    }
+
+    /**
+     * Gets all entity classes that have to be registered at Hibernate.
+     *
+     * @return An unmodifiable list of entity classes.
+     */
+    public static List<Class<?>> getEntityClasses() {
+        return ENTITY_CLASSES;
+    }
+}
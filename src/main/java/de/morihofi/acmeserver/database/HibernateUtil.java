@@ -20,17 +20,18 @@ import de.morihofi.acmeserver.config.Config;
 import de.morihofi.acmeserver.config.DatabaseConfig;
 import de.morihofi.acmeserver.config.databaseConfig.JDBCUrlDatabaseConfig;
 import de.morihofi.acmeserver.config.databaseConfig.OldDatabaseConfig;
-import jakarta.persistence.Entity;
+import de.morihofi.acmeserver.database.migration.SchemaMigrator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.cfg.Environment;
-import org.reflections.Reflections;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.Objects;
 
 /**
  * Utility class for Hibernate configuration and session management.
@@ -39,7 +40,7 @@ public class HibernateUtil {
     /**
      * Logger
      */
-    private final Logger LOG = LogManager.getLogger(HibernateUtil.class);
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
     private SessionFactory sessionFactory;
 
     private final Config appConfig;
@@ -57,49 +58,24 @@ public class HibernateUtil {
     public void initDatabase() throws IOException {
         if (sessionFactory == null) {
 
-            DatabaseConfig databaseConfig = appConfig.getDatabase();
-            JDBCUrlDatabaseConfig jdbcUrlDatabaseConfig;
-            if (databaseConfig instanceof JDBCUrlDatabaseConfig jdbcDbConfig) {
-                jdbcUrlDatabaseConfig = jdbcDbConfig;
-            } else {
-                jdbcUrlDatabaseConfig = new JDBCUrlDatabaseConfig();
-                if (databaseConfig instanceof OldDatabaseConfig oldDatabaseConfig) {
-                    LOG.warn(
-                            "Your configuration uses the old database configuration scheme. This is deprecated. It will be automatically "
-                                    + "updated.");
-
-                    String jdbcString = switch (oldDatabaseConfig.getEngine()) {
-                        case "h2" -> "jdbc:h2:" + oldDatabaseConfig.getName() + ";DB_CLOSE_DELAY=-1";
-                        case "mariadb" ->
-                                "jdbc:mariadb://" + oldDatabaseConfig.getHost() + "/" + oldDatabaseConfig.getName();
-                        case "postgres" ->
-                                "jdbc:postgresql://" + oldDatabaseConfig.getHost() + "/" + oldDatabaseConfig.getName();
-                        default ->
-                                throw new IllegalStateException("Unexpected database engine: " + oldDatabaseConfig.getEngine()
-                                        + ". Only h2, mariadb and postgres are valid values");
-                    };
-
-                    jdbcUrlDatabaseConfig.setJdbcUrl(jdbcString);
-                    jdbcUrlDatabaseConfig.setUser(oldDatabaseConfig.getUser());
-                    jdbcUrlDatabaseConfig.setPassword(oldDatabaseConfig.getPassword());
-
-                    // Update configuration file
-                    {
-                        LOG.info("Updating server database configuration");
-                        appConfig.setDatabase(jdbcUrlDatabaseConfig);
-                        appConfig.saveConfig();
-                    }
-                }
-            }
+            JDBCUrlDatabaseConfig jdbcUrlDatabaseConfig = getJdbcDatabaseConfig(appConfig);
 
             try {
+                if (jdbcUrlDatabaseConfig.isMigrateOnStartup()) {
+                    new SchemaMigrator(jdbcUrlDatabaseConfig).migrate();
+                } else {
+                    LOG.info("Applying schema migrations on startup is disabled, expecting an up-to-date schema");
+                }
+
                 Configuration configuration = getConfigurationFor(jdbcUrlDatabaseConfig);
 
-                // Scan Entity classes
-                Reflections reflections = new Reflections(MethodHandles.lookup().lookupClass().getPackageName());
-                for (Class<?> clazz : reflections.getTypesAnnotatedWith(Entity.class)) {
+                // Register Entity classes
+                long entityRegistrationStart = System.nanoTime();
+                for (Class<?> clazz : EntityRegistry.getEntityClasses()) {
                     configuration.addAnnotatedClass(clazz);
                 }
+                LOG.info("Registered {} entity classes in {} ms", EntityRegistry.getEntityClasses().size(),
+                        (System.nanoTime() - entityRegistrationStart) / 1_000_000);
 
                 StandardServiceRegistryBuilder registryBuilder = new StandardServiceRegistryBuilder()
                         .applySettings(configuration.getProperties());
@@ -120,6 +96,51 @@ public class HibernateUtil {
         }
     }
 
+    /**
+     * Gets the JDBC database configuration of the application. Configurations using the old database configuration scheme are converted
+     * and the configuration file is updated.
+     *
+     * @param appConfig The application configuration.
+     * @return The JDBC database configuration.
+     */
+    public static JDBCUrlDatabaseConfig getJdbcDatabaseConfig(Config appConfig) {
+        DatabaseConfig databaseConfig = appConfig.getDatabase();
+        JDBCUrlDatabaseConfig jdbcUrlDatabaseConfig;
+        if (databaseConfig instanceof JDBCUrlDatabaseConfig jdbcDbConfig) {
+            jdbcUrlDatabaseConfig = jdbcDbConfig;
+        } else {
+            jdbcUrlDatabaseConfig = new JDBCUrlDatabaseConfig();
+            if (databaseConfig instanceof OldDatabaseConfig oldDatabaseConfig) {
+                LOG.warn(
+                        "Your configuration uses the old database configuration scheme. This is deprecated. It will be automatically "
+                                + "updated.");
+
+                String jdbcString = switch (oldDatabaseConfig.getEngine()) {
+                    case "h2" -> "jdbc:h2:" + oldDatabaseConfig.getName() + ";DB_CLOSE_DELAY=-1";
+                    case "mariadb" ->
+                            "jdbc:mariadb://" + oldDatabaseConfig.getHost() + "/" + oldDatabaseConfig.getName();
+                    case "postgres" ->
+                            "jdbc:postgresql://" + oldDatabaseConfig.getHost() + "/" + oldDatabaseConfig.getName();
+                    default ->
+                            throw new IllegalStateException("Unexpected database engine: " + oldDatabaseConfig.getEngine()
+                                    + ". Only h2, mariadb and postgres are valid values");
+                };
+
+                jdbcUrlDatabaseConfig.setJdbcUrl(jdbcString);
+                jdbcUrlDatabaseConfig.setUser(oldDatabaseConfig.getUser());
+                jdbcUrlDatabaseConfig.setPassword(oldDatabaseConfig.getPassword());
+
+                // Update configuration file
+                {
+                    LOG.info("Updating server database configuration");
+                    appConfig.setDatabase(jdbcUrlDatabaseConfig);
+                    appConfig.saveConfig();
+                }
+            }
+        }
+        return jdbcUrlDatabaseConfig;
+    }
+
     /**
      * Retrieves a {@link Configuration} object configured for a specific {@link JDBCUrlDatabaseConfig}. This method configures the database
      * connection properties based on the type of database specified by its JDBC URL. It sets properties such as the JDBC driver, connection
@@ -172,7 +193,8 @@ public class HibernateUtil {
             // Show verbose SQL only on debug
             configuration.setProperty(Environment.SHOW_SQL, "true");
         }
-        configuration.setProperty(Environment.HBM2DDL_AUTO, "update");
+        // The schema is maintained by the versioned migrations in SchemaMigrator, Hibernate only validates it by default
+        configuration.setProperty(Environment.HBM2DDL_AUTO, jdbcConfig.getSchemaManagement());
 
         configuration.setProperty(Environment.ENABLE_LAZY_LOAD_NO_TRANS, "true");
         return configuration;
@@ -187,6 +209,20 @@ public class HibernateUtil {
         return sessionFactory;
     }
 
+    /**
+     * Opens a session for database operations. If a {@link UnitOfWork} is bound to the current thread, a session participating in it is
+     * returned instead, so that closing it and committing its transaction is deferred to the end of the unit of work.
+     *
+     * @return A session for database operations.
+     */
+    public Session openSession() {
+        Session unitOfWorkSession = UnitOfWork.currentSession();
+        if (unitOfWorkSession != null) {
+            return unitOfWorkSession;
+        }
+        return Objects.requireNonNull(sessionFactory).openSession();
+    }
+
     private void configureDialectAndDriver(Configuration configuration, String jdbcUrl) {
         if (jdbcUrl.startsWith("jdbc:h2")) {
             configuration.setProperty(Environment.JAKARTA_JDBC_DRIVER, "org.h2.Driver");
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.database;
+
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Native SQL statements whose syntax differs between the supported databases.
+ */
+public final class NativeSql {
+
+    /**
+     * The SQL syntax families of the supported databases.
+     */
+    public enum Database {
+        /**
+         * H2 and other databases supporting the standard {@code MERGE} statement
+         */
+        H2,
+        /**
+         * PostgreSQL
+         */
+        POSTGRESQL,
+        /**
+         * MySQL and MariaDB
+         */
+        MYSQL;
+
+        /**
+         * Gets the database a session is connected to.
+         *
+         * @param session The session.
+         * @return The database.
+         */
+        public static Database of(Session session) {
+            Dialect dialect = session.getSessionFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            if (dialect instanceof PostgreSQLDialect) {
+                return POSTGRESQL;
+            }
+            if (dialect instanceof MySQLDialect) {
+                return MYSQL;
+            }
+            return H2;
+        }
+    }
+
+    /**
+     * SQLState of a unique or primary key violation.
+     */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    /**
+     * Inserts a row unless a row with the same key exists. Unlike looking the row up and inserting it, concurrent callers never fail on
+     * the key: the first one inserts the row, the others insert nothing. The transaction of the session stays usable in any case.
+     *
+     * @param session    Session whose connection and transaction are used.
+     * @param table      Name of the table.
+     * @param keyColumns Columns of the primary or unique key.
+     * @param columns    All inserted columns, including the key columns.
+     * @param values     Values of the columns, in the same order.
+     * @return {@code true} if the row was inserted, {@code false} if it existed.
+     */
+    public static boolean insertIfAbsent(Session session, String table, List<String> keyColumns, List<String> columns,
+            List<Object> values) {
+        Database database = Database.of(session);
+        return session.doReturningWork(connection -> insertIfAbsent(connection, database, table, keyColumns, columns, values));
+    }
+
+    /**
+     * Inserts a row unless a row with the same key exists, using the given connection.
+     *
+     * @param connection Connection to use, the statement joins its current transaction.
+     * @param database   The database the connection belongs to.
+     * @param table      Name of the table.
+     * @param keyColumns Columns of the primary or unique key.
+     * @param columns    All inserted columns, including the key columns.
+     * @param values     Values of the columns, in the same order.
+     * @return {@code true} if the row was inserted, {@code false} if it existed.
+     * @throws SQLException if the insert fails for another reason than an existing row.
+     */
+    static boolean insertIfAbsent(Connection connection, Database database, String table, List<String> keyColumns, List<String> columns,
+            List<Object> values) throws SQLException {
+        String columnList = String.join(", ", columns);
+        String parameters = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+        String sql = switch (database) {
+            case POSTGRESQL -> "insert into " + table + " (" + columnList + ") values (" + parameters + ") on conflict ("
+                    + String.join(", ", keyColumns) + ") do nothing";
+            case MYSQL -> "insert into " + table + " (" + columnList + ") values (" + parameters + ") on duplicate key update "
+                    + keyColumns.get(0) + " = " + keyColumns.get(0);
+            // H2 has no conflict free insert, even MERGE fails on a row inserted concurrently
+            case H2 -> "insert into " + table + " (" + columnList + ") values (" + parameters + ")";
+        };
+
+        Savepoint savepoint = database == Database.H2 && !connection.getAutoCommit() ? connection.setSavepoint() : null;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            // MySQL reports an existing row left unchanged as 0 rows, an inserted one as 1
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            if (database != Database.H2 || !UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw e;
+            }
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            return false;
+        } finally {
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+        }
+    }
+
+    private NativeSql() {
+    }
+}
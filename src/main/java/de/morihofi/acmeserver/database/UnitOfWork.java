@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A request-scoped unit of work that binds a single Hibernate {@link Session} and {@link Transaction} to the current thread.
+ * <p>
+ * While a unit of work is bound, {@link HibernateUtil#openSession()} hands out a view onto the shared session instead of opening a new
+ * one. Closing that view and committing its transaction only flushes pending changes, the real commit (or rollback) happens once when
+ * {@link #end(boolean)} is called. This way all entity helpers that are invoked during one ACME request share one connection checkout
+ * and the request as a whole becomes atomic.
+ * <p>
+ * The session is opened lazily, so requests that never touch the database do not check out a connection at all.
+ * <p>
+ * Once a participant requested a rollback or an operation on the shared session failed, the unit of work is rollback only: the session
+ * refuses further use and {@link #end(boolean)} reports that the work was not saved, so that the request is not answered as a success.
+ */
+public final class UnitOfWork {
+
+    /**
+     * Logger for logging events and errors.
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * The unit of work bound to the current thread, if any.
+     */
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Session factory used to lazily open the shared session.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * The shared session, {@code null} until first used.
+     */
+    private Session session;
+
+    /**
+     * The shared transaction, {@code null} until first used.
+     */
+    private Transaction transaction;
+
+    /**
+     * View onto {@link #session} handed out to participants, {@code null} until first used.
+     */
+    private Session participantView;
+
+    /**
+     * Set when a participant requested a rollback, the unit of work will then never commit.
+     */
+    private boolean rollbackOnly = false;
+
+    /**
+     * Actions to run once the unit of work has been committed.
+     */
+    private final List<Runnable> afterCommitActions = new ArrayList<>();
+
+    /**
+     * Creates a new unit of work for the given session factory.
+     *
+     * @param sessionFactory Session factory used to open the shared session.
+     */
+    private UnitOfWork(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Binds a new unit of work to the current thread. A unit of work that is still bound (e.g. because a previous request on this thread
+     * was not ended correctly) is rolled back first.
+     *
+     * @param sessionFactory Session factory used to open the shared session.
+     */
+    public static void begin(SessionFactory sessionFactory) {
+        UnitOfWork stale = CURRENT.get();
+        if (stale != null) {
+            LOG.warn("Found a unit of work that was never ended on this thread, rolling it back");
+            stale.finish(false);
+        }
+        CURRENT.set(new UnitOfWork(sessionFactory));
+    }
+
+    /**
+     * Ends the unit of work bound to the current thread, if any. The shared transaction is committed when {@code commit} is {@code true}
+     * and no participant requested a rollback, otherwise it is rolled back. The session is closed in any case.
+     *
+     * @param commit {@code true} to commit the work, {@code false} to roll it back.
+     * @return {@code false} if the work should have been committed, but was rolled back because a participant requested a rollback, an
+     * operation on the session failed or the commit itself failed. {@code true} otherwise.
+     */
+    public static boolean end(boolean commit) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            return true;
+        }
+        CURRENT.remove();
+        return current.finish(commit) || !commit;
+    }
+
+    /**
+     * Returns whether a unit of work is bound to the current thread.
+     *
+     * @return {@code true} if a unit of work is active.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Runs an action once the unit of work bound to the current thread has been committed, e.g. to hand work to another thread that must
+     * see the changes of this request. The action is dropped when the unit of work is rolled back. Without a bound unit of work the action
+     * runs immediately.
+     *
+     * @param action The action to run.
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            action.run();
+        } else {
+            current.afterCommitActions.add(action);
+        }
+    }
+
+    /**
+     * Returns a session participating in the unit of work bound to the current thread.
+     *
+     * @return The participating session view, or {@code null} if no unit of work is bound.
+     */
+    static Session currentSession() {
+        UnitOfWork current = CURRENT.get();
+        return current == null ? null : current.getParticipantView();
+    }
+
+    /**
+     * Marks the unit of work as rollback only.
+     */
+    private void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    /**
+     * Opens the shared session and transaction on first use and returns the view handed out to participants.
+     *
+     * @return The participating session view.
+     */
+    private Session getParticipantView() {
+        if (session == null) {
+            session = sessionFactory.openSession();
+            transaction = session.beginTransaction();
+            Transaction participantTransaction = (Transaction) Proxy.newProxyInstance(Transaction.class.getClassLoader(),
+                    new Class<?>[]{Transaction.class}, new ParticipantTransactionHandler());
+            participantView = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                    new Class<?>[]{Session.class}, new ParticipantSessionHandler(participantTransaction));
+        }
+        return participantView;
+    }
+
+    /**
+     * Commits or rolls back the shared transaction and closes the shared session.
+     *
+     * @param commit {@code true} to commit the work, {@code false} to roll it back.
+     * @return {@code true} if the work was committed.
+     */
+    private boolean finish(boolean commit) {
+        if (session == null) {
+            if (commit && !rollbackOnly) {
+                runAfterCommitActions();
+                return true;
+            }
+            return false;
+        }
+        if (commit && rollbackOnly) {
+            LOG.error("Unit of work was marked rollback only, rolling back the work of the request");
+        }
+        boolean committed = false;
+        try {
+            if (transaction.isActive()) {
+                if (commit && !rollbackOnly) {
+                    transaction.commit();
+                    committed = true;
+                } else {
+                    transaction.rollback();
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to complete unit of work, rolling back", e);
+            try {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            } catch (Exception rollbackException) {
+                LOG.error("Rollback of unit of work failed", rollbackException);
+            }
+        } finally {
+            session.close();
+        }
+        if (committed) {
+            runAfterCommitActions();
+        }
+        return committed;
+    }
+
+    /**
+     * Runs the actions registered using {@link #afterCommit(Runnable)}. A failing action does not prevent the following ones.
+     */
+    private void runAfterCommitActions() {
+        for (Runnable action : afterCommitActions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOG.error("After commit action of unit of work failed", e);
+            }
+        }
+    }
+
+    /**
+     * Invokes a method on a delegate, unwrapping reflective exceptions.
+     *
+     * @param delegate Target object.
+     * @param method   Method to invoke.
+     * @param args     Method arguments.
+     * @return The return value of the method.
+     * @throws Throwable The exception thrown by the method.
+     */
+    private static Object delegate(Object delegate, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Session view whose lifecycle and transaction demarcation are owned by the unit of work. A failing operation marks the unit of work
+     * as rollback only, a session in that state must not be used anymore.
+     */
+    private final class ParticipantSessionHandler implements InvocationHandler {
+
+        /**
+         * Transaction view handed out by {@code beginTransaction()} and {@code getTransaction()}.
+         */
+        private final Transaction participantTransaction;
+
+        /**
+         * Creates a new session view handler.
+         *
+         * @param participantTransaction Transaction view handed out to participants.
+         */
+        private ParticipantSessionHandler(Transaction participantTransaction) {
+            this.participantTransaction = participantTransaction;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "close" -> null;
+                case "beginTransaction", "getTransaction" -> participantTransaction;
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> {
+                    if (rollbackOnly) {
+                        throw new IllegalStateException("Unit of work is rollback only, its session must not be used anymore");
+                    }
+                    try {
+                        yield delegate(session, method, args);
+                    } catch (RuntimeException e) {
+                        setRollbackOnly();
+                        throw e;
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Transaction view that flushes on commit and marks the unit of work as rollback only on rollback.
+     */
+    private final class ParticipantTransactionHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "begin" -> null;
+                case "commit" -> {
+                    if (rollbackOnly) {
+                        throw new IllegalStateException("Unit of work is rollback only, its changes can't be committed");
+                    }
+                    try {
+                        session.flush();
+                    } catch (RuntimeException e) {
+                        setRollbackOnly();
+                        throw e;
+                    }
+                    yield null;
+                }
+                case "rollback", "setRollbackOnly", "markRollbackOnly" -> {
+                    setRollbackOnly();
+                    yield null;
+                }
+                case "getRollbackOnly" -> rollbackOnly;
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> delegate(transaction, method, args);
+            };
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database.migration;
+
+import de.morihofi.acmeserver.config.databaseConfig.JDBCUrlDatabaseConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies versioned SQL migrations to the database. Each migration is a SQL script per dialect, located on the classpath at
+ * {@code db/migration/<dialect>/V<version>__<name>.sql}. Applied versions are recorded in the {@code schema_version} table, so every
+ * migration runs exactly once.
+ * <p>
+ * Migrations run before Hibernate is initialized, either on startup or ahead of a deployment using the {@code --migrate-database} CLI mode.
+ * Hibernate itself only validates the schema.
+ * <p>
+ * Several server nodes may start on the same database at once. Before applying a migration, a node claims it by inserting its row into
+ * the version table, marked as in progress. Only the node whose insert succeeds applies the migration, the others wait until it is
+ * completed.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Logger for logging events and errors.
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * All migrations in the order they are applied. New migrations MUST be appended with the next version and a script for every dialect.
+     */
+    private static final List<SchemaMigration> MIGRATIONS = List.of(
+            new SchemaMigration(1, "baseline"),
+            new SchemaMigration(2, "rate_limit_buckets"),
+            new SchemaMigration(3, "authorization_reuse"),
+            new SchemaMigration(4, "account_jwk_thumbprint"),
+            new SchemaMigration(5, "challenge_processing_started")
+    );
+
+    /**
+     * Name of the table recording applied migrations.
+     */
+    private static final String VERSION_TABLE = "schema_version";
+
+    /**
+     * Execution time recorded for a migration that a node has claimed but not completed yet.
+     */
+    private static final long IN_PROGRESS = -1;
+
+    /**
+     * How often a node waiting for a migration of another node checks whether it is completed.
+     */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Default time to wait for a migration of another node.
+     */
+    private static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofMinutes(10);
+
+    /**
+     * JDBC configuration of the database to migrate.
+     */
+    private final JDBCUrlDatabaseConfig jdbcConfig;
+
+    /**
+     * Time to wait for a migration that another node is applying.
+     */
+    private final Duration waitTimeout;
+
+    /**
+     * Creates a migrator for the given database.
+     *
+     * @param jdbcConfig JDBC configuration of the database to migrate.
+     */
+    public SchemaMigrator(JDBCUrlDatabaseConfig jdbcConfig) {
+        this(jdbcConfig, DEFAULT_WAIT_TIMEOUT);
+    }
+
+    /**
+     * Creates a migrator for the given database.
+     *
+     * @param jdbcConfig  JDBC configuration of the database to migrate.
+     * @param waitTimeout Time to wait for a migration that another node is applying.
+     */
+    public SchemaMigrator(JDBCUrlDatabaseConfig jdbcConfig, Duration waitTimeout) {
+        this.jdbcConfig = jdbcConfig;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * A versioned migration.
+     *
+     * @param version Version of the migration, strictly increasing.
+     * @param name    Name of the migration, part of the script file name.
+     */
+    public record SchemaMigration(int version, String name) {
+
+        /**
+         * Gets the classpath location of the script of this migration for the given dialect.
+         *
+         * @param dialect The dialect directory name.
+         * @return The classpath location of the script.
+         */
+        public String getScriptPath(String dialect) {
+            return "db/migration/" + dialect + "/V" + version + "__" + name + ".sql";
+        }
+    }
+
+    /**
+     * Gets the migration script directory name for a JDBC URL.
+     *
+     * @param jdbcUrl The JDBC URL.
+     * @return The dialect directory name.
+     * @throws IllegalArgumentException if the database is not supported.
+     */
+    public static String getDialect(String jdbcUrl) {
+        if (jdbcUrl.startsWith("jdbc:h2")) {
+            return "h2";
+        } else if (jdbcUrl.startsWith("jdbc:mariadb")) {
+            return "mariadb";
+        } else if (jdbcUrl.startsWith("jdbc:postgresql")) {
+            return "postgresql";
+        } else if (jdbcUrl.startsWith("jdbc:mysql")) {
+            return "mysql";
+        }
+        throw new IllegalArgumentException("No schema migrations available for JDBC URL " + jdbcUrl);
+    }
+
+    /**
+     * Applies all pending migrations. Migrations that another node is applying at the same time are waited for.
+     *
+     * @return The number of migrations applied by this node.
+     * @throws SQLException if a migration fails, or another node does not complete its migration in time. Migrations applied before the
+     *                      failing one stay applied.
+     * @throws IOException  if a migration script cannot be read.
+     */
+    public int migrate() throws SQLException, IOException {
+        String dialect = getDialect(jdbcConfig.getJdbcUrl());
+        int applied = 0;
+
+        try (Connection connection = DriverManager.getConnection(jdbcConfig.getJdbcUrl(), jdbcConfig.getUser(), jdbcConfig.getPassword())) {
+            ensureVersionTable(connection);
+            int currentVersion = getCurrentVersion(connection);
+            LOG.info("Database schema is at version {}, latest version is {}", currentVersion, MIGRATIONS.get(MIGRATIONS.size() - 1).version());
+
+            for (SchemaMigration migration : MIGRATIONS) {
+                if (migration.version() <= currentVersion) {
+                    continue;
+                }
+                long deadline = System.nanoTime() + waitTimeout.toNanos();
+                while (true) {
+                    if (claim(connection, migration)) {
+                        applyMigration(connection, migration, dialect);
+                        applied++;
+                        break;
+                    }
+                    Long executionMillis = getExecutionMillis(connection, migration);
+                    if (executionMillis != null && executionMillis != IN_PROGRESS) {
+                        LOG.info("Schema migration V{} ({}) was applied by another node", migration.version(), migration.name());
+                        break;
+                    }
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new SQLException("Schema migration V" + migration.version() + " is still being applied by another node after "
+                                + waitTimeout.toSeconds() + " seconds. If no other node is migrating, delete the row of version "
+                                + migration.version() + " from " + VERSION_TABLE);
+                    }
+                    LOG.info("Waiting for another node to apply schema migration V{} ({})", migration.version(), migration.name());
+                    sleep();
+                }
+            }
+        }
+
+        LOG.info("Applied {} schema migrations", applied);
+        return applied;
+    }
+
+    /**
+     * Claims a migration for this node by inserting its row into the version table, marked as in progress. The claim is committed right
+     * away, so other nodes see it before this node starts applying the migration.
+     *
+     * @param connection Connection to the database.
+     * @param migration  The migration to claim.
+     * @return {@code true} if this node claimed the migration, {@code false} if another node claimed or applied it already.
+     * @throws SQLException if the claim fails for another reason.
+     */
+    private static boolean claim(Connection connection, SchemaMigration migration) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into " + VERSION_TABLE + " (version, name, installed, executionMillis) values (?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.name());
+            insert.setTimestamp(3, Timestamp.from(Instant.now()));
+            insert.setLong(4, IN_PROGRESS);
+            insert.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            // Integrity constraint violation, the row exists
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the recorded execution time of a migration.
+     *
+     * @param connection Connection to the database.
+     * @param migration  The migration.
+     * @return The execution time, {@link #IN_PROGRESS} if a node is applying it, or {@code null} if it is neither applied nor claimed.
+     * @throws SQLException if the version table cannot be read.
+     */
+    private static Long getExecutionMillis(Connection connection, SchemaMigration migration) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "select executionMillis from " + VERSION_TABLE + " where version = ?")) {
+            select.setInt(1, migration.version());
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Waits before checking the version table again.
+     *
+     * @throws SQLException if the thread was interrupted while waiting.
+     */
+    private static void sleep() throws SQLException {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a schema migration of another node", e);
+        }
+    }
+
+    /**
+     * Creates the version table if it does not exist.
+     *
+     * @param connection Connection to the database.
+     * @throws SQLException if the table cannot be created.
+     */
+    private static void ensureVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists " + VERSION_TABLE + " (version integer not null, name varchar(255) not null, "
+                    + "installed timestamp not null, executionMillis bigint not null, primary key (version))");
+        }
+    }
+
+    /**
+     * Gets the version of the latest completed migration.
+     *
+     * @param connection Connection to the database.
+     * @return The version, or 0 if no migration has been applied yet.
+     * @throws SQLException if the version cannot be read.
+     */
+    private static int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select max(version) from " + VERSION_TABLE + " where executionMillis <> "
+                     + IN_PROGRESS)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Applies a single claimed migration within a transaction and records it as completed in the version table. If it fails, the claim is
+     * released, so that the migration can be retried. Note that some databases (e.g. MariaDB and MySQL) commit DDL statements implicitly,
+     * migration scripts are therefore written to be re-runnable.
+     *
+     * @param connection Connection to the database.
+     * @param migration  The migration to apply.
+     * @param dialect    The dialect directory name.
+     * @throws SQLException if a statement of the migration fails.
+     * @throws IOException  if the migration script cannot be read.
+     */
+    private static void applyMigration(Connection connection, SchemaMigration migration, String dialect) throws SQLException, IOException {
+        LOG.info("Applying schema migration V{} ({})", migration.version(), migration.name());
+        long start = System.currentTimeMillis();
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : readStatements(migration.getScriptPath(dialect))) {
+                statement.execute(sql);
+            }
+
+            try (PreparedStatement update = connection.prepareStatement(
+                    "update " + VERSION_TABLE + " set installed = ?, executionMillis = ? where version = ?")) {
+                update.setTimestamp(1, Timestamp.from(Instant.now()));
+                update.setLong(2, System.currentTimeMillis() - start);
+                update.setInt(3, migration.version());
+                update.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            LOG.error("Schema migration V{} ({}) failed", migration.version(), migration.name(), e);
+            try (PreparedStatement delete = connection.prepareStatement("delete from " + VERSION_TABLE + " where version = ?")) {
+                delete.setInt(1, migration.version());
+                delete.executeUpdate();
+                connection.commit();
+            } catch (SQLException releaseException) {
+                e.addSuppressed(releaseException);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Reads the statements of a migration script. Statements are terminated by a semicolon at the end of a line, lines starting with
+     * {@code --} are comments.
+     *
+     * @param scriptPath Classpath location of the script.
+     * @return The statements of the script.
+     * @throws IOException if the script cannot be read.
+     */
+    private static List<String> readStatements(String scriptPath) throws IOException {
+        String script;
+        try (InputStream inputStream = SchemaMigrator.class.getClassLoader().getResourceAsStream(scriptPath)) {
+            if (inputStream == null) {
+                throw new IOException("Migration script " + scriptPath + " not found");
+            }
+            script = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(trimmed).append(' ');
+            if (trimmed.endsWith(";")) {
+                statements.add(current.substring(0, current.lastIndexOf(";")).trim());
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+}
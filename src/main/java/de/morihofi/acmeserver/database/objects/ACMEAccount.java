@@ -17,6 +17,8 @@
 package de.morihofi.acmeserver.database.objects;
 
 import de.morihofi.acmeserver.tools.ServerInstance;
+import de.morihofi.acmeserver.tools.certificate.PemUtil;
+import de.morihofi.acmeserver.tools.crypto.AcmeTokenCryptography;
 import de.morihofi.acmeserver.tools.safety.TypeSafetyHelper;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import jakarta.persistence.*;
@@ -27,13 +29,17 @@ import org.hibernate.Transaction;
 
 import java.io.Serializable;
 import java.lang.invoke.MethodHandles;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 
 /**
  * Represents an ACME account entity, which is used for managing ACME accounts.
  */
 @Entity
+@Table(name = "ACMEAccount", uniqueConstraints = {
+        @UniqueConstraint(name = "uc_acmeaccount_provisioner_jwkthumbprint", columnNames = {"provisioner", "jwkThumbprint"})
+})
 @SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
 public class ACMEAccount implements Serializable {
     /**
@@ -51,7 +57,7 @@ public class ACMEAccount implements Serializable {
     public static ACMEAccount getAccount(String accountId, ServerInstance serverInstance) {
         ACMEAccount acmeAccount = null;
 
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
 
             Query query = session.createQuery("SELECT a FROM ACMEAccount a WHERE a.accountId = :accountId", ACMEAccount.class);
@@ -70,6 +76,81 @@ public class ACMEAccount implements Serializable {
         return acmeAccount;
     }
 
+    /**
+     * Retrieves the ACME account of a provisioner registered with the given key.
+     *
+     * @param jwkThumbprint  The base64url encoded RFC 7638 JWK thumbprint of the account key.
+     * @param provisioner    The name of the provisioner the account was registered in.
+     * @param serverInstance The server instance for database connection.
+     * @return The ACME account registered with the key, or null if not found.
+     */
+    public static ACMEAccount getAccountByJwkThumbprint(String jwkThumbprint, String provisioner, ServerInstance serverInstance) {
+        ACMEAccount acmeAccount = null;
+
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            Transaction transaction = session.beginTransaction();
+
+            acmeAccount = session.createQuery("SELECT a FROM ACMEAccount a WHERE a.jwkThumbprint = :jwkThumbprint "
+                            + "AND a.provisioner = :provisioner", ACMEAccount.class)
+                    .setParameter("jwkThumbprint", jwkThumbprint)
+                    .setParameter("provisioner", provisioner)
+                    .uniqueResult();
+
+            transaction.commit();
+        } catch (Exception e) {
+            LOG.error("Unable to get ACME Account by JWK thumbprint {}", jwkThumbprint, e);
+        }
+
+        return acmeAccount;
+    }
+
+    /**
+     * Stores the JWK thumbprint of accounts created before thumbprints were stored, so all accounts can be found by their key. A key
+     * identifies at most one account per provisioner: if several accounts were registered with the same key, the oldest one keeps it and
+     * the others can only be used by their account URL.
+     *
+     * @param serverInstance The server instance for database connection.
+     * @return The number of updated accounts.
+     */
+    public static int backfillJwkThumbprints(ServerInstance serverInstance) {
+        int updated = 0;
+
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            Transaction transaction = session.beginTransaction();
+
+            Set<List<String>> usedKeys = new HashSet<>();
+            for (Object[] usedKey : session.createQuery("SELECT a.provisioner, a.jwkThumbprint FROM ACMEAccount a "
+                    + "WHERE a.jwkThumbprint IS NOT NULL", Object[].class).getResultList()) {
+                usedKeys.add(List.of((String) usedKey[0], (String) usedKey[1]));
+            }
+
+            List<ACMEAccount> accounts = session.createQuery("FROM ACMEAccount WHERE jwkThumbprint IS NULL ORDER BY id", ACMEAccount.class)
+                    .getResultList();
+            for (ACMEAccount account : accounts) {
+                String jwkThumbprint;
+                try {
+                    jwkThumbprint = AcmeTokenCryptography.encodedThumbprint(PemUtil.readPublicKeyFromPem(account.getPublicKeyPEM()));
+                } catch (Exception e) {
+                    LOG.warn("Unable to compute the JWK thumbprint of ACME Account {}", account.getAccountId(), e);
+                    continue;
+                }
+                if (!usedKeys.add(List.of(account.getProvisioner(), jwkThumbprint))) {
+                    LOG.warn("The key of ACME Account {} is already used by another account of provisioner {}, "
+                            + "it can't be found by its key", account.getAccountId(), account.getProvisioner());
+                    continue;
+                }
+                account.setJwkThumbprint(jwkThumbprint);
+                updated++;
+            }
+
+            transaction.commit();
+        } catch (Exception e) {
+            LOG.error("Unable to store JWK thumbprints of ACME Accounts", e);
+        }
+
+        return updated;
+    }
+
     /**
      * Retrieves all ACME accounts.
      *
@@ -79,7 +160,7 @@ public class ACMEAccount implements Serializable {
     public static List<ACMEAccount> getAllAccounts(ServerInstance serverInstance) {
         List<ACMEAccount> acmeAccounts = null;
 
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
 
             Query query = session.createQuery("FROM ACMEAccount", ACMEAccount.class);
@@ -101,7 +182,7 @@ public class ACMEAccount implements Serializable {
      * @return The ACME account associated with the provided order ID, or null if not found.
      */
     public static ACMEAccount getAccountByOrderId(String orderId, ServerInstance serverInstance) {
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
 
             Query query = session.createQuery("SELECT o.account FROM ACMEOrder o WHERE o.orderId = :orderId", ACMEAccount.class);
@@ -128,7 +209,7 @@ public class ACMEAccount implements Serializable {
      * @return A list of ACME accounts associated with the provided email address.
      */
     public static List<ACMEAccount> getAllACMEAccountsForEmail(String email, ServerInstance serverInstance) {
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             TypedQuery<ACMEAccount> query = session.createQuery(
                     "SELECT a FROM ACMEAccount a JOIN a.emails e WHERE e = :email", ACMEAccount.class);
             query.setParameter("email", email);
@@ -156,6 +237,12 @@ public class ACMEAccount implements Serializable {
     @Column(name = "publicKeyPEM", columnDefinition = "TEXT")
     private String publicKeyPEM;
 
+    /**
+     * Base64url encoded RFC 7638 JWK thumbprint of the public key, used for key authorizations and to find accounts by key
+     */
+    @Column(name = "jwkThumbprint", length = 64)
+    private String jwkThumbprint;
+
     /**
      * E-Mails associated to this ACME Account
      */
@@ -263,6 +350,24 @@ public class ACMEAccount implements Serializable {
         this.publicKeyPEM = publicKeyPEM;
     }
 
+    /**
+     * Get the base64url encoded JWK thumbprint of the public key of the ACME account.
+     *
+     * @return The JWK thumbprint, or null for accounts whose thumbprint has not been stored yet.
+     */
+    public String getJwkThumbprint() {
+        return jwkThumbprint;
+    }
+
+    /**
+     * Set the base64url encoded JWK thumbprint of the public key of the ACME account.
+     *
+     * @param jwkThumbprint The JWK thumbprint to set.
+     */
+    public void setJwkThumbprint(String jwkThumbprint) {
+        this.jwkThumbprint = jwkThumbprint;
+    }
+
     /**
      * Get the deactivated status of the ACME account.
      *
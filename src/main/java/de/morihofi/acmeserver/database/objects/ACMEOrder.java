@@ -40,6 +40,7 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
 
 /**
@@ -63,7 +64,7 @@ public class ACMEOrder implements Serializable {
      */
     public static ACMEOrder getACMEOrderCertificateSerialNumber(BigInteger serialNumber, ServerInstance serverInstance) {
         ACMEOrder order = null;
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
             order = session.createQuery("FROM ACMEOrder WHERE certificateSerialNumber = :certificateSerialNumber", ACMEOrder.class)
                     .setParameter("certificateSerialNumber", serialNumber)
@@ -89,7 +90,7 @@ public class ACMEOrder implements Serializable {
      */
     public static ACMEOrder getACMEOrder(String orderId, ServerInstance serverInstance) {
         ACMEOrder order;
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             order = session.createQuery("FROM ACMEOrder a WHERE a.orderId = :orderId", ACMEOrder.class)
                     .setParameter("orderId", orderId)
                     .getSingleResult();
@@ -106,7 +107,7 @@ public class ACMEOrder implements Serializable {
      */
     public static List<ACMEOrder> getAllACMEOrdersWithState(AcmeOrderState orderState, ServerInstance serverInstance) {
         List<ACMEOrder> orders;
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             orders = session.createQuery("FROM ACMEOrder a WHERE a.orderState = :orderState", ACMEOrder.class)
                     .setParameter("orderState", orderState)
                     .getResultList();
@@ -132,7 +133,7 @@ public class ACMEOrder implements Serializable {
         StringBuilder pemBuilder = new StringBuilder();
 
         // Get Issued certificate
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
 
             Query query = session.createQuery("SELECT a FROM ACMEOrder a WHERE a.certificateId = :certificateId", ACMEOrder.class);
@@ -195,7 +196,7 @@ public class ACMEOrder implements Serializable {
     public static List<RevokedCertificate> getRevokedCertificates(String provisionerName, ServerInstance serverInstance) {
         List<RevokedCertificate> certificates = new ArrayList<>();
 
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
 
             // Certificates are revoked when they have a statusCode and a timestamp
@@ -216,6 +217,20 @@ public class ACMEOrder implements Serializable {
                 }
             }
 
+            // Revoked certificates that have already been moved into the archive must stay on the CRL
+            List<ACMEOrderArchive> archived = session.createQuery(
+                            "FROM ACMEOrderArchive a WHERE a.revokeStatusCode IS NOT NULL AND a.revokeTimestamp IS NOT NULL "
+                                    + "AND a.provisioner = :provisionerName", ACMEOrderArchive.class)
+                    .setParameter("provisionerName", provisionerName)
+                    .getResultList();
+            for (ACMEOrderArchive archivedCertificate : archived) {
+                certificates.add(new RevokedCertificate(
+                        archivedCertificate.getCertificateSerialNumber(),
+                        archivedCertificate.getRevokeTimestamp(),
+                        archivedCertificate.getRevokeStatusCode()
+                ));
+            }
+
             transaction.commit();
         } catch (Exception e) {
             LOG.error("Unable to get revoked certificates", e);
@@ -233,14 +248,19 @@ public class ACMEOrder implements Serializable {
      * @throws ACMEServerInternalException If an error occurs while revoking the certificate.
      */
     public static void revokeCertificate(ACMEOrder order, int reason, ServerInstance serverInstance) {
+        boolean alreadyRevoked = order.getRevokeTimestamp() != null;
         order.setRevokeTimestamp(Timestamp.from(Instant.now()));
         order.setRevokeStatusCode(reason);
 
         Transaction transaction;
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             transaction = session.beginTransaction();
 
             session.merge(order);
+            if (!alreadyRevoked) {
+                ProvisionerCounter.add(session, order.getAccount().getProvisioner(), ProvisionerCounter.Counter.CERTIFICATES_REVOKED, 1);
+                CertificateDailyRollup.add(session, order.getAccount().getProvisioner(), LocalDate.now(), 0, 1);
+            }
 
             transaction.commit();
             LOG.info("Revoked certificate with serial number {} (Provisioner {})", order.getCertificateSerialNumber(),
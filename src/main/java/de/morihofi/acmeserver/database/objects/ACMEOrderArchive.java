@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database.objects;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Archived certificate of an {@link ACMEOrder}. Certificates are moved here by the retention scheduler once they are expired for longer
+ * than the provisioners grace period. Only the data that is still of interest is kept, the CSR and the order's identifiers and challenges
+ * are dropped. Revocation data is retained, so that revoked certificates keep appearing in the CRL.
+ */
+@Entity
+@Table(name = "acmeorder_archive", indexes = {
+        @Index(name = "idx_acmeorder_archive_provisioner_revoked", columnList = "provisioner, revokeTimestamp")
+})
+@SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
+public class ACMEOrderArchive {
+
+    /**
+     * Internal ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ACME Order ID of the archived order
+     */
+    @Column(name = "orderId", unique = true, nullable = false)
+    private String orderId;
+
+    /**
+     * Name of the provisioner that issued the certificate
+     */
+    @Column(name = "provisioner", nullable = false)
+    private String provisioner;
+
+    /**
+     * ACME Account ID where the order belonged to
+     */
+    @Column(name = "accountId")
+    private String accountId;
+
+    /**
+     * Creation of the order
+     */
+    @Column(name = "created")
+    private Timestamp created;
+
+    /**
+     * Timestamp when the certificate was issued
+     */
+    @Column(name = "certificateIssued")
+    private Timestamp certificateIssued;
+
+    /**
+     * Timestamp when the certificate expired
+     */
+    @Column(name = "certificateExpires")
+    private Timestamp certificateExpires;
+
+    /**
+     * Issued certificate in PEM format
+     */
+    @Column(name = "certificatePem", columnDefinition = "TEXT")
+    private String certificatePem;
+
+    /**
+     * Serial number of the issued certificate
+     */
+    @Column(name = "certificateSerialNumber", precision = 50, scale = 0)
+    private BigInteger certificateSerialNumber;
+
+    /**
+     * Revocation reason code, null if the certificate was not revoked
+     */
+    @Column(name = "revokeStatusCode", nullable = true)
+    private Integer revokeStatusCode;
+
+    /**
+     * Timestamp of revocation, null if the certificate was not revoked
+     */
+    @Column(name = "revokeTimestamp", nullable = true)
+    private Timestamp revokeTimestamp;
+
+    /**
+     * Timestamp when the certificate was moved into the archive
+     */
+    @Column(name = "archived", nullable = false)
+    private Timestamp archived;
+
+    /**
+     * Creates an archive entry from the given order.
+     *
+     * @param order The order whose certificate is archived.
+     */
+    public ACMEOrderArchive(ACMEOrder order) {
+        this.orderId = order.getOrderId();
+        this.provisioner = order.getAccount().getProvisioner();
+        this.accountId = order.getAccount().getAccountId();
+        this.created = order.getCreated();
+        this.certificateIssued = order.getCertificateIssued();
+        this.certificateExpires = order.getCertificateExpires();
+        this.certificatePem = order.getCertificatePem();
+        this.certificateSerialNumber = order.getCertificateSerialNumber();
+        this.revokeStatusCode = order.getRevokeStatusCode();
+        this.revokeTimestamp = order.getRevokeTimestamp();
+        this.archived = Timestamp.from(Instant.now());
+    }
+
+    /**
+     * Default constructor required by Hibernate.
+     */
+    public ACMEOrderArchive() {
+    }
+
+    /**
+     * Get the internal ID.
+     *
+     * @return The id.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Get the aCME Order ID of the archived order.
+     *
+     * @return The orderId.
+     */
+    public String getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Get the name of the provisioner that issued the certificate.
+     *
+     * @return The provisioner.
+     */
+    public String getProvisioner() {
+        return provisioner;
+    }
+
+    /**
+     * Get the aCME Account ID where the order belonged to.
+     *
+     * @return The accountId.
+     */
+    public String getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Get the creation of the order.
+     *
+     * @return The created.
+     */
+    public Timestamp getCreated() {
+        return created;
+    }
+
+    /**
+     * Get the timestamp when the certificate was issued.
+     *
+     * @return The certificateIssued.
+     */
+    public Timestamp getCertificateIssued() {
+        return certificateIssued;
+    }
+
+    /**
+     * Get the timestamp when the certificate expired.
+     *
+     * @return The certificateExpires.
+     */
+    public Timestamp getCertificateExpires() {
+        return certificateExpires;
+    }
+
+    /**
+     * Get the issued certificate in PEM format.
+     *
+     * @return The certificatePem.
+     */
+    public String getCertificatePem() {
+        return certificatePem;
+    }
+
+    /**
+     * Get the serial number of the issued certificate.
+     *
+     * @return The certificateSerialNumber.
+     */
+    public BigInteger getCertificateSerialNumber() {
+        return certificateSerialNumber;
+    }
+
+    /**
+     * Get the revocation reason code, null if the certificate was not revoked.
+     *
+     * @return The revokeStatusCode.
+     */
+    public Integer getRevokeStatusCode() {
+        return revokeStatusCode;
+    }
+
+    /**
+     * Get the timestamp of revocation, null if the certificate was not revoked.
+     *
+     * @return The revokeTimestamp.
+     */
+    public Timestamp getRevokeTimestamp() {
+        return revokeTimestamp;
+    }
+
+    /**
+     * Get the timestamp when the certificate was moved into the archive.
+     *
+     * @return The archived.
+     */
+    public Timestamp getArchived() {
+        return archived;
+    }
+}
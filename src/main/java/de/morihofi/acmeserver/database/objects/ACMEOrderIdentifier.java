@@ -22,25 +22,33 @@ import de.morihofi.acmeserver.tools.ServerInstance;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Hibernate;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 
 import java.io.Serializable;
 import java.lang.invoke.MethodHandles;
+import java.sql.Timestamp;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents an ACME identifier entity used for managing order identifiers, challenges, and certificates.
  */
 @Entity
+@Table(name = "ACMEOrderIdentifier", indexes = {
+        @Index(name = "idx_acmeorderidentifier_reuse", columnList = "accountId, type, dataValue, authorizationStatus")
+})
 @SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
 public class ACMEOrderIdentifier implements Serializable {
 
@@ -58,7 +66,7 @@ public class ACMEOrderIdentifier implements Serializable {
      */
     public static ACMEOrderIdentifier getACMEIdentifierByAuthorizationId(String authorizationId, ServerInstance serverInstance) {
         ACMEOrderIdentifier identifier = null;
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
             identifier = session.createQuery("FROM ACMEOrderIdentifier WHERE authorizationId = :authorizationId", ACMEOrderIdentifier.class)
                     .setParameter("authorizationId", authorizationId)
@@ -79,6 +87,42 @@ public class ACMEOrderIdentifier implements Serializable {
         return identifier;
     }
 
+    /**
+     * Finds the most recently validated authorization of an account for an identifier that can still be reused by a new order.
+     *
+     * @param accountId      The ID of the account that requests the new order.
+     * @param type           The type of the identifier.
+     * @param dataValue      The value of the identifier.
+     * @param validatedAfter Authorizations validated at or before this time are expired and not returned.
+     * @param serverInstance The server instance for database connection.
+     * @return The identifier holding the valid authorization with its challenges loaded, or null if there is none.
+     */
+    public static ACMEOrderIdentifier findReusableAuthorization(String accountId, String type, String dataValue, Timestamp validatedAfter,
+                                                                ServerInstance serverInstance) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            ACMEOrderIdentifier identifier = session.createQuery("FROM ACMEOrderIdentifier WHERE accountId = :accountId AND type = :type "
+                                    + "AND dataValue = :dataValue AND authorizationStatus = :status AND authorizationValidated > :validatedAfter "
+                                    + "ORDER BY authorizationValidated DESC",
+                            ACMEOrderIdentifier.class)
+                    .setParameter("accountId", accountId)
+                    .setParameter("type", type)
+                    .setParameter("dataValue", dataValue)
+                    .setParameter("status", AcmeStatus.VALID)
+                    .setParameter("validatedAfter", validatedAfter)
+                    .setMaxResults(1)
+                    .uniqueResult();
+            if (identifier != null) {
+                Hibernate.initialize(identifier.getChallenges());
+            }
+            transaction.commit();
+            return identifier;
+        } catch (Exception e) {
+            LOG.error("Unable to look up reusable authorizations of account {} for {} identifier {}", accountId, type, dataValue, e);
+            return null;
+        }
+    }
+
     /**
      * Unique identifier for the ACME order identifier.
      */
@@ -123,6 +167,25 @@ public class ACMEOrderIdentifier implements Serializable {
     @Column(name = "authorizationId", nullable = false)
     private String authorizationId;
 
+    /**
+     * The ID of the account owning the order, denormalized to look up reusable authorizations without joining the order.
+     */
+    @Column(name = "accountId")
+    private String accountId;
+
+    /**
+     * The status of the authorization of this identifier. Null for identifiers created before authorizations could be reused.
+     */
+    @Column(name = "authorizationStatus")
+    @Enumerated(EnumType.STRING)
+    private AcmeStatus authorizationStatus;
+
+    /**
+     * The timestamp when the authorization of this identifier became valid.
+     */
+    @Column(name = "authorizationValidated")
+    private Timestamp authorizationValidated;
+
     /**
      * Creates an instance of ACME identifier with a specified type and data value.
      *
@@ -239,20 +302,79 @@ public class ACMEOrderIdentifier implements Serializable {
         this.authorizationId = authorizationId;
     }
 
+    /**
+     * Gets the ID of the account owning the order of this identifier.
+     *
+     * @return The account ID.
+     */
+    public String getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Sets the ID of the account owning the order of this identifier.
+     *
+     * @param accountId The account ID to set.
+     */
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    /**
+     * Gets the status of the authorization of this identifier.
+     *
+     * @return The authorization status, or null for identifiers created before authorizations could be reused.
+     */
+    public AcmeStatus getAuthorizationStatus() {
+        return authorizationStatus;
+    }
+
+    /**
+     * Sets the status of the authorization of this identifier.
+     *
+     * @param authorizationStatus The authorization status to set.
+     */
+    public void setAuthorizationStatus(AcmeStatus authorizationStatus) {
+        this.authorizationStatus = authorizationStatus;
+    }
+
+    /**
+     * Gets the timestamp when the authorization of this identifier became valid.
+     *
+     * @return The validation timestamp, or null if the authorization is not valid.
+     */
+    public Timestamp getAuthorizationValidated() {
+        return authorizationValidated;
+    }
+
+    /**
+     * Sets the timestamp when the authorization of this identifier became valid.
+     *
+     * @param authorizationValidated The validation timestamp to set.
+     */
+    public void setAuthorizationValidated(Timestamp authorizationValidated) {
+        this.authorizationValidated = authorizationValidated;
+    }
+
     /**
      * Gets the challenge status for this identifier.
      *
-     * @return The challenge status, VALID if at least one challenge is valid, otherwise PENDING.
+     * @return The challenge status, VALID if at least one challenge is valid, INVALID if a challenge failed (RFC 8555, section 7.1.6),
+     *         otherwise PENDING.
      */
     public AcmeStatus getChallengeStatus() {
+        boolean failed = false;
         // Checks whether there is at least one challenge with the status VALID
         for (ACMEOrderIdentifierChallenge challenge : challenges) {
             if (challenge.getStatus() == AcmeStatus.VALID) {
                 return AcmeStatus.VALID;
             }
+            if (challenge.getStatus() == AcmeStatus.INVALID) {
+                failed = true;
+            }
         }
         // Default return if no challenge has the status VALID
-        return AcmeStatus.PENDING;
+        return failed ? AcmeStatus.INVALID : AcmeStatus.PENDING;
     }
 
     /**
@@ -34,7 +34,6 @@ import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.Base64;
-import java.util.Objects;
 
 /**
  * Represents an ACME order identifier entity used for managing challenge verification.
@@ -57,7 +56,7 @@ public class ACMEOrderIdentifierChallenge implements Serializable {
      */
     public static ACMEOrderIdentifierChallenge getACMEIdentifierChallenge(String challengeId, ServerInstance serverInstance) {
         ACMEOrderIdentifierChallenge challenge = null;
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             Transaction transaction = session.beginTransaction();
             challenge = session.createQuery("FROM ACMEOrderIdentifierChallenge WHERE challengeId = :challengeId",
                             ACMEOrderIdentifierChallenge.class)
@@ -91,15 +90,22 @@ public class ACMEOrderIdentifierChallenge implements Serializable {
     @Transactional
     public static void passChallenge(String challengeId, ServerInstance serverInstance) {
         Transaction transaction = null;
-        try (Session session = Objects.requireNonNull(serverInstance.getHibernateUtil().getSessionFactory()).openSession()) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
             transaction = session.beginTransaction();
 
             ACMEOrderIdentifierChallenge orderIdentifierChallenge = session.get(ACMEOrderIdentifierChallenge.class, challengeId);
             if (orderIdentifierChallenge != null) {
+                Timestamp verifiedTime = Timestamp.from(Instant.now());
                 orderIdentifierChallenge.setStatus(AcmeStatus.VALID);
-                orderIdentifierChallenge.setVerifiedTime(Timestamp.from(Instant.now()));
+                orderIdentifierChallenge.setVerifiedTime(verifiedTime);
                 session.merge(orderIdentifierChallenge);
 
+                // A single valid challenge makes the whole authorization valid and reusable by later orders
+                ACMEOrderIdentifier identifier = orderIdentifierChallenge.getIdentifier();
+                identifier.setAuthorizationStatus(AcmeStatus.VALID);
+                identifier.setAuthorizationValidated(verifiedTime);
+                session.merge(identifier);
+
                 LOG.info("ACME challenge {} was marked as passed", challengeId);
 
                 transaction.commit();
@@ -114,6 +120,81 @@ public class ACMEOrderIdentifierChallenge implements Serializable {
         }
     }
 
+    /**
+     * This function marks an ACME challenge as failed. The challenge can't be retried afterwards, the client has to create a new order.
+     *
+     * @param challengeId    The ID of the Challenge, provided in URL.
+     * @param reason         Why the validation failed, for logging.
+     * @param serverInstance The server instance for database connection.
+     */
+    @Transactional
+    public static void failChallenge(String challengeId, String reason, ServerInstance serverInstance) {
+        Transaction transaction = null;
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            transaction = session.beginTransaction();
+
+            ACMEOrderIdentifierChallenge orderIdentifierChallenge = session.get(ACMEOrderIdentifierChallenge.class, challengeId);
+            if (orderIdentifierChallenge != null) {
+                orderIdentifierChallenge.setStatus(AcmeStatus.INVALID);
+                session.merge(orderIdentifierChallenge);
+
+                ACMEOrderIdentifier identifier = orderIdentifierChallenge.getIdentifier();
+                if (identifier.getAuthorizationStatus() != AcmeStatus.VALID) {
+                    identifier.setAuthorizationStatus(AcmeStatus.INVALID);
+                    session.merge(identifier);
+                }
+
+                LOG.info("ACME challenge {} was marked as failed: {}", challengeId, reason);
+
+                transaction.commit();
+            } else {
+                LOG.warn("No ACME challenge found with id {}", challengeId);
+            }
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            LOG.error("Unable to mark ACME challenge as failed", e);
+        }
+    }
+
+    /**
+     * Claims an ACME challenge for validation by marking it as processing. The claim is a conditional update, so of concurrent requests on
+     * any server node only one claims the challenge. A challenge that is still processing since before {@code staleProcessingBefore} is
+     * claimed again, its validation has been lost, e.g. because the node validating it was stopped.
+     *
+     * @param challengeId           The ID of the Challenge, provided in URL.
+     * @param staleProcessingBefore Challenges processing since before this time are claimed again.
+     * @param serverInstance        The server instance for database connection.
+     * @return {@code true} if the challenge was claimed and has to be validated by the caller.
+     * @throws RuntimeException If the challenge cannot be updated.
+     */
+    @Transactional
+    public static boolean claimChallenge(String challengeId, Instant staleProcessingBefore, ServerInstance serverInstance) {
+        Transaction transaction = null;
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            transaction = session.beginTransaction();
+
+            int claimed = session.createMutationQuery("UPDATE ACMEOrderIdentifierChallenge c "
+                            + "SET c.status = :processing, c.processingStarted = :now "
+                            + "WHERE c.challengeId = :challengeId AND (c.status = :pending OR (c.status = :processing "
+                            + "AND (c.processingStarted IS NULL OR c.processingStarted < :staleProcessingBefore)))")
+                    .setParameter("processing", AcmeStatus.PROCESSING)
+                    .setParameter("pending", AcmeStatus.PENDING)
+                    .setParameter("now", Timestamp.from(Instant.now()))
+                    .setParameter("challengeId", challengeId)
+                    .setParameter("staleProcessingBefore", Timestamp.from(staleProcessingBefore))
+                    .executeUpdate();
+            transaction.commit();
+            return claimed == 1;
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+
     /**
      * Unique identifier for the ACME order identifier challenge.
      */
@@ -154,6 +235,12 @@ public class ACMEOrderIdentifierChallenge implements Serializable {
     @Enumerated(EnumType.STRING)
     private AcmeStatus status;
 
+    /**
+     * The timestamp when this challenge was claimed for validation.
+     */
+    @Column(name = "processingStarted")
+    private Timestamp processingStarted;
+
     /**
      * Default constructor for ACME order identifier challenge.
      */
@@ -286,4 +373,22 @@ public class ACMEOrderIdentifierChallenge implements Serializable {
     public void setStatus(AcmeStatus status) {
         this.status = status;
     }
+
+    /**
+     * Retrieves the timestamp when this challenge was claimed for validation.
+     *
+     * @return The timestamp, or null if the challenge has not been claimed.
+     */
+    public Timestamp getProcessingStarted() {
+        return processingStarted;
+    }
+
+    /**
+     * Sets the timestamp when this challenge was claimed for validation.
+     *
+     * @param processingStarted The timestamp to set.
+     */
+    public void setProcessingStarted(Timestamp processingStarted) {
+        this.processingStarted = processingStarted;
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database.objects;
+
+import de.morihofi.acmeserver.database.NativeSql;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.Session;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily rollup of issued and revoked certificates of a provisioner. Issued certificates are counted on the day their order was created,
+ * revoked certificates on the day of revocation. The rows are maintained incrementally within the transaction of the state transition and
+ * corrected by the backfill in {@link de.morihofi.acmeserver.certificate.provisioners.ProvisionerStatistics}.
+ */
+@Entity
+@Table(name = "certificate_daily_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uc_certificate_daily_rollup_provisioner_day", columnNames = {"provisioner", "rollupDay"})
+})
+@SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
+public class CertificateDailyRollup {
+
+    /**
+     * Adds the given deltas to the rollup row of a provisioner and day, the row is created if it does not exist yet. Must be called with
+     * the session and within the transaction that performs the counted state transition.
+     *
+     * @param session     Session of the state transition.
+     * @param provisioner Name of the provisioner.
+     * @param day         Day to count the transition on.
+     * @param issued      Value to add to the issued certificates.
+     * @param revoked     Value to add to the revoked certificates.
+     */
+    public static void add(Session session, String provisioner, LocalDate day, long issued, long revoked) {
+        if (increment(session, provisioner, day, issued, revoked) == 0) {
+            // First transition of the day, concurrent transitions must not fail on creating the row
+            NativeSql.insertIfAbsent(session, "certificate_daily_rollup", List.of("provisioner", "rollupDay"),
+                    List.of("provisioner", "rollupDay", "issued", "revoked"), List.of(provisioner, day, 0L, 0L));
+            increment(session, provisioner, day, issued, revoked);
+        }
+    }
+
+    /**
+     * Adds the given deltas to the rollup row of a provisioner and day, if it exists.
+     *
+     * @param session     Session to use.
+     * @param provisioner Name of the provisioner.
+     * @param day         Day to count the transition on.
+     * @param issued      Value to add to the issued certificates.
+     * @param revoked     Value to add to the revoked certificates.
+     * @return The number of updated rows, 0 if there is no row for the day yet.
+     */
+    private static int increment(Session session, String provisioner, LocalDate day, long issued, long revoked) {
+        return session.createMutationQuery("UPDATE CertificateDailyRollup r SET r.issued = r.issued + :issued, "
+                        + "r.revoked = r.revoked + :revoked WHERE r.provisioner = :provisioner AND r.day = :day")
+                .setParameter("issued", issued)
+                .setParameter("revoked", revoked)
+                .setParameter("provisioner", provisioner)
+                .setParameter("day", day)
+                .executeUpdate();
+    }
+
+    /**
+     * Internal ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Name of the provisioner
+     */
+    @Column(name = "provisioner", nullable = false)
+    private String provisioner;
+
+    /**
+     * Day of the rollup
+     */
+    @Column(name = "rollupDay", nullable = false)
+    private LocalDate day;
+
+    /**
+     * Number of certificates issued for orders created on this day
+     */
+    @Column(name = "issued", nullable = false)
+    private long issued;
+
+    /**
+     * Number of certificates revoked on this day
+     */
+    @Column(name = "revoked", nullable = false)
+    private long revoked;
+
+    /**
+     * Constructs a rollup row.
+     *
+     * @param provisioner Name of the provisioner.
+     * @param day         Day of the rollup.
+     * @param issued      Number of issued certificates.
+     * @param revoked     Number of revoked certificates.
+     */
+    public CertificateDailyRollup(String provisioner, LocalDate day, long issued, long revoked) {
+        this.provisioner = provisioner;
+        this.day = day;
+        this.issued = issued;
+        this.revoked = revoked;
+    }
+
+    /**
+     * Default constructor required by Hibernate.
+     */
+    public CertificateDailyRollup() {
+    }
+
+    /**
+     * Get the name of the provisioner.
+     *
+     * @return The provisioner name.
+     */
+    public String getProvisioner() {
+        return provisioner;
+    }
+
+    /**
+     * Get the day of the rollup.
+     *
+     * @return The day.
+     */
+    public LocalDate getDay() {
+        return day;
+    }
+
+    /**
+     * Get the number of certificates issued for orders created on this day.
+     *
+     * @return The number of issued certificates.
+     */
+    public long getIssued() {
+        return issued;
+    }
+
+    /**
+     * Get the number of certificates revoked on this day.
+     *
+     * @return The number of revoked certificates.
+     */
+    public long getRevoked() {
+        return revoked;
+    }
+}
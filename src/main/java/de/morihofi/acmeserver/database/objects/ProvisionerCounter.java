@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database.objects;
+
+import de.morihofi.acmeserver.database.NativeSql;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Materialized statistic counters of a provisioner. The counters are updated within the same transaction as the state transition they
+ * count, so reading the statistics does not need to scan the order and account tables. A periodic reconcile corrects any drift against
+ * the source tables.
+ */
+@Entity
+@Table(name = "provisioner_counters")
+@SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
+public class ProvisionerCounter {
+
+    /**
+     * The counters that are maintained for each provisioner.
+     */
+    public enum Counter {
+        /**
+         * Number of ACME accounts, including deactivated ones
+         */
+        ACME_ACCOUNTS("acmeAccounts"),
+        /**
+         * Number of ACME accounts that are not deactivated
+         */
+        ACTIVE_ACME_ACCOUNTS("activeAcmeAccounts"),
+        /**
+         * Number of issued certificates
+         */
+        CERTIFICATES_ISSUED("certificatesIssued"),
+        /**
+         * Number of revoked certificates
+         */
+        CERTIFICATES_REVOKED("certificatesRevoked"),
+        /**
+         * Number of submitted CSRs still waiting for their certificate
+         */
+        CERTIFICATES_WAITING("certificatesWaiting");
+
+        /**
+         * Name of the entity attribute holding the counter
+         */
+        private final String attribute;
+
+        /**
+         * Constructor for a counter.
+         *
+         * @param attribute Name of the entity attribute holding the counter.
+         */
+        Counter(String attribute) {
+            this.attribute = attribute;
+        }
+
+        /**
+         * Gets the name of the entity attribute holding the counter.
+         *
+         * @return The attribute name.
+         */
+        public String getAttribute() {
+            return attribute;
+        }
+    }
+
+    /**
+     * Adds the given delta to a counter of a provisioner. Must be called with the session and within the transaction that performs the
+     * counted state transition, so that the counter and the state are committed or rolled back together.
+     *
+     * @param session     Session of the state transition.
+     * @param provisioner Name of the provisioner.
+     * @param counter     Counter to update.
+     * @param delta       Value to add, may be negative.
+     */
+    public static void add(Session session, String provisioner, Counter counter, long delta) {
+        if (increment(session, provisioner, counter, delta) == 0) {
+            // First transition of a new provisioner, concurrent transitions must not fail on creating the row
+            createIfAbsent(session, provisioner);
+            increment(session, provisioner, counter, delta);
+        }
+    }
+
+    /**
+     * Creates the counters of a provisioner, all starting at zero, unless they exist. Safe to call concurrently, e.g. by several server
+     * nodes.
+     *
+     * @param session     Session to use.
+     * @param provisioner Name of the provisioner.
+     */
+    public static void createIfAbsent(Session session, String provisioner) {
+        NativeSql.insertIfAbsent(session, "provisioner_counters", List.of("provisioner"),
+                List.of("provisioner", "acmeAccounts", "activeAcmeAccounts", "certificatesIssued", "certificatesRevoked",
+                        "certificatesWaiting"),
+                List.of(provisioner, 0L, 0L, 0L, 0L, 0L));
+    }
+
+    /**
+     * Adds the given delta to a counter of a provisioner, if its row exists.
+     *
+     * @param session     Session to use.
+     * @param provisioner Name of the provisioner.
+     * @param counter     Counter to update.
+     * @param delta       Value to add, may be negative.
+     * @return The number of updated rows, 0 if the provisioner has no counters yet.
+     */
+    private static int increment(Session session, String provisioner, Counter counter, long delta) {
+        return session.createMutationQuery("UPDATE ProvisionerCounter c SET c." + counter.getAttribute() + " = c."
+                        + counter.getAttribute() + " + :delta WHERE c.provisioner = :provisioner")
+                .setParameter("delta", delta)
+                .setParameter("provisioner", provisioner)
+                .executeUpdate();
+    }
+
+    /**
+     * Name of the provisioner
+     */
+    @Id
+    @Column(name = "provisioner", nullable = false)
+    private String provisioner;
+
+    /**
+     * Number of ACME accounts, including deactivated ones
+     */
+    @Column(name = "acmeAccounts", nullable = false)
+    private long acmeAccounts;
+
+    /**
+     * Number of ACME accounts that are not deactivated
+     */
+    @Column(name = "activeAcmeAccounts", nullable = false)
+    private long activeAcmeAccounts;
+
+    /**
+     * Number of issued certificates
+     */
+    @Column(name = "certificatesIssued", nullable = false)
+    private long certificatesIssued;
+
+    /**
+     * Number of revoked certificates
+     */
+    @Column(name = "certificatesRevoked", nullable = false)
+    private long certificatesRevoked;
+
+    /**
+     * Number of submitted CSRs still waiting for their certificate
+     */
+    @Column(name = "certificatesWaiting", nullable = false)
+    private long certificatesWaiting;
+
+    /**
+     * Timestamp of the last reconcile, null if the counters were never rebuilt
+     */
+    @Column(name = "reconciled", nullable = true)
+    private Timestamp reconciled;
+
+    /**
+     * Constructs counters for the given provisioner, all counters start at zero.
+     *
+     * @param provisioner Name of the provisioner.
+     */
+    public ProvisionerCounter(String provisioner) {
+        this.provisioner = provisioner;
+    }
+
+    /**
+     * Default constructor required by Hibernate.
+     */
+    public ProvisionerCounter() {
+    }
+
+    /**
+     * Gets the value of a counter.
+     *
+     * @param counter Counter to get.
+     * @return The value of the counter.
+     */
+    public long get(Counter counter) {
+        return switch (counter) {
+            case ACME_ACCOUNTS -> acmeAccounts;
+            case ACTIVE_ACME_ACCOUNTS -> activeAcmeAccounts;
+            case CERTIFICATES_ISSUED -> certificatesIssued;
+            case CERTIFICATES_REVOKED -> certificatesRevoked;
+            case CERTIFICATES_WAITING -> certificatesWaiting;
+        };
+    }
+
+    /**
+     * Sets the value of a counter.
+     *
+     * @param counter Counter to set.
+     * @param value   The value to set.
+     */
+    public void set(Counter counter, long value) {
+        switch (counter) {
+            case ACME_ACCOUNTS -> acmeAccounts = value;
+            case ACTIVE_ACME_ACCOUNTS -> activeAcmeAccounts = value;
+            case CERTIFICATES_ISSUED -> certificatesIssued = value;
+            case CERTIFICATES_REVOKED -> certificatesRevoked = value;
+            case CERTIFICATES_WAITING -> certificatesWaiting = value;
+        }
+    }
+
+    /**
+     * Get the name of the provisioner.
+     *
+     * @return The provisioner name.
+     */
+    public String getProvisioner() {
+        return provisioner;
+    }
+
+    /**
+     * Get the timestamp of the last reconcile.
+     *
+     * @return The timestamp, or null if the counters were never rebuilt.
+     */
+    public Timestamp getReconciled() {
+        return reconciled;
+    }
+
+    /**
+     * Set the timestamp of the last reconcile.
+     *
+     * @param reconciled The timestamp to set.
+     */
+    public void setReconciled(Timestamp reconciled) {
+        this.reconciled = reconciled;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.database.objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * State of a rate limit bucket shared between server nodes. Only buckets that are not full have a row, see
+ * {@link de.morihofi.acmeserver.certificate.acme.ratelimit.RateLimitStore}.
+ */
+@Entity
+@Table(name = "rate_limit_buckets")
+public class RateLimitBucket {
+
+    /**
+     * Key of the bucket, consisting of provisioner, limit and subject (account, IP prefix or domain)
+     */
+    @Id
+    @Column(name = "bucketKey", nullable = false)
+    private String bucketKey;
+
+    /**
+     * Theoretical arrival time of the next request in milliseconds since the epoch
+     */
+    @Column(name = "theoreticalArrival", nullable = false)
+    private long theoreticalArrival;
+
+    /**
+     * Constructs the state of a bucket.
+     *
+     * @param bucketKey          Key of the bucket.
+     * @param theoreticalArrival Theoretical arrival time of the next request in milliseconds since the epoch.
+     */
+    public RateLimitBucket(String bucketKey, long theoreticalArrival) {
+        this.bucketKey = bucketKey;
+        this.theoreticalArrival = theoreticalArrival;
+    }
+
+    /**
+     * Default constructor required by Hibernate.
+     */
+    public RateLimitBucket() {
+    }
+
+    /**
+     * Gets the key of the bucket.
+     *
+     * @return The bucket key.
+     */
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    /**
+     * Gets the theoretical arrival time of the next request.
+     *
+     * @return The theoretical arrival time in milliseconds since the epoch.
+     */
+    public long getTheoreticalArrival() {
+        return theoreticalArrival;
+    }
+
+    /**
+     * Sets the theoretical arrival time of the next request.
+     *
+     * @param theoreticalArrival The theoretical arrival time in milliseconds since the epoch.
+     */
+    public void setTheoreticalArrival(long theoreticalArrival) {
+        this.theoreticalArrival = theoreticalArrival;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database.retention;
+
+import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
+import de.morihofi.acmeserver.config.RetentionConfig;
+import de.morihofi.acmeserver.database.AcmeOrderState;
+import de.morihofi.acmeserver.database.objects.ACMEOrder;
+import de.morihofi.acmeserver.database.objects.ACMEOrderArchive;
+import de.morihofi.acmeserver.database.objects.ProvisionerCounter;
+import de.morihofi.acmeserver.tools.ServerInstance;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.lang.invoke.MethodHandles;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Applies the {@link RetentionConfig} of a single provisioner. Abandoned orders are deleted after they are expired for longer than the
+ * configured grace period, certificates that are expired for longer than the archive grace period are moved into the
+ * {@link ACMEOrderArchive} table. Both operations run in bounded batches, each batch within its own transaction, so that the primary tables
+ * are never locked for long.
+ */
+@SuppressFBWarnings({"EI_EXPOSE_REP2", "EI_EXPOSE_REP"})
+public class OrderRetentionTask {
+
+    /**
+     * Logger for logging events and errors.
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Upper bound of batches processed per run and operation, remaining orders are picked up by the next run.
+     */
+    private static final int MAX_BATCHES_PER_RUN = 100;
+
+    /**
+     * The provisioner whose orders are processed.
+     */
+    private final Provisioner provisioner;
+
+    /**
+     * Instance of the server.
+     */
+    private final ServerInstance serverInstance;
+
+    /**
+     * Constructs a retention task for the given provisioner.
+     *
+     * @param provisioner    The provisioner whose orders are processed.
+     * @param serverInstance The server instance for database connection.
+     */
+    public OrderRetentionTask(Provisioner provisioner, ServerInstance serverInstance) {
+        this.provisioner = provisioner;
+        this.serverInstance = serverInstance;
+    }
+
+    /**
+     * Gets the provisioner whose orders are processed.
+     *
+     * @return The provisioner.
+     */
+    public Provisioner getProvisioner() {
+        return provisioner;
+    }
+
+    /**
+     * Runs the retention policy of the provisioner, if it is enabled.
+     */
+    public void run() {
+        RetentionConfig retentionConfig = provisioner.getConfig().getRetention();
+        if (retentionConfig == null || !retentionConfig.getEnabled()) {
+            return;
+        }
+        int batchSize = Math.max(1, retentionConfig.getBatchSize());
+
+        Timestamp pendingCutoff = Timestamp.from(Instant.now().minus(Duration.ofHours(retentionConfig.getPendingOrderGracePeriodHours())));
+        int purged = 0;
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            int processed = purgeAbandonedOrders(pendingCutoff, batchSize);
+            purged += processed;
+            if (processed < batchSize) {
+                break;
+            }
+        }
+
+        Timestamp archiveCutoff =
+                Timestamp.from(Instant.now().minus(Duration.ofDays(retentionConfig.getCertificateArchiveGracePeriodDays())));
+        int archived = 0;
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            int processed = archiveExpiredCertificates(archiveCutoff, batchSize);
+            archived += processed;
+            if (processed < batchSize) {
+                break;
+            }
+        }
+
+        LOG.info("Retention for provisioner {} finished: {} abandoned orders deleted, {} certificates archived",
+                provisioner.getProvisionerName(), purged, archived);
+    }
+
+    /**
+     * Deletes one batch of orders that never got a certificate and are expired since before the given cutoff.
+     *
+     * @param cutoff    Orders expired before this timestamp are deleted.
+     * @param batchSize Maximum number of orders to delete.
+     * @return Number of deleted orders.
+     */
+    private int purgeAbandonedOrders(Timestamp cutoff, int batchSize) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            Transaction transaction = session.beginTransaction();
+
+            List<ACMEOrder> orders = session.createQuery("FROM ACMEOrder o WHERE o.account.provisioner = :provisioner "
+                            + "AND o.certificatePem IS NULL AND o.orderState <> :issuing AND o.expires < :cutoff ORDER BY o.id", ACMEOrder.class)
+                    .setParameter("provisioner", provisioner.getProvisionerName())
+                    .setParameter("issuing", AcmeOrderState.NEED_A_CERTIFICATE)
+                    .setParameter("cutoff", cutoff)
+                    .setMaxResults(batchSize)
+                    .getResultList();
+
+            long waiting = orders.stream().filter(order -> order.getCertificateCSR() != null).count();
+            deleteOrders(session, orders);
+            if (waiting > 0) {
+                // Orders whose generation failed still count as waiting
+                ProvisionerCounter.add(session, provisioner.getProvisionerName(), ProvisionerCounter.Counter.CERTIFICATES_WAITING, -waiting);
+            }
+
+            transaction.commit();
+            return orders.size();
+        } catch (Exception e) {
+            LOG.error("Unable to delete abandoned orders of provisioner {}", provisioner.getProvisionerName(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Moves one batch of certificates that are expired since before the given cutoff into the archive.
+     *
+     * @param cutoff    Certificates expired before this timestamp are archived.
+     * @param batchSize Maximum number of certificates to archive.
+     * @return Number of archived certificates.
+     */
+    private int archiveExpiredCertificates(Timestamp cutoff, int batchSize) {
+        try (Session session = serverInstance.getHibernateUtil().openSession()) {
+            Transaction transaction = session.beginTransaction();
+
+            List<ACMEOrder> orders = session.createQuery("FROM ACMEOrder o WHERE o.account.provisioner = :provisioner "
+                            + "AND o.certificatePem IS NOT NULL AND o.certificateExpires < :cutoff ORDER BY o.id", ACMEOrder.class)
+                    .setParameter("provisioner", provisioner.getProvisionerName())
+                    .setParameter("cutoff", cutoff)
+                    .setMaxResults(batchSize)
+                    .getResultList();
+
+            for (ACMEOrder order : orders) {
+                // Revocation data is carried over, the CRL generator reads it from the archive as well
+                session.persist(new ACMEOrderArchive(order));
+            }
+            deleteOrders(session, orders);
+
+            transaction.commit();
+            return orders.size();
+        } catch (Exception e) {
+            LOG.error("Unable to archive expired certificates of provisioner {}", provisioner.getProvisionerName(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes the given orders together with their identifiers and challenges.
+     *
+     * @param session Session to use.
+     * @param orders  Orders to delete.
+     */
+    private static void deleteOrders(Session session, List<ACMEOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<String> identifierIds = session.createQuery(
+                        "SELECT i.identifierId FROM ACMEOrderIdentifier i WHERE i.order IN :orders", String.class)
+                .setParameter("orders", orders)
+                .getResultList();
+
+        if (!identifierIds.isEmpty()) {
+            session.createMutationQuery("DELETE FROM ACMEOrderIdentifierChallenge c WHERE c.identifier.identifierId IN :identifierIds")
+                    .setParameter("identifierIds", identifierIds)
+                    .executeUpdate();
+            session.createMutationQuery("DELETE FROM ACMEOrderIdentifier i WHERE i.identifierId IN :identifierIds")
+                    .setParameter("identifierIds", identifierIds)
+                    .executeUpdate();
+        }
+        session.createMutationQuery("DELETE FROM ACMEOrder o WHERE o IN :orders")
+                .setParameter("orders", orders)
+                .executeUpdate();
+    }
+}
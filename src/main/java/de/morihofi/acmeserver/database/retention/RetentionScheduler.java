@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.database.retention;
+
+import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
+import de.morihofi.acmeserver.tools.ServerInstance;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically applies the retention policies of all registered provisioners.
+ */
+public class RetentionScheduler {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Interval between two retention runs.
+     */
+    private static final int UPDATE_MINUTES = 60;
+
+    /**
+     * Retention tasks by provisioner name.
+     */
+    private static final Map<String, OrderRetentionTask> retentionMap = Collections.synchronizedMap(new HashMap<>());
+
+    /**
+     * Executor running the retention tasks.
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+
+    /**
+     * Starts the scheduler. The first run is delayed a bit to not slow down the startup.
+     */
+    public static void startScheduler() {
+        LOG.info("Initialized Retention Scheduler");
+        scheduler.scheduleWithFixedDelay(RetentionScheduler::schedule, 1, UPDATE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Runs the retention tasks of all registered provisioners.
+     */
+    private static void schedule() {
+        LOG.info("Retention Scheduler is running");
+
+        OrderRetentionTask[] tasks;
+        synchronized (retentionMap) {
+            tasks = retentionMap.values().toArray(new OrderRetentionTask[0]);
+        }
+        for (OrderRetentionTask task : tasks) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                LOG.error("Retention for provisioner {} failed", task.getProvisioner().getProvisionerName(), e);
+            }
+        }
+
+        LOG.info("Retention Scheduler finished execution");
+    }
+
+    /**
+     * Adds a provisioner to the retention scheduling.
+     *
+     * @param provisioner    The provisioner to add.
+     * @param serverInstance The server instance for database connection.
+     */
+    public static void addProvisionerToScheduler(Provisioner provisioner, ServerInstance serverInstance) {
+        LOG.info("{} provisioner has been added for retention scheduling", provisioner.getProvisionerName());
+        retentionMap.put(provisioner.getProvisionerName(), new OrderRetentionTask(provisioner, serverInstance));
+    }
+
+    /**
+     * Removes a provisioner from the retention scheduling.
+     *
+     * @param provisionerName The name of the provisioner to remove.
+     */
+    public static void removeProvisionerFromScheduler(String provisionerName) {
+        if (retentionMap.remove(provisionerName) != null) {
+            LOG.info("{} provisioner has been removed from retention scheduling", provisionerName);
+        }
+    }
+
+    /**
+     * Shuts down the executor service.
+     */
+    public static void shutdown() {
+        LOG.info("Retention Scheduler is shutting down");
+        scheduler.shutdown();
+        retentionMap.clear();
+    }
+}
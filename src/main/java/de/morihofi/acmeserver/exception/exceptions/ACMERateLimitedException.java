@@ -29,14 +29,39 @@ public class ACMERateLimitedException extends ACMEException {
      */
     private final String message;
 
+    /**
+     * Seconds after which the client may retry, 0 if unknown
+     */
+    private final long retryAfterSeconds;
+
     /**
      * Constructs an instance of ACMERateLimitedException with the specified error message.
      *
      * @param message The error message that describes the exception.
      */
     public ACMERateLimitedException(String message) {
+        this(message, 0);
+    }
+
+    /**
+     * Constructs an instance of ACMERateLimitedException with the specified error message and retry delay.
+     *
+     * @param message           The error message that describes the exception.
+     * @param retryAfterSeconds Seconds after which the client may retry, sent as {@code Retry-After} header.
+     */
+    public ACMERateLimitedException(String message, long retryAfterSeconds) {
         super(message);
         this.message = message;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Gets the seconds after which the client may retry.
+     *
+     * @return The retry delay in seconds, 0 if unknown.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
 
     @Override
@@ -18,6 +18,8 @@ package de.morihofi.acmeserver.tools;
 
 import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.Identifier;
 import de.morihofi.acmeserver.config.Config;
+import de.morihofi.acmeserver.config.SslServerConfig;
+import de.morihofi.acmeserver.config.certificateAlgorithms.AlgorithmParams;
 import de.morihofi.acmeserver.tools.certificate.CertTools;
 import de.morihofi.acmeserver.tools.certificate.cryptoops.CryptoStoreManager;
 import de.morihofi.acmeserver.tools.certificate.generator.KeyPairGenerator;
@@ -126,6 +128,7 @@ public class JavalinSecurityHelper {
         int httpPort = appConfig.getServer().getPorts().getHttp();
         int httpsPort = appConfig.getServer().getPorts().getHttps();
         boolean enableSniCheck = appConfig.getServer().isEnableSniCheck();
+        SslServerConfig sslServerConfig = appConfig.getServer().getSslServerConfig();
 
         /*
          * Why we don't use Javalin's official SSL Plugin?
@@ -135,7 +138,7 @@ public class JavalinSecurityHelper {
          */
 
         JettySslHelper.updateSslJetty(httpsPort, httpPort, keyStore, CryptoStoreManager.KEYSTORE_ALIAS_ACMEAPI, app.jettyServer(),
-                enableSniCheck, mozillaSSlConfig);
+                enableSniCheck, mozillaSSlConfig, sslServerConfig);
 
         LOG.info("Registering ACME API certificate expiration watcher");
 
@@ -147,7 +150,7 @@ public class JavalinSecurityHelper {
                     try {
                         LOG.info("Certificate renewed successfully, now reloading ACME API certificate");
                         JettySslHelper.updateSslJetty(httpsPort, httpPort, keyStore, CryptoStoreManager.KEYSTORE_ALIAS_ACMEAPI,
-                                app.jettyServer(), enableSniCheck, mozillaSSlConfig);
+                                app.jettyServer(), enableSniCheck, mozillaSSlConfig, sslServerConfig);
                     } catch (Exception e) {
                         throw new RuntimeException(e);
                     }
@@ -155,7 +158,8 @@ public class JavalinSecurityHelper {
     }
 
     /**
-     * Generates an ACME API client certificate for the ACME Web Server API, if it doesn't already exist in the key store.
+     * Generates an ACME API client certificate for the ACME Web Server API, if it doesn't already exist in the key store, is no longer valid
+     * or its key doesn't match the configured {@link SslServerConfig#getApiCertificateAlgorithm() algorithm}.
      *
      * @param cryptoStoreManager The crypto store manager used for managing certificates and keys.
      * @param appConfig          The application configuration containing settings for the ACME API and certificates.
@@ -166,26 +170,34 @@ public class JavalinSecurityHelper {
      * @throws OperatorCreationException If there is an issue creating a cryptographic operator.
      * @throws KeyStoreException         If there is an issue with the keystore.
      * @throws UnrecoverableKeyException If a keystore key cannot be recovered.
+     * @throws InvalidAlgorithmParameterException If the configured curve name is invalid or not supported.
      */
     private static CertificateRenewManager.CertificateData generateAcmeApiClientCertificate(CryptoStoreManager cryptoStoreManager,
                                                                                             Config appConfig) throws CertificateException, IOException, NoSuchAlgorithmException, NoSuchProviderException,
-            OperatorCreationException, KeyStoreException, UnrecoverableKeyException {
+            OperatorCreationException, KeyStoreException, UnrecoverableKeyException, InvalidAlgorithmParameterException {
         String rootCaAlias = CryptoStoreManager.KEYSTORE_ALIAS_ROOTCA;
 
         KeyPair rootCaKeyPair = cryptoStoreManager.getCerificateAuthorityKeyPair();
 
+        AlgorithmParams apiCertificateAlgorithm = appConfig.getServer().getSslServerConfig().getApiCertificateAlgorithm();
+        if (apiCertificateAlgorithm == null) {
+            apiCertificateAlgorithm = new SslServerConfig().getApiCertificateAlgorithm();
+        }
+
+        X509Certificate existingCertificate = (X509Certificate) cryptoStoreManager.getKeyStore()
+                .getCertificate(CryptoStoreManager.KEYSTORE_ALIAS_ACMEAPI);
+
         KeyPair acmeAPIKeyPair;
-        if (!cryptoStoreManager.getKeyStore().containsAlias(CryptoStoreManager.KEYSTORE_ALIAS_ACMEAPI) ||
-                (cryptoStoreManager.getKeyStore().containsAlias(CryptoStoreManager.KEYSTORE_ALIAS_ACMEAPI) &&
-                        !CertTools.isCertificateValid(((X509Certificate) cryptoStoreManager.getKeyStore()
-                                .getCertificate(CryptoStoreManager.KEYSTORE_ALIAS_ACMEAPI))))
+        if (existingCertificate == null
+                || !CertTools.isCertificateValid(existingCertificate)
+                || !KeyPairGenerator.matchesAlgorithm(existingCertificate.getPublicKey(), apiCertificateAlgorithm)
         ) {
 
             // *****************************************
             // Create Certificate for our ACME Web Server API (Client Certificate)
 
-            LOG.info("Generating RSA Key Pair for ACME Web Server API (HTTPS Service)");
-            acmeAPIKeyPair = KeyPairGenerator.generateRSAKeyPair(4096, cryptoStoreManager.getKeyStore().getProvider().getName());
+            LOG.info("Generating {} Key Pair for ACME Web Server API (HTTPS Service)", apiCertificateAlgorithm.getType());
+            acmeAPIKeyPair = KeyPairGenerator.generateKeyPair(apiCertificateAlgorithm, cryptoStoreManager.getKeyStore().getProvider().getName());
 
             LOG.info("Using root CA for generation");
             X509Certificate rootCertificate =
@@ -17,6 +17,7 @@
 package de.morihofi.acmeserver.tools;
 
 import com.google.gson.Gson;
+import de.morihofi.acmeserver.certificate.acme.challenges.ChallengeValidator;
 import de.morihofi.acmeserver.certificate.acme.security.NonceManager;
 import de.morihofi.acmeserver.config.Config;
 import de.morihofi.acmeserver.database.HibernateUtil;
@@ -69,6 +70,11 @@ public class ServerInstance {
      */
     private final Path appConfigPath;
 
+    /**
+     * Validates ACME challenges in the background.
+     */
+    private final ChallengeValidator challengeValidator;
+
     /**
      * Logger for logging events and messages.
      */
@@ -84,8 +90,9 @@ public class ServerInstance {
      * @param networkClient      Handles network operations.
      * @param hibernateUtil      Manages Hibernate sessions and database operations.
      * @param nonceManager       Manages nonces for the ACME protocol.
+     * @param challengeValidator Validates ACME challenges in the background.
      */
-    public ServerInstance(Config appConfig, Path appConfigPath, boolean debug, CryptoStoreManager cryptoStoreManager, NetworkClient networkClient, HibernateUtil hibernateUtil, NonceManager nonceManager) {
+    public ServerInstance(Config appConfig, Path appConfigPath, boolean debug, CryptoStoreManager cryptoStoreManager, NetworkClient networkClient, HibernateUtil hibernateUtil, NonceManager nonceManager, ChallengeValidator challengeValidator) {
         this.appConfig = appConfig;
         this.appConfigPath = appConfigPath;
         this.debug = debug;
@@ -93,6 +100,7 @@ public class ServerInstance {
         this.networkClient = networkClient;
         this.hibernateUtil = hibernateUtil;
         this.nonceManager = nonceManager;
+        this.challengeValidator = challengeValidator;
     }
 
     /**
@@ -104,6 +112,15 @@ public class ServerInstance {
         return appConfig;
     }
 
+    /**
+     * Returns the path to the application's configuration file.
+     *
+     * @return The path to the application's configuration file.
+     */
+    public Path getAppConfigPath() {
+        return appConfigPath;
+    }
+
     /**
      * Returns whether the server is running in debug mode.
      *
@@ -149,6 +166,15 @@ public class ServerInstance {
         return nonceManager;
     }
 
+    /**
+     * Returns the ChallengeValidator validating ACME challenges in the background.
+     *
+     * @return The ChallengeValidator.
+     */
+    public ChallengeValidator getChallengeValidator() {
+        return challengeValidator;
+    }
+
     /**
      * Saves the current server configuration to the configuration file.
      *
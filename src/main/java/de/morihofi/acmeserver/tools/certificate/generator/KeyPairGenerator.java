@@ -16,15 +16,25 @@
 
 package de.morihofi.acmeserver.tools.certificate.generator;
 
+import de.morihofi.acmeserver.config.certificateAlgorithms.AlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.EcdsaAlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.RSAAlgorithmParams;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.bouncycastle.jcajce.provider.asymmetric.util.EC5Util;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
 
 import java.lang.invoke.MethodHandles;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
 import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
 
 public class KeyPairGenerator {
 
@@ -66,4 +76,55 @@ public class KeyPairGenerator {
 
         return keyPairGenerator.generateKeyPair();
     }
+
+    /**
+     * Generates a KeyPair for the configured algorithm.
+     *
+     * @param algorithmParams   The configured algorithm, {@link RSAAlgorithmParams} or {@link EcdsaAlgorithmParams}.
+     * @param givenProviderName The name of the security provider.
+     * @return The generated KeyPair.
+     * @throws NoSuchAlgorithmException           If the key pair generation is not supported by the security provider.
+     * @throws NoSuchProviderException            If the specified security provider is not found.
+     * @throws InvalidAlgorithmParameterException If the provided curve name is invalid or not supported.
+     */
+    public static KeyPair generateKeyPair(AlgorithmParams algorithmParams, String givenProviderName) throws NoSuchAlgorithmException,
+            NoSuchProviderException, InvalidAlgorithmParameterException {
+        if (algorithmParams instanceof RSAAlgorithmParams rsaParams) {
+            LOG.info("Generating RSA {} bit Key Pair", rsaParams.getKeySize());
+            return generateRSAKeyPair(rsaParams.getKeySize(), givenProviderName);
+        }
+        if (algorithmParams instanceof EcdsaAlgorithmParams ecdsaParams) {
+            LOG.info("Generating ECDSA Key Pair using curve {}", ecdsaParams.getCurveName());
+            return generateEcdsaKeyPair(ecdsaParams.getCurveName(), givenProviderName);
+        }
+        throw new IllegalArgumentException("Unknown algorithm " + algorithmParams);
+    }
+
+    /**
+     * Checks whether a public key has been generated with the configured algorithm. ECDSA keys are compared by the domain parameters of
+     * their curve (field, coefficients, generator, order and cofactor), so curves of the same size like secp256k1 and secp256r1 don't
+     * match.
+     *
+     * @param publicKey       The public key to check.
+     * @param algorithmParams The configured algorithm.
+     * @return {@code true} if the key matches the algorithm and its key size or curve.
+     */
+    public static boolean matchesAlgorithm(PublicKey publicKey, AlgorithmParams algorithmParams) {
+        if (algorithmParams instanceof RSAAlgorithmParams rsaParams) {
+            return publicKey instanceof RSAPublicKey rsaPublicKey && rsaPublicKey.getModulus().bitLength() == rsaParams.getKeySize();
+        }
+        if (algorithmParams instanceof EcdsaAlgorithmParams ecdsaParams) {
+            ECNamedCurveParameterSpec curve = ECNamedCurveTable.getParameterSpec(ecdsaParams.getCurveName());
+            if (!(publicKey instanceof ECPublicKey ecPublicKey) || curve == null) {
+                return false;
+            }
+            ECParameterSpec keyParams = ecPublicKey.getParams();
+            ECParameterSpec curveParams = EC5Util.convertSpec(EC5Util.convertCurve(curve.getCurve(), curve.getSeed()), curve);
+            return keyParams.getCurve().equals(curveParams.getCurve())
+                    && keyParams.getGenerator().equals(curveParams.getGenerator())
+                    && keyParams.getOrder().equals(curveParams.getOrder())
+                    && keyParams.getCofactor() == curveParams.getCofactor();
+        }
+        return false;
+    }
 }
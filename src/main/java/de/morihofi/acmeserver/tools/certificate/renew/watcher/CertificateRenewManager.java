@@ -28,9 +28,11 @@ import java.lang.invoke.MethodHandles;
 import java.security.KeyPair;
 import java.security.KeyStore;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -90,6 +92,17 @@ public class CertificateRenewManager {
         renewMap.put(alias, new RenewEntry(provisioner, regenerationFunction, triggerAfterRegeneration));
     }
 
+    /**
+     * Unregisters the certificate renew watcher of the specified alias, e.g. when its provisioner is removed or replaced by a configuration
+     * reload. A check that is currently running finishes with the previous watcher.
+     *
+     * @param alias The alias of the certificate in the keystore.
+     * @return True if a watcher was registered for the alias.
+     */
+    public boolean unregisterCertificateRenewWatcher(String alias) {
+        return renewMap.remove(alias) != null;
+    }
+
     /**
      * Starts the scheduler that periodically checks for certificates that need to be renewed.
      */
@@ -121,7 +134,13 @@ public class CertificateRenewManager {
 
         KeyStore keyStore = cryptoStoreManager.getKeyStore();
 
-        for (Map.Entry<String, RenewEntry> entry : renewMap.entrySet()) {
+        // Iterate over a snapshot, watchers can be registered and unregistered by a configuration reload meanwhile
+        List<Map.Entry<String, RenewEntry>> entries;
+        synchronized (renewMap) {
+            entries = new ArrayList<>(renewMap.entrySet());
+        }
+
+        for (Map.Entry<String, RenewEntry> entry : entries) {
             String alias = entry.getKey();
             RenewEntry renewEntry = entry.getValue();
 
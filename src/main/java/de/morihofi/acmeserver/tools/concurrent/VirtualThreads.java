@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.tools.concurrent;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Access to virtual threads. This is the Java 17 implementation, which reports virtual threads as unsupported. The multi-release jar
+ * contains a Java 21 implementation of this class in {@code META-INF/versions/21}, which is picked up automatically on Java 21 and newer.
+ */
+public final class VirtualThreads {
+
+    /**
+     * Checks if virtual threads are supported by the running JVM.
+     *
+     * @return {@code true} if virtual threads are supported, {@code false} otherwise.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates an executor that runs each task on a new virtual thread.
+     *
+     * @param namePrefix Prefix of the thread names, followed by a counter.
+     * @return The executor.
+     * @throws UnsupportedOperationException if virtual threads are not supported by the running JVM.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or newer, running on Java " + Runtime.version().feature());
+    }
+
+    /**
+     * Private constructor to prevent class instantiation
+     */
+    private VirtualThreads() {
+    }
+}
@@ -16,14 +16,20 @@
 
 package de.morihofi.acmeserver.tools.crypto;
 
+import de.morihofi.acmeserver.database.objects.ACMEAccount;
 import de.morihofi.acmeserver.tools.base64.Base64Tools;
+import de.morihofi.acmeserver.tools.certificate.PemUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jose4j.jwk.PublicJsonWebKey;
 import org.jose4j.lang.JoseException;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
 import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
 
 /**
  * Utility class for ACME token cryptography, providing methods to compute thumbprints and key authorizations.
@@ -49,6 +55,35 @@ public class AcmeTokenCryptography {
         }
     }
 
+    /**
+     * Computes the RFC 7638 JWK thumbprint of the given public key, base64url encoded as used in key authorizations.
+     *
+     * @param key {@link PublicKey} to get the thumbprint of.
+     * @return Base64url encoded thumbprint of the key.
+     */
+    public static String encodedThumbprint(PublicKey key) {
+        return Base64Tools.base64UrlEncode(thumbprint(key));
+    }
+
+    /**
+     * Gets the base64url encoded JWK thumbprint of an account. The thumbprint stored with the account is used if available, otherwise it
+     * is computed from the account's public key.
+     *
+     * @param account The ACME account.
+     * @return Base64url encoded thumbprint of the account key.
+     * @throws IOException              If the public key of the account can't be read.
+     * @throws NoSuchAlgorithmException If the key algorithm is not available.
+     * @throws NoSuchProviderException  If there is no security provider available for the key algorithm.
+     * @throws InvalidKeySpecException  If the public key of the account is invalid.
+     */
+    public static String encodedThumbprint(ACMEAccount account) throws IOException, NoSuchAlgorithmException, NoSuchProviderException,
+            InvalidKeySpecException {
+        if (account.getJwkThumbprint() != null) {
+            return account.getJwkThumbprint();
+        }
+        return encodedThumbprint(PemUtil.readPublicKeyFromPem(account.getPublicKeyPEM()));
+    }
+
     /**
      * Computes the key authorization for the given token.
      * <p>
@@ -59,7 +94,18 @@ public class AcmeTokenCryptography {
      * @return Key Authorization string for that token.
      */
     public static String keyAuthorizationFor(String token, PublicKey pk) {
-        return token + '.' + Base64Tools.base64UrlEncode(thumbprint(pk));
+        return keyAuthorizationFor(token, encodedThumbprint(pk));
+    }
+
+    /**
+     * Computes the key authorization for the given token from an already computed thumbprint.
+     *
+     * @param token             Token to be used.
+     * @param encodedThumbprint Base64url encoded JWK thumbprint of the account key, see {@link #encodedThumbprint(PublicKey)}.
+     * @return Key Authorization string for that token.
+     */
+    public static String keyAuthorizationFor(String token, String encodedThumbprint) {
+        return token + '.' + encodedThumbprint;
     }
 
     /**
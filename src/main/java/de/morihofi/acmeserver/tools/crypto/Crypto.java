@@ -55,7 +55,7 @@ public class Crypto {
             String base64Nonce = Base64.getUrlEncoder().withoutPadding().encodeToString(nonce);
 
 
-            try (Session session = serverInstance.getHibernateUtil().getSessionFactory().openSession()) {
+            try (Session session = serverInstance.getHibernateUtil().openSession()) {
                 Transaction tx = session.beginTransaction();
 
                 session.persist(new HttpNonces(base64Nonce)); // Store nonce
@@ -28,6 +28,8 @@ import org.apache.logging.log4j.Logger;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Class for sending E-Mails
@@ -39,6 +41,34 @@ public class SendMail {
      */
     private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Executor for sending emails in the background. Jakarta Mail performs the SMTP I/O inside synchronized methods, which would pin the
+     * carrier thread when running on a virtual thread, therefore emails are sent from a dedicated platform thread.
+     */
+    private static final ExecutorService MAIL_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "E-Mail Sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Sends an email in the background, without blocking the calling thread. Failures are logged.
+     *
+     * @param toEmail        The recipient's email address.
+     * @param subject        The subject of the email.
+     * @param content        The content of the email.
+     * @param serverInstance The server instance to use.
+     */
+    public static void sendMailAsync(String toEmail, String subject, String content, ServerInstance serverInstance) {
+        MAIL_EXECUTOR.execute(() -> {
+            try {
+                sendMail(toEmail, subject, content, serverInstance);
+            } catch (Exception ex) {
+                LOG.error("Unable to send email with subject \"{}\" to \"{}\"", subject, toEmail, ex);
+            }
+        });
+    }
+
     /**
      * Sends an email using the specified email configuration, including optional encryption settings.
      *
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.tools.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Provides the {@link Gson} instance shared by the ACME endpoints, the Javalin JSON mapper and the error handlers.
+ * <p>
+ * {@link Gson} is thread-safe and caches the type adapters it has resolved, so a single instance avoids resolving them again for every
+ * request. The ACME request and response objects bring their own streaming type adapters via
+ * {@link com.google.gson.annotations.JsonAdapter}, so they are serialized without reflection. Like Gson's reflective adapter, they skip
+ * unknown properties and omit null values.
+ */
+public final class GsonProvider {
+
+    /**
+     * Shared Gson instance. HTML escaping is disabled, as the output is only used as JSON API response and never embedded into HTML.
+     */
+    private static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .create();
+
+    private GsonProvider() {
+    }
+
+    /**
+     * Gets the shared Gson instance.
+     *
+     * @return The shared Gson instance.
+     */
+    public static Gson getGson() {
+        return GSON;
+    }
+}
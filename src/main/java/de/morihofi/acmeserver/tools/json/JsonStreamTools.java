@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.tools.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for writing streaming {@link TypeAdapter}s that behave like the reflection based adapters of Gson.
+ */
+public final class JsonStreamTools {
+
+    /**
+     * Adapter for nullable strings, used for string lists.
+     */
+    public static final TypeAdapter<String> STRING_ADAPTER = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, String value) throws IOException {
+            out.value(value);
+        }
+
+        @Override
+        public String read(JsonReader in) throws IOException {
+            return nextNullableString(in);
+        }
+    };
+
+    private JsonStreamTools() {
+    }
+
+    /**
+     * Reads a string value, accepting {@code null} as well as numbers and booleans, like Gson's built-in string adapter does.
+     *
+     * @param in The reader positioned at the value.
+     * @return The string value or null.
+     * @throws IOException If the value is not a string, number, boolean or null.
+     */
+    public static String nextNullableString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Reads a JSON array using the given element adapter.
+     *
+     * @param in             The reader positioned at the array.
+     * @param elementAdapter Adapter for the elements.
+     * @param <T>            Type of the elements.
+     * @return The list of elements or null if the value is null.
+     * @throws IOException If the value is not an array or an element is invalid.
+     */
+    public static <T> List<T> readList(JsonReader in, TypeAdapter<T> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    /**
+     * Writes a list as JSON array using the given element adapter. A null list is written as null, which is omitted if the writer does not
+     * serialize nulls.
+     *
+     * @param out            The writer.
+     * @param list           The list to write, may be null.
+     * @param elementAdapter Adapter for the elements.
+     * @param <T>            Type of the elements.
+     * @throws IOException If writing fails.
+     */
+    public static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+}
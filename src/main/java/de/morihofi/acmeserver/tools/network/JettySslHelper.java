@@ -16,13 +16,18 @@
 
 package de.morihofi.acmeserver.tools.network;
 
+import de.morihofi.acmeserver.config.SslServerConfig;
 import de.morihofi.acmeserver.tools.certificate.PemUtil;
-import de.morihofi.acmeserver.tools.certificate.cryptoops.CryptoStoreManager;
 import de.morihofi.acmeserver.tools.network.ssl.mozillaSslConfiguration.MozillaSslConfigHelper;
 import io.javalin.jetty.JettyServer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.AbstractHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
@@ -34,6 +39,7 @@ import org.eclipse.jetty.util.ssl.SslContextFactory;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
@@ -140,6 +146,7 @@ public class JettySslHelper {
      * @param certificatePath The path to the SSL certificate chain file.
      * @param privateKeyPath  The path to the private key file.
      * @param publicKeyPath   The path to the public key file.
+     * @param sslServerConfig The SSL/TLS and HTTP/2 settings of the connectors, or {@code null} for HTTP/1.1 only.
      * @return A configured Jetty Server instance.
      * @throws CertificateException      If there is an issue with the SSL certificate.
      * @throws IOException               If there is an issue reading the certificate or key files.
@@ -150,7 +157,7 @@ public class JettySslHelper {
      * @throws NoSuchProviderException   If a required security provider is not available.
      */
     public static Server getSslJetty(int httpsPort, int httpPort, Path certificatePath, Path privateKeyPath, Path publicKeyPath,
-            boolean enableSniCheck, MozillaSslConfigHelper.BasicConfiguration mozillaConfig)
+            boolean enableSniCheck, MozillaSslConfigHelper.BasicConfiguration mozillaConfig, SslServerConfig sslServerConfig)
             throws Exception {
 
         LOG.info("Loading Key Pair");
@@ -160,7 +167,7 @@ public class JettySslHelper {
 
         SSLContext sslContext = createSSLContext(certificateChain, jettyKeyPair);
 
-        return getSslJetty(httpsPort, httpPort, sslContext, null, enableSniCheck, mozillaConfig);
+        return getSslJetty(httpsPort, httpPort, sslContext, null, enableSniCheck, mozillaConfig, sslServerConfig);
     }
 
     /**
@@ -171,21 +178,65 @@ public class JettySslHelper {
      * @param keyStore    The KeyStore containing the SSL certificate and private key.
      * @param alias       The alias of the certificate in the KeyStore.
      * @param jettyServer Jetty server wrapper of Javalin
+     * @param sslServerConfig The SSL/TLS and HTTP/2 settings of the connectors, or {@code null} for HTTP/1.1 only.
      * @return A Jetty Server instance configured for both secure and non-secure communication.
      * @throws Exception If an error occurs while creating or configuring the Jetty Server.
      */
     public static Server getSslJetty(int httpsPort, int httpPort, KeyStore keyStore, String alias, JettyServer jettyServer,
-            boolean enableSniCheck, MozillaSslConfigHelper.BasicConfiguration mozillaConfig)
+            boolean enableSniCheck, MozillaSslConfigHelper.BasicConfiguration mozillaConfig, SslServerConfig sslServerConfig)
             throws Exception {
 
         SSLContext sslContext = createSSLContext(keyStore, alias, "");
 
-        return getSslJetty(httpsPort, httpPort, sslContext, jettyServer, enableSniCheck, mozillaConfig);
+        return getSslJetty(httpsPort, httpPort, sslContext, jettyServer, enableSniCheck, mozillaConfig, sslServerConfig);
     }
 
-    public static void updateSslJetty(int httpsPort, int httpPort, KeyStore keyStore, String keystoreAliasAcmeapi, JettyServer jettyServer,
-            boolean enableSniCheck, MozillaSslConfigHelper.BasicConfiguration mozillaConfig) throws Exception {
-        getSslJetty(httpsPort, httpPort, keyStore, CryptoStoreManager.KEYSTORE_ALIAS_ACMEAPI, jettyServer, enableSniCheck, mozillaConfig);
+    /**
+     * Applies the certificate stored under the given alias to the Jetty server of Javalin. On the first call the connectors are created.
+     * Once the HTTPS connector exists, only its SSL context is swapped using {@link SslContextFactory#reload}: new handshakes use the new
+     * certificate, while established (keep-alive and HTTP/2) connections continue undisturbed with the one they negotiated.
+     *
+     * @param httpsPort       The port number for secure HTTPS communication.
+     * @param httpPort        The port number for non-secure HTTP communication.
+     * @param keyStore        The KeyStore containing the SSL certificate and private key.
+     * @param alias           The alias of the certificate in the KeyStore.
+     * @param jettyServer     Jetty server wrapper of Javalin
+     * @param enableSniCheck  Whether the SNI host check is enabled.
+     * @param mozillaConfig   The Mozilla TLS configuration, or {@code null} to use the provider defaults.
+     * @param sslServerConfig The SSL/TLS and HTTP/2 settings of the connectors, or {@code null} for HTTP/1.1 only.
+     * @throws Exception If an error occurs while creating the SSLContext or configuring the Jetty Server.
+     */
+    public static void updateSslJetty(int httpsPort, int httpPort, KeyStore keyStore, String alias, JettyServer jettyServer,
+            boolean enableSniCheck, MozillaSslConfigHelper.BasicConfiguration mozillaConfig, SslServerConfig sslServerConfig)
+            throws Exception {
+        SslContextFactory.Server sslContextFactory = findSslContextFactory(jettyServer.server());
+        if (sslContextFactory == null) {
+            getSslJetty(httpsPort, httpPort, keyStore, alias, jettyServer, enableSniCheck, mozillaConfig, sslServerConfig);
+            return;
+        }
+
+        SSLContext sslContext = createSSLContext(keyStore, alias, "");
+        if (sslServerConfig != null) {
+            configureSessionResumption(sslContext, sslServerConfig);
+        }
+        LOG.info("Reloading certificate of the HTTPS connector, established connections are kept");
+        sslContextFactory.reload(factory -> factory.setSslContext(sslContext));
+    }
+
+    /**
+     * Finds the SSL context factory of the HTTPS connector of a server.
+     *
+     * @param server The Jetty server.
+     * @return The SSL context factory, or {@code null} if the server has no HTTPS connector yet.
+     */
+    private static SslContextFactory.Server findSslContextFactory(Server server) {
+        for (Connector connector : server.getConnectors()) {
+            SslConnectionFactory sslConnectionFactory = connector.getConnectionFactory(SslConnectionFactory.class);
+            if (sslConnectionFactory != null) {
+                return sslConnectionFactory.getSslContextFactory();
+            }
+        }
+        return null;
     }
 
     /**
@@ -195,10 +246,11 @@ public class JettySslHelper {
      * @param httpPort    The port for HTTP. Set to 0 to disable HTTP.
      * @param sslContext  The SSL context to be used for HTTPS. Pass null to disable HTTPS.
      * @param jettyServer Jetty server wrapper of Javalin
+     * @param sslServerConfig The SSL/TLS and HTTP/2 settings of the connectors, or {@code null} for HTTP/1.1 only.
      * @return A configured Jetty Server instance.
      */
     public static Server getSslJetty(int httpsPort, int httpPort, SSLContext sslContext, JettyServer jettyServer, boolean enableSniCheck,
-            MozillaSslConfigHelper.BasicConfiguration mozillaConfig) throws Exception {
+            MozillaSslConfigHelper.BasicConfiguration mozillaConfig, SslServerConfig sslServerConfig) throws Exception {
     /*
         If the port is not 0, the Service (e.g., HTTP/HTTPS) is enabled. Otherwise, it is disabled.
     */
@@ -228,6 +280,10 @@ public class JettySslHelper {
             secureRequestCustomizer.setSniHostCheck(enableSniCheck);
             https.addCustomizer(secureRequestCustomizer);
 
+            if (sslServerConfig != null) {
+                configureSessionResumption(sslContext, sslServerConfig);
+            }
+
             SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
             sslContextFactory.setSslContext(sslContext); // Your SSL context
             if (mozillaConfig != null) {
@@ -244,9 +300,27 @@ public class JettySslHelper {
                 secureRequestCustomizer.setStsIncludeSubDomains(false);
             }
 
-            ServerConnector sslConnector = new ServerConnector(server,
-                    new SslConnectionFactory(sslContextFactory, "http/1.1"),
-                    new HttpConnectionFactory(https));
+            HttpConnectionFactory http11 = new HttpConnectionFactory(https);
+            ServerConnector sslConnector;
+            if (sslServerConfig != null && sslServerConfig.isHttp2Enabled()) {
+                LOG.info("API HTTP/2 support is ENABLED (negotiated using ALPN)");
+                HTTP2ServerConnectionFactory h2 = new HTTP2ServerConnectionFactory(https);
+                configureHttp2(h2, sslServerConfig);
+
+                ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory(h2.getProtocol(), http11.getProtocol());
+                alpn.setDefaultProtocol(http11.getProtocol());
+
+                // Prefer cipher suites allowed by HTTP/2 (RFC 7540, Appendix A)
+                sslContextFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
+
+                sslConnector = new ServerConnector(server,
+                        new SslConnectionFactory(sslContextFactory, alpn.getProtocol()),
+                        alpn, h2, http11);
+            } else {
+                sslConnector = new ServerConnector(server,
+                        new SslConnectionFactory(sslContextFactory, http11.getProtocol()),
+                        http11);
+            }
             sslConnector.setPort(httpsPort);
 
             connectors.add(sslConnector);
@@ -257,7 +331,17 @@ public class JettySslHelper {
         if (httpPort != 0) {
             LOG.info("API HTTP support is ENABLED");
             // HTTP Configuration
-            ServerConnector httpConnector = new ServerConnector(server);
+            ServerConnector httpConnector;
+            if (sslServerConfig != null && sslServerConfig.isH2cEnabled()) {
+                LOG.info("API HTTP/2 cleartext (h2c) support is ENABLED");
+                HttpConfiguration http = new HttpConfiguration();
+                HTTP2CServerConnectionFactory h2c = new HTTP2CServerConnectionFactory(http);
+                configureHttp2(h2c, sslServerConfig);
+                // HTTP/1.1 first, to accept both the h2c upgrade and HTTP/2 with prior knowledge
+                httpConnector = new ServerConnector(server, new HttpConnectionFactory(http), h2c);
+            } else {
+                httpConnector = new ServerConnector(server);
+            }
             httpConnector.setPort(httpPort);
 
             connectors.add(httpConnector);
@@ -277,6 +361,39 @@ public class JettySslHelper {
         return server;
     }
 
+    /**
+     * Applies the TLS session cache settings to the server side of an SSL context. Cached sessions let returning clients (e.g. an ACME
+     * client polling an order) resume with an abbreviated handshake instead of paying for a full key exchange and certificate signature.
+     * Jetty only applies its own session cache settings to contexts it creates itself, so they are set on the context directly.
+     *
+     * @param sslContext      The SSL context of the HTTPS connector.
+     * @param sslServerConfig The settings to apply.
+     */
+    private static void configureSessionResumption(SSLContext sslContext, SslServerConfig sslServerConfig) {
+        SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+        if (sessionContext == null) {
+            LOG.warn("TLS provider {} has no server session context, session resumption cannot be configured",
+                    sslContext.getProvider().getName());
+            return;
+        }
+        sessionContext.setSessionCacheSize(sslServerConfig.getSessionCacheSize());
+        sessionContext.setSessionTimeout(sslServerConfig.getSessionTimeoutSeconds());
+        LOG.info("TLS session cache: {} sessions, {} seconds timeout", sslServerConfig.getSessionCacheSize(),
+                sslServerConfig.getSessionTimeoutSeconds());
+    }
+
+    /**
+     * Applies the stream concurrency and flow-control settings to an HTTP/2 connection factory.
+     *
+     * @param connectionFactory The HTTP/2 connection factory to configure.
+     * @param sslServerConfig   The settings to apply.
+     */
+    private static void configureHttp2(AbstractHTTP2ServerConnectionFactory connectionFactory, SslServerConfig sslServerConfig) {
+        connectionFactory.setMaxConcurrentStreams(sslServerConfig.getHttp2MaxConcurrentStreams());
+        connectionFactory.setInitialStreamRecvWindow(sslServerConfig.getHttp2InitialStreamRecvWindow());
+        connectionFactory.setInitialSessionRecvWindow(sslServerConfig.getHttp2InitialSessionRecvWindow());
+    }
+
     private JettySslHelper() {
     }
 }
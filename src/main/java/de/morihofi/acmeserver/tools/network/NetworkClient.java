@@ -15,18 +15,25 @@
  */
 package de.morihofi.acmeserver.tools.network;
 
+import de.morihofi.acmeserver.config.network.ChallengeValidationConfig;
 import de.morihofi.acmeserver.config.network.NetworkConfig;
+import de.morihofi.acmeserver.tools.network.dns.DnsCache;
 import de.morihofi.acmeserver.tools.network.dns.OkHttpDnsLookupHandler;
 import de.morihofi.acmeserver.tools.network.dns.internal.DoHClient;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.net.SocketFactory;
 
 /**
  * NetworkClient is responsible for configuring and managing the OkHttpClient instance, including DNS settings and proxy configuration.
@@ -37,11 +44,36 @@ public class NetworkClient {
      */
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Maximum number of idle connections kept in the connection pool.
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 32;
+
+    /**
+     * Time an idle connection is kept in the connection pool, in minutes.
+     */
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    /**
+     * Maximum number of concurrent asynchronous requests.
+     */
+    private static final int MAX_REQUESTS = 256;
+
+    /**
+     * Maximum number of concurrent asynchronous requests per host. HTTP/2 multiplexes them over a single connection.
+     */
+    private static final int MAX_REQUESTS_PER_HOST = 64;
+
     /**
      * OkHttpClient instance for handling network requests.
      */
     private final OkHttpClient client;
 
+    /**
+     * OkHttpClient profile for challenge validation requests, with strict timeouts and without following redirects.
+     */
+    private final OkHttpClient validationClient;
+
     /**
      * DoHClient instance for handling DNS over HTTPS requests.
      */
@@ -52,6 +84,11 @@ public class NetworkClient {
      */
     private final NetworkConfig networkConfig;
 
+    /**
+     * Cache of DNS answers, shared by the HTTP client, the DoH client and cached lookups.
+     */
+    private final DnsCache dnsCache;
+
     /**
      * List of DNS servers configured for the network client.
      */
@@ -64,12 +101,47 @@ public class NetworkClient {
      * @param networkConfig the application's network configuration.
      */
     public NetworkClient(NetworkConfig networkConfig) {
+        this(networkConfig, null);
+    }
+
+    /**
+     * Constructs a NetworkClient with the specified network configuration, binding outgoing connections to a local address.
+     *
+     * @param networkConfig the network configuration.
+     * @param localAddress  the local address outgoing connections are bound to, {@code null} to let the operating system choose.
+     */
+    public NetworkClient(NetworkConfig networkConfig, InetAddress localAddress) {
         this.networkConfig = networkConfig;
         this.dnsServer.addAll(networkConfig.getDnsConfig().getDnsServers());
-        this.doHClient = new DoHClient(networkConfig.getDnsConfig().getDohEndpoint(), this);
-        this.client = new OkHttpClient.Builder()
-                .dns(new OkHttpDnsLookupHandler(doHClient, networkConfig.getDnsConfig()))
-                .proxy(getProxy())
+        this.dnsCache = new DnsCache(networkConfig.getDnsConfig());
+
+        // The HTTP client and the DoH client share connection pool, dispatcher, proxy and source address
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        OkHttpClient.Builder baseBuilder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .proxy(getProxy());
+        if (localAddress != null) {
+            baseBuilder.socketFactory(new BoundSocketFactory(localAddress));
+        }
+        OkHttpClient baseClient = baseBuilder.build();
+
+        this.doHClient = new DoHClient(networkConfig.getDnsConfig().getDohEndpoint(), baseClient, this);
+        this.client = baseClient.newBuilder()
+                .dns(new OkHttpDnsLookupHandler(doHClient, networkConfig.getDnsConfig(), dnsCache))
+                .build();
+
+        // Validated hosts are untrusted, redirects are followed by the validation itself to apply the redirect policy to every hop
+        ChallengeValidationConfig validationConfig = networkConfig.getChallengeValidation();
+        this.validationClient = client.newBuilder()
+                .connectTimeout(validationConfig.getHttpConnectTimeoutSeconds(), TimeUnit.SECONDS)
+                .readTimeout(validationConfig.getHttpReadTimeoutSeconds(), TimeUnit.SECONDS)
+                .writeTimeout(validationConfig.getHttpReadTimeoutSeconds(), TimeUnit.SECONDS)
+                .callTimeout(validationConfig.getHttpTimeoutSeconds(), TimeUnit.SECONDS)
+                .followRedirects(false)
+                .followSslRedirects(false)
                 .build();
     }
 
@@ -82,6 +154,34 @@ public class NetworkClient {
         return client;
     }
 
+    /**
+     * Returns the OkHttpClient profile for challenge validation requests. It uses the timeouts of the challenge validation configuration
+     * and does not follow redirects.
+     *
+     * @return the validation OkHttpClient instance.
+     */
+    public OkHttpClient getValidationHttpClient() {
+        return validationClient;
+    }
+
+    /**
+     * Returns the network configuration this client was created with.
+     *
+     * @return the network configuration.
+     */
+    public NetworkConfig getNetworkConfig() {
+        return networkConfig;
+    }
+
+    /**
+     * Returns the cache of DNS answers shared by all lookups of this client.
+     *
+     * @return the DNS cache.
+     */
+    public DnsCache getDnsCache() {
+        return dnsCache;
+    }
+
     /**
      * Returns the configured DoH client
      *
@@ -144,4 +244,51 @@ public class NetworkClient {
 
         return proxy;
     }
+
+    /**
+     * Socket factory binding every created socket to a local address before it is connected.
+     */
+    private static final class BoundSocketFactory extends SocketFactory {
+
+        /**
+         * Local address the sockets are bound to.
+         */
+        private final InetAddress localAddress;
+
+        /**
+         * Creates a socket factory binding sockets to the given local address.
+         *
+         * @param localAddress the local address.
+         */
+        private BoundSocketFactory(InetAddress localAddress) {
+            this.localAddress = localAddress;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            Socket socket = new Socket();
+            socket.bind(new InetSocketAddress(localAddress, 0));
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return new Socket(host, port, localAddress, 0);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return new Socket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return new Socket(host, port, localAddress, 0);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return new Socket(address, port, localAddress, localPort);
+        }
+    }
 }
@@ -15,6 +15,7 @@
  */
 package de.morihofi.acmeserver.tools.network.dns;
 
+import de.morihofi.acmeserver.tools.concurrent.DaemonThreads;
 import de.morihofi.acmeserver.tools.network.dns.internal.DoHClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,25 +25,81 @@ import org.xbill.DNS.DClass;
 import org.xbill.DNS.Lookup;
 import org.xbill.DNS.Message;
 import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
 import org.xbill.DNS.Record;
 import org.xbill.DNS.Resolver;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
 import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.TextParseException;
 import org.xbill.DNS.Type;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.invoke.MethodHandles;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 /**
  * DNSLookup is a utility class for performing DNS lookups using either a list of DNS servers or DNS over HTTPS (DoH).
+ * <p>
+ * Every lookup is available with and without a {@link DnsCache}. Lookups without a cache always query the DNS servers, which is needed
+ * for DNS-01 challenges, where a TXT record has just been created and a cached negative answer would fail the challenge.
+ * <p>
+ * Hostname lookups query the A and AAAA records concurrently. The configured DNS servers are raced: the first server is queried right
+ * away and every {@value #HEDGE_DELAY_MILLIS} ms without an answer, or whenever a server fails, the next one is queried as well. The first
+ * answer wins, so a dead server no longer adds its full timeout to every lookup. Servers failing repeatedly are tracked by
+ * {@link ResolverHealth} and only queried after the healthy ones until they recover.
  */
 public class DNSLookup {
 
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Cache key of lookups using the system resolver.
+     */
+    private static final String SYSTEM_RESOLVER = "system";
+
+    /**
+     * Resolvers of the configured DNS servers, created once per server address.
+     */
+    private static final Map<String, Resolver> RESOLVERS = new ConcurrentHashMap<>();
+
+    /**
+     * Time after which the next DNS server is queried if none has answered yet.
+     */
+    static final long HEDGE_DELAY_MILLIS = 250;
+
+    /**
+     * Health of the configured DNS servers, shared by all lookups.
+     */
+    private static final ResolverHealth RESOLVER_HEALTH = new ResolverHealth();
+
+    /**
+     * Executor running concurrent queries. Its threads wait for DNS answers, dnsjava bounds that by the resolver timeout.
+     */
+    private static final ExecutorService LOOKUP_EXECUTOR = Executors.newCachedThreadPool(DaemonThreads.newThreadFactory("dns-lookup-"));
+
+    /**
+     * Scheduler starting hedged queries.
+     */
+    private static final ScheduledExecutorService HEDGE_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(DaemonThreads.newThreadFactory("dns-hedge-"));
+
     /**
      * Performs DNS lookups for the given hostname using a list of DNS servers. The method performs both IPv4 (A record) and IPv6 (AAAA
      * record) lookups.
@@ -52,11 +109,20 @@ public class DNSLookup {
      * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
      */
     public static List<InetAddress> lookupHostnameUsingDnsServerList(String hostname, List<String> dnsServers) {
-        List<InetAddress> result = new ArrayList<>();
-        result.addAll(doHostnameLookup(hostname, Type.A, dnsServers));  // IPv4 lookup
-        result.addAll(doHostnameLookup(hostname, Type.AAAA, dnsServers));  // IPv6 lookup
+        return lookupHostnameUsingDnsServerList(hostname, dnsServers, null);
+    }
 
-        return result;
+    /**
+     * Performs DNS lookups for the given hostname using a list of DNS servers and a cache. The method performs both IPv4 (A record) and
+     * IPv6 (AAAA record) lookups.
+     *
+     * @param hostname   the hostname to look up.
+     * @param dnsServers the list of DNS servers to use for the lookup.
+     * @param dnsCache   the cache to use, {@code null} to always query the DNS servers.
+     * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
+     */
+    public static List<InetAddress> lookupHostnameUsingDnsServerList(String hostname, List<String> dnsServers, DnsCache dnsCache) {
+        return lookupBothFamilies(type -> doHostnameLookup(hostname, type, dnsServers, dnsCache));
     }
 
     /**
@@ -68,11 +134,27 @@ public class DNSLookup {
      * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
      */
     public static List<InetAddress> lookupHostnameUsingDoH(String hostname, DoHClient doHClient) {
-        List<InetAddress> result = new ArrayList<>();
-        result.addAll(doHostnameLookup(hostname, Type.A, doHClient));  // IPv4 lookup
-        result.addAll(doHostnameLookup(hostname, Type.AAAA, doHClient));  // IPv6 lookup
+        return lookupHostnameUsingDoH(hostname, doHClient, null);
+    }
 
-        return result;
+    /**
+     * Performs DNS lookups for the given hostname using DNS over HTTPS (DoH) and a cache. The method performs both IPv4 (A record) and IPv6
+     * (AAAA record) lookups.
+     *
+     * @param hostname  the hostname to look up.
+     * @param doHClient the DoH client to use for the lookup.
+     * @param dnsCache  the cache to use, {@code null} to always query the DoH server.
+     * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
+     */
+    public static List<InetAddress> lookupHostnameUsingDoH(String hostname, DoHClient doHClient, DnsCache dnsCache) {
+        // Both queries are in flight at the same time, multiplexed over the connection to the DoH server
+        CompletableFuture<List<InetAddress>> ipv4 = lookupAddressesUsingDoH(hostname, Type.A, doHClient, dnsCache);
+        CompletableFuture<List<InetAddress>> ipv6 = lookupAddressesUsingDoH(hostname, Type.AAAA, doHClient, dnsCache);
+        return ipv4.thenCombine(ipv6, (ipv4Addresses, ipv6Addresses) -> {
+            List<InetAddress> result = new ArrayList<>(ipv4Addresses);
+            result.addAll(ipv6Addresses);
+            return result;
+        }).join();
     }
 
     /**
@@ -84,28 +166,20 @@ public class DNSLookup {
      * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
      */
     public static List<InetAddress> doHostnameLookup(String hostname, int type, DoHClient doHClient) {
-        List<InetAddress> addresses = new ArrayList<>();
-        try {
-            LOG.info("Resolving {} of type {} using DNS over HTTPS", hostname, Type.string(type));
-
-            // Create a DNS query message
-            Message query = Message.newQuery(Record.newRecord(Name.fromString(hostname + "."), type, DClass.IN));
-
-            // Perform the DoH query
-            List<Record> records = doHClient.query(query);
+        return doHostnameLookup(hostname, type, doHClient, null);
+    }
 
-            // Process the response records
-            for (Record dnsRecord : records) {
-                if (dnsRecord instanceof ARecord aRecord) {
-                    addresses.add(aRecord.getAddress());
-                } else if (dnsRecord instanceof AAAARecord aaaaRecord) {
-                    addresses.add(aaaaRecord.getAddress());
-                }
-            }
-        } catch (Exception e) {
-            LOG.error("Error looking up {} using DoH", hostname, e);
-        }
-        return addresses;
+    /**
+     * Helper method to perform DNS lookups using DoH and a cache.
+     *
+     * @param hostname  the hostname to look up.
+     * @param type      the type of DNS record (e.g., A, AAAA).
+     * @param doHClient the DoH client to use for the lookup.
+     * @param dnsCache  the cache to use, {@code null} to always query the DoH server.
+     * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
+     */
+    public static List<InetAddress> doHostnameLookup(String hostname, int type, DoHClient doHClient, DnsCache dnsCache) {
+        return toAddresses(performDoHLookup(hostname, type, doHClient, dnsCache));
     }
 
     /**
@@ -117,22 +191,50 @@ public class DNSLookup {
      * @return a list of Strings representing the DNS record values found.
      */
     public static List<Record> performDoHLookup(String hostname, int type, DoHClient doHClient) {
-        try {
-            LOG.info("Resolving {} of type {} using DNS over HTTPS", hostname, Type.string(type));
-
-            if(!hostname.endsWith(".")){
-                hostname = hostname + ".";
-            }
-
-            // Create a DNS query message
-            Message query = Message.newQuery(Record.newRecord(Name.fromString(hostname), type, DClass.IN));
+        return performDoHLookup(hostname, type, doHClient, null);
+    }
 
-            // Perform the DoH query
-            return doHClient.query(query);
+    /**
+     * Helper method to perform DNS lookups using DoH and a cache.
+     *
+     * @param hostname  the hostname to look up.
+     * @param type      the type of DNS record (e.g., A, AAAA, TXT).
+     * @param doHClient the DoH client to use for the lookup.
+     * @param dnsCache  the cache to use, {@code null} to always query the DoH server.
+     * @return a list of Strings representing the DNS record values found.
+     */
+    public static List<Record> performDoHLookup(String hostname, int type, DoHClient doHClient, DnsCache dnsCache) {
+        try {
+            return DnsCache.await(performDoHLookupAsync(hostname, type, doHClient, dnsCache));
         } catch (Exception e) {
             LOG.error("Error looking up {} using DoH", hostname, e);
         }
-        return Collections.emptyList();
+        return List.of();
+    }
+
+    /**
+     * Performs a DNS lookup using DoH and a cache without blocking the calling thread.
+     *
+     * @param hostname  the hostname to look up.
+     * @param type      the type of DNS record (e.g., A, AAAA, TXT).
+     * @param doHClient the DoH client to use for the lookup.
+     * @param dnsCache  the cache to use, {@code null} to always query the DoH server.
+     * @return the DNS records found, or the failure of the lookup.
+     */
+    public static CompletableFuture<List<Record>> performDoHLookupAsync(String hostname, int type, DoHClient doHClient, DnsCache dnsCache) {
+        Name name;
+        try {
+            name = toName(hostname);
+        } catch (TextParseException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        DnsCache.AsyncResolution resolution = () -> {
+            LOG.info("Resolving {} of type {} using DNS over HTTPS", name, Type.string(type));
+            return resolveUsingDoH(name, type, doHClient);
+        };
+        return dnsCache != null
+                ? dnsCache.lookupAsync(doHClient.getDohUrl(), name, type, resolution)
+                : resolution.resolve().thenApply(DnsCache.Answer::records);
     }
 
     /**
@@ -144,32 +246,20 @@ public class DNSLookup {
      * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
      */
     public static List<InetAddress> doHostnameLookup(String hostname, int type, List<String> dnsServers) {
-        List<InetAddress> addresses = new ArrayList<>();
-        for (String dnsServer : dnsServers) {
-            try {
-                Lookup lookup = new Lookup(hostname, type);
-                Resolver resolver = new SimpleResolver(dnsServer);
-                lookup.setResolver(resolver);
-                Record[] records = lookup.run();
-                if (records != null) {
-                    for (Record dnsRecord : records) {
-                        if (dnsRecord instanceof ARecord aRecord) {
-                            addresses.add(aRecord.getAddress());
-                        } else if (dnsRecord instanceof AAAARecord aaaaRecord) {
-                            addresses.add(aaaaRecord.getAddress());
-                        }
-                    }
-                    // If records are found, break out of the loop
-                    if (!addresses.isEmpty()) {
-                        break;
-                    }
-                }
-            } catch (Exception e) {
-                LOG.error("Failed to query DNS server {}: {}", dnsServer, e.getMessage(), e);
-                // Continue to the next DNS server if an exception occurs
-            }
-        }
-        return addresses;
+        return doHostnameLookup(hostname, type, dnsServers, null);
+    }
+
+    /**
+     * Helper method to perform DNS lookups using a list of DNS servers and a cache.
+     *
+     * @param hostname   the hostname to look up.
+     * @param type       the type of DNS record (e.g., A, AAAA).
+     * @param dnsServers the list of DNS servers to use for the lookup.
+     * @param dnsCache   the cache to use, {@code null} to always query the DNS servers.
+     * @return a list of {@link InetAddress} objects corresponding to the DNS records found.
+     */
+    public static List<InetAddress> doHostnameLookup(String hostname, int type, List<String> dnsServers, DnsCache dnsCache) {
+        return toAddresses(performDnsServerLookup(hostname, type, dnsServers, dnsCache));
     }
 
     /**
@@ -181,39 +271,330 @@ public class DNSLookup {
      * @return a list of Strings representing the DNS record values found.
      */
     public static List<Record> performDnsServerLookup(String hostname, int type, List<String> dnsServers) {
+        return performDnsServerLookup(hostname, type, dnsServers, null);
+    }
+
+    /**
+     * Helper method to perform DNS lookups using a list of DNS servers and a cache. The DNS servers are queried in order until one of them
+     * answers. If the list is empty, the system resolver is used.
+     *
+     * @param hostname   the hostname to look up.
+     * @param type       the type of DNS record (e.g., A, AAAA, TXT).
+     * @param dnsServers the list of DNS servers to use for the lookup.
+     * @param dnsCache   the cache to use, {@code null} to always query the DNS servers.
+     * @return a list of Strings representing the DNS record values found.
+     */
+    public static List<Record> performDnsServerLookup(String hostname, int type, List<String> dnsServers, DnsCache dnsCache) {
+        try {
+            Name name = toName(hostname);
+            DnsCache.Resolution resolution = () -> resolveUsingDnsServers(name, type, dnsServers);
+            String resolverKey = dnsServers.isEmpty() ? SYSTEM_RESOLVER : String.join(",", dnsServers);
+            return dnsCache != null ? dnsCache.lookup(resolverKey, name, type, resolution) : resolution.resolve().records();
+        } catch (Exception e) {
+            LOG.error("Failed to look up {} of type {}: {}", hostname, Type.string(type), e.getMessage(), e);
+        }
+        return List.of();
+    }
+
+    /**
+     * Looks up the addresses of a record type using DoH without blocking, logging a failure as no addresses.
+     *
+     * @param hostname  the hostname to look up.
+     * @param type      the type of DNS record, A or AAAA.
+     * @param doHClient the DoH client.
+     * @param dnsCache  the cache to use, {@code null} to always query the DoH server.
+     * @return the addresses found.
+     */
+    private static CompletableFuture<List<InetAddress>> lookupAddressesUsingDoH(String hostname, int type, DoHClient doHClient,
+            DnsCache dnsCache) {
+        return performDoHLookupAsync(hostname, type, doHClient, dnsCache)
+                .thenApply(DNSLookup::toAddresses)
+                .exceptionally(error -> {
+                    LOG.error("Error looking up {} using DoH", hostname, error);
+                    return List.of();
+                });
+    }
+
+    /**
+     * Queries the DoH server without blocking.
+     *
+     * @param name      the name to look up.
+     * @param type      the type of DNS record.
+     * @param doHClient the DoH client.
+     * @return the answer, negative if the name or record type does not exist, or an {@link IOException} if the DoH server could not be
+     * queried or answered with an error.
+     */
+    private static CompletableFuture<DnsCache.Answer> resolveUsingDoH(Name name, int type, DoHClient doHClient) {
+        return doHClient.exchangeAsync(Message.newQuery(Record.newRecord(name, type, DClass.IN))).thenApply(response -> {
+            int rcode = response.getRcode();
+            if (rcode == Rcode.NOERROR) {
+                List<Record> records = response.getSection(Section.ANSWER);
+                return records.isEmpty() ? DnsCache.Answer.negative(negativeTtl(response)) : DnsCache.Answer.of(records);
+            }
+            if (rcode == Rcode.NXDOMAIN) {
+                return DnsCache.Answer.negative(negativeTtl(response));
+            }
+            throw new CompletionException(new IOException("Lookup of " + name + " failed with " + Rcode.string(rcode) + " error"));
+        });
+    }
+
+    /**
+     * Queries the A (IPv4) and AAAA (IPv6) records of a hostname concurrently.
+     *
+     * @param lookup looks up the addresses of a record type.
+     * @return the IPv4 addresses followed by the IPv6 addresses.
+     */
+    private static List<InetAddress> lookupBothFamilies(IntFunction<List<InetAddress>> lookup) {
+        CompletableFuture<List<InetAddress>> ipv6 = CompletableFuture.supplyAsync(() -> lookup.apply(Type.AAAA), LOOKUP_EXECUTOR);
+        List<InetAddress> result = new ArrayList<>(lookup.apply(Type.A));
+        result.addAll(ipv6.join());
+        return result;
+    }
+
+    /**
+     * Races the DNS servers until one of them answers.
+     *
+     * @param name       the name to look up.
+     * @param type       the type of DNS record.
+     * @param dnsServers the DNS servers, empty to use the system resolver.
+     * @return the answer, negative if the name or record type does not exist.
+     * @throws IOException if none of the DNS servers answered.
+     */
+    private static DnsCache.Answer resolveUsingDnsServers(Name name, int type, List<String> dnsServers) throws IOException {
         if (dnsServers.isEmpty()) {
+            return runLookup(name, type, null);
+        }
+        return new ServerRace(name, type, RESOLVER_HEALTH.order(dnsServers)).run();
+    }
 
-            if(!hostname.endsWith(".")){
-                hostname = hostname + ".";
+    /**
+     * Runs a single lookup, bypassing the global cache of dnsjava.
+     *
+     * @param name     the name to look up.
+     * @param type     the type of DNS record.
+     * @param resolver the resolver, {@code null} to use the system resolver.
+     * @return the answer, negative if the name or record type does not exist.
+     * @throws IOException if the lookup failed.
+     */
+    private static DnsCache.Answer runLookup(Name name, int type, Resolver resolver) throws IOException {
+        Lookup lookup = new Lookup(name, type);
+        if (resolver != null) {
+            lookup.setResolver(resolver);
+        }
+        // Caching is done by DnsCache, answers must not be served from the global cache when bypassing it
+        lookup.setCache(null);
+
+        Record[] records = lookup.run();
+        return switch (lookup.getResult()) {
+            case Lookup.SUCCESSFUL -> DnsCache.Answer.of(Arrays.asList(records));
+            case Lookup.HOST_NOT_FOUND, Lookup.TYPE_NOT_FOUND -> DnsCache.Answer.negative(-1);
+            default -> throw new IOException("Lookup of " + name + " failed: " + lookup.getErrorString());
+        };
+    }
+
+    /**
+     * Gets the resolver of a DNS server, creating it on first use.
+     *
+     * @param dnsServer the address of the DNS server, optionally with port ({@code 192.0.2.53:5353} or {@code [2001:db8::53]:5353}).
+     * @return the resolver.
+     * @throws IOException if the address of the DNS server is invalid.
+     */
+    private static Resolver getResolver(String dnsServer) throws IOException {
+        Resolver resolver = RESOLVERS.get(dnsServer);
+        if (resolver == null) {
+            resolver = createResolver(dnsServer);
+            Resolver existing = RESOLVERS.putIfAbsent(dnsServer, resolver);
+            if (existing != null) {
+                resolver = existing;
             }
+        }
+        return resolver;
+    }
 
+    /**
+     * Creates the resolver of a DNS server.
+     *
+     * @param dnsServer the address of the DNS server, optionally with port.
+     * @return the resolver.
+     * @throws IOException if the address of the DNS server is invalid.
+     */
+    private static Resolver createResolver(String dnsServer) throws IOException {
+        String host = dnsServer;
+        String port = null;
+        if (dnsServer.startsWith("[")) {
+            int end = dnsServer.indexOf(']');
+            if (end < 0) {
+                throw new IOException("Invalid address of DNS server " + dnsServer);
+            }
+            host = dnsServer.substring(1, end);
+            if (dnsServer.startsWith(":", end + 1)) {
+                port = dnsServer.substring(end + 2);
+            }
+        } else if (dnsServer.indexOf(':') > 0 && dnsServer.indexOf(':') == dnsServer.lastIndexOf(':')) {
+            host = dnsServer.substring(0, dnsServer.indexOf(':'));
+            port = dnsServer.substring(dnsServer.indexOf(':') + 1);
+        }
 
-            // Use the default system resolver
+        SimpleResolver resolver = new SimpleResolver(host);
+        if (port != null) {
             try {
-                Lookup lookup = new Lookup(hostname, type);
-                Record[] records = lookup.run();
-                return records != null ? Arrays.stream(records).toList() : Collections.emptyList();
-            } catch (Exception e) {
-                LOG.error("Failed to query default system DNS resolver for {}: {}", hostname, e.getMessage(), e);
-                return Collections.emptyList();
+                resolver.setPort(Integer.parseInt(port));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid port of DNS server " + dnsServer, e);
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * Gets the time a negative answer may be cached from the SOA record in its authority section (RFC 2308, section 5).
+     *
+     * @param response the negative answer.
+     * @return the TTL in seconds, or {@code -1} if the answer contains no SOA record.
+     */
+    private static long negativeTtl(Message response) {
+        for (Record authority : response.getSection(Section.AUTHORITY)) {
+            if (authority instanceof SOARecord soa) {
+                return Math.min(soa.getTTL(), soa.getMinimum());
             }
         }
+        return -1;
+    }
+
+    /**
+     * Converts a hostname into an absolute DNS name.
+     *
+     * @param hostname the hostname, with or without trailing dot.
+     * @return the absolute name.
+     * @throws TextParseException if the hostname is invalid.
+     */
+    private static Name toName(String hostname) throws TextParseException {
+        return Name.fromString(hostname.endsWith(".") ? hostname : hostname + ".");
+    }
+
+    /**
+     * A query raced over several DNS servers. The servers are started in order, the next one after {@link #HEDGE_DELAY_MILLIS} or as soon
+     * as a running one fails. The first answer completes the race, it fails once every server failed.
+     */
+    private static final class ServerRace {
+
+        /**
+         * The name to look up.
+         */
+        private final Name name;
 
-        for (String dnsServer : dnsServers) {
+        /**
+         * The type of DNS record.
+         */
+        private final int type;
+
+        /**
+         * The DNS servers in query order.
+         */
+        private final List<String> servers;
+
+        /**
+         * Result of the race.
+         */
+        private final CompletableFuture<DnsCache.Answer> result = new CompletableFuture<>();
+
+        /**
+         * Index of the next server to start.
+         */
+        private final AtomicInteger nextServer = new AtomicInteger();
+
+        /**
+         * Number of servers that failed.
+         */
+        private final AtomicInteger failedServers = new AtomicInteger();
+
+        /**
+         * Creates a race of the given servers.
+         *
+         * @param name    the name to look up.
+         * @param type    the type of DNS record.
+         * @param servers the DNS servers in query order.
+         */
+        private ServerRace(Name name, int type, List<String> servers) {
+            this.name = name;
+            this.type = type;
+            this.servers = servers;
+        }
+
+        /**
+         * Runs the race and waits for its result.
+         *
+         * @return the first answer.
+         * @throws IOException if every server failed.
+         */
+        private DnsCache.Answer run() throws IOException {
+            startNextServer();
+            ScheduledFuture<?> hedging = servers.size() > 1
+                    ? HEDGE_SCHEDULER.scheduleWithFixedDelay(this::startNextServer, HEDGE_DELAY_MILLIS, HEDGE_DELAY_MILLIS, TimeUnit.MILLISECONDS)
+                    : null;
             try {
-                Lookup lookup = new Lookup(hostname, type);
-                Resolver resolver = new SimpleResolver(dnsServer);
-                lookup.setResolver(resolver);
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while looking up " + name);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException("Lookup of " + name + " failed", e.getCause());
+            } finally {
+                if (hedging != null) {
+                    hedging.cancel(false);
+                }
+            }
+        }
 
-                Record[] records = lookup.run();
-                if (records != null) {
-                    return Arrays.stream(records).toList();
+        /**
+         * Starts querying the next server, unless the race is decided or every server has been started.
+         */
+        private void startNextServer() {
+            if (result.isDone()) {
+                return;
+            }
+            int index = nextServer.getAndIncrement();
+            if (index >= servers.size()) {
+                return;
+            }
+
+            String server = servers.get(index);
+            LOOKUP_EXECUTOR.execute(() -> {
+                try {
+                    DnsCache.Answer answer = runLookup(name, type, getResolver(server));
+                    RESOLVER_HEALTH.recordSuccess(server);
+                    result.complete(answer);
+                } catch (IOException | RuntimeException e) {
+                    RESOLVER_HEALTH.recordFailure(server);
+                    LOG.error("Failed to query DNS server {}: {}", server, e.getMessage());
+                    if (failedServers.incrementAndGet() == servers.size()) {
+                        result.completeExceptionally(e);
+                    } else {
+                        startNextServer();
+                    }
                 }
-            } catch (Exception e) {
-                LOG.error("Failed to query DNS server {}: {}", dnsServer, e.getMessage(), e);
-                // Continue to the next DNS server if an exception occurs
+            });
+        }
+    }
+
+    /**
+     * Extracts the addresses of A and AAAA records.
+     *
+     * @param records the records.
+     * @return the addresses.
+     */
+    private static List<InetAddress> toAddresses(List<Record> records) {
+        List<InetAddress> addresses = new ArrayList<>();
+        for (Record dnsRecord : records) {
+            if (dnsRecord instanceof ARecord aRecord) {
+                addresses.add(aRecord.getAddress());
+            } else if (dnsRecord instanceof AAAARecord aaaaRecord) {
+                addresses.add(aaaaRecord.getAddress());
             }
         }
-        return Collections.emptyList();
+        return addresses;
     }
 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.tools.network.dns;
+
+import de.morihofi.acmeserver.config.network.DNSConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of DNS answers, shared by all lookups of a {@link de.morihofi.acmeserver.tools.network.NetworkClient}: the OkHttp resolver, the
+ * resolution of the DNS over HTTPS endpoint and challenge lookups that don't need fresh answers.
+ * <p>
+ * Answers are cached for the TTL of their records, limited by the configured minimum and maximum. Negative answers (the name or the
+ * record type does not exist) are cached as well, for the TTL of the zone's SOA record if known, limited by the configured negative TTL.
+ * Failed resolutions (timeouts, server failures) are not cached. Concurrent lookups of the same name and type share a single resolution.
+ */
+public class DnsCache {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Resolves a DNS query that is not in the cache.
+     */
+    @FunctionalInterface
+    public interface Resolution {
+
+        /**
+         * Resolves the query.
+         *
+         * @return The answer.
+         * @throws IOException If the query could not be answered, the failure is not cached.
+         */
+        Answer resolve() throws IOException;
+    }
+
+    /**
+     * Resolves a DNS query that is not in the cache without blocking.
+     */
+    @FunctionalInterface
+    public interface AsyncResolution {
+
+        /**
+         * Starts resolving the query.
+         *
+         * @return The answer, or an {@link IOException} if the query could not be answered, the failure is not cached.
+         */
+        CompletableFuture<Answer> resolve();
+    }
+
+    /**
+     * Answer of a DNS query.
+     *
+     * @param records    Records of the answer section, empty for a negative answer.
+     * @param ttlSeconds Time the answer may be cached, in seconds. For a negative answer the TTL of the zone's SOA record, or a negative
+     *                   value if unknown.
+     */
+    public record Answer(List<Record> records, long ttlSeconds) {
+
+        /**
+         * Creates a positive answer, cached for the lowest TTL of its records.
+         *
+         * @param records The records of the answer section, must not be empty.
+         * @return The answer.
+         */
+        public static Answer of(List<Record> records) {
+            long ttl = records.stream().mapToLong(Record::getTTL).min().orElse(0);
+            return new Answer(List.copyOf(records), ttl);
+        }
+
+        /**
+         * Creates a negative answer.
+         *
+         * @param ttlSeconds The TTL of the zone's SOA record, or a negative value if unknown.
+         * @return The answer.
+         */
+        public static Answer negative(long ttlSeconds) {
+            return new Answer(List.of(), ttlSeconds);
+        }
+    }
+
+    /**
+     * Key of a cached answer. The resolver is part of the key, so answers of different resolvers don't mix.
+     *
+     * @param resolver Identifies the resolver that answered, e.g. its address.
+     * @param name     The queried name.
+     * @param type     The queried record type.
+     */
+    private record Key(String resolver, Name name, int type) {
+    }
+
+    /**
+     * A cached answer.
+     *
+     * @param records        The records, empty for a negative answer.
+     * @param expiresAtNanos Value of the clock at which the answer expires.
+     */
+    private record Entry(List<Record> records, long expiresAtNanos) {
+    }
+
+    /**
+     * Cached answers.
+     */
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Resolutions currently running, joined by concurrent lookups of the same key.
+     */
+    private final Map<Key, CompletableFuture<List<Record>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Whether answers are cached at all.
+     */
+    private final boolean enabled;
+
+    /**
+     * Minimum time an answer is cached, in seconds.
+     */
+    private final long minTtlSeconds;
+
+    /**
+     * Maximum time an answer is cached, in seconds.
+     */
+    private final long maxTtlSeconds;
+
+    /**
+     * Maximum time a negative answer is cached, in seconds.
+     */
+    private final long negativeTtlSeconds;
+
+    /**
+     * Maximum number of cached answers.
+     */
+    private final int maxEntries;
+
+    /**
+     * Clock in nanoseconds.
+     */
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a cache using the cache settings of the DNS configuration.
+     *
+     * @param dnsConfig The DNS configuration.
+     */
+    public DnsCache(DNSConfig dnsConfig) {
+        this(dnsConfig, System::nanoTime);
+    }
+
+    /**
+     * Creates a cache using the cache settings of the DNS configuration and the given clock.
+     *
+     * @param dnsConfig The DNS configuration.
+     * @param nanoClock Clock in nanoseconds.
+     */
+    DnsCache(DNSConfig dnsConfig, LongSupplier nanoClock) {
+        this.enabled = dnsConfig.getCacheEnabled();
+        this.minTtlSeconds = Math.max(0, dnsConfig.getCacheMinTtlSeconds());
+        this.maxTtlSeconds = Math.max(this.minTtlSeconds, dnsConfig.getCacheMaxTtlSeconds());
+        this.negativeTtlSeconds = Math.max(0, dnsConfig.getCacheNegativeTtlSeconds());
+        this.maxEntries = Math.max(0, dnsConfig.getCacheMaxEntries());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Looks up a query in the cache, resolving and caching it if it is missing or expired. If the same query is already being resolved,
+     * its result is awaited instead of resolving it a second time.
+     *
+     * @param resolver   Identifies the resolver, e.g. its address.
+     * @param name       The queried name.
+     * @param type       The queried record type.
+     * @param resolution Resolves the query if it is not cached, on the calling thread.
+     * @return The records of the answer, empty for a negative answer.
+     * @throws IOException If the query could not be resolved.
+     */
+    public List<Record> lookup(String resolver, Name name, int type, Resolution resolution) throws IOException {
+        return await(lookupAsync(resolver, name, type, () -> {
+            try {
+                return CompletableFuture.completedFuture(resolution.resolve());
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }));
+    }
+
+    /**
+     * Looks up a query in the cache like {@link #lookup}, without blocking the calling thread on the resolution.
+     *
+     * @param resolver   Identifies the resolver, e.g. its address.
+     * @param name       The queried name.
+     * @param type       The queried record type.
+     * @param resolution Starts resolving the query if it is not cached.
+     * @return The records of the answer, empty for a negative answer, or the failure of the resolution.
+     */
+    public CompletableFuture<List<Record>> lookupAsync(String resolver, Name name, int type, AsyncResolution resolution) {
+        if (!enabled) {
+            return startResolution(resolution).thenApply(Answer::records);
+        }
+
+        Key key = new Key(resolver, name, type);
+        List<Record> cached = getCached(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<List<Record>> ownResolution = new CompletableFuture<>();
+        CompletableFuture<List<Record>> runningResolution = inFlight.putIfAbsent(key, ownResolution);
+        if (runningResolution != null) {
+            return runningResolution;
+        }
+
+        // A resolution may have completed between the cache lookup and registering this one
+        cached = getCached(key);
+        if (cached != null) {
+            inFlight.remove(key, ownResolution);
+            ownResolution.complete(cached);
+            return ownResolution;
+        }
+
+        startResolution(resolution).whenComplete((answer, error) -> {
+            if (error == null) {
+                store(key, answer);
+            }
+            inFlight.remove(key, ownResolution);
+            if (error == null) {
+                ownResolution.complete(answer.records());
+            } else {
+                ownResolution.completeExceptionally(unwrap(error));
+            }
+        });
+        return ownResolution;
+    }
+
+    /**
+     * Removes all cached answers.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of cached answers, including expired ones that have not been removed yet.
+     *
+     * @return The number of cached answers.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets a cached answer that has not expired.
+     *
+     * @param key The key of the answer.
+     * @return The records of the answer, {@code null} if not cached.
+     */
+    private List<Record> getCached(Key key) {
+        Entry entry = entries.get(key);
+        return entry != null && nanoClock.getAsLong() - entry.expiresAtNanos() < 0 ? entry.records() : null;
+    }
+
+    /**
+     * Starts a resolution, turning an exception thrown while starting it into a failed result.
+     *
+     * @param resolution The resolution.
+     * @return The answer.
+     */
+    private static CompletableFuture<Answer> startResolution(AsyncResolution resolution) {
+        try {
+            return resolution.resolve();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Unwraps the failure of a dependent stage.
+     *
+     * @param error The failure.
+     * @return The original failure.
+     */
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Caches an answer for its TTL, limited by the configured bounds.
+     *
+     * @param key    The key of the answer.
+     * @param answer The answer.
+     */
+    private void store(Key key, Answer answer) {
+        long ttl;
+        if (answer.records().isEmpty()) {
+            ttl = answer.ttlSeconds() < 0 ? negativeTtlSeconds : Math.min(answer.ttlSeconds(), negativeTtlSeconds);
+        } else {
+            ttl = Math.min(Math.max(answer.ttlSeconds(), minTtlSeconds), maxTtlSeconds);
+        }
+        if (ttl <= 0) {
+            return;
+        }
+
+        long now = nanoClock.getAsLong();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+            if (entries.size() >= maxEntries) {
+                LOG.debug("DNS cache is full, not caching {} {}", key.name(), Type.string(key.type()));
+                return;
+            }
+        }
+        entries.put(key, new Entry(answer.records(), now + TimeUnit.SECONDS.toNanos(ttl)));
+    }
+
+    /**
+     * Waits for a resolution.
+     *
+     * @param resolution The resolution.
+     * @return The records of the answer.
+     * @throws IOException If the resolution failed.
+     */
+    static List<Record> await(CompletableFuture<List<Record>> resolution) throws IOException {
+        try {
+            return resolution.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for DNS resolution");
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("DNS resolution failed", cause);
+        }
+    }
+}
@@ -45,15 +45,22 @@ public class OkHttpDnsLookupHandler implements Dns {
      */
     private final DNSConfig dnsConfig;
 
+    /**
+     * Cache of DNS answers, shared with the other lookups of the network client.
+     */
+    private final DnsCache dnsCache;
+
     /**
      * Constructs a new OkHttpDnsLookupHandler instance with the specified DoHClient and DNS configuration.
      *
      * @param doHClient The DoHClient instance used for performing DNS over HTTPS lookups.
      * @param dnsConfig The DNS configuration settings.
+     * @param dnsCache  The cache of DNS answers.
      */
-    public OkHttpDnsLookupHandler(DoHClient doHClient, DNSConfig dnsConfig) {
+    public OkHttpDnsLookupHandler(DoHClient doHClient, DNSConfig dnsConfig, DnsCache dnsCache) {
         this.doHClient = doHClient;
         this.dnsConfig = dnsConfig;
+        this.dnsCache = dnsCache;
     }
 
     /**
@@ -74,13 +81,13 @@ public class OkHttpDnsLookupHandler implements Dns {
         if (dnsConfig.getDohEnabled()) {
             // Use DoH
             LOG.info("Lookup for {} using DNS over HTTPS", hostname);
-            return DNSLookup.lookupHostnameUsingDoH(hostname, doHClient);
+            return DNSLookup.lookupHostnameUsingDoH(hostname, doHClient, dnsCache);
         }
 
         if (!dnsConfig.getDnsServers().isEmpty()) {
             // Use configured Servers
             LOG.info("Lookup for {} using configured DNS Servers", hostname);
-            return DNSLookup.lookupHostnameUsingDnsServerList(hostname, dnsConfig.getDnsServers());
+            return DNSLookup.lookupHostnameUsingDnsServerList(hostname, dnsConfig.getDnsServers(), dnsCache);
         }
 
         // Otherwise use system configured DNS
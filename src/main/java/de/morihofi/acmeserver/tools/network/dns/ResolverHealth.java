@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package de.morihofi.acmeserver.tools.network.dns;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the health of DNS servers. A server failing several queries in a row is considered down and is only queried after all healthy
+ * servers, until its backoff has passed. The backoff doubles with every further failure, the first successful answer resets it.
+ */
+public class ResolverHealth {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Consecutive failures after which a server is considered down.
+     */
+    static final int FAILURE_THRESHOLD = 3;
+
+    /**
+     * Time a server is skipped after it has been considered down.
+     */
+    static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * Maximum time a server is skipped.
+     */
+    static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    /**
+     * Health of a single server.
+     *
+     * @param consecutiveFailures Number of failed queries since the last successful one.
+     * @param skipUntilNanos      Value of the clock until which the server is skipped.
+     */
+    private record State(int consecutiveFailures, long skipUntilNanos) {
+    }
+
+    /**
+     * Health of the servers that failed at least once since their last successful query.
+     */
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * Clock in nanoseconds.
+     */
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a health tracker using the system clock.
+     */
+    public ResolverHealth() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Creates a health tracker using the given clock.
+     *
+     * @param nanoClock Clock in nanoseconds.
+     */
+    ResolverHealth(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Orders servers for querying: healthy servers in their configured order, followed by servers that are down.
+     *
+     * @param servers The configured servers.
+     * @return The servers in query order.
+     */
+    public List<String> order(List<String> servers) {
+        long now = nanoClock.getAsLong();
+        List<String> healthy = new ArrayList<>(servers.size());
+        List<String> down = new ArrayList<>();
+        for (String server : servers) {
+            if (isDown(states.get(server), now)) {
+                down.add(server);
+            } else {
+                healthy.add(server);
+            }
+        }
+        healthy.addAll(down);
+        return healthy;
+    }
+
+    /**
+     * Records a successful query, marking the server healthy.
+     *
+     * @param server The server.
+     */
+    public void recordSuccess(String server) {
+        State previous = states.remove(server);
+        if (previous != null && previous.consecutiveFailures() >= FAILURE_THRESHOLD) {
+            LOG.info("DNS server {} is answering again", server);
+        }
+    }
+
+    /**
+     * Records a failed query. Once the server failed often enough in a row, it is skipped for a backoff time.
+     *
+     * @param server The server.
+     */
+    public void recordFailure(String server) {
+        long now = nanoClock.getAsLong();
+        State state = states.compute(server, (key, previous) -> {
+            int failures = previous == null ? 1 : previous.consecutiveFailures() + 1;
+            if (failures < FAILURE_THRESHOLD) {
+                return new State(failures, now);
+            }
+            long backoff = INITIAL_BACKOFF_NANOS << Math.min(failures - FAILURE_THRESHOLD, 10);
+            return new State(failures, now + Math.min(backoff, MAX_BACKOFF_NANOS));
+        });
+        if (state.consecutiveFailures() == FAILURE_THRESHOLD) {
+            LOG.warn("DNS server {} failed {} queries in a row, skipping it for {} seconds", server, FAILURE_THRESHOLD,
+                    TimeUnit.NANOSECONDS.toSeconds(INITIAL_BACKOFF_NANOS));
+        }
+    }
+
+    /**
+     * Checks whether a server is currently skipped.
+     *
+     * @param server The server.
+     * @return {@code true} if the server is considered down and its backoff has not passed yet.
+     */
+    public boolean isDown(String server) {
+        return isDown(states.get(server), nanoClock.getAsLong());
+    }
+
+    /**
+     * Checks whether a server with the given health is currently skipped.
+     *
+     * @param state The health of the server, {@code null} if it is healthy.
+     * @param now   The current value of the clock.
+     * @return {@code true} if the server is considered down and its backoff has not passed yet.
+     */
+    private static boolean isDown(State state, long now) {
+        return state != null && state.consecutiveFailures() >= FAILURE_THRESHOLD && now - state.skipUntilNanos() < 0;
+    }
+}
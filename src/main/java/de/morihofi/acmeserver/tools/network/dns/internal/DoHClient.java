@@ -17,10 +17,15 @@ package de.morihofi.acmeserver.tools.network.dns.internal;
 
 import de.morihofi.acmeserver.tools.network.NetworkClient;
 import de.morihofi.acmeserver.tools.network.dns.DNSLookup;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xbill.DNS.Message;
@@ -29,31 +34,53 @@ import org.xbill.DNS.Record;
 import org.xbill.DNS.Section;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.invoke.MethodHandles;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * DoHClient is a client that performs DNS queries over HTTPS (DoH). It uses the specified DoH URL and a network client to configure its
  * HTTP client.
+ * <p>
+ * The HTTP client shares the connection pool and dispatcher of the network client and prefers HTTP/2, so concurrent queries are
+ * multiplexed over a single connection to the DoH server. Queries are sent asynchronously, {@link #exchangeAsync(Message)} doesn't occupy
+ * a thread while waiting for the answer.
  */
 public class DoHClient {
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Media type of DNS wire format messages (RFC 8484).
+     */
+    private static final MediaType DNS_MESSAGE = MediaType.get("application/dns-message");
+
+    /**
+     * Timeout of a single query, including connecting to the DoH server.
+     */
+    private static final Duration QUERY_TIMEOUT = Duration.ofSeconds(5);
+
     private final String dohUrl;
     private final OkHttpClient client;
 
     /**
      * Constructs a DoHClient with the specified DoH URL and network client.
      *
-     * @param dohUrl    the URL of the DNS over HTTPS server.
-     * @param netClient the network client used to configure the HTTP client.
+     * @param dohUrl     the URL of the DNS over HTTPS server.
+     * @param baseClient the HTTP client whose connection pool, dispatcher, proxy and socket factory are shared.
+     * @param netClient  the network client providing the DNS servers used to resolve the DoH server.
      */
-    public DoHClient(String dohUrl, NetworkClient netClient) {
+    public DoHClient(String dohUrl, OkHttpClient baseClient, NetworkClient netClient) {
         this.dohUrl = dohUrl;
-        this.client = new OkHttpClient.Builder()
-                .proxy(netClient.getProxy())
+        this.client = baseClient.newBuilder()
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(QUERY_TIMEOUT)
+                .callTimeout(QUERY_TIMEOUT)
                 // Needed to resolve DoH DNS Host
-                .dns(hostname -> DNSLookup.lookupHostnameUsingDnsServerList(hostname, netClient.getDnsServer()))
+                .dns(hostname -> DNSLookup.lookupHostnameUsingDnsServerList(hostname, netClient.getDnsServer(), netClient.getDnsCache()))
                 .build();
     }
 
@@ -67,20 +94,8 @@ public class DoHClient {
      * @throws IOException if an I/O error occurs during the query.
      */
     public List<Record> query(Message query) throws IOException {
-        byte[] queryBytes = query.toWire();
-        Request request = new Request.Builder()
-                .header("Content-Type", "application/dns-message")
-                .url(dohUrl)
-                .post(RequestBody.create(queryBytes))
-                .build();
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected code " + response + " for query " + query.toString());
-            }
-            assert response.body() != null;
-            byte[] responseBytes = response.body().bytes();
-
-            return parseAnswer(responseBytes);
+        try {
+            return parseAnswer(exchange(query));
         } catch (Exception ex) {
             LOG.error("Exception occurred during DNS over HTTPS lookup", ex);
         }
@@ -88,20 +103,92 @@ public class DoHClient {
     }
 
     /**
-     * Parses the given DNS response and extracts the answer section.
+     * Sends the DNS query message to the DoH server and returns the complete response message, including its response code and authority
+     * section.
      *
-     * @param response The DNS response as a byte array.
-     * @return An Answer object containing the answer section records.
-     * @throws IllegalArgumentException If the DNS response is malformed, contains an error code, or the answer section is empty.
+     * @param query the DNS query message.
+     * @return the DNS response message.
+     * @throws IOException if the DoH server could not be reached, answered with an HTTP error or returned a malformed message.
      */
-    private List<Record> parseAnswer(byte[] response) throws IllegalArgumentException {
-        Message responseMessage;
+    public Message exchange(Message query) throws IOException {
+        CompletableFuture<Message> response = exchangeAsync(query);
         try {
-            responseMessage = new Message(response);
-        } catch (IOException exc) {
-            throw new IllegalArgumentException("Returned DNS message is malformed", exc);
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for DNS over HTTPS response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("DNS over HTTPS query failed", e.getCause());
         }
+    }
+
+    /**
+     * Sends the DNS query message to the DoH server without blocking. Cancelling the returned future cancels the HTTP call.
+     *
+     * @param query the DNS query message.
+     * @return the DNS response message, or an {@link IOException} if the DoH server could not be reached, answered with an HTTP error or
+     * returned a malformed message.
+     */
+    public CompletableFuture<Message> exchangeAsync(Message query) {
+        Request request = new Request.Builder()
+                .header("Accept", DNS_MESSAGE.toString())
+                .url(dohUrl)
+                .post(RequestBody.create(query.toWire(), DNS_MESSAGE))
+                .build();
+
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        Call call = client.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Unexpected code " + response + " for query " + query.getQuestion());
+                    }
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("DNS over HTTPS answer for {} received over {}", query.getQuestion(), response.protocol());
+                    }
+                    assert response.body() != null;
+                    result.complete(new Message(response.body().bytes()));
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        result.whenComplete((message, error) -> {
+            if (result.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return result;
+    }
 
+    /**
+     * Returns the URL of the DNS over HTTPS server.
+     *
+     * @return the DoH URL.
+     */
+    public String getDohUrl() {
+        return dohUrl;
+    }
+
+    /**
+     * Parses the given DNS response and extracts the answer section.
+     *
+     * @param responseMessage The DNS response message.
+     * @return An Answer object containing the answer section records.
+     * @throws IllegalArgumentException If the DNS response contains an error code.
+     */
+    private List<Record> parseAnswer(Message responseMessage) throws IllegalArgumentException {
         if (responseMessage.getRcode() != Rcode.NOERROR) {
             String rcodeString = Rcode.string(responseMessage.getRcode());
             throw new IllegalArgumentException("Lookup failed with " + rcodeString + " error");
@@ -14,40 +14,287 @@
  * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
+
 package de.morihofi.acmeserver.tools.network.logging;
 
+import de.morihofi.acmeserver.config.AccessLogConfig;
 import de.morihofi.acmeserver.config.Config;
 import io.javalin.http.Context;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Writes an Nginx like access log of all HTTP requests into the configured logging directory, one file per day.
+ * <p>
+ * Request threads only enqueue the raw request data. A single background writer drains the queue in batches, formats the entries into a
+ * reusable buffer and writes it to the file channel of the current day, which stays open. The buffer is written when it is full or when
+ * the flush interval has elapsed. When a file exceeds the configured size, it is rotated and optionally compressed using gzip.
+ * <p>
+ * The queue is bounded. When the writer cannot keep up (e.g. during request floods or disk stalls), the configured
+ * {@link OverflowPolicy} drops entries instead of exhausting the heap. Queue depth, dropped entries and writer lag are exposed as
+ * statistics.
+ */
 public class HTTPAccessLogger {
-    private static final String LOG_FORMAT = "%s - %s [%s] \"%s\" %d %d \"%s\" \"%s\"";
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z");
-    private static final SimpleDateFormat FILENAME_FORMAT = new SimpleDateFormat("yyyy_MM_dd");
 
-    private final BlockingQueue<String> logQueue = new LinkedBlockingQueue<>();
-    private final Thread logWriterThread;
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Format of the request time in a log entry.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+    /**
+     * Format of the date in the log file name.
+     */
+    private static final DateTimeFormatter FILENAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM_dd");
+
+    /**
+     * Maximum number of entries the writer takes from the queue at once.
+     */
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    /**
+     * Maximum time in milliseconds the writer waits for new entries before checking for the flush interval and stop.
+     */
+    private static final long MAX_POLL_MILLIS = 200;
+
+    /**
+     * Minimum size of the write buffer in bytes, large enough for any request line.
+     */
+    private static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+    /**
+     * Minimum interval between warnings about dropped entries.
+     */
+    private static final long DROP_WARNING_INTERVAL_MILLIS = 60_000;
+
+    /**
+     * Maximum time to wait on stop for the compression of rotated log files.
+     */
+    private static final long COMPRESSION_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Policy applied when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Removes the oldest queued entry to make room for the new one.
+         */
+        DROP_OLDEST,
+        /**
+         * Discards the new entry.
+         */
+        DROP_NEWEST,
+        /**
+         * Waits up to the block timeout for space in the queue, then discards the new entry.
+         */
+        BLOCK;
+
+        /**
+         * Parses the overflow policy from its configuration value.
+         *
+         * @param value The configuration value, e.g. {@code drop-oldest}.
+         * @return The overflow policy.
+         * @throws IllegalArgumentException if the value is unknown.
+         */
+        public static OverflowPolicy fromConfigValue(String value) {
+            return switch (value) {
+                case "drop-oldest" -> DROP_OLDEST;
+                case "drop-newest" -> DROP_NEWEST;
+                case "block" -> BLOCK;
+                default -> throw new IllegalArgumentException(
+                        "Unknown access log overflow policy " + value + ", must be one of drop-oldest, drop-newest or block");
+            };
+        }
+    }
+
+    /**
+     * Queue of entries waiting to be written, bounded to protect the heap when the writer cannot keep up.
+     */
+    private final BlockingQueue<AccessLogEntry> logQueue;
+
+    /**
+     * Policy applied when the queue is full.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Number of entries dropped because the queue was full.
+     */
+    private final LongAdder droppedEntries = new LongAdder();
+
+    /**
+     * Number of entries written to the log file. Entries are counted once the buffer containing them has been written.
+     */
+    private final LongAdder writtenEntries = new LongAdder();
+
+    /**
+     * Time of the last warning about dropped entries in milliseconds.
+     */
+    private volatile long lastDropWarningMillis;
+
+    /**
+     * Directory of the log files, {@code null} if access logging is disabled.
+     */
     private final Path logFileDirectory;
-    private final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Access log settings.
+     */
+    private final AccessLogConfig accessLogConfig;
+
+    /**
+     * Background thread writing the log entries.
+     */
+    private final Thread logWriterThread;
+
+    /**
+     * Executor compressing rotated log files, so that compression does not delay the writer.
+     */
+    private final ExecutorService compressionExecutor;
+
+    /**
+     * Time zone of the request times and log file dates.
+     */
+    private final ZoneId zoneId = ZoneId.systemDefault();
+
+    /**
+     * Indicates whether the writer is running.
+     */
     private volatile boolean running = true;
 
+    // State of the writer thread, only accessed by the writer thread
+
+    /**
+     * Reusable builder for formatting a log line.
+     */
+    private final StringBuilder lineBuilder = new StringBuilder(512);
+
+    /**
+     * Reusable encoder from the formatted line into the write buffer.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Buffer of encoded log lines that have not been written yet.
+     */
+    private final ByteBuffer writeBuffer;
+
+    /**
+     * Number of entries in the write buffer, counted as written when the buffer is written.
+     */
+    private int bufferedEntries;
+
+    /**
+     * Second of the cached formatted request time.
+     */
+    private long cachedTimeSecond = Long.MIN_VALUE;
+
+    /**
+     * Formatted request time of {@link #cachedTimeSecond}, requests within the same second share it.
+     */
+    private String cachedTime;
+
+    /**
+     * Channel of the current log file, {@code null} if no file is open.
+     */
+    private FileChannel channel;
+
+    /**
+     * Day of the current log file.
+     */
+    private LocalDate channelDay;
+
+    /**
+     * Path of the current log file.
+     */
+    private Path channelPath;
+
+    /**
+     * Size of the current log file in bytes.
+     */
+    private long channelSize;
+
+    /**
+     * Time of the last flush of the write buffer in milliseconds.
+     */
+    private long lastFlushMillis = System.currentTimeMillis();
+
+    /**
+     * Raw data of a request to log, formatted by the writer.
+     *
+     * @param timestamp     Time of the request in milliseconds since the epoch.
+     * @param remoteAddr    Address of the client.
+     * @param remoteUser    Authenticated user, or {@code null}.
+     * @param request       Request line.
+     * @param status        Response status code.
+     * @param bodyBytesSent Number of body bytes sent.
+     * @param httpReferer   Referer header, or {@code null}.
+     * @param httpUserAgent User-Agent header, or {@code null}.
+     */
+    private record AccessLogEntry(long timestamp, String remoteAddr, String remoteUser, String request, int status, long bodyBytesSent,
+                                  String httpReferer, String httpUserAgent) {
+    }
+
+    /**
+     * Creates the access logger and starts the writer, if a logging directory is configured.
+     *
+     * @param appConfig The application configuration.
+     * @throws IOException if the logging directory cannot be created.
+     */
     public HTTPAccessLogger(Config appConfig) throws IOException {
+        this(appConfig, true);
+    }
+
+    /**
+     * Creates the access logger, if a logging directory is configured.
+     *
+     * @param appConfig   The application configuration.
+     * @param startWriter Whether to start the writer, otherwise entries stay queued until {@link #startWriter()} is called.
+     * @throws IOException if the logging directory cannot be created.
+     */
+    HTTPAccessLogger(Config appConfig, boolean startWriter) throws IOException {
 
         String loggingDirectory = appConfig.getServer().getLoggingDirectory();
+        accessLogConfig = appConfig.getServer().getAccessLog();
+        logQueue = new LinkedBlockingQueue<>(Math.max(1, accessLogConfig.getQueueCapacity()));
+        overflowPolicy = OverflowPolicy.fromConfigValue(accessLogConfig.getOverflowPolicy());
+        writeBuffer = ByteBuffer.allocateDirect(Math.max(MIN_BUFFER_SIZE, accessLogConfig.getBufferSizeKb() * 1024));
 
         if (loggingDirectory != null) {
             // Configure paths
@@ -58,9 +305,17 @@ public class HTTPAccessLogger {
                 Files.createDirectories(logFileDirectory);
             }
 
+            compressionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "HTTP Access Log Compressor");
+                thread.setDaemon(true);
+                return thread;
+            });
+
             logWriterThread = new Thread(this::writeLogs);
             logWriterThread.setName("HTTP Access Background Logger");
-            logWriterThread.start();
+            if (startWriter) {
+                startWriter();
+            }
 
             // Add shutdown hook
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -70,80 +325,419 @@ public class HTTPAccessLogger {
         } else {
             LOG.info("HTTP Access Logger deactivated, because no logging directory was set");
             logFileDirectory = null;
-            logWriterThread = new Thread(() -> {
-                throw new IllegalArgumentException("HTTP Log writing is deactivated");
-            });
+            compressionExecutor = null;
+            logWriterThread = null;
         }
     }
 
+    /**
+     * Starts the writer.
+     */
+    void startWriter() {
+        logWriterThread.start();
+    }
+
+    /**
+     * Logs a request.
+     *
+     * @param remoteAddr    Address of the client.
+     * @param remoteUser    Authenticated user, or {@code null}.
+     * @param request       Request line.
+     * @param status        Response status code.
+     * @param bodyBytesSent Number of body bytes sent.
+     * @param httpReferer   Referer header, or {@code null}.
+     * @param httpUserAgent User-Agent header, or {@code null}.
+     */
     public void log(String remoteAddr, String remoteUser, String request, int status, int bodyBytesSent, String httpReferer,
             String httpUserAgent) {
-        String timeLocal = DATE_FORMAT.format(new Date());
-        String logEntry = String.format(
-                LOG_FORMAT,
-                remoteAddr,
-                remoteUser == null ? "-" : remoteUser,
-                timeLocal,
-                request,
-                status,
-                bodyBytesSent,
-                httpReferer == null ? "-" : httpReferer,
-                httpUserAgent == null ? "-" : httpUserAgent
-        );
-        logQueue.offer(logEntry);
+        if (logFileDirectory == null) {
+            return;
+        }
+        enqueue(new AccessLogEntry(System.currentTimeMillis(), remoteAddr, remoteUser, request, status, bodyBytesSent, httpReferer,
+                httpUserAgent));
     }
 
-    private void writeLogs() {
-        LOG.info("HTTP Access Background Logger Thread started");
-        while (running) {
-            try {
-                String logEntry = logQueue.take();
-                String filename = "access_" + FILENAME_FORMAT.format(new Date()) + ".log";
+    /**
+     * Adds an entry to the queue, applying the overflow policy if the queue is full.
+     *
+     * @param entry The entry to add.
+     */
+    private void enqueue(AccessLogEntry entry) {
+        boolean queued = switch (overflowPolicy) {
+            case DROP_NEWEST -> logQueue.offer(entry);
+            case DROP_OLDEST -> {
+                while (!logQueue.offer(entry)) {
+                    if (logQueue.poll() != null) {
+                        entryDropped();
+                    }
+                }
+                yield true;
+            }
+            case BLOCK -> {
+                try {
+                    yield logQueue.offer(entry, accessLogConfig.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    yield false;
+                }
+            }
+        };
+        if (!queued) {
+            entryDropped();
+        }
+    }
 
-                Path path = logFileDirectory.resolve(filename);
+    /**
+     * Counts a dropped entry and warns about dropped entries at most once per {@link #DROP_WARNING_INTERVAL_MILLIS}.
+     */
+    private void entryDropped() {
+        droppedEntries.increment();
+        long now = System.currentTimeMillis();
+        if (now - lastDropWarningMillis >= DROP_WARNING_INTERVAL_MILLIS) {
+            lastDropWarningMillis = now;
+            LOG.warn("HTTP access log queue is full ({} entries), entries are dropped using policy {}. {} entries dropped so far",
+                    logQueue.size(), overflowPolicy, droppedEntries.sum());
+        }
+    }
 
-                // Ensure the file exists
-                if (!Files.exists(path)) {
-                    Files.createFile(path);
-                }
+    /**
+     * Checks if access logging is enabled.
+     *
+     * @return {@code true} if a logging directory is configured, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return logFileDirectory != null;
+    }
 
-                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+    /**
+     * Gets the policy applied when the queue is full.
+     *
+     * @return The overflow policy.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
 
-                    ByteBuffer buffer = ByteBuffer.wrap((logEntry + System.lineSeparator()).getBytes());
-                    fileChannel.write(buffer);
-                } catch (IOException e) {
-                    LOG.error("Error writing to HTTP access log", e);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } catch (IOException e) {
-                LOG.error("Error creating HTTP access logfile", e);
-            }
+    /**
+     * Gets the number of entries waiting to be written.
+     *
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        return logQueue.size();
+    }
+
+    /**
+     * Gets the maximum number of entries waiting to be written.
+     *
+     * @return The queue capacity.
+     */
+    public int getQueueCapacity() {
+        return logQueue.size() + logQueue.remainingCapacity();
+    }
+
+    /**
+     * Gets the number of entries dropped because the queue was full.
+     *
+     * @return The number of dropped entries.
+     */
+    public long getDroppedEntries() {
+        return droppedEntries.sum();
+    }
+
+    /**
+     * Gets the number of entries written to the log file.
+     *
+     * @return The number of written entries.
+     */
+    public long getWrittenEntries() {
+        return writtenEntries.sum();
+    }
+
+    /**
+     * Gets the writer lag, the time the oldest queued entry has been waiting to be written. Grows while the disk stalls.
+     *
+     * @return The writer lag in milliseconds, 0 if the queue is empty.
+     */
+    public long getWriterLagMillis() {
+        AccessLogEntry oldestEntry = logQueue.peek();
+        return oldestEntry == null ? 0 : Math.max(0, System.currentTimeMillis() - oldestEntry.timestamp());
+    }
+
+    /**
+     * Logs the request of the given context.
+     *
+     * @param ctx The Javalin context of the request.
+     */
+    public void log(Context ctx) {
+        if (logFileDirectory == null) {
+            return;
         }
+        String remoteAddr = ctx.ip();
+        String remoteUser = ctx.basicAuthCredentials() != null ? ctx.basicAuthCredentials().getUsername() : null;
+        String request = ctx.method() + " " + ctx.path() + " " + ctx.protocol();
+        int status = ctx.statusCode();
+        int bodyBytesSent = ctx.resultInputStream() != null ? ctx.resultInputStream().toString().length() : 0;
+
+        log(remoteAddr, remoteUser, request, status, bodyBytesSent, ctx.header("Referer"), ctx.userAgent());
     }
 
+    /**
+     * Stops the writer after writing all queued entries and waits for the compression of rotated log files.
+     */
     public void stop() {
+        if (logWriterThread == null) {
+            return;
+        }
+        // Not interrupting the writer, an interrupt during a write would close the file channel and lose the buffered entries
         running = false;
-        logWriterThread.interrupt();
         try {
             logWriterThread.join();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        compressionExecutor.shutdown();
+        try {
+            if (!compressionExecutor.awaitTermination(COMPRESSION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("Compression of rotated HTTP access logs did not finish within {} seconds", COMPRESSION_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    public void log(Context ctx) {
-        String remoteAddr = ctx.ip();
-        String remoteUser = ctx.basicAuthCredentials() != null ? ctx.basicAuthCredentials().getUsername() : "-";
-        String timeLocal = DATE_FORMAT.format(new Date());
-        String request = ctx.method() + " " + ctx.path() + " " + ctx.protocol();
-        int status = ctx.statusCode();
-        int bodyBytesSent = ctx.resultInputStream() != null ? ctx.resultInputStream().toString().length() : 0;
-        String httpReferer = ctx.header("Referer") != null ? ctx.header("Referer") : "-";
-        String httpUserAgent = ctx.userAgent() != null ? ctx.userAgent() : "-";
+    /**
+     * Main loop of the writer thread. Drains the queue in batches and writes the buffer when it is full or the flush interval has elapsed.
+     * On stop, the remaining entries are written before the log file is closed.
+     */
+    private void writeLogs() {
+        LOG.info("HTTP Access Background Logger Thread started");
+        long flushIntervalMillis = Math.max(1, accessLogConfig.getFlushIntervalMillis());
+        long pollMillis = Math.min(flushIntervalMillis, MAX_POLL_MILLIS);
+        List<AccessLogEntry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        boolean interrupted = false;
 
-        String logEntry =
-                String.format(LOG_FORMAT, remoteAddr, remoteUser, timeLocal, request, status, bodyBytesSent, httpReferer, httpUserAgent);
-        logQueue.offer(logEntry);
+        while (running || !logQueue.isEmpty()) {
+            try {
+                AccessLogEntry first = logQueue.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    logQueue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    for (AccessLogEntry entry : batch) {
+                        append(entry);
+                    }
+                }
+                if (System.currentTimeMillis() - lastFlushMillis >= flushIntervalMillis) {
+                    flush();
+                }
+            } catch (InterruptedException e) {
+                // Write the remaining entries first, the interrupt is restored afterwards
+                LOG.warn("HTTP Access Background Logger interrupted, stopping");
+                interrupted = true;
+                running = false;
+            } catch (IOException e) {
+                LOG.error("Error writing to HTTP access log, discarding buffered entries", e);
+                resetChannel();
+            } finally {
+                batch.clear();
+            }
+        }
+
+        try {
+            flush();
+            closeChannel();
+        } catch (IOException e) {
+            LOG.error("Error closing HTTP access log", e);
+        }
+        LOG.info("HTTP Access Background Logger Thread stopped");
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Formats an entry into the write buffer, switching to the log file of the entry's day if necessary.
+     *
+     * @param entry The entry to append.
+     * @throws IOException if the buffer cannot be written to the log file.
+     */
+    private void append(AccessLogEntry entry) throws IOException {
+        LocalDate day = Instant.ofEpochMilli(entry.timestamp()).atZone(zoneId).toLocalDate();
+        if (!day.equals(channelDay)) {
+            switchDay(day);
+        }
+
+        long second = Math.floorDiv(entry.timestamp(), 1000L);
+        if (second != cachedTimeSecond) {
+            cachedTime = DATE_FORMAT.format(Instant.ofEpochMilli(entry.timestamp()).atZone(zoneId));
+            cachedTimeSecond = second;
+        }
+
+        lineBuilder.setLength(0);
+        lineBuilder.append(entry.remoteAddr()).append(" - ")
+                .append(entry.remoteUser() == null ? "-" : entry.remoteUser())
+                .append(" [").append(cachedTime).append("] \"")
+                .append(entry.request()).append("\" ")
+                .append(entry.status()).append(' ')
+                .append(entry.bodyBytesSent()).append(" \"")
+                .append(entry.httpReferer() == null ? "-" : entry.httpReferer()).append("\" \"")
+                .append(entry.httpUserAgent() == null ? "-" : entry.httpUserAgent()).append('"')
+                .append(System.lineSeparator());
+
+        // Flush before a line that might not fit, so that rotation happens between lines. Only lines longer than the whole buffer are
+        // written in parts.
+        if (writeBuffer.remaining() < lineBuilder.length() * (long) Math.ceil(encoder.maxBytesPerChar())) {
+            flush();
+        }
+
+        CharBuffer line = CharBuffer.wrap(lineBuilder);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(line, writeBuffer, true);
+            if (result.isOverflow()) {
+                write();
+            } else {
+                break;
+            }
+        }
+        while (encoder.flush(writeBuffer).isOverflow()) {
+            write();
+        }
+        bufferedEntries++;
+    }
+
+    /**
+     * Writes the buffered log lines to the current log file and rotates the file if it exceeds the maximum size.
+     *
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void flush() throws IOException {
+        lastFlushMillis = System.currentTimeMillis();
+        write();
+
+        long maxFileSize = accessLogConfig.getMaxFileSizeMb() * 1024 * 1024;
+        if (channel != null && maxFileSize > 0 && channelSize >= maxFileSize) {
+            rotate();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the current log file. The buffer may end within a line, so the file is not rotated. The entries of the
+     * buffer are counted as written once the whole buffer has been written.
+     *
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void write() throws IOException {
+        if (writeBuffer.position() == 0 || channel == null) {
+            return;
+        }
+
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                channelSize += channel.write(writeBuffer);
+            }
+        } finally {
+            writeBuffer.clear();
+        }
+        writtenEntries.add(bufferedEntries);
+        bufferedEntries = 0;
+    }
+
+    /**
+     * Switches to the log file of the given day, after writing the buffered lines to the previous file.
+     *
+     * @param day The day of the log file to write to.
+     * @throws IOException if the log file cannot be opened.
+     */
+    private void switchDay(LocalDate day) throws IOException {
+        flush();
+        closeChannel();
+        channelDay = day;
+        channelPath = logFileDirectory.resolve("access_" + FILENAME_FORMAT.format(day) + ".log");
+        openChannel();
+    }
+
+    /**
+     * Opens the channel of the current log file, creating the file if it does not exist.
+     *
+     * @throws IOException if the log file cannot be opened.
+     */
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(channelPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelSize = channel.size();
+    }
+
+    /**
+     * Closes the channel of the current log file, if one is open.
+     *
+     * @throws IOException if the channel cannot be closed.
+     */
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Discards the buffered entries and closes the current log file after a write error, the next entry reopens it.
+     */
+    private void resetChannel() {
+        writeBuffer.clear();
+        bufferedEntries = 0;
+        try {
+            closeChannel();
+        } catch (IOException e) {
+            LOG.debug("Unable to close HTTP access log after write error", e);
+            channel = null;
+        }
+        channelDay = null;
+    }
+
+    /**
+     * Rotates the current log file: it is renamed to the next free index ({@code access_<day>.<index>.log}), optionally compressed in the
+     * background, and a new log file is started.
+     *
+     * @throws IOException if the log file cannot be rotated.
+     */
+    private void rotate() throws IOException {
+        closeChannel();
+
+        String baseName = "access_" + FILENAME_FORMAT.format(channelDay);
+        Path rotatedPath;
+        int index = 1;
+        do {
+            rotatedPath = logFileDirectory.resolve(baseName + "." + index + ".log");
+            index++;
+        } while (Files.exists(rotatedPath) || Files.exists(Path.of(rotatedPath + ".gz")));
+
+        Files.move(channelPath, rotatedPath);
+        LOG.info("Rotated HTTP access log to {}", rotatedPath);
+
+        if (accessLogConfig.isCompressRotatedFiles()) {
+            Path fileToCompress = rotatedPath;
+            compressionExecutor.execute(() -> compress(fileToCompress));
+        }
+
+        openChannel();
+    }
+
+    /**
+     * Compresses a rotated log file using gzip and deletes the uncompressed file.
+     *
+     * @param path The log file to compress.
+     */
+    private static void compress(Path path) {
+        Path compressedPath = Path.of(path + ".gz");
+        try {
+            try (InputStream inputStream = Files.newInputStream(path);
+                 OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(compressedPath), 64 * 1024)) {
+                inputStream.transferTo(outputStream);
+            }
+            Files.delete(path);
+        } catch (IOException e) {
+            LOG.error("Unable to compress rotated HTTP access log {}", path, e);
+        }
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.tools.network.ssl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.jsse.BCApplicationProtocolSelector;
+import org.bouncycastle.jsse.BCSSLEngine;
+import org.eclipse.jetty.alpn.server.ALPNServerConnection;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.ssl.ALPNProcessor;
+import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+
+import javax.net.ssl.SSLEngine;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+/**
+ * ALPN processor for Bouncy Castle JSSE engines. Jetty's ALPN processors only apply to the JDK's own SSL engines, but the API connectors
+ * use Bouncy Castle JSSE (see {@link de.morihofi.acmeserver.tools.network.JettySslHelper}). This processor negotiates the application
+ * protocol (h2 or http/1.1) using Bouncy Castle's ALPN API. It is registered as service provider in
+ * {@code META-INF/services/org.eclipse.jetty.io.ssl.ALPNProcessor$Server}.
+ */
+public class BouncyCastleServerALPNProcessor implements ALPNProcessor.Server {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    @Override
+    public boolean appliesTo(SSLEngine sslEngine) {
+        return sslEngine instanceof BCSSLEngine;
+    }
+
+    @Override
+    public void configure(SSLEngine sslEngine, Connection connection) {
+        ((BCSSLEngine) sslEngine).setBCHandshakeApplicationProtocolSelector(new ALPNCallback((ALPNServerConnection) connection));
+    }
+
+    /**
+     * Selects the application protocol during the handshake and falls back to the default protocol if the client did not offer ALPN.
+     */
+    private static final class ALPNCallback implements BCApplicationProtocolSelector<SSLEngine>, SslHandshakeListener {
+
+        /**
+         * The connection negotiating the protocol.
+         */
+        private final ALPNServerConnection alpnConnection;
+
+        /**
+         * Creates a callback for the given connection and registers it as handshake listener.
+         *
+         * @param connection The connection negotiating the protocol.
+         */
+        private ALPNCallback(ALPNServerConnection connection) {
+            this.alpnConnection = connection;
+            ((SslConnection.DecryptedEndPoint) connection.getEndPoint()).getSslConnection().addHandshakeListener(this);
+        }
+
+        @Override
+        public String select(SSLEngine sslEngine, List<String> protocols) {
+            try {
+                alpnConnection.select(protocols);
+                return alpnConnection.getProtocol();
+            } catch (Throwable ex) {
+                // No common protocol, returning null lets the engine send the no_application_protocol alert
+                LOG.debug("Unable to negotiate an application protocol from {}", protocols, ex);
+                return null;
+            }
+        }
+
+        @Override
+        public void handshakeSucceeded(Event event) {
+            if (alpnConnection.getProtocol() == null) {
+                // Client did not use ALPN, continue with the default protocol
+                alpnConnection.unsupported();
+            }
+        }
+    }
+}
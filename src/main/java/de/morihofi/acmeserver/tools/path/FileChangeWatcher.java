@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024 Moritz Hofmann <info@morihofi.de>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package de.morihofi.acmeserver.tools.path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a single file for changes and invokes a callback once the file has settled. Editors and deployment tools often write a file in
+ * several steps (truncate, write, rename), so events are debounced: the callback runs after no further change was seen for the debounce
+ * interval. The watcher runs on a daemon thread and never blocks shutdown.
+ */
+public class FileChangeWatcher implements AutoCloseable {
+    /**
+     * Logger instance for logging information and errors.
+     */
+    private static final Logger LOG = LogManager.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Default time without further changes before the callback is invoked.
+     */
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 1000;
+
+    /**
+     * The watched file.
+     */
+    private final Path file;
+
+    /**
+     * Callback invoked after the file has changed.
+     */
+    private final Runnable onChange;
+
+    /**
+     * Time without further changes before the callback is invoked, in milliseconds.
+     */
+    private final long debounceMillis;
+
+    /**
+     * Watch service of the directory containing the file, {@code null} until started.
+     */
+    private WatchService watchService;
+
+    /**
+     * Creates a watcher with the default debounce interval.
+     *
+     * @param file     The file to watch.
+     * @param onChange Callback invoked after the file has changed.
+     */
+    public FileChangeWatcher(Path file, Runnable onChange) {
+        this(file, onChange, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Creates a watcher.
+     *
+     * @param file           The file to watch.
+     * @param onChange       Callback invoked after the file has changed.
+     * @param debounceMillis Time without further changes before the callback is invoked, in milliseconds.
+     */
+    public FileChangeWatcher(Path file, Runnable onChange, long debounceMillis) {
+        this.file = file.toAbsolutePath().normalize();
+        this.onChange = onChange;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Starts watching the file on a daemon thread.
+     *
+     * @throws IOException If the directory of the file cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            throw new IllegalStateException("Watcher for " + file + " has already been started");
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread thread = new Thread(() -> watch(watchService), "file-watcher-" + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for changes of the file and invokes the callback once they have settled.
+     *
+     * @param service The watch service to poll.
+     */
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = pollFileEvents(key);
+                // Collect all events following in quick succession into one callback invocation
+                while (changed) {
+                    WatchKey next = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    pollFileEvents(next);
+                }
+                if (changed) {
+                    LOG.debug("Detected change of {}", file);
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        LOG.error("Change handler for {} failed", file, e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            LOG.debug("Stopped watching {}", file);
+        }
+    }
+
+    /**
+     * Drains the events of a watch key and resets it.
+     *
+     * @param key The signalled watch key.
+     * @return {@code true} if one of the events concerned the watched file.
+     */
+    private boolean pollFileEvents(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (event.context() instanceof Path changedPath && file.getFileName().equals(changedPath))) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching the file.
+     *
+     * @throws IOException If the watch service cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+-- Baseline schema of the ACME server (H2).
+-- Matches the schema previously generated by Hibernate, so existing databases adopt it unchanged.
+create sequence if not exists users_SEQ start with 1 increment by 50;
+create sequence if not exists user_session_SEQ start with 1 increment by 50;
+
+create table if not exists ACMEAccount (
+    id bigint generated by default as identity,
+    accountId varchar(255),
+    publicKeyPEM TEXT,
+    deactivated boolean,
+    provisioner varchar(255) not null,
+    primary key (id),
+    unique (accountId)
+);
+
+create table if not exists account_emails (
+    account_id bigint not null,
+    email varchar(255),
+    constraint fk_account_emails_1 foreign key (account_id) references ACMEAccount (id)
+);
+
+create table if not exists ACMEOrder (
+    id bigint generated by default as identity,
+    orderId varchar(255),
+    accountId varchar(255),
+    created timestamp(6),
+    expires timestamp(6),
+    notBefore timestamp(6),
+    notAfter timestamp(6),
+    orderState enum('IDLE', 'NEED_A_CERTIFICATE', 'GENERATION_FAILED') not null,
+    certificateId TEXT,
+    certificateCSR TEXT,
+    certificateIssued timestamp(6),
+    certificateExpires timestamp(6),
+    certificatePem TEXT,
+    certificateSerialNumber numeric(50,0),
+    revokeStatusCode integer,
+    revokeTimestamp timestamp(6),
+    primary key (id),
+    unique (orderId),
+    unique (certificateId),
+    constraint fk_acmeorder_1 foreign key (accountId) references ACMEAccount (accountId)
+);
+
+create table if not exists ACMEOrderIdentifier (
+    identifierId varchar(255) not null,
+    type varchar(255),
+    dataValue varchar(255),
+    orderId varchar(255),
+    hasChallengesGenerated boolean not null,
+    authorizationId varchar(255) not null,
+    primary key (identifierId),
+    constraint fk_acmeorderidentifier_1 foreign key (orderId) references ACMEOrder (orderId)
+);
+
+create table if not exists ACMEOrderIdentifierChallenge (
+    challengeId varchar(255) not null,
+    verifiedTime timestamp(6),
+    challengeType enum('HTTP_01', 'DNS_01', 'TLS_ALPN_01') not null,
+    identifierId varchar(255),
+    authorizationToken varchar(255) not null,
+    status enum('PENDING', 'READY', 'PROCESSING', 'VALID', 'INVALID', 'REVOKED', 'DEACTIVATED', 'EXPIRED') not null,
+    primary key (challengeId),
+    constraint fk_acmeorderidentifierchallenge_1 foreign key (identifierId) references ACMEOrderIdentifier (identifierId)
+);
+
+create table if not exists acmeorder_archive (
+    id bigint generated by default as identity,
+    orderId varchar(255) not null,
+    provisioner varchar(255) not null,
+    accountId varchar(255),
+    created timestamp(6),
+    certificateIssued timestamp(6),
+    certificateExpires timestamp(6),
+    certificatePem TEXT,
+    certificateSerialNumber numeric(50,0),
+    revokeStatusCode integer,
+    revokeTimestamp timestamp(6),
+    archived timestamp(6) not null,
+    primary key (id),
+    unique (orderId)
+);
+
+create table if not exists certificate_daily_rollup (
+    id bigint generated by default as identity,
+    provisioner varchar(255) not null,
+    rollupDay date not null,
+    issued bigint not null,
+    revoked bigint not null,
+    primary key (id),
+    constraint uc_certificate_daily_rollup_provisioner_day unique (provisioner, rollupDay)
+);
+
+create table if not exists httpnonces (
+    nonce varchar(255) not null,
+    timestamp timestamp(6),
+    generated timestamp(6),
+    primary key (nonce)
+);
+
+create table if not exists provisioner_counters (
+    provisioner varchar(255) not null,
+    acmeAccounts bigint not null,
+    activeAcmeAccounts bigint not null,
+    certificatesIssued bigint not null,
+    certificatesRevoked bigint not null,
+    certificatesWaiting bigint not null,
+    reconciled timestamp(6),
+    primary key (provisioner)
+);
+
+create table if not exists users (
+    id bigint not null,
+    email varchar(255),
+    isAdmin boolean not null,
+    primary key (id)
+);
+
+create table if not exists user_session (
+    id bigint not null,
+    sessionToken varchar(255) not null,
+    user_id bigint not null,
+    sessionCreated timestamp(6),
+    sessionExpire timestamp(6),
+    primary key (id),
+    constraint fk_user_session_1 foreign key (user_id) references users (id)
+);
+
+create index if not exists idx_acmeorder_archive_provisioner_revoked on acmeorder_archive (provisioner, revokeTimestamp);
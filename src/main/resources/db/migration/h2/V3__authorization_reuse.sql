@@ -0,0 +1,7 @@
+-- Authorization state on order identifiers, used to reuse valid authorizations across orders of an account (H2).
+-- Identifiers created before this migration keep a null status and are never reused.
+alter table ACMEOrderIdentifier add column if not exists accountId varchar(255);
+alter table ACMEOrderIdentifier add column if not exists authorizationStatus enum('PENDING', 'READY', 'PROCESSING', 'VALID', 'INVALID', 'REVOKED', 'DEACTIVATED', 'EXPIRED');
+alter table ACMEOrderIdentifier add column if not exists authorizationValidated timestamp(6);
+
+create index if not exists idx_acmeorderidentifier_reuse on ACMEOrderIdentifier (accountId, type, dataValue, authorizationStatus);
@@ -0,0 +1,5 @@
+-- RFC 7638 JWK thumbprint of the account key, used for key authorizations and to find accounts by key (H2).
+-- Thumbprints of existing accounts are computed on startup. A key identifies at most one account per provisioner.
+alter table ACMEAccount add column if not exists jwkThumbprint varchar(64);
+
+create unique index if not exists uc_acmeaccount_provisioner_jwkthumbprint on ACMEAccount (provisioner, jwkThumbprint);
@@ -0,0 +1,2 @@
+-- Time a challenge was claimed for validation, used to claim it again when its validation was lost (H2).
+alter table ACMEOrderIdentifierChallenge add column if not exists processingStarted timestamp(6);
@@ -0,0 +1,7 @@
+-- Rate limit buckets shared between server nodes (MariaDB).
+create table if not exists rate_limit_buckets (
+    bucketKey varchar(255) not null,
+    theoreticalArrival bigint not null,
+    primary key (bucketKey),
+    index idx_rate_limit_buckets_arrival (theoreticalArrival)
+) engine=InnoDB;
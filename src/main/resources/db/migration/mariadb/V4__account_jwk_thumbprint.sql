@@ -0,0 +1,5 @@
+-- RFC 7638 JWK thumbprint of the account key, used for key authorizations and to find accounts by key (MariaDB).
+-- Thumbprints of existing accounts are computed on startup. A key identifies at most one account per provisioner.
+alter table ACMEAccount
+    add column if not exists jwkThumbprint varchar(64),
+    add unique index if not exists uc_acmeaccount_provisioner_jwkthumbprint (provisioner, jwkThumbprint);
@@ -0,0 +1,2 @@
+-- Time a challenge was claimed for validation, used to claim it again when its validation was lost (MariaDB).
+alter table ACMEOrderIdentifierChallenge add column if not exists processingStarted datetime(6);
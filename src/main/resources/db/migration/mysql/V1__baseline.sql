@@ -0,0 +1,130 @@
+-- Baseline schema of the ACME server (MySQL).
+-- Matches the schema previously generated by Hibernate, so existing databases adopt it unchanged.
+create table if not exists users_SEQ (next_val bigint) engine=InnoDB;
+insert into users_SEQ (next_val) select 1 from dual where not exists (select * from users_SEQ);
+create table if not exists user_session_SEQ (next_val bigint) engine=InnoDB;
+insert into user_session_SEQ (next_val) select 1 from dual where not exists (select * from user_session_SEQ);
+
+create table if not exists ACMEAccount (
+    id bigint not null auto_increment,
+    accountId varchar(255),
+    publicKeyPEM TEXT,
+    deactivated bit,
+    provisioner varchar(255) not null,
+    primary key (id),
+    unique (accountId)
+) engine=InnoDB;
+
+create table if not exists account_emails (
+    account_id bigint not null,
+    email varchar(255),
+    constraint fk_account_emails_1 foreign key (account_id) references ACMEAccount (id)
+) engine=InnoDB;
+
+create table if not exists ACMEOrder (
+    id bigint not null auto_increment,
+    orderId varchar(255),
+    accountId varchar(255),
+    created datetime(6),
+    expires datetime(6),
+    notBefore datetime(6),
+    notAfter datetime(6),
+    orderState enum('IDLE', 'NEED_A_CERTIFICATE', 'GENERATION_FAILED') not null,
+    certificateId TEXT,
+    certificateCSR TEXT,
+    certificateIssued datetime(6),
+    certificateExpires datetime(6),
+    certificatePem TEXT,
+    certificateSerialNumber decimal(50,0),
+    revokeStatusCode integer,
+    revokeTimestamp datetime(6),
+    primary key (id),
+    unique (orderId),
+    unique (certificateId(255)),
+    constraint fk_acmeorder_1 foreign key (accountId) references ACMEAccount (accountId)
+) engine=InnoDB;
+
+create table if not exists ACMEOrderIdentifier (
+    identifierId varchar(255) not null,
+    type varchar(255),
+    dataValue varchar(255),
+    orderId varchar(255),
+    hasChallengesGenerated bit not null,
+    authorizationId varchar(255) not null,
+    primary key (identifierId),
+    constraint fk_acmeorderidentifier_1 foreign key (orderId) references ACMEOrder (orderId)
+) engine=InnoDB;
+
+create table if not exists ACMEOrderIdentifierChallenge (
+    challengeId varchar(255) not null,
+    verifiedTime datetime(6),
+    challengeType enum('HTTP_01', 'DNS_01', 'TLS_ALPN_01') not null,
+    identifierId varchar(255),
+    authorizationToken varchar(255) not null,
+    status enum('PENDING', 'READY', 'PROCESSING', 'VALID', 'INVALID', 'REVOKED', 'DEACTIVATED', 'EXPIRED') not null,
+    primary key (challengeId),
+    constraint fk_acmeorderidentifierchallenge_1 foreign key (identifierId) references ACMEOrderIdentifier (identifierId)
+) engine=InnoDB;
+
+create table if not exists acmeorder_archive (
+    id bigint not null auto_increment,
+    orderId varchar(255) not null,
+    provisioner varchar(255) not null,
+    accountId varchar(255),
+    created datetime(6),
+    certificateIssued datetime(6),
+    certificateExpires datetime(6),
+    certificatePem TEXT,
+    certificateSerialNumber decimal(50,0),
+    revokeStatusCode integer,
+    revokeTimestamp datetime(6),
+    archived datetime(6) not null,
+    primary key (id),
+    unique (orderId),
+    index idx_acmeorder_archive_provisioner_revoked (provisioner, revokeTimestamp)
+) engine=InnoDB;
+
+create table if not exists certificate_daily_rollup (
+    id bigint not null auto_increment,
+    provisioner varchar(255) not null,
+    rollupDay date not null,
+    issued bigint not null,
+    revoked bigint not null,
+    primary key (id),
+    constraint uc_certificate_daily_rollup_provisioner_day unique (provisioner, rollupDay)
+) engine=InnoDB;
+
+create table if not exists httpnonces (
+    nonce varchar(255) not null,
+    timestamp datetime(6),
+    generated datetime(6),
+    primary key (nonce)
+) engine=InnoDB;
+
+create table if not exists provisioner_counters (
+    provisioner varchar(255) not null,
+    acmeAccounts bigint not null,
+    activeAcmeAccounts bigint not null,
+    certificatesIssued bigint not null,
+    certificatesRevoked bigint not null,
+    certificatesWaiting bigint not null,
+    reconciled datetime(6),
+    primary key (provisioner)
+) engine=InnoDB;
+
+create table if not exists users (
+    id bigint not null,
+    email varchar(255),
+    isAdmin bit not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists user_session (
+    id bigint not null,
+    sessionToken varchar(255) not null,
+    user_id bigint not null,
+    sessionCreated datetime(6),
+    sessionExpire datetime(6),
+    primary key (id),
+    constraint fk_user_session_1 foreign key (user_id) references users (id)
+) engine=InnoDB;
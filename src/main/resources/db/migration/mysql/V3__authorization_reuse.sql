@@ -0,0 +1,26 @@
+-- Authorization state on order identifiers, used to reuse valid authorizations across orders of an account (MySQL).
+-- Identifiers created before this migration keep a null status and are never reused.
+-- MySQL has no "if not exists" for columns and indexes, each change is only executed if it is missing, so the script can be re-run.
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database() and table_name = 'ACMEOrderIdentifier' and column_name = 'accountId') = 0,
+    'alter table ACMEOrderIdentifier add column accountId varchar(255)', 'do 0');
+prepare migration from @ddl;
+execute migration;
+deallocate prepare migration;
+
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database() and table_name = 'ACMEOrderIdentifier' and column_name = 'authorizationStatus') = 0,
+    'alter table ACMEOrderIdentifier add column authorizationStatus enum(''PENDING'', ''READY'', ''PROCESSING'', ''VALID'', ''INVALID'', ''REVOKED'', ''DEACTIVATED'', ''EXPIRED'')', 'do 0');
+prepare migration from @ddl;
+execute migration;
+deallocate prepare migration;
+
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database() and table_name = 'ACMEOrderIdentifier' and column_name = 'authorizationValidated') = 0,
+    'alter table ACMEOrderIdentifier add column authorizationValidated datetime(6)', 'do 0');
+prepare migration from @ddl;
+execute migration;
+deallocate prepare migration;
+
+set @ddl = if((select count(*) from information_schema.statistics where table_schema = database() and table_name = 'ACMEOrderIdentifier' and index_name = 'idx_acmeorderidentifier_reuse') = 0,
+    'alter table ACMEOrderIdentifier add index idx_acmeorderidentifier_reuse (accountId, type, dataValue, authorizationStatus)', 'do 0');
+prepare migration from @ddl;
+execute migration;
+deallocate prepare migration;
@@ -0,0 +1,14 @@
+-- RFC 7638 JWK thumbprint of the account key, used for key authorizations and to find accounts by key (MySQL).
+-- Thumbprints of existing accounts are computed on startup. A key identifies at most one account per provisioner.
+-- MySQL has no "if not exists" for columns and indexes, each change is only executed if it is missing, so the script can be re-run.
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database() and table_name = 'ACMEAccount' and column_name = 'jwkThumbprint') = 0,
+    'alter table ACMEAccount add column jwkThumbprint varchar(64)', 'do 0');
+prepare migration from @ddl;
+execute migration;
+deallocate prepare migration;
+
+set @ddl = if((select count(*) from information_schema.statistics where table_schema = database() and table_name = 'ACMEAccount' and index_name = 'uc_acmeaccount_provisioner_jwkthumbprint') = 0,
+    'alter table ACMEAccount add unique index uc_acmeaccount_provisioner_jwkthumbprint (provisioner, jwkThumbprint)', 'do 0');
+prepare migration from @ddl;
+execute migration;
+deallocate prepare migration;
@@ -0,0 +1,7 @@
+-- Time a challenge was claimed for validation, used to claim it again when its validation was lost (MySQL).
+-- MySQL has no "if not exists" for columns, the column is only added if it is missing, so the script can be re-run.
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database() and table_name = 'ACMEOrderIdentifierChallenge' and column_name = 'processingStarted') = 0,
+    'alter table ACMEOrderIdentifierChallenge add column processingStarted datetime(6)', 'do 0');
+prepare migration from @ddl;
+execute migration;
+deallocate prepare migration;
@@ -0,0 +1,8 @@
+-- Rate limit buckets shared between server nodes (PostgreSQL).
+create table if not exists rate_limit_buckets (
+    bucketKey varchar(255) not null,
+    theoreticalArrival bigint not null,
+    primary key (bucketKey)
+);
+
+create index if not exists idx_rate_limit_buckets_arrival on rate_limit_buckets (theoreticalArrival);
@@ -0,0 +1,97 @@
+package de.morihofi.acmeserver;
+
+import de.morihofi.acmeserver.tools.concurrent.VirtualThreads;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WebServerThreadPoolTest {
+
+    /**
+     * More concurrent requests than the pool has platform threads.
+     */
+    private static final int CONCURRENT_REQUESTS = 300;
+
+    @Test
+    @DisplayName("Without virtual thread support, Javalin's default platform thread pool is used")
+    void fallsBackToPlatformThreads() {
+        // Tests run on the class directory, which only contains the Java 17 implementation of VirtualThreads
+        assertFalse(VirtualThreads.isSupported());
+        assertNull(WebServer.createVirtualThreadPool());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @DisplayName("Blocking requests beyond the platform thread limit are handled at once on virtual threads")
+    void handlesBlockingRequestsOnVirtualThreads() throws Exception {
+        // Compiled for Java 17, where Executors.newVirtualThreadPerTaskExecutor() does not exist
+        ExecutorService virtualThreads = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        QueuedThreadPool threadPool = WebServer.createVirtualThreadPool(virtualThreads);
+        CountDownLatch allRequestsHandled = new CountDownLatch(CONCURRENT_REQUESTS);
+        Set<Thread> handlerThreads = ConcurrentHashMap.newKeySet();
+
+        Server server = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(server);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
+                handlerThreads.add(Thread.currentThread());
+                allRequestsHandled.countDown();
+                try {
+                    // Blocks like challenge validation, until every request is being handled at the same time
+                    response.setStatus(allRequestsHandled.await(30, TimeUnit.SECONDS) ? 200 : 503);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    response.setStatus(500);
+                }
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + connector.getLocalPort() + "/")).build();
+            List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+            }
+            for (CompletableFuture<HttpResponse<Void>> response : responses) {
+                assertEquals(200, response.get(60, TimeUnit.SECONDS).statusCode());
+            }
+            for (Thread handlerThread : handlerThreads) {
+                assertEquals(true, Thread.class.getMethod("isVirtual").invoke(handlerThread));
+            }
+        } finally {
+            server.stop();
+            virtualThreads.shutdown();
+        }
+    }
+}
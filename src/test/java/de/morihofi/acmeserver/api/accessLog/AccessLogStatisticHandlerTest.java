@@ -0,0 +1,66 @@
+package de.morihofi.acmeserver.api.accessLog;
+
+import de.morihofi.acmeserver.api.accessLog.responses.AccessLogStatisticResponse;
+import de.morihofi.acmeserver.config.Config;
+import de.morihofi.acmeserver.config.ServerConfig;
+import de.morihofi.acmeserver.tools.network.logging.HTTPAccessLogger;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogStatisticHandlerTest {
+
+    @TempDir
+    Path logDirectory;
+
+    @Test
+    @DisplayName("The statistics report the counters of the access logger")
+    void reportsAccessLogCounters() throws Exception {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setLoggingDirectory(logDirectory.toString());
+        serverConfig.getAccessLog().setQueueCapacity(100);
+        Config config = new Config();
+        config.setServer(serverConfig);
+
+        HTTPAccessLogger logger = new HTTPAccessLogger(config);
+        for (int i = 0; i < 5; i++) {
+            logger.log("192.0.2.1", null, "GET /acme/directory HTTP/1.1", 200, 0, null, null);
+        }
+        logger.stop();
+
+        AccessLogStatisticResponse response = handle(new AccessLogStatisticHandler(logger));
+        assertTrue(response.isEnabled());
+        assertEquals("DROP_OLDEST", response.getOverflowPolicy());
+        assertEquals(100, response.getQueueCapacity());
+        assertEquals(0, response.getQueueDepth());
+        assertEquals(0, response.getDroppedEntries());
+        assertEquals(5, response.getWrittenEntries());
+        assertEquals(0, response.getWriterLagMillis());
+    }
+
+    /**
+     * Runs the handler on a context that only records the JSON response.
+     */
+    private static AccessLogStatisticResponse handle(AccessLogStatisticHandler handler) throws Exception {
+        AtomicReference<Object> json = new AtomicReference<>();
+        Context context = (Context) Proxy.newProxyInstance(Context.class.getClassLoader(), new Class<?>[]{Context.class},
+                (proxy, method, args) -> {
+                    if ("json".equals(method.getName())) {
+                        json.set(args[0]);
+                        return proxy;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        handler.handle(context);
+        return assertInstanceOf(AccessLogStatisticResponse.class, json.get());
+    }
+}
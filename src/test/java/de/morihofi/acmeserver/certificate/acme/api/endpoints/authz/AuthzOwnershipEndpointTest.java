@@ -0,0 +1,67 @@
+package de.morihofi.acmeserver.certificate.acme.api.endpoints.authz;
+
+import de.morihofi.acmeserver.certificate.provisioners.Provisioner;
+import de.morihofi.acmeserver.config.AuthorizationConfig;
+import de.morihofi.acmeserver.config.Config;
+import de.morihofi.acmeserver.config.ProvisionerConfig;
+import de.morihofi.acmeserver.config.ServerConfig;
+import de.morihofi.acmeserver.database.AcmeStatus;
+import de.morihofi.acmeserver.database.objects.ACMEOrderIdentifier;
+import de.morihofi.acmeserver.tools.ServerInstance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class AuthzOwnershipEndpointTest {
+
+    @Test
+    @DisplayName("A valid authorization expires after the configured lifetime")
+    void validAuthorizationExpiresAfterLifetime() {
+        Instant validated = Instant.parse("2024-05-01T10:00:00Z");
+        ACMEOrderIdentifier identifier = new ACMEOrderIdentifier("dns", "www.example.com");
+        identifier.setAuthorizationStatus(AcmeStatus.VALID);
+        identifier.setAuthorizationValidated(Timestamp.from(validated));
+
+        assertEquals(Date.from(validated.plus(720, ChronoUnit.HOURS)), AuthzOwnershipEndpoint.getExpires(identifier, provisioner(null)));
+        assertEquals(Date.from(validated.plus(48, ChronoUnit.HOURS)), AuthzOwnershipEndpoint.getExpires(identifier, provisioner(48)));
+    }
+
+    @Test
+    @DisplayName("An authorization that was not validated has no lifetime left")
+    void pendingAuthorizationExpiresNow() {
+        Date before = new Date();
+        ACMEOrderIdentifier identifier = new ACMEOrderIdentifier("dns", "www.example.com");
+        identifier.setAuthorizationStatus(AcmeStatus.PENDING);
+
+        assertFalse(AuthzOwnershipEndpoint.getExpires(identifier, provisioner(48)).before(before));
+    }
+
+    /**
+     * Creates a provisioner with the given authorization lifetime, or the default lifetime if null.
+     */
+    private static Provisioner provisioner(Integer validLifetimeHours) {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setDnsName("acme.example.com");
+        Config config = new Config();
+        config.setServer(serverConfig);
+        ServerInstance serverInstance = new ServerInstance(config, null, false, null, null, null, null, null);
+
+        ProvisionerConfig provisionerConfig = new ProvisionerConfig();
+        provisionerConfig.setName("default");
+        if (validLifetimeHours != null) {
+            AuthorizationConfig authorizationConfig = new AuthorizationConfig();
+            authorizationConfig.setValidLifetimeHours(validLifetimeHours);
+            provisionerConfig.setAuthorization(authorizationConfig);
+        }
+        return new Provisioner("default", provisionerConfig.getMeta(), provisionerConfig.getIssuedCertificateExpiration(),
+                provisionerConfig.getDomainNameRestriction(), provisionerConfig.isWildcardAllowed(), null, provisionerConfig,
+                provisionerConfig.isIpAllowed(), serverInstance);
+    }
+}
@@ -0,0 +1,165 @@
+package de.morihofi.acmeserver.certificate.acme.challenges;
+
+import de.morihofi.acmeserver.config.network.ChallengeValidationConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChallengeValidatorTest {
+
+    @Test
+    @DisplayName("A validation exceeding its deadline fails and its thread is interrupted")
+    void deadlineFailsAndInterruptsValidation() throws Exception {
+        List<ChallengeResult> results = new CopyOnWriteArrayList<>();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (ChallengeValidator validator = validator(1, 1, 1)) {
+            long start = System.nanoTime();
+            validator.submit("challenge", () -> {
+                try {
+                    Thread.sleep(30_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return new ChallengeResult(true, "");
+            }, results::add);
+
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            waitForResults(results, 1);
+
+            assertTrue(elapsedMillis >= 1000, "Interrupted after " + elapsedMillis + " ms");
+            assertEquals(1, results.size());
+            assertFalse(results.get(0).isSuccessful());
+            assertEquals("Validation did not finish within 1 seconds", results.get(0).getErrorReason());
+        }
+    }
+
+    @Test
+    @DisplayName("A full queue rejects further validations until there is space again")
+    void fullQueueRejectsValidations() throws Exception {
+        List<ChallengeResult> results = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        try (ChallengeValidator validator = validator(1, 1, 30)) {
+            assertTrue(validator.hasCapacity());
+            validator.submit("running", () -> {
+                running.countDown();
+                release.await();
+                return new ChallengeResult(true, "");
+            }, results::add);
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            validator.submit("queued", () -> new ChallengeResult(true, ""), results::add);
+
+            assertFalse(validator.hasCapacity());
+            assertThrows(RejectedExecutionException.class,
+                    () -> validator.submit("rejected", () -> new ChallengeResult(true, ""), results::add));
+
+            release.countDown();
+            waitForResults(results, 2);
+            assertEquals(2, results.size());
+
+            // The rejected challenge was not left in flight and can be submitted again
+            assertTrue(validator.submit("rejected", () -> new ChallengeResult(true, ""), results::add));
+            waitForResults(results, 3);
+            assertEquals(3, results.size());
+        }
+    }
+
+    @Test
+    @DisplayName("The completion is invoked exactly once, even if the validation finishes after its deadline")
+    void completionIsInvokedExactlyOnce() throws Exception {
+        List<ChallengeResult> results = new CopyOnWriteArrayList<>();
+        AtomicBoolean validationFinished = new AtomicBoolean();
+        try (ChallengeValidator validator = validator(1, 1, 1)) {
+            validator.submit("challenge", () -> {
+                // Ignores the interrupt of the deadline and returns a result afterwards
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+                validationFinished.set(true);
+                return new ChallengeResult(true, "");
+            }, results::add);
+
+            // A second submit of the same challenge while it is validated is ignored
+            assertFalse(validator.submit("challenge", () -> new ChallengeResult(true, ""), results::add));
+
+            for (int i = 0; i < 100 && !validationFinished.get(); i++) {
+                Thread.sleep(50);
+            }
+            Thread.sleep(200);
+
+            assertTrue(validationFinished.get());
+            assertEquals(1, results.size());
+            assertFalse(results.get(0).isSuccessful());
+        }
+    }
+
+    @Test
+    @DisplayName("A failing validation completes once as failed")
+    void failingValidationCompletesAsFailed() throws Exception {
+        List<ChallengeResult> results = new CopyOnWriteArrayList<>();
+        try (ChallengeValidator validator = validator(1, 1, 30)) {
+            validator.submit("challenge", () -> {
+                throw new IllegalStateException("Connection reset");
+            }, results::add);
+
+            waitForResults(results, 1);
+            Thread.sleep(100);
+            assertEquals(1, results.size());
+            assertFalse(results.get(0).isSuccessful());
+        }
+    }
+
+    @Test
+    @DisplayName("The maximum completion time covers the queue and the own validation")
+    void maxCompletionTimeCoversQueue() {
+        try (ChallengeValidator validator = validator(2, 3, 10)) {
+            // Three queued validations on two threads take two rounds, plus the own validation
+            assertEquals(Duration.ofSeconds(30), validator.getMaxCompletionTime());
+        }
+        try (ChallengeValidator validator = validator(4, 4, 10)) {
+            assertEquals(Duration.ofSeconds(20), validator.getMaxCompletionTime());
+        }
+    }
+
+    @Test
+    @DisplayName("The dual stack policy is parsed once when the validator is created")
+    void dualStackPolicyIsParsedOnCreation() {
+        try (ChallengeValidator validator = validator(1, 1, 10)) {
+            assertEquals(HTTPChallenge.DualStackPolicy.PREFER_IPV6, validator.getHttpDualStackPolicy());
+        }
+
+        ChallengeValidationConfig config = new ChallengeValidationConfig();
+        config.setHttpDualStackPolicy("ipv4-only");
+        MultiPerspectiveValidator perspectives = new MultiPerspectiveValidator(null, List.of(), 0);
+        assertThrows(IllegalArgumentException.class, () -> new ChallengeValidator(config, perspectives));
+    }
+
+    private static ChallengeValidator validator(int maxConcurrent, int maxQueued, int timeoutSeconds) {
+        ChallengeValidationConfig config = new ChallengeValidationConfig();
+        config.setMaxConcurrentValidations(maxConcurrent);
+        config.setMaxQueuedValidations(maxQueued);
+        config.setValidationTimeoutSeconds(timeoutSeconds);
+        return new ChallengeValidator(config, new MultiPerspectiveValidator(null, List.of(), 0));
+    }
+
+    private static void waitForResults(List<ChallengeResult> results, int expected) throws InterruptedException {
+        for (int i = 0; i < 200 && results.size() < expected; i++) {
+            Thread.sleep(50);
+        }
+    }
+}
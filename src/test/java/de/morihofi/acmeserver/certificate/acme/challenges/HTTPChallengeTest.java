@@ -0,0 +1,303 @@
+package de.morihofi.acmeserver.certificate.acme.challenges;
+
+import com.sun.net.httpserver.HttpServer;
+import de.morihofi.acmeserver.config.network.ChallengeValidationConfig;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HTTPChallengeTest {
+
+    private static final MediaType TEXT = MediaType.get("text/plain");
+
+    private static final HttpUrl CHALLENGE_URL = HttpUrl.get("http://example.com/.well-known/acme-challenge/token");
+    private static final String KEY_AUTHORIZATION = "token.thumbprint";
+
+    private static final HTTPChallenge.Attempt PASSED = new HTTPChallenge.Attempt(new ChallengeResult(true, ""), null);
+    private static final HTTPChallenge.Attempt UNREACHABLE = new HTTPChallenge.Attempt(
+            new ChallengeResult(false, "Connection refused"), HttpValidationStatistics.FailureReason.CONNECTION_ERROR);
+    private static final HTTPChallenge.Attempt MISMATCH = new HTTPChallenge.Attempt(
+            new ChallengeResult(false, "content doesn't match"), HttpValidationStatistics.FailureReason.CONTENT_MISMATCH);
+
+    @Test
+    @DisplayName("Redirects to http and https on the default ports are followed")
+    void redirectToDefaultPortsIsAllowed() {
+        assertNull(HTTPChallenge.checkRedirect(HttpUrl.get("http://example.com/.well-known/acme-challenge/token")));
+        assertNull(HTTPChallenge.checkRedirect(HttpUrl.get("https://example.com/token")));
+        assertNull(HTTPChallenge.checkRedirect(HttpUrl.get("https://example.com:80/token")));
+    }
+
+    @Test
+    @DisplayName("Redirects to other ports or without location are rejected")
+    void redirectToOtherPortIsRejected() {
+        assertNotNull(HTTPChallenge.checkRedirect(HttpUrl.get("http://example.com:8080/token")));
+        assertNotNull(HTTPChallenge.checkRedirect(HttpUrl.get("https://127.0.0.1:22/")));
+        assertNotNull(HTTPChallenge.checkRedirect(null));
+    }
+
+    @Test
+    @DisplayName("Bodies up to the maximum size are read completely")
+    void bodyWithinLimitIsRead() throws Exception {
+        assertEquals("token.thumbprint", HTTPChallenge.readBody(ResponseBody.create("token.thumbprint", TEXT), 16));
+        assertEquals("", HTTPChallenge.readBody(ResponseBody.create("", TEXT), 16));
+    }
+
+    @Test
+    @DisplayName("Bodies exceeding the maximum size are rejected")
+    void oversizedBodyIsRejected() throws Exception {
+        assertNull(HTTPChallenge.readBody(ResponseBody.create("token.thumbprint!", TEXT), 16));
+        assertNull(HTTPChallenge.readBody(ResponseBody.create("x".repeat(1_000_000), TEXT), 1024));
+    }
+
+    @Test
+    @DisplayName("With first-success the first passing address family wins")
+    void firstSuccessPolicy() {
+        HTTPChallenge.DualStackPolicy policy = HTTPChallenge.DualStackPolicy.FIRST_SUCCESS;
+        assertTrue(HTTPChallenge.combine(policy, null, PASSED).isSuccessful());
+        assertTrue(HTTPChallenge.combine(policy, MISMATCH, PASSED).isSuccessful());
+        assertNull(HTTPChallenge.combine(policy, UNREACHABLE, null));
+        ChallengeResult failed = HTTPChallenge.combine(policy, UNREACHABLE, MISMATCH);
+        assertEquals("HTTP Challenge failed, IPv6: Connection refused; IPv4: content doesn't match", failed.getErrorReason());
+    }
+
+    @Test
+    @DisplayName("With prefer-ipv6 IPv4 only decides if IPv6 is unreachable")
+    void preferIpv6Policy() {
+        HTTPChallenge.DualStackPolicy policy = HTTPChallenge.DualStackPolicy.PREFER_IPV6;
+        assertNull(HTTPChallenge.combine(policy, null, PASSED));
+        assertTrue(HTTPChallenge.combine(policy, PASSED, null).isSuccessful());
+        ChallengeResult failed = HTTPChallenge.combine(policy, MISMATCH, null);
+        assertEquals("HTTP Challenge failed, IPv6: content doesn't match; IPv4: not completed", failed.getErrorReason());
+        assertNull(HTTPChallenge.combine(policy, UNREACHABLE, null));
+        assertTrue(HTTPChallenge.combine(policy, UNREACHABLE, PASSED).isSuccessful());
+    }
+
+    @Test
+    @DisplayName("With require-both every address family has to pass")
+    void requireBothPolicy() {
+        HTTPChallenge.DualStackPolicy policy = HTTPChallenge.DualStackPolicy.REQUIRE_BOTH;
+        assertNull(HTTPChallenge.combine(policy, PASSED, null));
+        assertTrue(HTTPChallenge.combine(policy, PASSED, PASSED).isSuccessful());
+        ChallengeResult failed = HTTPChallenge.combine(policy, null, UNREACHABLE);
+        assertEquals("HTTP Challenge failed, IPv6: not completed; IPv4: Connection refused", failed.getErrorReason());
+    }
+
+    @Test
+    @DisplayName("Dual stack policies are parsed from their configuration value")
+    void dualStackPolicyFromConfigValue() {
+        assertEquals(HTTPChallenge.DualStackPolicy.PREFER_IPV6, HTTPChallenge.DualStackPolicy.fromConfigValue("prefer-ipv6"));
+        assertThrows(IllegalArgumentException.class, () -> HTTPChallenge.DualStackPolicy.fromConfigValue("ipv4-only"));
+    }
+
+    @Test
+    @DisplayName("IPv4 starts after the connection attempt delay while IPv6 is pending, the pending attempt is cancelled and not counted")
+    void ipv4StartsAfterDelayAndCancelsIpv6() throws Exception {
+        HttpValidationStatistics statistics = new HttpValidationStatistics();
+        try (HangingServer ipv6 = new HangingServer(); AnsweringServer ipv4 = new AnsweringServer(KEY_AUTHORIZATION)) {
+            long start = System.nanoTime();
+            ChallengeResult result = checkDualStack(HTTPChallenge.DualStackPolicy.FIRST_SUCCESS, ipv6.address(), ipv4.address(),
+                    statistics);
+
+            assertTrue(result.isSuccessful());
+            assertTrue(Duration.ofNanos(ipv4.firstRequest - start).toMillis() >= HTTPChallenge.CONNECTION_ATTEMPT_DELAY_MILLIS);
+            assertTrue(ipv6.closed.await(5, TimeUnit.SECONDS), "IPv6 attempt was not cancelled");
+        }
+        // Give the cancelled attempt time to finish
+        Thread.sleep(200);
+        assertEquals(1, statistics.getPassed());
+        assertNoFailureCounted(statistics, HttpValidationStatistics.FailureReason.CONNECTION_ERROR);
+        assertNoFailureCounted(statistics, HttpValidationStatistics.FailureReason.TIMEOUT);
+    }
+
+    @Test
+    @DisplayName("IPv4 starts right away once IPv6 is unreachable")
+    void ipv4StartsRightAwayIfIpv6IsUnreachable() throws Exception {
+        HttpValidationStatistics statistics = new HttpValidationStatistics();
+        try (AnsweringServer ipv4 = new AnsweringServer(KEY_AUTHORIZATION)) {
+            long start = System.nanoTime();
+            ChallengeResult result = checkDualStack(HTTPChallenge.DualStackPolicy.PREFER_IPV6, closedPort(), ipv4.address(), statistics);
+
+            assertTrue(result.isSuccessful());
+            assertTrue(Duration.ofNanos(ipv4.firstRequest - start).toMillis() < HTTPChallenge.CONNECTION_ATTEMPT_DELAY_MILLIS);
+        }
+        assertEquals(1, statistics.getPassed());
+        assertEquals(1, statistics.getFailures(HttpValidationStatistics.FailureReason.CONNECTION_ERROR));
+    }
+
+    @Test
+    @DisplayName("With require-both a failure over IPv6 cancels the pending IPv4 attempt")
+    void requireBothCancelsIpv4OnIpv6Failure() throws Exception {
+        HttpValidationStatistics statistics = new HttpValidationStatistics();
+        try (AnsweringServer ipv6 = new AnsweringServer("wrong"); HangingServer ipv4 = new HangingServer()) {
+            ChallengeResult result = checkDualStack(HTTPChallenge.DualStackPolicy.REQUIRE_BOTH, ipv6.address(), ipv4.address(),
+                    statistics);
+
+            assertFalse(result.isSuccessful());
+            assertTrue(result.getErrorReason().contains("IPv4: not completed"), result.getErrorReason());
+            assertTrue(ipv4.closed.await(5, TimeUnit.SECONDS), "IPv4 attempt was not cancelled");
+        }
+        Thread.sleep(200);
+        assertEquals(1, statistics.getFailures(HttpValidationStatistics.FailureReason.CONTENT_MISMATCH));
+        assertNoFailureCounted(statistics, HttpValidationStatistics.FailureReason.CONNECTION_ERROR);
+        assertNoFailureCounted(statistics, HttpValidationStatistics.FailureReason.TIMEOUT);
+    }
+
+    /**
+     * Validates example.com, resolving to one IPv6 and one IPv4 address whose connections go to the given local ports.
+     */
+    private static ChallengeResult checkDualStack(HTTPChallenge.DualStackPolicy policy, InetSocketAddress ipv6Target,
+            InetSocketAddress ipv4Target, HttpValidationStatistics statistics) throws IOException {
+        InetAddress ipv6 = InetAddress.getByName("2001:db8::1");
+        InetAddress ipv4 = InetAddress.getByName("192.0.2.1");
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .dns(hostname -> List.of(ipv6, ipv4))
+                .socketFactory(new RedirectingSocketFactory(Map.of(ipv6, ipv6Target, ipv4, ipv4Target)))
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        return HTTPChallenge.checkDualStack(policy, httpClient, CHALLENGE_URL, "example.com", "token", "thumbprint",
+                new ChallengeValidationConfig(), deadline, statistics);
+    }
+
+    private static void assertNoFailureCounted(HttpValidationStatistics statistics, HttpValidationStatistics.FailureReason reason) {
+        assertEquals(0, statistics.getFailures(reason), reason + " was counted");
+    }
+
+    private static InetSocketAddress closedPort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        }
+    }
+
+    /**
+     * Connects to local ports instead of the resolved addresses.
+     */
+    private static final class RedirectingSocketFactory extends SocketFactory {
+        private final Map<InetAddress, InetSocketAddress> targets;
+
+        private RedirectingSocketFactory(Map<InetAddress, InetSocketAddress> targets) {
+            this.targets = targets;
+        }
+
+        @Override
+        public Socket createSocket() {
+            return new Socket() {
+                @Override
+                public void connect(SocketAddress endpoint, int timeout) throws IOException {
+                    super.connect(targets.get(((InetSocketAddress) endpoint).getAddress()), timeout);
+                }
+            };
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * HTTP server answering every request with the given body.
+     */
+    private static final class AnsweringServer implements AutoCloseable {
+        private final HttpServer server;
+        private volatile long firstRequest;
+
+        private AnsweringServer(String body) throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/", exchange -> {
+                if (firstRequest == 0) {
+                    firstRequest = System.nanoTime();
+                }
+                byte[] response = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            });
+            server.start();
+        }
+
+        private InetSocketAddress address() {
+            return server.getAddress();
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Server accepting connections without ever answering, noting when the client closes the connection.
+     */
+    private static final class HangingServer implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private HangingServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hanging-server");
+                thread.setDaemon(true);
+                return thread;
+            }).execute(() -> {
+                try (Socket socket = serverSocket.accept(); InputStream input = socket.getInputStream()) {
+                    while (input.read() != -1) {
+                        // Reads the request and waits for the client to close the connection
+                    }
+                } catch (IOException e) {
+                    // Reset by the client
+                }
+                closed.countDown();
+            });
+        }
+
+        private InetSocketAddress address() {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
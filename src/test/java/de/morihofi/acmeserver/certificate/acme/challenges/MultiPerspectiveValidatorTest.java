@@ -0,0 +1,101 @@
+package de.morihofi.acmeserver.certificate.acme.challenges;
+
+import de.morihofi.acmeserver.config.network.NetworkConfig;
+import de.morihofi.acmeserver.tools.network.NetworkClient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiPerspectiveValidatorTest {
+
+    /**
+     * Local stand-in for a perspective: answers after a delay with a fixed result.
+     */
+    private record StandIn(long delayMillis, boolean passes) {
+    }
+
+    private final Map<NetworkClient, StandIn> standIns = new IdentityHashMap<>();
+
+    private MultiPerspectiveValidator.Perspective perspective(String name, long delayMillis, boolean passes) {
+        NetworkClient networkClient = new NetworkClient(new NetworkConfig());
+        standIns.put(networkClient, new StandIn(delayMillis, passes));
+        return new MultiPerspectiveValidator.Perspective(name, networkClient);
+    }
+
+    private ChallengeResult check(NetworkClient networkClient) throws InterruptedException {
+        StandIn standIn = standIns.get(networkClient);
+        Thread.sleep(standIn.delayMillis());
+        return new ChallengeResult(standIn.passes(), standIn.passes() ? "" : "token mismatch");
+    }
+
+    private MultiPerspectiveValidator validator(MultiPerspectiveValidator.Perspective primary, int allowedFailures,
+            MultiPerspectiveValidator.Perspective... additional) {
+        return new MultiPerspectiveValidator(primary, new ArrayList<>(List.of(additional)), allowedFailures);
+    }
+
+    @Test
+    @DisplayName("Perspectives run concurrently, latency is the slowest perspective")
+    void concurrent() throws InterruptedException {
+        try (MultiPerspectiveValidator validator = validator(perspective("primary", 300, true), 0,
+                perspective("a", 300, true), perspective("b", 300, true), perspective("c", 300, true))) {
+            long start = System.nanoTime();
+            ChallengeResult result = validator.validate(this::check);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(result.isSuccessful());
+            assertTrue(elapsedMillis < 900, "took " + elapsedMillis + " ms");
+        }
+    }
+
+    @Test
+    @DisplayName("Failures within the quorum pass, further failures fail the challenge")
+    void quorum() throws InterruptedException {
+        try (MultiPerspectiveValidator validator = validator(perspective("primary", 0, true), 1,
+                perspective("a", 0, true), perspective("b", 0, false))) {
+            assertTrue(validator.validate(this::check).isSuccessful());
+        }
+
+        try (MultiPerspectiveValidator validator = validator(perspective("primary", 0, true), 1,
+                perspective("a", 0, false), perspective("b", 0, false))) {
+            ChallengeResult result = validator.validate(this::check);
+            assertFalse(result.isSuccessful());
+            assertTrue(result.getErrorReason().contains("a: token mismatch"));
+            assertTrue(result.getErrorReason().contains("b: token mismatch"));
+        }
+    }
+
+    @Test
+    @DisplayName("Result is returned once decided, without waiting for slow perspectives")
+    void decidedEarly() throws InterruptedException {
+        try (MultiPerspectiveValidator validator = validator(perspective("primary", 0, false), 0,
+                perspective("slow", 10_000, true))) {
+            long start = System.nanoTime();
+            ChallengeResult result = validator.validate(this::check);
+
+            assertFalse(result.isSuccessful());
+            assertEquals("token mismatch", result.getErrorReason());
+            assertTrue((System.nanoTime() - start) / 1_000_000 < 5_000);
+        }
+
+        try (MultiPerspectiveValidator validator = validator(perspective("primary", 0, true), 1,
+                perspective("a", 0, true), perspective("slow", 10_000, true))) {
+            long start = System.nanoTime();
+            assertTrue(validator.validate(this::check).isSuccessful());
+            assertTrue((System.nanoTime() - start) / 1_000_000 < 5_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Without additional perspectives only the primary perspective is checked")
+    void primaryOnly() throws InterruptedException {
+        try (MultiPerspectiveValidator validator = validator(perspective("primary", 0, true), 0)) {
+            assertTrue(validator.validate(this::check).isSuccessful());
+        }
+    }
+}
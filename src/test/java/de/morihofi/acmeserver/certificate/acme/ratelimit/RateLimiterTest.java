@@ -0,0 +1,127 @@
+package de.morihofi.acmeserver.certificate.acme.ratelimit;
+
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.Identifier;
+import de.morihofi.acmeserver.config.RateLimitConfig;
+import de.morihofi.acmeserver.config.RateLimitRuleConfig;
+import de.morihofi.acmeserver.exception.exceptions.ACMERateLimitedException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static RateLimitConfig createConfig() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setEnabled(true);
+        config.setIpv4PrefixLength(24);
+        return config;
+    }
+
+    @Test
+    @DisplayName("Bucket admits the limit and then refills continuously")
+    void tokenBucket() {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore();
+        long now = 1_000_000L;
+
+        // 3 requests per 60 seconds, one token every 20 seconds
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, store.tryAcquire("key", 20_000, 60_000, now));
+        }
+        assertEquals(20_000, store.tryAcquire("key", 20_000, 60_000, now));
+        assertEquals(5_000, store.tryAcquire("key", 20_000, 60_000, now + 15_000));
+        assertEquals(0, store.tryAcquire("key", 20_000, 60_000, now + 20_000));
+
+        store.evictFullBuckets(now + 20_000);
+        assertEquals(1, store.size());
+        store.evictFullBuckets(now + 80_000);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("Exceeded limit throws rateLimited with Retry-After")
+    void exceededLimit() {
+        RateLimitConfig config = createConfig();
+        config.setNewOrdersPerAccount(new RateLimitRuleConfig(2, 3600));
+        RateLimiter rateLimiter = new RateLimiter("test", config, new InMemoryRateLimitStore());
+
+        List<Identifier> identifiers = List.of(new Identifier("dns", "www.example.com"));
+        rateLimiter.checkNewOrder("account1", "192.0.2.1", identifiers);
+        rateLimiter.checkNewOrder("account1", "192.0.2.1", identifiers);
+        ACMERateLimitedException exception = assertThrows(ACMERateLimitedException.class,
+                () -> rateLimiter.checkNewOrder("account1", "192.0.2.1", identifiers));
+        assertTrue(exception.getRetryAfterSeconds() > 0 && exception.getRetryAfterSeconds() <= 1800);
+
+        // Other accounts are not affected
+        rateLimiter.checkNewOrder("account2", "192.0.2.1", identifiers);
+    }
+
+    @Test
+    @DisplayName("Registered domains are acquired in sorted order and eviction is left to the evictor")
+    void registeredDomainsInSortedOrder() {
+        RateLimitConfig config = createConfig();
+        config.setNewOrdersPerRegisteredDomain(new RateLimitRuleConfig(10, 3600));
+        List<String> acquiredKeys = new ArrayList<>();
+        List<Long> evictions = new ArrayList<>();
+        RateLimitStore store = new RateLimitStore() {
+            @Override
+            public long tryAcquire(String key, long intervalMillis, long periodMillis, long nowMillis) {
+                acquiredKeys.add(key);
+                return 0;
+            }
+
+            @Override
+            public void evictFullBuckets(long nowMillis) {
+                evictions.add(nowMillis);
+            }
+        };
+        RateLimiter rateLimiter = new RateLimiter("test", config, store);
+
+        rateLimiter.checkNewOrder("account1", "192.0.2.1", List.of(new Identifier("dns", "www.example.org"),
+                new Identifier("dns", "b.example.com"), new Identifier("dns", "a.example.com"), new Identifier("dns", "example.net")));
+        assertEquals(List.of("test:newOrdersPerRegisteredDomain:example.com", "test:newOrdersPerRegisteredDomain:example.net",
+                "test:newOrdersPerRegisteredDomain:example.org"), acquiredKeys.stream()
+                .filter(key -> key.startsWith("test:newOrdersPerRegisteredDomain:"))
+                .toList());
+        assertTrue(evictions.isEmpty());
+
+        rateLimiter.evictFullBuckets();
+        assertEquals(1, evictions.size());
+    }
+
+    @Test
+    @DisplayName("Disabled rate limiting admits everything")
+    void disabled() {
+        RateLimitConfig config = createConfig();
+        config.setEnabled(false);
+        config.setNewAccountsPerIp(new RateLimitRuleConfig(1, 3600));
+        RateLimiter rateLimiter = new RateLimiter("test", config, new InMemoryRateLimitStore());
+
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.checkNewAccount("192.0.2.1");
+        }
+    }
+
+    @Test
+    @DisplayName("Clients are grouped by IP prefix")
+    void ipPrefix() {
+        RateLimiter rateLimiter = new RateLimiter("test", createConfig(), new InMemoryRateLimitStore());
+
+        assertEquals("192.0.2.0/24", rateLimiter.getIpPrefix("192.0.2.77"));
+        assertEquals("2001:db8:1:2:0:0:0:0/64", rateLimiter.getIpPrefix("2001:db8:1:2:3:4:5:6"));
+        assertEquals("unknown", rateLimiter.getIpPrefix("unknown"));
+    }
+
+    @Test
+    @DisplayName("Registered domain of DNS names")
+    void registeredDomain() {
+        assertEquals("example.com", RateLimiter.getRegisteredDomain("www.Example.com"));
+        assertEquals("example.com", RateLimiter.getRegisteredDomain("*.sub.example.com"));
+        assertEquals("example.co.uk", RateLimiter.getRegisteredDomain("www.example.co.uk"));
+        assertEquals("example.de", RateLimiter.getRegisteredDomain("a.b.example.de"));
+        assertEquals("localhost", RateLimiter.getRegisteredDomain("localhost"));
+    }
+}
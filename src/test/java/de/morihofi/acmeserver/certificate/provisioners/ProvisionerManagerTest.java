@@ -0,0 +1,170 @@
+package de.morihofi.acmeserver.certificate.provisioners;
+
+import com.google.gson.JsonParser;
+import de.morihofi.acmeserver.certificate.acme.ratelimit.RateLimitStore;
+import de.morihofi.acmeserver.config.Config;
+import de.morihofi.acmeserver.config.MetadataConfig;
+import de.morihofi.acmeserver.config.ProvisionerConfig;
+import de.morihofi.acmeserver.config.RateLimitConfig;
+import de.morihofi.acmeserver.config.RateLimitRuleConfig;
+import de.morihofi.acmeserver.config.ServerConfig;
+import de.morihofi.acmeserver.exception.exceptions.ACMERateLimitedException;
+import de.morihofi.acmeserver.tools.ServerInstance;
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProvisionerManagerTest {
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    private static Javalin app;
+    private static ServerInstance serverInstance;
+
+    @BeforeAll
+    static void startServer() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setDnsName("acme.example.com");
+        Config config = new Config();
+        config.setServer(serverConfig);
+        serverInstance = new ServerInstance(config, null, false, null, null, null, null, null);
+
+        app = Javalin.create();
+        ProvisionerManager.registerRoutes(app);
+        app.start(0);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        app.stop();
+    }
+
+    @AfterEach
+    void unregisterProvisioners() {
+        ProvisionerManager.unregisterProvisioner("first");
+        ProvisionerManager.unregisterProvisioner("second");
+    }
+
+    @Test
+    @DisplayName("Requests are dispatched to the handlers of the provisioner in the path")
+    void requestsAreDispatchedByProvisionerName() throws Exception {
+        Provisioner first = provisioner("first", "https://first.example.com");
+        Provisioner second = provisioner("second", "https://second.example.com");
+        ProvisionerManager.registerProvisioner(first, serverInstance);
+        ProvisionerManager.registerProvisioner(second, serverInstance);
+
+        assertEquals("https://first.example.com", directoryWebsite("first"));
+        assertEquals("https://second.example.com", directoryWebsite("second"));
+        assertSame(first, ProvisionerManager.getProvisionerForName("first"));
+        assertTrue(ProvisionerManager.getProvisioners().contains(second));
+    }
+
+    @Test
+    @DisplayName("Unknown provisioners answer with 404")
+    void unknownProvisionerIsNotFound() throws Exception {
+        assertEquals(404, get("/acme/first/directory").statusCode());
+        assertNull(ProvisionerManager.getProvisionerForName("first"));
+    }
+
+    @Test
+    @DisplayName("A replaced provisioner serves new requests with the new instance")
+    void replacedProvisionerServesNewRequests() throws Exception {
+        ProvisionerManager.registerProvisioner(provisioner("first", "https://old.example.com"), serverInstance);
+        assertEquals("https://old.example.com", directoryWebsite("first"));
+
+        Provisioner replacement = provisioner("first", "https://new.example.com");
+        ProvisionerManager.replaceProvisioner(replacement, serverInstance);
+
+        assertEquals("https://new.example.com", directoryWebsite("first"));
+        assertSame(replacement, ProvisionerManager.getProvisionerForName("first"));
+        assertEquals(1, ProvisionerManager.getProvisioners().size());
+    }
+
+    @Test
+    @DisplayName("An unregistered provisioner answers with 404, the others are still served")
+    void unregisteredProvisionerIsNotFound() throws Exception {
+        ProvisionerManager.registerProvisioner(provisioner("first", null), serverInstance);
+        ProvisionerManager.registerProvisioner(provisioner("second", null), serverInstance);
+
+        assertTrue(ProvisionerManager.unregisterProvisioner("first"));
+        assertFalse(ProvisionerManager.unregisterProvisioner("first"));
+
+        assertEquals(404, get("/acme/first/directory").statusCode());
+        assertEquals(200, get("/acme/second/directory").statusCode());
+        assertEquals(1, ProvisionerManager.getProvisioners().size());
+    }
+
+    @Test
+    @DisplayName("Registering a name twice or replacing an unknown name is rejected")
+    void invalidModificationsAreRejected() {
+        ProvisionerManager.registerProvisioner(provisioner("first", null), serverInstance);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ProvisionerManager.registerProvisioner(provisioner("first", null), serverInstance));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProvisionerManager.replaceProvisioner(provisioner("second", null), serverInstance));
+    }
+
+    @Test
+    @DisplayName("A replacement built with the rate limit store of the replaced provisioner keeps its limits")
+    void rateLimitsSurviveReplace() {
+        Provisioner original = provisioner("first", null, null);
+        ProvisionerManager.registerProvisioner(original, serverInstance);
+        original.getRateLimiter().checkNewAccount("192.0.2.1");
+        assertThrows(ACMERateLimitedException.class, () -> original.getRateLimiter().checkNewAccount("192.0.2.1"));
+
+        // Like WebServer.reloadConfiguration for a changed provisioner
+        Provisioner replacement = provisioner("first", "https://new.example.com",
+                ProvisionerManager.getProvisionerForName("first").getRateLimiter().getStore());
+        ProvisionerManager.replaceProvisioner(replacement, serverInstance);
+
+        assertSame(original.getRateLimiter().getStore(), replacement.getRateLimiter().getStore());
+        assertThrows(ACMERateLimitedException.class, () -> replacement.getRateLimiter().checkNewAccount("192.0.2.1"));
+        // A new provisioner starts with empty buckets
+        provisioner("first", null, null).getRateLimiter().checkNewAccount("192.0.2.1");
+    }
+
+    private static Provisioner provisioner(String name, String website) {
+        return provisioner(name, website, null);
+    }
+
+    private static Provisioner provisioner(String name, String website, RateLimitStore rateLimitStore) {
+        ProvisionerConfig config = new ProvisionerConfig();
+        config.setName(name);
+        MetadataConfig meta = new MetadataConfig();
+        meta.setWebsite(website);
+        config.setMeta(meta);
+        RateLimitConfig rateLimit = new RateLimitConfig();
+        rateLimit.setEnabled(true);
+        rateLimit.setNewAccountsPerIp(new RateLimitRuleConfig(1, 3600));
+        config.setRateLimit(rateLimit);
+        return new Provisioner(name, meta, config.getIssuedCertificateExpiration(), config.getDomainNameRestriction(),
+                config.isWildcardAllowed(), null, config, config.isIpAllowed(), serverInstance, rateLimitStore);
+    }
+
+    private static String directoryWebsite(String provisionerName) throws Exception {
+        HttpResponse<String> response = get("/acme/" + provisionerName + "/directory");
+        assertEquals(200, response.statusCode());
+        return JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonObject("meta").get("website").getAsString();
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return CLIENT.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + app.port() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
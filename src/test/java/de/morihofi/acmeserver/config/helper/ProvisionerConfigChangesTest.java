@@ -0,0 +1,69 @@
+package de.morihofi.acmeserver.config.helper;
+
+import de.morihofi.acmeserver.config.ProvisionerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProvisionerConfigChangesTest {
+
+    @Test
+    @DisplayName("Added, changed and removed provisioners are detected by name")
+    void detectsAddedChangedAndRemovedProvisioners() {
+        ProvisionerConfig changed = provisioner("changed", true);
+        ProvisionerConfig added = provisioner("added", false);
+
+        ProvisionerConfigChanges changes = ProvisionerConfigChanges.between(
+                List.of(provisioner("unchanged", false), provisioner("changed", false), provisioner("removed", false)),
+                List.of(provisioner("unchanged", false), changed, added));
+
+        assertEquals(1, changes.added().size());
+        assertSame(added, changes.added().get(0));
+        assertEquals(1, changes.changed().size());
+        assertSame(changed, changes.changed().get(0));
+        assertEquals(List.of("removed"), changes.removed());
+    }
+
+    @Test
+    @DisplayName("Equal configurations have no changes")
+    void equalConfigurationsHaveNoChanges() {
+        ProvisionerConfigChanges changes = ProvisionerConfigChanges.between(
+                List.of(provisioner("a", false), provisioner("b", true)),
+                List.of(provisioner("b", true), provisioner("a", false)));
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A change of a nested setting counts as a changed provisioner")
+    void nestedChangeIsDetected() {
+        ProvisionerConfig changed = provisioner("a", false);
+        changed.getMeta().setWebsite("https://example.com");
+
+        ProvisionerConfigChanges changes = ProvisionerConfigChanges.between(List.of(provisioner("a", false)), List.of(changed));
+
+        assertEquals(List.of(changed), changes.changed());
+        assertTrue(changes.added().isEmpty());
+        assertTrue(changes.removed().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A provisioner name used twice in the new configuration is rejected")
+    void duplicateNameIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProvisionerConfigChanges.between(List.of(),
+                List.of(provisioner("a", false), provisioner("a", true))));
+    }
+
+    private static ProvisionerConfig provisioner(String name, boolean wildcardAllowed) {
+        ProvisionerConfig provisionerConfig = new ProvisionerConfig();
+        provisionerConfig.setName(name);
+        provisionerConfig.setWildcardAllowed(wildcardAllowed);
+        return provisionerConfig;
+    }
+}
@@ -0,0 +1,33 @@
+package de.morihofi.acmeserver.configPreprocessor;
+
+import de.morihofi.acmeserver.config.DatabaseConfig;
+import de.morihofi.acmeserver.config.certificateAlgorithms.AlgorithmParams;
+import de.morihofi.acmeserver.config.keyStoreHelpers.KeyStoreParams;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reflections.Reflections;
+
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConfigurationSubTypesTest {
+
+    @Test
+    @DisplayName("Every concrete implementation of an abstract configuration class is registered")
+    void registryContainsAllImplementations() {
+        Reflections reflections = new Reflections("de.morihofi.acmeserver");
+        for (Class<?> abstractClass : List.of(AlgorithmParams.class, KeyStoreParams.class, DatabaseConfig.class)) {
+            Set<Class<?>> scannedImplementations = reflections.getSubTypesOf(abstractClass).stream()
+                    .filter(subType -> !subType.isInterface() && !Modifier.isAbstract(subType.getModifiers()))
+                    .collect(Collectors.toSet());
+
+            assertEquals(scannedImplementations, new HashSet<>(ConfigurationSubTypes.getSubTypesOf(abstractClass)),
+                    abstractClass.getSimpleName());
+        }
+    }
+}
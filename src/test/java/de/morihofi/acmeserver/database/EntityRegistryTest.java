@@ -0,0 +1,20 @@
+package de.morihofi.acmeserver.database;
+
+import jakarta.persistence.Entity;
+import org.junit.jupiter.api.Test;
+import org.reflections.Reflections;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EntityRegistryTest {
+
+    @Test
+    void registryContainsAllEntities() {
+        Set<Class<?>> scannedEntities = new Reflections(EntityRegistry.class.getPackageName()).getTypesAnnotatedWith(Entity.class);
+
+        assertEquals(scannedEntities, new HashSet<>(EntityRegistry.getEntityClasses()));
+    }
+}
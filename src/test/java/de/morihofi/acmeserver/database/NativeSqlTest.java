@@ -0,0 +1,132 @@
+package de.morihofi.acmeserver.database;
+
+import de.morihofi.acmeserver.config.databaseConfig.JDBCUrlDatabaseConfig;
+import de.morihofi.acmeserver.database.migration.SchemaMigrator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeSqlTest {
+
+    private static final List<String> COLUMNS = List.of("provisioner", "acmeAccounts", "activeAcmeAccounts", "certificatesIssued",
+            "certificatesRevoked", "certificatesWaiting");
+
+    @Test
+    @DisplayName("Rows with a composite key are only inserted once")
+    void compositeKeyIsInsertedOnce() throws Exception {
+        String jdbcUrl = migratedDatabase();
+        LocalDate today = LocalDate.now();
+        List<String> key = List.of("provisioner", "rollupDay");
+        List<String> columns = List.of("provisioner", "rollupDay", "issued", "revoked");
+
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "")) {
+            connection.setAutoCommit(false);
+            assertTrue(NativeSql.insertIfAbsent(connection, NativeSql.Database.H2, "certificate_daily_rollup", key, columns,
+                    List.of("default", today, 0L, 0L)));
+            assertFalse(NativeSql.insertIfAbsent(connection, NativeSql.Database.H2, "certificate_daily_rollup", key, columns,
+                    List.of("default", today, 0L, 0L)));
+            assertTrue(NativeSql.insertIfAbsent(connection, NativeSql.Database.H2, "certificate_daily_rollup", key, columns,
+                    List.of("default", today.minusDays(1), 0L, 0L)));
+            connection.commit();
+
+            try (ResultSet resultSet = connection.createStatement().executeQuery("select count(*) from certificate_daily_rollup")) {
+                resultSet.next();
+                assertEquals(2, resultSet.getLong(1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("An account key is only registered once per provisioner")
+    void accountKeyIsRegisteredOncePerProvisioner() throws Exception {
+        String jdbcUrl = migratedDatabase();
+        List<String> key = List.of("provisioner", "jwkThumbprint");
+        List<String> columns = List.of("accountId", "publicKeyPEM", "jwkThumbprint", "deactivated", "provisioner");
+
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "")) {
+            connection.setAutoCommit(false);
+            assertTrue(NativeSql.insertIfAbsent(connection, NativeSql.Database.H2, "ACMEAccount", key, columns,
+                    List.of("first", "pem", "thumbprint", false, "default")));
+            assertFalse(NativeSql.insertIfAbsent(connection, NativeSql.Database.H2, "ACMEAccount", key, columns,
+                    List.of("second", "pem", "thumbprint", false, "default")));
+            assertTrue(NativeSql.insertIfAbsent(connection, NativeSql.Database.H2, "ACMEAccount", key, columns,
+                    List.of("third", "pem", "thumbprint", false, "other")));
+            connection.commit();
+
+            try (ResultSet resultSet = connection.createStatement().executeQuery(
+                    "select accountId from ACMEAccount where provisioner = 'default'")) {
+                assertTrue(resultSet.next());
+                assertEquals("first", resultSet.getString(1));
+                assertFalse(resultSet.next());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent inserts of the same key create one row without failing the transactions")
+    void concurrentInsertsDoNotFail() throws Exception {
+        String jdbcUrl = migratedDatabase();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "")) {
+                        connection.setAutoCommit(false);
+                        start.await();
+                        NativeSql.insertIfAbsent(connection, NativeSql.Database.H2, "provisioner_counters", List.of("provisioner"),
+                                COLUMNS, List.of("default", 0L, 0L, 0L, 0L, 0L));
+                        try (Statement statement = connection.createStatement()) {
+                            statement.executeUpdate("update provisioner_counters set acmeAccounts = acmeAccounts + 1 "
+                                    + "where provisioner = 'default'");
+                        }
+                        connection.commit();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "");
+             ResultSet resultSet = connection.createStatement().executeQuery(
+                     "select count(*), sum(acmeAccounts) from provisioner_counters where provisioner = 'default'")) {
+            resultSet.next();
+            assertEquals(1, resultSet.getLong(1));
+            assertEquals(threads, resultSet.getLong(2));
+        }
+    }
+
+    private static String migratedDatabase() throws Exception {
+        String jdbcUrl = "jdbc:h2:mem:nativesql-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        JDBCUrlDatabaseConfig config = new JDBCUrlDatabaseConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUser("sa");
+        config.setPassword("");
+        new SchemaMigrator(config).migrate();
+        return jdbcUrl;
+    }
+}
@@ -0,0 +1,158 @@
+package de.morihofi.acmeserver.database;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnitOfWorkTest {
+
+    private final FakeDatabase database = new FakeDatabase();
+
+    @AfterEach
+    void endUnitOfWork() {
+        UnitOfWork.end(false);
+    }
+
+    @Test
+    @DisplayName("The work is committed once at the end when every participant succeeded")
+    void commitsWorkOfSuccessfulParticipants() {
+        UnitOfWork.begin(database.sessionFactory());
+        AtomicBoolean afterCommitRan = new AtomicBoolean();
+        UnitOfWork.afterCommit(() -> afterCommitRan.set(true));
+
+        try (Session session = UnitOfWork.currentSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.persist("entity");
+            transaction.commit();
+        }
+        assertFalse(database.committed);
+
+        assertTrue(UnitOfWork.end(true));
+        assertTrue(database.committed);
+        assertTrue(database.closed);
+        assertTrue(afterCommitRan.get());
+    }
+
+    @Test
+    @DisplayName("A participant rolling back makes the unit of work report that nothing was saved")
+    void participantRollbackIsReported() {
+        UnitOfWork.begin(database.sessionFactory());
+        AtomicBoolean afterCommitRan = new AtomicBoolean();
+        UnitOfWork.afterCommit(() -> afterCommitRan.set(true));
+
+        try (Session session = UnitOfWork.currentSession()) {
+            session.beginTransaction().rollback();
+        }
+
+        assertFalse(UnitOfWork.end(true));
+        assertFalse(database.committed);
+        assertTrue(database.rolledBack);
+        assertTrue(database.closed);
+        assertFalse(afterCommitRan.get());
+    }
+
+    @Test
+    @DisplayName("A failing flush is reported and the session refuses further use")
+    void flushFailureIsReported() {
+        database.flushFailure = new IllegalStateException("constraint violation");
+        UnitOfWork.begin(database.sessionFactory());
+
+        // Like the entity helpers, the first participant catches and logs its exception
+        try (Session session = UnitOfWork.currentSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.persist("entity");
+            assertThrows(IllegalStateException.class, transaction::commit);
+        }
+
+        Session laterParticipant = UnitOfWork.currentSession();
+        assertThrows(IllegalStateException.class, () -> laterParticipant.persist("other entity"));
+
+        assertFalse(UnitOfWork.end(true));
+        assertFalse(database.committed);
+        assertTrue(database.rolledBack);
+    }
+
+    @Test
+    @DisplayName("A failing session operation is reported even if the participant swallows it")
+    void swallowedSessionFailureIsReported() {
+        database.persistFailure = new IllegalArgumentException("not an entity");
+        UnitOfWork.begin(database.sessionFactory());
+
+        try (Session session = UnitOfWork.currentSession()) {
+            session.persist("entity");
+        } catch (IllegalArgumentException e) {
+            // Swallowed by the participant
+        }
+
+        assertFalse(UnitOfWork.end(true));
+        assertTrue(database.rolledBack);
+    }
+
+    @Test
+    @DisplayName("Rolling back on request is not reported as a failure")
+    void requestedRollbackIsNotAFailure() {
+        UnitOfWork.begin(database.sessionFactory());
+        UnitOfWork.currentSession().persist("entity");
+
+        assertTrue(UnitOfWork.end(false));
+        assertTrue(database.rolledBack);
+        assertFalse(database.committed);
+    }
+
+    /**
+     * Records what the unit of work does with its session and transaction.
+     */
+    private static final class FakeDatabase {
+        private boolean committed;
+        private boolean rolledBack;
+        private boolean closed;
+        private RuntimeException flushFailure;
+        private RuntimeException persistFailure;
+
+        private SessionFactory sessionFactory() {
+            Transaction transaction = proxy(Transaction.class, (method, args) -> switch (method) {
+                case "isActive" -> !committed && !rolledBack;
+                case "commit" -> committed = true;
+                case "rollback" -> rolledBack = true;
+                default -> null;
+            });
+            Session session = proxy(Session.class, (method, args) -> switch (method) {
+                case "beginTransaction", "getTransaction" -> transaction;
+                case "persist" -> {
+                    if (persistFailure != null) {
+                        throw persistFailure;
+                    }
+                    yield null;
+                }
+                case "flush" -> {
+                    if (flushFailure != null) {
+                        throw flushFailure;
+                    }
+                    yield null;
+                }
+                case "close" -> closed = true;
+                default -> null;
+            });
+            return proxy(SessionFactory.class, (method, args) -> "openSession".equals(method) ? session : null);
+        }
+
+        private static <T> T proxy(Class<T> type, Handler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> handler.invoke(method.getName(), args)));
+        }
+
+        private interface Handler {
+            Object invoke(String method, Object[] args);
+        }
+    }
+}
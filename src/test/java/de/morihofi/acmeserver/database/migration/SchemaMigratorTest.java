@@ -0,0 +1,122 @@
+package de.morihofi.acmeserver.database.migration;
+
+import de.morihofi.acmeserver.config.Config;
+import de.morihofi.acmeserver.config.databaseConfig.JDBCUrlDatabaseConfig;
+import de.morihofi.acmeserver.database.HibernateUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SchemaMigratorTest {
+
+    @Test
+    @DisplayName("The migrated H2 schema passes Hibernate schema validation")
+    void migratedSchemaPassesHibernateValidation() throws Exception {
+        JDBCUrlDatabaseConfig databaseConfig = databaseConfig();
+        int applied = new SchemaMigrator(databaseConfig).migrate();
+        assertEquals(applied, countCompletedMigrations(databaseConfig));
+
+        // Hibernate must find every entity table and column in the migrated schema
+        databaseConfig.setMigrateOnStartup(false);
+        databaseConfig.setSchemaManagement("validate");
+        Config config = new Config();
+        config.setDatabase(databaseConfig);
+        HibernateUtil hibernateUtil = new HibernateUtil(config, true);
+        try {
+            assertNotNull(hibernateUtil.getSessionFactory());
+        } finally {
+            hibernateUtil.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A migrated database has no pending migrations")
+    void migrationIsIdempotent() throws Exception {
+        JDBCUrlDatabaseConfig databaseConfig = databaseConfig();
+        new SchemaMigrator(databaseConfig).migrate();
+
+        assertEquals(0, new SchemaMigrator(databaseConfig).migrate());
+    }
+
+    @Test
+    @DisplayName("Nodes migrating at the same time apply each migration once")
+    void concurrentNodesApplyEachMigrationOnce() throws Exception {
+        JDBCUrlDatabaseConfig databaseConfig = databaseConfig();
+        int nodes = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        int applied = 0;
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < nodes; i++) {
+                Callable<Integer> node = () -> {
+                    start.await();
+                    return new SchemaMigrator(databaseConfig).migrate();
+                };
+                futures.add(executor.submit(node));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                applied += future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(countCompletedMigrations(databaseConfig), applied);
+    }
+
+    @Test
+    @DisplayName("A migration claimed by another node is waited for until the timeout")
+    void claimedMigrationTimesOut() throws Exception {
+        JDBCUrlDatabaseConfig databaseConfig = databaseConfig();
+        try (Connection connection = connect(databaseConfig); Statement statement = connection.createStatement()) {
+            statement.execute("create table schema_version (version int not null, name varchar(255) not null, "
+                    + "installed timestamp not null, executionMillis bigint not null, primary key (version))");
+            statement.execute("insert into schema_version values (1, 'baseline', current_timestamp, -1)");
+        }
+
+        SchemaMigrator migrator = new SchemaMigrator(databaseConfig, Duration.ofMillis(100));
+        assertThrows(SQLException.class, migrator::migrate);
+        assertEquals(0, countCompletedMigrations(databaseConfig));
+    }
+
+    private static JDBCUrlDatabaseConfig databaseConfig() {
+        JDBCUrlDatabaseConfig config = new JDBCUrlDatabaseConfig();
+        config.setJdbcUrl("jdbc:h2:mem:migration-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        config.setUser("sa");
+        config.setPassword("");
+        return config;
+    }
+
+    private static Connection connect(JDBCUrlDatabaseConfig config) throws SQLException {
+        return DriverManager.getConnection(config.getJdbcUrl(), config.getUser(), config.getPassword());
+    }
+
+    private static long countCompletedMigrations(JDBCUrlDatabaseConfig config) throws SQLException {
+        try (Connection connection = connect(config);
+             ResultSet resultSet = connection.createStatement().executeQuery(
+                     "select count(*) from schema_version where executionMillis >= 0")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package de.morihofi.acmeserver.database.objects;
+
+import de.morihofi.acmeserver.certificate.acme.challenges.AcmeChallengeType;
+import de.morihofi.acmeserver.config.Config;
+import de.morihofi.acmeserver.config.databaseConfig.JDBCUrlDatabaseConfig;
+import de.morihofi.acmeserver.database.AcmeStatus;
+import de.morihofi.acmeserver.database.HibernateUtil;
+import de.morihofi.acmeserver.tools.ServerInstance;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Looks up reusable authorizations in an H2 database migrated with the V3 authorization reuse migration.
+ */
+class ACMEOrderIdentifierReuseTest {
+
+    private static final String DOMAIN = "www.example.com";
+
+    private HibernateUtil hibernateUtil;
+    private ServerInstance serverInstance;
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        JDBCUrlDatabaseConfig databaseConfig = new JDBCUrlDatabaseConfig();
+        databaseConfig.setJdbcUrl("jdbc:h2:mem:reuse-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        databaseConfig.setUser("sa");
+        databaseConfig.setPassword("");
+        // The reuse columns and index must come from the migrations, not from Hibernate
+        databaseConfig.setSchemaManagement("validate");
+        Config config = new Config();
+        config.setDatabase(databaseConfig);
+        hibernateUtil = new HibernateUtil(config, false);
+        serverInstance = new ServerInstance(config, null, false, null, null, hibernateUtil, null, null);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        hibernateUtil.shutdown();
+    }
+
+    @Test
+    @DisplayName("A valid authorization of the account is reused with its challenges")
+    void validAuthorizationIsReused() {
+        ACMEAccount account = persistAccount();
+        ACMEOrderIdentifier validated = persistAuthorization(account, DOMAIN, AcmeStatus.VALID, Instant.now().minus(1, ChronoUnit.HOURS));
+
+        ACMEOrderIdentifier reusable = findReusable(account, DOMAIN);
+
+        assertNotNull(reusable);
+        assertEquals(validated.getAuthorizationId(), reusable.getAuthorizationId());
+        assertEquals(1, reusable.getChallenges().size());
+        assertEquals(AcmeStatus.VALID, reusable.getChallenges().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("The most recently validated authorization is reused")
+    void mostRecentAuthorizationIsReused() {
+        ACMEAccount account = persistAccount();
+        persistAuthorization(account, DOMAIN, AcmeStatus.VALID, Instant.now().minus(5, ChronoUnit.HOURS));
+        ACMEOrderIdentifier recent = persistAuthorization(account, DOMAIN, AcmeStatus.VALID, Instant.now().minus(1, ChronoUnit.HOURS));
+
+        assertEquals(recent.getAuthorizationId(), findReusable(account, DOMAIN).getAuthorizationId());
+    }
+
+    @Test
+    @DisplayName("An expired authorization is not reused")
+    void expiredAuthorizationIsNotReused() {
+        ACMEAccount account = persistAccount();
+        persistAuthorization(account, DOMAIN, AcmeStatus.VALID, Instant.now().minus(25, ChronoUnit.HOURS));
+
+        assertNull(findReusable(account, DOMAIN));
+    }
+
+    @Test
+    @DisplayName("The authorization of another account is not reused")
+    void otherAccountsAuthorizationIsNotReused() {
+        ACMEAccount owner = persistAccount();
+        ACMEAccount other = persistAccount();
+        persistAuthorization(owner, DOMAIN, AcmeStatus.VALID, Instant.now().minus(1, ChronoUnit.HOURS));
+
+        assertNull(findReusable(other, DOMAIN));
+        assertNotNull(findReusable(owner, DOMAIN));
+    }
+
+    @Test
+    @DisplayName("Invalid and pending authorizations and other identifiers are not reused")
+    void invalidAuthorizationIsNotReused() {
+        ACMEAccount account = persistAccount();
+        persistAuthorization(account, DOMAIN, AcmeStatus.INVALID, Instant.now().minus(1, ChronoUnit.HOURS));
+        persistAuthorization(account, DOMAIN, AcmeStatus.PENDING, null);
+        persistAuthorization(account, "other.example.com", AcmeStatus.VALID, Instant.now().minus(1, ChronoUnit.HOURS));
+
+        assertNull(findReusable(account, DOMAIN));
+    }
+
+    /**
+     * Looks up a reusable authorization with a lifetime of 24 hours.
+     */
+    private ACMEOrderIdentifier findReusable(ACMEAccount account, String domain) {
+        return ACMEOrderIdentifier.findReusableAuthorization(account.getAccountId(), "dns", domain,
+                Timestamp.from(Instant.now().minus(24, ChronoUnit.HOURS)), serverInstance);
+    }
+
+    private ACMEAccount persistAccount() {
+        ACMEAccount account = new ACMEAccount();
+        account.setAccountId(UUID.randomUUID().toString());
+        account.setProvisioner("default");
+        account.setEmails(List.of("admin@example.com"));
+        account.setDeactivated(false);
+        persist(account);
+        return account;
+    }
+
+    /**
+     * Persists an order of the account with one identifier in the given authorization state and a challenge in the same state.
+     */
+    private ACMEOrderIdentifier persistAuthorization(ACMEAccount account, String domain, AcmeStatus status, Instant validated) {
+        Instant now = Instant.now();
+        ACMEOrder order = new ACMEOrder();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setAccount(account);
+        order.setCreated(Timestamp.from(now));
+        order.setExpires(Timestamp.from(now.plus(1, ChronoUnit.DAYS)));
+        order.setCertificateId(UUID.randomUUID().toString());
+
+        ACMEOrderIdentifier identifier = new ACMEOrderIdentifier("dns", domain);
+        identifier.setIdentifierId(UUID.randomUUID().toString());
+        identifier.setAuthorizationId(UUID.randomUUID().toString());
+        identifier.setAccountId(account.getAccountId());
+        identifier.setAuthorizationStatus(status);
+        identifier.setAuthorizationValidated(validated != null ? Timestamp.from(validated) : null);
+        identifier.setHasChallengesGenerated(true);
+        identifier.setOrder(order);
+
+        ACMEOrderIdentifierChallenge challenge = new ACMEOrderIdentifierChallenge(AcmeChallengeType.HTTP_01, identifier);
+        challenge.setStatus(status);
+        challenge.setVerifiedTime(validated != null ? Timestamp.from(validated) : null);
+
+        persist(order, identifier, challenge);
+        return identifier;
+    }
+
+    private void persist(Object... entities) {
+        try (Session session = hibernateUtil.getSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            for (Object entity : entities) {
+                session.persist(entity);
+            }
+            transaction.commit();
+        }
+    }
+}
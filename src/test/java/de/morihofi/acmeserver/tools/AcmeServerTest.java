@@ -17,6 +17,7 @@ import org.shredzone.acme4j.challenge.Challenge;
 import org.shredzone.acme4j.challenge.Dns01Challenge;
 import org.shredzone.acme4j.challenge.Http01Challenge;
 import org.shredzone.acme4j.exception.AcmeException;
+import org.shredzone.acme4j.exception.AcmeServerException;
 import org.shredzone.acme4j.util.KeyPairUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +34,9 @@ import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class AcmeServerTest {
@@ -43,6 +46,7 @@ public class AcmeServerTest {
     private static final Path acmeClientWorkingDir;
     private static final String PROVISIONER_NAME_NORESTRICTION = "unrestricted";
     private static final String PROVISIONER_NAME_RESTRICTION = "domainrestricted";
+    private static final String PROVISIONER_NAME_NOREUSE = "noreuse";
     private static final String keystoreName = "keystore-unittest-" + UUID.randomUUID().toString() + ".p12";
 
     static {
@@ -76,6 +80,8 @@ public class AcmeServerTest {
         embeddedServer.configureRsaRootCertificate(1, 0, 0, "ACME Server");
         embeddedServer.addSimpleProvisioner(PROVISIONER_NAME_NORESTRICTION, 1, 0, 0, Collections.emptyList()); // Allow all
         embeddedServer.addSimpleProvisioner(PROVISIONER_NAME_RESTRICTION, 1, 0, 0, List.of("notlocalhost")); // Restrict only to be end with notlocalhost
+        embeddedServer.addSimpleProvisioner(PROVISIONER_NAME_NOREUSE, 1, 0, 0, Collections.emptyList()); // Validate every order again
+        embeddedServer.getConfig().getProvisioner().get(2).getAuthorization().setReuseEnabled(false);
         embeddedServer.start();
 
         // TLS Configuration for trusting our just in time generated Root CA
@@ -515,6 +521,92 @@ public class AcmeServerTest {
         });
     }
 
+    /**
+     * A new order of the same account reuses the valid authorization of the previous order and is ready right away
+     *
+     * @throws AcmeException
+     * @throws IOException
+     */
+    @Test
+    public void acmeServerTestAuthorizationReuse() throws AcmeException, IOException {
+        fetchCertificate(Collections.singleton("localhost"), PROVISIONER_NAME_NORESTRICTION);
+
+        Order order = createOrder("localhost", PROVISIONER_NAME_NORESTRICTION);
+        assertEquals(Status.READY, order.getStatus());
+
+        Authorization authorization = order.getAuthorizations().get(0);
+        assertEquals(Status.VALID, authorization.getStatus());
+        // Valid authorizations expire after the default lifetime of 720 hours
+        Instant expires = authorization.getExpires().orElseThrow();
+        assertTrue(expires.isAfter(Instant.now().plus(719, ChronoUnit.HOURS)));
+        assertTrue(expires.isBefore(Instant.now().plus(721, ChronoUnit.HOURS)));
+    }
+
+    /**
+     * With authorization reuse disabled, every order has to be validated again
+     *
+     * @throws AcmeException
+     * @throws IOException
+     */
+    @Test
+    public void acmeServerTestAuthorizationReuseDisabled() throws AcmeException, IOException {
+        fetchCertificate(Collections.singleton("localhost"), PROVISIONER_NAME_NOREUSE);
+
+        Order order = createOrder("localhost", PROVISIONER_NAME_NOREUSE);
+        assertEquals(Status.PENDING, order.getStatus());
+        assertEquals(Status.PENDING, order.getAuthorizations().get(0).getStatus());
+    }
+
+    /**
+     * Looking up an account with a key that was never registered fails with accountDoesNotExist
+     *
+     * @throws AcmeException
+     */
+    @Test
+    public void acmeServerTestOnlyReturnExistingUnknownKey() throws AcmeException {
+        Session session = new Session(getCaUri(PROVISIONER_NAME_NORESTRICTION));
+        AccountBuilder accountBuilder = new AccountBuilder()
+                .onlyExisting()
+                .useKeyPair(ACCOUNT_KEY_SUPPLIER.get());
+
+        AcmeServerException exception = assertThrows(AcmeServerException.class, () -> accountBuilder.create(session));
+        assertEquals(URI.create("urn:ietf:params:acme:error:accountDoesNotExist"), exception.getType());
+    }
+
+    /**
+     * Looking up or registering an account with a registered key returns the existing account
+     *
+     * @throws AcmeException
+     */
+    @Test
+    public void acmeServerTestOnlyReturnExistingKnownKey() throws AcmeException {
+        Session session = new Session(getCaUri(PROVISIONER_NAME_NORESTRICTION));
+        KeyPair accountKey = ACCOUNT_KEY_SUPPLIER.get();
+        Account account = findOrRegisterAccount(session, accountKey);
+
+        Account existingAccount = new AccountBuilder()
+                .onlyExisting()
+                .useKeyPair(accountKey)
+                .create(session);
+        assertEquals(account.getLocation(), existingAccount.getLocation());
+
+        // Registering the key again does not create a second account
+        assertEquals(account.getLocation(), findOrRegisterAccount(session, accountKey).getLocation());
+    }
+
+    /**
+     * Creates an order for a domain with the account of the user key pair, without authorizing it.
+     *
+     * @param domain      Domain to order a certificate for
+     * @param provisioner Name of the provisioner
+     * @return The created order
+     */
+    private Order createOrder(String domain, String provisioner) throws AcmeException, IOException {
+        Session session = new Session(getCaUri(provisioner));
+        Account acct = findOrRegisterAccount(session, loadOrCreateUserKeyPair());
+        return acct.newOrder().domain(domain).create();
+    }
+
     @AfterAll
     public void cleanup() throws IOException {
         Files.deleteIfExists(Paths.get(keystoreName));
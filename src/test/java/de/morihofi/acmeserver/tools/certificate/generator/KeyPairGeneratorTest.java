@@ -0,0 +1,61 @@
+package de.morihofi.acmeserver.tools.certificate.generator;
+
+import de.morihofi.acmeserver.config.certificateAlgorithms.EcdsaAlgorithmParams;
+import de.morihofi.acmeserver.config.certificateAlgorithms.RSAAlgorithmParams;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.spec.ECGenParameterSpec;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyPairGeneratorTest {
+
+    @BeforeAll
+    static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    @DisplayName("An ECDSA key only matches its own curve, not another curve of the same size")
+    void ecdsaKeyMatchesOnlyItsCurve() throws Exception {
+        PublicKey secp256r1 = KeyPairGenerator.generateEcdsaKeyPair("secp256r1", "BC").getPublic();
+        PublicKey secp256k1 = KeyPairGenerator.generateEcdsaKeyPair("secp256k1", "BC").getPublic();
+
+        assertTrue(KeyPairGenerator.matchesAlgorithm(secp256r1, new EcdsaAlgorithmParams("secp256r1")));
+        assertTrue(KeyPairGenerator.matchesAlgorithm(secp256k1, new EcdsaAlgorithmParams("secp256k1")));
+        assertFalse(KeyPairGenerator.matchesAlgorithm(secp256k1, new EcdsaAlgorithmParams("secp256r1")));
+        assertFalse(KeyPairGenerator.matchesAlgorithm(secp256r1, new EcdsaAlgorithmParams("secp256k1")));
+        assertFalse(KeyPairGenerator.matchesAlgorithm(secp256r1, new EcdsaAlgorithmParams("secp384r1")));
+    }
+
+    @Test
+    @DisplayName("Curve aliases and keys of other providers match the configured curve")
+    void ecdsaKeyOfOtherProviderMatches() throws Exception {
+        java.security.KeyPairGenerator sunEc = java.security.KeyPairGenerator.getInstance("EC", "SunEC");
+        sunEc.initialize(new ECGenParameterSpec("secp384r1"));
+        PublicKey publicKey = sunEc.generateKeyPair().getPublic();
+
+        assertTrue(KeyPairGenerator.matchesAlgorithm(publicKey, new EcdsaAlgorithmParams("secp384r1")));
+        assertTrue(KeyPairGenerator.matchesAlgorithm(publicKey, new EcdsaAlgorithmParams("P-384")));
+        assertFalse(KeyPairGenerator.matchesAlgorithm(publicKey, new EcdsaAlgorithmParams("brainpoolP384r1")));
+    }
+
+    @Test
+    @DisplayName("RSA keys match by key size and never match an ECDSA configuration")
+    void rsaKeyMatchesKeySize() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.generateRSAKeyPair(2048, "BC");
+
+        assertTrue(KeyPairGenerator.matchesAlgorithm(keyPair.getPublic(), new RSAAlgorithmParams(2048)));
+        assertFalse(KeyPairGenerator.matchesAlgorithm(keyPair.getPublic(), new RSAAlgorithmParams(4096)));
+        assertFalse(KeyPairGenerator.matchesAlgorithm(keyPair.getPublic(), new EcdsaAlgorithmParams("secp256r1")));
+        assertFalse(KeyPairGenerator.matchesAlgorithm(KeyPairGenerator.generateEcdsaKeyPair("secp256r1", "BC").getPublic(),
+                new RSAAlgorithmParams(2048)));
+    }
+}
@@ -0,0 +1,28 @@
+package de.morihofi.acmeserver.tools.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DaemonThreadsTest {
+
+    @Test
+    @DisplayName("Threads are daemon threads numbered per factory")
+    void threadsAreNamedDaemonThreads() {
+        ThreadFactory factory = DaemonThreads.newThreadFactory("worker-");
+        Thread first = factory.newThread(() -> {
+        });
+        Thread second = factory.newThread(() -> {
+        });
+
+        assertTrue(first.isDaemon());
+        assertEquals("worker-1", first.getName());
+        assertEquals("worker-2", second.getName());
+        assertEquals("other-1", DaemonThreads.newThreadFactory("other-").newThread(() -> {
+        }).getName());
+    }
+}
@@ -0,0 +1,55 @@
+package de.morihofi.acmeserver.tools.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("The Java 17 implementation reports virtual threads as unsupported")
+    void java17ImplementationIsUnsupported() {
+        assertFalse(VirtualThreads.isSupported());
+        assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.newVirtualThreadPerTaskExecutor("test-"));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @DisplayName("The Java 21 implementation runs tasks on named virtual threads")
+    void java21ImplementationRunsTasksOnVirtualThreads() throws Exception {
+        // Tests run on the class directory, which is not read like a multi-release jar, so the Java 21 class is loaded explicitly
+        Path classes = Path.of(VirtualThreads.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path java21Classes = classes.resolve("META-INF/versions/21");
+        assumeTrue(Files.isDirectory(java21Classes), "The Java 21 classes are compiled by the java21 profile");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{java21Classes.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader())) {
+            Class<?> java21VirtualThreads = classLoader.loadClass(VirtualThreads.class.getName());
+            assertEquals(true, java21VirtualThreads.getMethod("isSupported").invoke(null));
+
+            ExecutorService executor = (ExecutorService) java21VirtualThreads.getMethod("newVirtualThreadPerTaskExecutor", String.class)
+                    .invoke(null, "test-");
+            try {
+                Thread thread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+                assertEquals("test-0", thread.getName());
+                // Compiled for Java 17, where Thread.isVirtual() does not exist
+                assertEquals(true, Thread.class.getMethod("isVirtual").invoke(thread));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.morihofi.acmeserver.tools.crypto;
+
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.junit.jupiter.api.Test;
+
+import java.security.PublicKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AcmeTokenCryptographyTest {
+
+    /**
+     * Example key of RFC 7638, section 3.1.
+     */
+    private static final String RFC_7638_JWK = "{\"kty\":\"RSA\",\"n\":\"0vx7agoebGcQSuuPiLJXZptN9nndrQmbXEps2aiAFbWhM78LhWx4cbbfAAt"
+            + "VT86zwu1RK7aPFFxuhDR1L6tSoc_BJECPebWKRXjBZCiFV4n3oknjhMstn64tZ_2W-5JsGY4Hc5n9yBXArwl93lqt7_RN5w6Cf0h4QyQ5v-65YGjQR0_FDW2Q"
+            + "vzqY368QQMicAtaSqzs8KJZgnYb9c7d0zgdAZHzu6qMQvRL5hajrn1n91CbOpbISD08qNLyrdkt-bFTWhAI4vMQFh6WeZu0fM4lFd2NcRwr3XPksINHaQ-G_x"
+            + "BniIqbw0Ls1jF44-csFCur-kEgU8awapJzKnqDKgw\",\"e\":\"AQAB\",\"alg\":\"RS256\",\"kid\":\"2011-04-29\"}";
+
+    @Test
+    void encodedThumbprintMatchesRfc7638Example() throws Exception {
+        PublicKey key = ((PublicJsonWebKey) JsonWebKey.Factory.newJwk(RFC_7638_JWK)).getPublicKey();
+        assertEquals("NzbLsXh8uDCcd-6MNwXF4W_7noWXFZAfHkxZsRGC9Xs", AcmeTokenCryptography.encodedThumbprint(key));
+    }
+
+    @Test
+    void keyAuthorizationFromStoredThumbprintMatchesKey() throws Exception {
+        PublicKey key = ((PublicJsonWebKey) JsonWebKey.Factory.newJwk(RFC_7638_JWK)).getPublicKey();
+        String thumbprint = AcmeTokenCryptography.encodedThumbprint(key);
+        assertEquals(AcmeTokenCryptography.keyAuthorizationFor("token", key), AcmeTokenCryptography.keyAuthorizationFor("token", thumbprint));
+        assertEquals("token.NzbLsXh8uDCcd-6MNwXF4W_7noWXFZAfHkxZsRGC9Xs", AcmeTokenCryptography.keyAuthorizationFor("token", thumbprint));
+    }
+}
@@ -0,0 +1,131 @@
+package de.morihofi.acmeserver.tools.json;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.internal.ConstructorConstructor;
+import com.google.gson.internal.Excluder;
+import com.google.gson.internal.bind.JsonAdapterAnnotationTypeAdapterFactory;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.authz.objects.AuthzResponse;
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.authz.objects.ChallengeResponse;
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.Identifier;
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.objects.NewOrderRequestPayload;
+import de.morihofi.acmeserver.certificate.acme.api.endpoints.order.objects.ACMEOrderResponse;
+import de.morihofi.acmeserver.certificate.objects.ACMERequestBody;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Compares the hand-written streaming adapters of the ACME objects with Gson's reflective adapter.
+ */
+class GsonAdapterTest {
+
+    private static final Gson GSON = GsonProvider.getGson();
+
+    /**
+     * Gson instance using the reflective adapter for the ACME objects, ignoring their {@code @JsonAdapter} annotation.
+     */
+    private static final Gson REFLECTIVE_GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .registerTypeAdapterFactory(reflectiveAdapterFactory())
+            .create();
+
+    private static final String IDENTIFIER = "{\"type\":\"dns\",\"value\":\"example.com\"}";
+
+    private static final String CHALLENGE = "{\"type\":\"http-01\",\"url\":\"https://acme.example.com/acme/chall/1\",\"token\":\"token\","
+            + "\"status\":\"valid\",\"validated\":\"2024-01-01T00:00:00Z\",\"error\":{\"type\":\"urn:ietf:params:acme:error:dns\"}}";
+
+    static Stream<Arguments> objects() {
+        Map<Class<?>, String> objects = Map.of(
+                Identifier.class, "{\"type\":\"dns\",\"value\":\"example.com\",\"unknown\":{\"nested\":[1,\"two\",null,{\"x\":[]}]}}",
+                ChallengeResponse.class, CHALLENGE,
+                AuthzResponse.class, "{\"status\":\"pending\",\"expires\":\"2024-01-08T00:00:00Z\",\"identifier\":" + IDENTIFIER
+                        + ",\"challenges\":[" + CHALLENGE + "],\"wildcard\":false}",
+                ACMEOrderResponse.class, "{\"status\":\"ready\",\"expires\":\"2024-01-08T00:00:00Z\",\"issued\":\"2024-01-01T00:00:00Z\","
+                        + "\"finalize\":\"https://acme.example.com/acme/order/1/finalize\",\"certificate\":\"https://acme.example.com/cert/1\","
+                        + "\"identifiers\":[" + IDENTIFIER + "],\"authorizations\":[\"https://acme.example.com/acme/authz/1\"],"
+                        + "\"notBefore\":\"2024-01-01T00:00:00Z\"}",
+                ACMERequestBody.class, "{\"protected\":\"eyJhbGciOiJFUzI1NiJ9\",\"payload\":\"\",\"signature\":\"c2lnbmF0dXJl\","
+                        + "\"header\":{\"kid\":1}}",
+                NewOrderRequestPayload.class, "{\"identifiers\":[" + IDENTIFIER + "],\"notAfter\":" + GSON.toJson(new Date(1_700_000_000_000L))
+                        + ",\"notBefore\":\"2024-01-01T00:00:00Z\"}");
+
+        return objects.entrySet().stream().flatMap(object -> Stream.of(
+                Arguments.of(object.getKey(), object.getValue()),
+                Arguments.of(object.getKey(), withNullValues(object.getValue())),
+                Arguments.of(object.getKey(), "{}")));
+    }
+
+    @ParameterizedTest(name = "{0}: {1}")
+    @MethodSource("objects")
+    void matchesReflectiveAdapter(Class<?> type, String json) throws Exception {
+        TypeAdapter<?> streamingAdapter = GSON.getAdapter(type);
+        TypeAdapter<?> reflectiveAdapter = REFLECTIVE_GSON.getAdapter(type);
+        assertInstanceOf(ReflectiveTypeAdapterFactory.Adapter.class, reflectiveAdapter);
+
+        // Unknown properties are skipped and null values read as null
+        Object streamingRead = streamingAdapter.fromJson(json);
+        Object reflectiveRead = reflectiveAdapter.fromJson(json);
+        JsonElement expected = write(reflectiveAdapter, reflectiveRead);
+        assertEquals(expected, write(reflectiveAdapter, streamingRead));
+
+        // Same properties, null values omitted and dates in the same format
+        assertEquals(expected, write(streamingAdapter, reflectiveRead));
+    }
+
+    /**
+     * Creates Gson's reflective adapter factory, restricted to the classes of this project. Registered factories take precedence over
+     * the {@code @JsonAdapter} annotation.
+     */
+    private static TypeAdapterFactory reflectiveAdapterFactory() {
+        ConstructorConstructor constructorConstructor = new ConstructorConstructor(Map.of(), true, List.of());
+        TypeAdapterFactory reflectiveFactory = new ReflectiveTypeAdapterFactory(constructorConstructor, FieldNamingPolicy.IDENTITY,
+                Excluder.DEFAULT, new JsonAdapterAnnotationTypeAdapterFactory(constructorConstructor), List.of());
+        return new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                return type.getRawType().getName().startsWith("de.morihofi.acmeserver.") ? reflectiveFactory.create(gson, type) : null;
+            }
+        };
+    }
+
+    /**
+     * Writes a value like {@link Gson#toJson(Object)} does, which omits null values.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> JsonElement write(TypeAdapter<T> adapter, Object value) throws IOException {
+        StringWriter json = new StringWriter();
+        adapter.write(GSON.newJsonWriter(json), (T) value);
+        return JsonParser.parseString(json.toString());
+    }
+
+    /**
+     * Sets every property of the given JSON object to null.
+     */
+    private static String withNullValues(String json) {
+        JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        for (String property : object.keySet()) {
+            object.add(property, JsonNull.INSTANCE);
+        }
+        return object.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package de.morihofi.acmeserver.tools.network.dns;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.Type;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DNSLookupTest {
+
+    /**
+     * Local stand-in DNS server answering every A query with 192.0.2.1 and every AAAA query with 2001:db8::1.
+     */
+    private static DatagramSocket startAnsweringServer() throws IOException {
+        DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[512];
+            while (!socket.isClosed()) {
+                try {
+                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                    socket.receive(packet);
+                    Message query = new Message(packet.getData());
+                    Record question = query.getQuestion();
+
+                    Message response = new Message(query.getHeader().getID());
+                    response.getHeader().setFlag(Flags.QR);
+                    response.getHeader().setFlag(Flags.RA);
+                    response.addRecord(question, Section.QUESTION);
+                    if (question.getType() == Type.A) {
+                        response.addRecord(new ARecord(question.getName(), DClass.IN, 60, InetAddress.getByName("192.0.2.1")), Section.ANSWER);
+                    } else if (question.getType() == Type.AAAA) {
+                        response.addRecord(new AAAARecord(question.getName(), DClass.IN, 60, InetAddress.getByName("2001:db8::1")), Section.ANSWER);
+                    }
+                    byte[] wire = response.toWire();
+                    socket.send(new DatagramPacket(wire, wire.length, packet.getSocketAddress()));
+                } catch (IOException e) {
+                    // Socket closed
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return socket;
+    }
+
+    @Test
+    @DisplayName("A dead DNS server doesn't delay lookups, the next server is raced")
+    void deadServerIsRaced() throws IOException {
+        try (DatagramSocket dead = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+             DatagramSocket live = startAnsweringServer()) {
+            List<String> servers = List.of("127.0.0.1:" + dead.getLocalPort(), "127.0.0.1:" + live.getLocalPort());
+
+            long start = System.nanoTime();
+            List<InetAddress> addresses = DNSLookup.lookupHostnameUsingDnsServerList("example.com", servers);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(List.of(InetAddress.getByName("192.0.2.1"), InetAddress.getByName("2001:db8::1")), addresses);
+            // The resolver timeout of the dead server is 10 seconds
+            assertTrue(elapsedMillis < 3_000, "took " + elapsedMillis + " ms");
+        }
+    }
+}
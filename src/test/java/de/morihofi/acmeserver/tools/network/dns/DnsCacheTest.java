@@ -0,0 +1,171 @@
+package de.morihofi.acmeserver.tools.network.dns;
+
+import de.morihofi.acmeserver.config.network.DNSConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DnsCacheTest {
+
+    private static final Name NAME = Name.fromConstantString("example.com.");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger resolutions = new AtomicInteger();
+
+    private DnsCache createCache() {
+        DNSConfig config = new DNSConfig();
+        config.setCacheMinTtlSeconds(5);
+        config.setCacheMaxTtlSeconds(300);
+        config.setCacheNegativeTtlSeconds(30);
+        return new DnsCache(config, clock::get);
+    }
+
+    private static List<Record> aRecord(long ttl) throws IOException {
+        return List.of(new ARecord(NAME, DClass.IN, ttl, InetAddress.getByName("192.0.2.1")));
+    }
+
+    private List<Record> lookup(DnsCache cache, DnsCache.Answer answer) throws IOException {
+        return cache.lookup("resolver", NAME, Type.A, () -> {
+            resolutions.incrementAndGet();
+            return answer;
+        });
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    @DisplayName("Answers are cached for their TTL, limited by the configured bounds")
+    void ttl() throws IOException {
+        DnsCache cache = createCache();
+        DnsCache.Answer answer = DnsCache.Answer.of(aRecord(60));
+
+        assertEquals(1, lookup(cache, answer).size());
+        advanceSeconds(59);
+        lookup(cache, answer);
+        assertEquals(1, resolutions.get());
+        advanceSeconds(1);
+        lookup(cache, answer);
+        assertEquals(2, resolutions.get());
+
+        // TTL below the minimum
+        cache.clear();
+        lookup(cache, DnsCache.Answer.of(aRecord(1)));
+        advanceSeconds(4);
+        lookup(cache, DnsCache.Answer.of(aRecord(1)));
+        assertEquals(3, resolutions.get());
+
+        // TTL above the maximum
+        cache.clear();
+        lookup(cache, DnsCache.Answer.of(aRecord(86400)));
+        advanceSeconds(300);
+        lookup(cache, DnsCache.Answer.of(aRecord(86400)));
+        assertEquals(5, resolutions.get());
+    }
+
+    @Test
+    @DisplayName("Negative answers are cached for the SOA TTL, limited by the negative TTL")
+    void negative() throws IOException {
+        DnsCache cache = createCache();
+
+        assertTrue(lookup(cache, DnsCache.Answer.negative(10)).isEmpty());
+        advanceSeconds(9);
+        lookup(cache, DnsCache.Answer.negative(10));
+        assertEquals(1, resolutions.get());
+        advanceSeconds(1);
+        lookup(cache, DnsCache.Answer.negative(3600));
+        advanceSeconds(29);
+        lookup(cache, DnsCache.Answer.negative(3600));
+        assertEquals(2, resolutions.get());
+        advanceSeconds(1);
+        lookup(cache, DnsCache.Answer.negative(-1));
+        assertEquals(3, resolutions.get());
+    }
+
+    @Test
+    @DisplayName("Failed resolutions are not cached")
+    void failure() {
+        DnsCache cache = createCache();
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IOException.class, () -> cache.lookup("resolver", NAME, Type.A, () -> {
+                resolutions.incrementAndGet();
+                throw new IOException("timeout");
+            }));
+        }
+        assertEquals(2, resolutions.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of the same query share one resolution")
+    void coalescing() throws Exception {
+        DnsCache cache = createCache();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Record> records = aRecord(60);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<List<Record>> first = executor.submit(() -> cache.lookup("resolver", NAME, Type.A, () -> {
+                resolutions.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return DnsCache.Answer.of(records);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<List<Record>>> others = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                others.add(executor.submit(() -> lookup(cache, DnsCache.Answer.of(records))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(records, first.get(5, TimeUnit.SECONDS));
+            for (Future<List<Record>> other : others) {
+                assertEquals(records, other.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, resolutions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Answers of different resolvers are cached separately")
+    void resolverKey() throws IOException {
+        DnsCache cache = createCache();
+        DnsCache.Answer answer = DnsCache.Answer.of(aRecord(60));
+
+        lookup(cache, answer);
+        cache.lookup("other-resolver", NAME, Type.A, () -> {
+            resolutions.incrementAndGet();
+            return answer;
+        });
+        assertEquals(2, resolutions.get());
+    }
+}
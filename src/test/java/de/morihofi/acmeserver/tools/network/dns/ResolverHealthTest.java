@@ -0,0 +1,44 @@
+package de.morihofi.acmeserver.tools.network.dns;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolverHealthTest {
+
+    @Test
+    @DisplayName("Failing servers are queried last until their backoff has passed")
+    void backoff() {
+        AtomicLong clock = new AtomicLong();
+        ResolverHealth health = new ResolverHealth(clock::get);
+        List<String> servers = List.of("dead", "live");
+
+        for (int i = 0; i < ResolverHealth.FAILURE_THRESHOLD - 1; i++) {
+            health.recordFailure("dead");
+        }
+        assertEquals(servers, health.order(servers));
+
+        health.recordFailure("dead");
+        assertTrue(health.isDown("dead"));
+        assertEquals(List.of("live", "dead"), health.order(servers));
+
+        clock.addAndGet(ResolverHealth.INITIAL_BACKOFF_NANOS);
+        assertFalse(health.isDown("dead"));
+        assertEquals(servers, health.order(servers));
+
+        // Failing again doubles the backoff
+        health.recordFailure("dead");
+        clock.addAndGet(ResolverHealth.INITIAL_BACKOFF_NANOS);
+        assertTrue(health.isDown("dead"));
+        clock.addAndGet(ResolverHealth.INITIAL_BACKOFF_NANOS);
+        assertFalse(health.isDown("dead"));
+
+        health.recordSuccess("dead");
+        health.recordFailure("dead");
+        assertFalse(health.isDown("dead"));
+    }
+}
@@ -0,0 +1,205 @@
+package de.morihofi.acmeserver.tools.network.logging;
+
+import de.morihofi.acmeserver.config.AccessLogConfig;
+import de.morihofi.acmeserver.config.Config;
+import de.morihofi.acmeserver.config.ServerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HTTPAccessLoggerTest {
+
+    private static final long BLOCK_TIMEOUT_MILLIS = 20;
+
+    @TempDir
+    Path logDirectory;
+
+    @Test
+    @DisplayName("Entries are buffered and only counted as written once the buffer is flushed")
+    void entriesAreWrittenInBatches() throws Exception {
+        AccessLogConfig accessLogConfig = new AccessLogConfig();
+        accessLogConfig.setFlushIntervalMillis(60_000);
+        HTTPAccessLogger logger = new HTTPAccessLogger(config(accessLogConfig));
+        try {
+            for (int i = 0; i < 10; i++) {
+                log(logger, i);
+            }
+            waitForEmptyQueue(logger);
+
+            assertEquals(0, logger.getWrittenEntries());
+            assertEquals(0, Files.size(currentLogFile()));
+        } finally {
+            logger.stop();
+        }
+
+        assertEquals(10, logger.getWrittenEntries());
+        assertEquals(requests(0, 10), readRequests(currentLogFile()));
+    }
+
+    @Test
+    @DisplayName("drop-oldest keeps the newest entries when the queue is full")
+    void dropOldestKeepsNewestEntries() throws Exception {
+        HTTPAccessLogger logger = fillQueue("drop-oldest");
+
+        assertEquals(requests(3, 5), writeQueue(logger));
+        assertEquals(2, logger.getWrittenEntries());
+    }
+
+    @Test
+    @DisplayName("drop-newest keeps the oldest entries when the queue is full")
+    void dropNewestKeepsOldestEntries() throws Exception {
+        HTTPAccessLogger logger = fillQueue("drop-newest");
+
+        assertEquals(requests(0, 2), writeQueue(logger));
+        assertEquals(2, logger.getWrittenEntries());
+    }
+
+    @Test
+    @DisplayName("block waits for the timeout before dropping the new entry")
+    void blockWaitsBeforeDropping() throws Exception {
+        long start = System.nanoTime();
+        HTTPAccessLogger logger = fillQueue("block");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 3 * BLOCK_TIMEOUT_MILLIS, "Waited " + elapsedMillis + " ms");
+        assertEquals(requests(0, 2), writeQueue(logger));
+        assertEquals(2, logger.getWrittenEntries());
+    }
+
+    @Test
+    @DisplayName("A full log file is rotated between two lines and compressed")
+    void fullLogFileIsRotatedAndCompressed() throws Exception {
+        AccessLogConfig accessLogConfig = new AccessLogConfig();
+        accessLogConfig.setFlushIntervalMillis(60_000);
+        accessLogConfig.setMaxFileSizeMb(1);
+        accessLogConfig.setCompressRotatedFiles(true);
+        HTTPAccessLogger logger = new HTTPAccessLogger(config(accessLogConfig));
+        // About 1.5 MB of log lines, one rotation
+        int entries = 8000;
+        try {
+            for (int i = 0; i < entries; i++) {
+                log(logger, i);
+            }
+        } finally {
+            logger.stop();
+        }
+
+        Path rotatedFile = logDirectory.resolve("access_" + today() + ".1.log");
+        Path compressedFile = Path.of(rotatedFile + ".gz");
+        assertFalse(Files.exists(rotatedFile));
+        assertTrue(Files.exists(compressedFile));
+        assertFalse(Files.exists(logDirectory.resolve("access_" + today() + ".2.log.gz")));
+
+        List<String> rotatedRequests = readRequests(compressedFile);
+        List<String> currentRequests = readRequests(currentLogFile());
+        assertTrue(Files.size(currentLogFile()) < 1024 * 1024);
+
+        // Every line is complete and in exactly one of the files
+        List<String> allRequests = new ArrayList<>(rotatedRequests);
+        allRequests.addAll(currentRequests);
+        assertEquals(requests(0, entries), allRequests);
+        assertEquals(entries, logger.getWrittenEntries());
+    }
+
+    /**
+     * Logs five entries into a queue of two entries, without a running writer.
+     */
+    private HTTPAccessLogger fillQueue(String overflowPolicy) throws IOException {
+        AccessLogConfig accessLogConfig = new AccessLogConfig();
+        accessLogConfig.setQueueCapacity(2);
+        accessLogConfig.setOverflowPolicy(overflowPolicy);
+        accessLogConfig.setBlockTimeoutMillis(BLOCK_TIMEOUT_MILLIS);
+        HTTPAccessLogger logger = new HTTPAccessLogger(config(accessLogConfig), false);
+        for (int i = 0; i < 5; i++) {
+            log(logger, i);
+        }
+
+        assertEquals(HTTPAccessLogger.OverflowPolicy.fromConfigValue(overflowPolicy), logger.getOverflowPolicy());
+        assertEquals(2, logger.getQueueCapacity());
+        assertEquals(2, logger.getQueueDepth());
+        assertEquals(3, logger.getDroppedEntries());
+        assertEquals(0, logger.getWrittenEntries());
+        return logger;
+    }
+
+    /**
+     * Starts the writer of a filled queue and stops it once everything is written.
+     */
+    private List<String> writeQueue(HTTPAccessLogger logger) throws IOException {
+        logger.startWriter();
+        logger.stop();
+        assertEquals(0, logger.getQueueDepth());
+        return readRequests(currentLogFile());
+    }
+
+    private Config config(AccessLogConfig accessLogConfig) {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setLoggingDirectory(logDirectory.toString());
+        serverConfig.setAccessLog(accessLogConfig);
+        Config config = new Config();
+        config.setServer(serverConfig);
+        return config;
+    }
+
+    private static void log(HTTPAccessLogger logger, int index) {
+        logger.log("192.0.2.1", null, "GET /acme/order/" + index + " HTTP/1.1", 200, 512, null,
+                "Mozilla/5.0 (X11; Linux x86_64) acme-client/1.0 with a user agent long enough to make the lines realistic");
+    }
+
+    private static List<String> requests(int from, int to) {
+        List<String> requests = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            requests.add("GET /acme/order/" + i + " HTTP/1.1");
+        }
+        return requests;
+    }
+
+    private static void waitForEmptyQueue(HTTPAccessLogger logger) throws InterruptedException {
+        for (int i = 0; i < 100 && logger.getQueueDepth() > 0; i++) {
+            Thread.sleep(50);
+        }
+        // Give the writer time to process the last batch
+        Thread.sleep(300);
+    }
+
+    private Path currentLogFile() {
+        return logDirectory.resolve("access_" + today() + ".log");
+    }
+
+    private static String today() {
+        return DateTimeFormatter.ofPattern("yyyy_MM_dd").format(LocalDate.now());
+    }
+
+    /**
+     * Reads the request lines of a (gzip compressed) log file, failing on incomplete lines.
+     */
+    private static List<String> readRequests(Path logFile) throws IOException {
+        List<String> requests = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(logFile.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(logFile))
+                : Files.newInputStream(logFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                assertTrue(line.matches("192\\.0\\.2\\.1 - - \\[.+] \"GET /acme/order/\\d+ HTTP/1\\.1\" 200 512 \"-\" \".+\""), line);
+                requests.add(line.substring(line.indexOf('"') + 1, line.indexOf('"', line.indexOf('"') + 1)));
+            }
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,85 @@
+package de.morihofi.acmeserver.tools.path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileChangeWatcherTest {
+
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Changes in quick succession invoke the callback once after they have settled")
+    void changesAreDebounced() throws Exception {
+        Path file = Files.writeString(directory.resolve("settings.json"), "{}");
+        AtomicInteger invocations = new AtomicInteger();
+        try (FileChangeWatcher watcher = new FileChangeWatcher(file, invocations::incrementAndGet, DEBOUNCE_MILLIS)) {
+            watcher.start();
+
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(file, "{\"version\": " + i + "}");
+                Thread.sleep(DEBOUNCE_MILLIS / 5);
+            }
+            // Still within the debounce interval of the last change
+            assertEquals(0, invocations.get());
+
+            waitForInvocations(invocations, 1);
+            Thread.sleep(DEBOUNCE_MILLIS * 2);
+            assertEquals(1, invocations.get());
+
+            // A later change invokes the callback again
+            Files.writeString(file, "{\"version\": 5}");
+            waitForInvocations(invocations, 2);
+            assertEquals(2, invocations.get());
+        }
+    }
+
+    @Test
+    @DisplayName("Changes of other files in the directory are ignored")
+    void otherFilesAreIgnored() throws Exception {
+        Path file = Files.writeString(directory.resolve("settings.json"), "{}");
+        AtomicInteger invocations = new AtomicInteger();
+        try (FileChangeWatcher watcher = new FileChangeWatcher(file, invocations::incrementAndGet, DEBOUNCE_MILLIS)) {
+            watcher.start();
+
+            Files.writeString(directory.resolve("other.json"), "{}");
+            Thread.sleep(DEBOUNCE_MILLIS * 4);
+            assertEquals(0, invocations.get());
+        }
+    }
+
+    @Test
+    @DisplayName("A failing callback doesn't stop the watcher")
+    void failingCallbackKeepsWatching() throws Exception {
+        Path file = Files.writeString(directory.resolve("settings.json"), "{}");
+        AtomicInteger invocations = new AtomicInteger();
+        try (FileChangeWatcher watcher = new FileChangeWatcher(file, () -> {
+            invocations.incrementAndGet();
+            throw new IllegalStateException("Invalid configuration");
+        }, DEBOUNCE_MILLIS)) {
+            watcher.start();
+
+            Files.writeString(file, "{\"version\": 1}");
+            waitForInvocations(invocations, 1);
+            Files.writeString(file, "{\"version\": 2}");
+            waitForInvocations(invocations, 2);
+            assertEquals(2, invocations.get());
+        }
+    }
+
+    private static void waitForInvocations(AtomicInteger invocations, int expected) throws InterruptedException {
+        // Watch services without native support poll the file system every few seconds
+        for (int i = 0; i < 200 && invocations.get() < expected; i++) {
+            Thread.sleep(50);
+        }
+    }
+}